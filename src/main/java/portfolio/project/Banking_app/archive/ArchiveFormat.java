@@ -0,0 +1,131 @@
+package portfolio.project.Banking_app.archive;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.zip.CRC32C;
+
+/**
+ * Layout of the archive files of a transactions partition, and the variable-length integer encodings they use.
+ * <p>
+ * An archive consists of a dictionary file and one or more part files. The dictionary lists every account of the
+ * partition, sorted by id, with its account number; the parts refer to accounts by their index in it.
+ * <pre>
+ * dictionary: header  MAGIC_DICTIONARY, VERSION, count, CRC32C of the body
+ *             body    count x (long accountId, int numberOffset, int numberLength), then the UTF-8 account numbers
+ * part:       header  MAGIC_PART, VERSION, long rangeStart, long rangeEnd, long entries, int accounts, int blocks,
+ *                     int indexOffset, int directoryOffset, CRC32C of the body, int reserved
+ *             body    the blocks,
+ *                     block index: blocks x (long firstTimestamp, long firstId, int offset, int count),
+ *                     directory: accounts x (int dictionaryIndex, int firstBlock, int blockCount)
+ * </pre>
+ * Every transaction is stored twice, as an entry of the sender and one of the receiver, sorted by account,
+ * timestamp, id and direction; an account's entries are cut into blocks of up to {@link #BLOCK_SIZE}. A block stores
+ * its entries column by column: timestamp deltas as varints, id deltas and amounts in cents as zigzag varints,
+ * counterparty dictionary indexes as varints and the directions as a bitmap, 1 for received. Timestamps are
+ * microseconds since the epoch, read as UTC; the first timestamp and id of a block are in the block index, so a
+ * reader finds the blocks before a cursor by binary search and decodes only those.
+ * <p>
+ * The headers are big-endian, as {@link ByteBuffer} writes them by default; offsets are relative to the start of
+ * the file, which keeps a part below 2GB so it can be mapped as a whole.
+ */
+final class ArchiveFormat {
+
+    static final int MAGIC_DICTIONARY = 0x54584144;
+    static final int MAGIC_PART = 0x54584150;
+    static final int VERSION = 1;
+
+    static final int DICTIONARY_HEADER_SIZE = 16;
+    static final int DICTIONARY_ENTRY_SIZE = 16;
+
+    static final int PART_HEADER_SIZE = 56;
+    static final int BLOCK_INDEX_ENTRY_SIZE = 24;
+    static final int DIRECTORY_ENTRY_SIZE = 12;
+
+    /**
+     * Maximum number of entries in a block.
+     */
+    static final int BLOCK_SIZE = 128;
+
+    /**
+     * Largest encoded block: per entry at most 10 bytes each for the timestamp, the id and the amount, 5 for the
+     * counterparty, and the direction bitmap.
+     */
+    static final int MAX_BLOCK_BYTES = BLOCK_SIZE * 35 + BLOCK_SIZE / 8;
+
+    private ArchiveFormat() {
+    }
+
+    static Path dictionaryFile(Path directory, String archive) {
+        return directory.resolve(archive + ".dict");
+    }
+
+    static Path partFile(Path directory, String archive, int part) {
+        return directory.resolve(archive + "." + part + ".part");
+    }
+
+    /**
+     * Returns the name a file is written under until it is complete and verified.
+     */
+    static Path temporary(Path file) {
+        return file.resolveSibling(file.getFileName() + ".tmp");
+    }
+
+    static long toMicros(LocalDateTime timestamp) {
+        return Math.addExact(Math.multiplyExact(timestamp.toEpochSecond(ZoneOffset.UTC), 1_000_000L),
+                timestamp.getNano() / 1_000);
+    }
+
+    static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+
+    static void putVarLong(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    static void putZigZag(ByteBuffer buffer, long value) {
+        putVarLong(buffer, (value << 1) ^ (value >> 63));
+    }
+
+    /**
+     * Reads a varint at the position of the cursor and moves it past.
+     */
+    static long getVarLong(ByteBuffer buffer, int[] cursor) {
+        long value = 0;
+        int shift = 0;
+        while (true) {
+            byte b = buffer.get(cursor[0]++);
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+            shift += 7;
+        }
+    }
+
+    static long getZigZag(ByteBuffer buffer, int[] cursor) {
+        long value = getVarLong(buffer, cursor);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Checks the CRC32C of a file's body against the one in its header.
+     *
+     * @throws IOException If they differ.
+     */
+    static void verifyChecksum(ByteBuffer file, int bodyOffset, int expected, String name) throws IOException {
+        CRC32C crc = new CRC32C();
+        crc.update(file.slice(bodyOffset, file.limit() - bodyOffset));
+        if ((int) crc.getValue() != expected) {
+            throw new IOException("Checksum mismatch in archive file " + name);
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package portfolio.project.Banking_app.archive;
+
+import portfolio.project.Banking_app.dto.TransactionHistoryDTO;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static portfolio.project.Banking_app.archive.ArchiveFormat.*;
+
+/**
+ * Reads the history of an account from the memory-mapped files of one archive, see {@link ArchiveFormat}.
+ * <p>
+ * The files are checked when they are opened and only read afterwards, with absolute reads, so one reader serves
+ * any number of threads. A lookup binary-searches the dictionary and the part directories, then the block index
+ * for the block holding the cursor, and decodes blocks from there backwards until it has enough entries; the page
+ * cache keeps the hot parts of the files in memory.
+ */
+final class ArchiveReader {
+
+    private final MappedByteBuffer dictionary;
+    private final int accounts;
+    private final List<Part> parts;
+
+    private ArchiveReader(MappedByteBuffer dictionary, int accounts, List<Part> parts) {
+        this.dictionary = dictionary;
+        this.accounts = accounts;
+        this.parts = parts;
+    }
+
+    /**
+     * Maps and checks the files of an archive.
+     *
+     * @param dictionaryFile The dictionary file.
+     * @param partFiles      The part files.
+     * @throws IOException If a file cannot be read or is corrupt.
+     */
+    static ArchiveReader open(Path dictionaryFile, List<Path> partFiles) throws IOException {
+        MappedByteBuffer dictionary = map(dictionaryFile);
+        if (dictionary.limit() < DICTIONARY_HEADER_SIZE || dictionary.getInt(0) != MAGIC_DICTIONARY
+                || dictionary.getInt(4) != VERSION
+                || DICTIONARY_HEADER_SIZE + (long) dictionary.getInt(8) * DICTIONARY_ENTRY_SIZE > dictionary.limit()) {
+            throw new IOException("Corrupt archive file " + dictionaryFile);
+        }
+        verifyChecksum(dictionary, DICTIONARY_HEADER_SIZE, dictionary.getInt(12), dictionaryFile.toString());
+
+        List<Part> parts = new ArrayList<>(partFiles.size());
+        for (Path file : partFiles) {
+            MappedByteBuffer part = map(file);
+            if (part.limit() < PART_HEADER_SIZE || part.getInt(0) != MAGIC_PART || part.getInt(4) != VERSION) {
+                throw new IOException("Corrupt archive file " + file);
+            }
+            Part header = new Part(part, part.getLong(24), part.getInt(32), part.getInt(36), part.getInt(40),
+                    part.getInt(44));
+            if (header.indexOffset + (long) header.blocks * BLOCK_INDEX_ENTRY_SIZE != header.directoryOffset
+                    || header.directoryOffset + (long) header.accounts * DIRECTORY_ENTRY_SIZE != part.limit()) {
+                throw new IOException("Corrupt archive file " + file);
+            }
+            verifyChecksum(part, PART_HEADER_SIZE, part.getInt(48), file.toString());
+            parts.add(header);
+        }
+        return new ArchiveReader(dictionary, dictionary.getInt(8), List.copyOf(parts));
+    }
+
+    /**
+     * Returns the number of entries in all parts, two per archived transaction.
+     */
+    long entries() {
+        return parts.stream().mapToLong(Part::entries).sum();
+    }
+
+    /**
+     * Adds the entries of an account before a cursor to a list, newest first per part: at most {@code limit} from
+     * each part, so the caller merges them and keeps the first {@code limit}.
+     *
+     * @param accountId    The ID of the account.
+     * @param beforeMicros Timestamp of the cursor in microseconds, {@link Long#MAX_VALUE} for no cursor.
+     * @param beforeId     Id of the cursor, {@link Long#MAX_VALUE} for no cursor.
+     * @param limit        The maximum number of entries to add per part.
+     * @param out          The list to add the entries to.
+     */
+    void collect(long accountId, long beforeMicros, long beforeId, int limit, List<TransactionHistoryDTO> out) {
+        int account = indexOf(accountId);
+        if (account < 0) {
+            return;
+        }
+        String accountNumber = accountNumber(account);
+        Block block = new Block();
+        for (Part part : parts) {
+            int directoryEntry = part.find(account);
+            if (directoryEntry < 0) {
+                continue;
+            }
+            int entryOffset = part.directoryOffset + directoryEntry * DIRECTORY_ENTRY_SIZE;
+            int firstBlock = part.buffer.getInt(entryOffset + 4);
+            int lastBlock = firstBlock + part.buffer.getInt(entryOffset + 8) - 1;
+            int found = 0;
+            for (int b = part.lastBlockBefore(firstBlock, lastBlock, beforeMicros, beforeId);
+                 b >= firstBlock && found < limit; b--) {
+                block.decode(part, b);
+                for (int i = block.count - 1; i >= 0 && found < limit; i--) {
+                    if (block.timestamps[i] < beforeMicros
+                            || (block.timestamps[i] == beforeMicros && block.ids[i] < beforeId)) {
+                        String counterparty = accountNumber(block.counterparties[i]);
+                        boolean received = block.received[i];
+                        out.add(new TransactionHistoryDTO(block.ids[i], BigDecimal.valueOf(block.amounts[i], 2),
+                                fromMicros(block.timestamps[i]),
+                                received ? counterparty : accountNumber, received ? accountNumber : counterparty,
+                                received ? "RECEIVED" : "SENT"));
+                        found++;
+                    }
+                }
+            }
+        }
+    }
+
+    private int indexOf(long accountId) {
+        int low = 0;
+        int high = accounts - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long id = dictionary.getLong(DICTIONARY_HEADER_SIZE + mid * DICTIONARY_ENTRY_SIZE);
+            if (id < accountId) {
+                low = mid + 1;
+            } else if (id > accountId) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private String accountNumber(int index) {
+        int entry = DICTIONARY_HEADER_SIZE + index * DICTIONARY_ENTRY_SIZE;
+        byte[] number = new byte[dictionary.getInt(entry + 12)];
+        dictionary.get(dictionary.getInt(entry + 8), number);
+        return new String(number, StandardCharsets.UTF_8);
+    }
+
+    private static MappedByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Archive file " + file + " is too large to be mapped");
+            }
+            // The mapping stays valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * A mapped part file and the header fields needed to read it.
+     */
+    private record Part(MappedByteBuffer buffer, long entries, int accounts, int blocks, int indexOffset,
+                        int directoryOffset) {
+
+        /**
+         * Returns the directory entry of an account's blocks, or -1 if the part has none.
+         */
+        int find(int account) {
+            int low = 0;
+            int high = accounts - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int value = buffer.getInt(directoryOffset + mid * DIRECTORY_ENTRY_SIZE);
+                if (value < account) {
+                    low = mid + 1;
+                } else if (value > account) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Returns the last block in {@code [first, last]} whose first entry is before the cursor, or
+         * {@code first - 1} if there is none.
+         */
+        int lastBlockBefore(int first, int last, long beforeMicros, long beforeId) {
+            int low = first;
+            int high = last;
+            int found = first - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int entry = indexOffset + mid * BLOCK_INDEX_ENTRY_SIZE;
+                long timestamp = buffer.getLong(entry);
+                if (timestamp < beforeMicros || (timestamp == beforeMicros && buffer.getLong(entry + 8) < beforeId)) {
+                    found = mid;
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return found;
+        }
+    }
+
+    /**
+     * The decoded columns of one block, reused across the blocks of a lookup.
+     */
+    private static final class Block {
+
+        private final long[] timestamps = new long[BLOCK_SIZE];
+        private final long[] ids = new long[BLOCK_SIZE];
+        private final int[] counterparties = new int[BLOCK_SIZE];
+        private final long[] amounts = new long[BLOCK_SIZE];
+        private final boolean[] received = new boolean[BLOCK_SIZE];
+        private int count;
+
+        private void decode(Part part, int block) {
+            int entry = part.indexOffset + block * BLOCK_INDEX_ENTRY_SIZE;
+            MappedByteBuffer buffer = part.buffer;
+            timestamps[0] = buffer.getLong(entry);
+            ids[0] = buffer.getLong(entry + 8);
+            int[] cursor = {buffer.getInt(entry + 16)};
+            count = buffer.getInt(entry + 20);
+            for (int i = 1; i < count; i++) {
+                timestamps[i] = timestamps[i - 1] + getVarLong(buffer, cursor);
+            }
+            for (int i = 1; i < count; i++) {
+                ids[i] = ids[i - 1] + getZigZag(buffer, cursor);
+            }
+            for (int i = 0; i < count; i++) {
+                counterparties[i] = (int) getVarLong(buffer, cursor);
+            }
+            for (int i = 0; i < count; i++) {
+                amounts[i] = getZigZag(buffer, cursor);
+            }
+            for (int i = 0; i < count; i++) {
+                received[i] = (buffer.get(cursor[0] + (i >> 3)) & (1 << (i & 7))) != 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,366 @@
+package portfolio.project.Banking_app.archive;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+import static portfolio.project.Banking_app.archive.ArchiveFormat.*;
+
+/**
+ * Writes the archive files of one partition, see {@link ArchiveFormat}, under temporary names next to the final
+ * ones.
+ * <p>
+ * The accounts are added first, in ascending id order, then the entries in archive order; both arrive as streamed
+ * from the database, and only the dictionary, the block in progress and the block index of the current part are
+ * held in memory. Closing the writer before {@link #finish()} completed deletes what it has written.
+ */
+final class ArchiveWriter implements Closeable {
+
+    private static final int WRITE_BUFFER_SIZE = 1 << 20;
+
+    private final Path directory;
+    private final String archive;
+    private final long maxPartBytes;
+    private final long rangeStart;
+    private final long rangeEnd;
+    private final List<Path> files = new ArrayList<>();
+
+    private long[] accountIds = new long[1024];
+    private int[] numberOffsets = new int[1024];
+    private int[] numberLengths = new int[1024];
+    private int accounts;
+    private final ByteArrayOutputStream numbers = new ByteArrayOutputStream();
+
+    private int lastAccount = -1;
+    private long lastTimestamp;
+    private int blockAccount = -1;
+    private int pending;
+    private final long[] timestamps = new long[BLOCK_SIZE];
+    private final long[] ids = new long[BLOCK_SIZE];
+    private final int[] counterparties = new int[BLOCK_SIZE];
+    private final long[] amounts = new long[BLOCK_SIZE];
+    private final boolean[] received = new boolean[BLOCK_SIZE];
+    private final ByteBuffer block = ByteBuffer.allocate(MAX_BLOCK_BYTES);
+
+    private PartOutput part;
+    private int parts;
+    private long entries;
+    private boolean finished;
+
+    /**
+     * @param directory    The archive directory.
+     * @param archive      The name of the archive.
+     * @param maxPartBytes Size of the blocks of a part above which the next block starts a new part.
+     * @param rangeStart   Inclusive lower bound of the archived timestamps.
+     * @param rangeEnd     Exclusive upper bound of the archived timestamps.
+     */
+    ArchiveWriter(Path directory, String archive, long maxPartBytes, LocalDateTime rangeStart, LocalDateTime rangeEnd) {
+        this.directory = directory;
+        this.archive = archive;
+        this.maxPartBytes = maxPartBytes;
+        this.rangeStart = toMicros(rangeStart);
+        this.rangeEnd = toMicros(rangeEnd);
+    }
+
+    /**
+     * Adds an account to the dictionary.
+     *
+     * @throws IllegalStateException If the accounts are not in ascending id order or entries were already added.
+     */
+    void addAccount(long accountId, String accountNumber) {
+        if (blockAccount >= 0 || parts > 0) {
+            throw new IllegalStateException("Accounts must be added before the entries");
+        }
+        if (accounts > 0 && accountIds[accounts - 1] >= accountId) {
+            throw new IllegalStateException("Accounts must be added in ascending id order");
+        }
+        if (accounts == accountIds.length) {
+            accountIds = Arrays.copyOf(accountIds, accounts * 2);
+            numberOffsets = Arrays.copyOf(numberOffsets, accounts * 2);
+            numberLengths = Arrays.copyOf(numberLengths, accounts * 2);
+        }
+        byte[] number = accountNumber.getBytes(StandardCharsets.UTF_8);
+        accountIds[accounts] = accountId;
+        numberOffsets[accounts] = numbers.size();
+        numberLengths[accounts] = number.length;
+        numbers.writeBytes(number);
+        accounts++;
+    }
+
+    /**
+     * Adds the entry of one side of a transaction.
+     *
+     * @throws IllegalStateException If an account is not in the dictionary or the entries are out of order.
+     * @throws ArithmeticException   If the amount has more than two decimals or does not fit into a long in cents.
+     */
+    void addEntry(long accountId, boolean isReceived, LocalDateTime timestamp, long id, long counterpartyId,
+                  BigDecimal amount) {
+        int account = indexOf(accountId);
+        long micros = toMicros(timestamp);
+        if (account < lastAccount || (account == lastAccount && micros < lastTimestamp)) {
+            throw new IllegalStateException("Entries must be added in account and timestamp order");
+        }
+        lastAccount = account;
+        lastTimestamp = micros;
+        if (account != blockAccount || pending == BLOCK_SIZE) {
+            flushBlock();
+            blockAccount = account;
+        }
+        timestamps[pending] = micros;
+        ids[pending] = id;
+        counterparties[pending] = indexOf(counterpartyId);
+        amounts[pending] = amount.setScale(2, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+        received[pending] = isReceived;
+        pending++;
+    }
+
+    /**
+     * Writes the last block, the dictionary and the headers, and flushes the files to disk.
+     *
+     * @return The written files under their temporary names, the dictionary first, then the parts in order.
+     */
+    List<Path> finish() throws IOException {
+        flushBlockChecked();
+        if (part != null) {
+            part.finish();
+            part = null;
+        }
+        writeDictionary();
+        finished = true;
+        return List.copyOf(files);
+    }
+
+    /**
+     * Returns the number of entries written.
+     */
+    long entries() {
+        return entries;
+    }
+
+    /**
+     * Returns the number of part files written.
+     */
+    int parts() {
+        return parts;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (part != null) {
+            part.channel.close();
+            part = null;
+        }
+        if (!finished) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private int indexOf(long accountId) {
+        int index = Arrays.binarySearch(accountIds, 0, accounts, accountId);
+        if (index < 0) {
+            throw new IllegalStateException("Account " + accountId + " is not in the archive dictionary");
+        }
+        return index;
+    }
+
+    private void flushBlock() {
+        try {
+            flushBlockChecked();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Encodes the pending entries column by column and appends them as a block, to a new part if the current one
+     * is full.
+     */
+    private void flushBlockChecked() throws IOException {
+        if (pending == 0) {
+            return;
+        }
+        block.clear();
+        for (int i = 1; i < pending; i++) {
+            putVarLong(block, timestamps[i] - timestamps[i - 1]);
+        }
+        for (int i = 1; i < pending; i++) {
+            putZigZag(block, ids[i] - ids[i - 1]);
+        }
+        for (int i = 0; i < pending; i++) {
+            putVarLong(block, counterparties[i]);
+        }
+        for (int i = 0; i < pending; i++) {
+            putZigZag(block, amounts[i]);
+        }
+        for (int i = 0; i < pending; i += 8) {
+            int bits = 0;
+            for (int j = i; j < Math.min(i + 8, pending); j++) {
+                if (received[j]) {
+                    bits |= 1 << (j - i);
+                }
+            }
+            block.put((byte) bits);
+        }
+        block.flip();
+
+        if (part == null) {
+            part = new PartOutput(temporary(partFile(directory, archive, parts)));
+            parts++;
+        }
+        part.writeBlock(blockAccount, timestamps[0], ids[0], pending, block);
+        entries += pending;
+        pending = 0;
+        if (part.position - PART_HEADER_SIZE >= maxPartBytes) {
+            part.finish();
+            part = null;
+        }
+    }
+
+    private void writeDictionary() throws IOException {
+        byte[] numberBytes = numbers.toByteArray();
+        ByteBuffer body = ByteBuffer.allocate(accounts * DICTIONARY_ENTRY_SIZE + numberBytes.length);
+        int numbersStart = DICTIONARY_HEADER_SIZE + accounts * DICTIONARY_ENTRY_SIZE;
+        for (int i = 0; i < accounts; i++) {
+            body.putLong(accountIds[i]).putInt(numbersStart + numberOffsets[i]).putInt(numberLengths[i]);
+        }
+        body.put(numberBytes).flip();
+        CRC32C crc = new CRC32C();
+        crc.update(body.duplicate());
+        ByteBuffer header = ByteBuffer.allocate(DICTIONARY_HEADER_SIZE)
+                .putInt(MAGIC_DICTIONARY).putInt(VERSION).putInt(accounts).putInt((int) crc.getValue()).flip();
+
+        Path file = temporary(dictionaryFile(directory, archive));
+        files.add(0, file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (header.hasRemaining() || body.hasRemaining()) {
+                channel.write(new ByteBuffer[]{header, body});
+            }
+            channel.force(true);
+        }
+    }
+
+    /**
+     * A part file being written: the blocks are appended behind room for the header, the block index and directory
+     * are kept in memory and appended at the end, then the header is written.
+     */
+    private final class PartOutput {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+        private final CRC32C crc = new CRC32C();
+        private long position = PART_HEADER_SIZE;
+        private long partEntries;
+
+        private long[] blockTimestamps = new long[1024];
+        private long[] blockIds = new long[1024];
+        private int[] blockOffsets = new int[1024];
+        private int[] blockCounts = new int[1024];
+        private int blocks;
+
+        private int[] directoryAccounts = new int[256];
+        private int[] directoryFirstBlocks = new int[256];
+        private int directorySize;
+
+        private PartOutput(Path file) throws IOException {
+            files.add(file);
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.WRITE);
+            channel.position(PART_HEADER_SIZE);
+        }
+
+        private void writeBlock(int account, long firstTimestamp, long firstId, int count, ByteBuffer encoded)
+                throws IOException {
+            if (directorySize == 0 || directoryAccounts[directorySize - 1] != account) {
+                if (directorySize == directoryAccounts.length) {
+                    directoryAccounts = Arrays.copyOf(directoryAccounts, directorySize * 2);
+                    directoryFirstBlocks = Arrays.copyOf(directoryFirstBlocks, directorySize * 2);
+                }
+                directoryAccounts[directorySize] = account;
+                directoryFirstBlocks[directorySize] = blocks;
+                directorySize++;
+            }
+            if (blocks == blockTimestamps.length) {
+                blockTimestamps = Arrays.copyOf(blockTimestamps, blocks * 2);
+                blockIds = Arrays.copyOf(blockIds, blocks * 2);
+                blockOffsets = Arrays.copyOf(blockOffsets, blocks * 2);
+                blockCounts = Arrays.copyOf(blockCounts, blocks * 2);
+            }
+            blockTimestamps[blocks] = firstTimestamp;
+            blockIds[blocks] = firstId;
+            blockOffsets[blocks] = Math.toIntExact(position);
+            blockCounts[blocks] = count;
+            blocks++;
+            partEntries += count;
+            write(encoded);
+        }
+
+        private void finish() throws IOException {
+            int indexOffset = Math.toIntExact(position);
+            ByteBuffer entry = ByteBuffer.allocate(BLOCK_INDEX_ENTRY_SIZE);
+            for (int i = 0; i < blocks; i++) {
+                entry.clear();
+                entry.putLong(blockTimestamps[i]).putLong(blockIds[i]).putInt(blockOffsets[i]).putInt(blockCounts[i]).flip();
+                write(entry);
+            }
+            int directoryOffset = Math.toIntExact(position);
+            ByteBuffer directoryEntry = ByteBuffer.allocate(DIRECTORY_ENTRY_SIZE);
+            for (int i = 0; i < directorySize; i++) {
+                int next = i + 1 < directorySize ? directoryFirstBlocks[i + 1] : blocks;
+                directoryEntry.clear();
+                directoryEntry.putInt(directoryAccounts[i]).putInt(directoryFirstBlocks[i])
+                        .putInt(next - directoryFirstBlocks[i]).flip();
+                write(directoryEntry);
+            }
+            if (position > Integer.MAX_VALUE) {
+                throw new IOException("Archive part " + archive + " is too large to be mapped");
+            }
+            drain();
+
+            ByteBuffer header = ByteBuffer.allocate(PART_HEADER_SIZE)
+                    .putInt(MAGIC_PART).putInt(VERSION)
+                    .putLong(rangeStart).putLong(rangeEnd).putLong(partEntries)
+                    .putInt(directorySize).putInt(blocks).putInt(indexOffset).putInt(directoryOffset)
+                    .putInt((int) crc.getValue()).putInt(0)
+                    .flip();
+            while (header.hasRemaining()) {
+                channel.write(header, PART_HEADER_SIZE - header.remaining());
+            }
+            channel.force(true);
+            channel.close();
+        }
+
+        private void write(ByteBuffer bytes) throws IOException {
+            position += bytes.remaining();
+            crc.update(bytes.duplicate());
+            if (bytes.remaining() > buffer.remaining()) {
+                drain();
+            }
+            buffer.put(bytes);
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package portfolio.project.Banking_app.archive;
+
+import org.springframework.stereotype.Component;
+import portfolio.project.Banking_app.config.TransactionPartitionProperties;
+import portfolio.project.Banking_app.dto.TransactionHistoryDTO;
+import portfolio.project.Banking_app.repository.TransactionPartitionJdbcRepository;
+import portfolio.project.Banking_app.repository.TransactionPartitionJdbcRepository.ArchiveRow;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+/**
+ * Archive files of the partitions of the transactions table that were moved out of the database, see
+ * {@link ArchiveFormat}, and the history reads served from them.
+ * <p>
+ * An archive is written under temporary names, read back and checked, and only then renamed into place; the
+ * catalog in {@code transaction_archives} decides which archives exist, so files of an archive whose partition
+ * could not be detached are never read and are overwritten by the next attempt. Archives are opened on first use
+ * and stay mapped.
+ */
+@Component
+public class TransactionArchiveStore {
+
+    /**
+     * Upper limit of the part size, keeping each part file, with its block index, small enough to be mapped.
+     */
+    private static final long MAX_PART_BYTES = 1L << 30;
+
+    private static final Comparator<TransactionHistoryDTO> NEWEST_FIRST =
+            Comparator.comparing(TransactionHistoryDTO::getTimestamp)
+                    .thenComparing(TransactionHistoryDTO::getId)
+                    .reversed();
+
+    private final Path directory;
+    private final long maxPartBytes;
+    private final TransactionPartitionJdbcRepository repository;
+    private final Map<String, ArchiveReader> readers = new ConcurrentHashMap<>();
+
+    public TransactionArchiveStore(TransactionPartitionProperties properties,
+                                   TransactionPartitionJdbcRepository repository) {
+        this.directory = Path.of(properties.getArchiveDirectory());
+        this.maxPartBytes = Math.min(properties.getArchivePartSize().toBytes(), MAX_PART_BYTES);
+        this.repository = repository;
+    }
+
+    /**
+     * Starts writing the archive of a partition.
+     *
+     * @param archive    The name of the archive, the partition name.
+     * @param rangeStart Inclusive lower bound of the archived timestamps.
+     * @param rangeEnd   Exclusive upper bound of the archived timestamps.
+     * @return The builder; close it in any case, which removes the files if the archive was not finished.
+     * @throws IOException If the archive directory cannot be created.
+     */
+    public Builder builder(String archive, LocalDateTime rangeStart, LocalDateTime rangeEnd) throws IOException {
+        Files.createDirectories(directory);
+        return new Builder(archive, new ArchiveWriter(directory, archive, maxPartBytes, rangeStart, rangeEnd));
+    }
+
+    /**
+     * Reads the history of an account from the archives, newest first, continuing after a cursor. Must be called
+     * inside a transaction, which reads the catalog.
+     *
+     * @param accountId       The ID of the account.
+     * @param beforeTimestamp Timestamp of the cursor, or null to start with the newest archived transaction.
+     * @param beforeId        Id of the cursor, or null to start with the newest archived transaction.
+     * @param limit           The maximum number of entries.
+     * @return The entries, one per transaction the account sent and one per transaction it received.
+     * @throws IllegalStateException If the files of a cataloged archive cannot be read.
+     */
+    public List<TransactionHistoryDTO> history(long accountId, LocalDateTime beforeTimestamp, Long beforeId, int limit) {
+        long beforeMicros = beforeTimestamp != null ? ArchiveFormat.toMicros(beforeTimestamp) : Long.MAX_VALUE;
+        long beforeIdValue = beforeId != null ? beforeId : Long.MAX_VALUE;
+        List<TransactionHistoryDTO> history = new ArrayList<>();
+        for (ArchiveRow archive : repository.findArchives()) {
+            if (beforeTimestamp != null && !archive.rangeStart().isBefore(beforeTimestamp)) {
+                continue;
+            }
+            List<TransactionHistoryDTO> found = new ArrayList<>();
+            reader(archive).collect(accountId, beforeMicros, beforeIdValue, limit - history.size(), found);
+            found.sort(NEWEST_FIRST);
+            history.addAll(found.subList(0, Math.min(found.size(), limit - history.size())));
+            if (history.size() == limit) {
+                break;
+            }
+        }
+        return history;
+    }
+
+    private ArchiveReader reader(ArchiveRow archive) {
+        return readers.computeIfAbsent(archive.partitionName(), name -> {
+            try {
+                return ArchiveReader.open(ArchiveFormat.dictionaryFile(directory, name),
+                        IntStream.range(0, archive.parts()).mapToObj(i -> ArchiveFormat.partFile(directory, name, i)).toList());
+            } catch (IOException e) {
+                throw new IllegalStateException("Archive " + name + " cannot be read", e);
+            }
+        });
+    }
+
+    /**
+     * Writes the archive of one partition from the streamed accounts and entries, see
+     * {@link TransactionPartitionJdbcRepository#streamAccounts} and
+     * {@link TransactionPartitionJdbcRepository#streamEntries}.
+     */
+    public static final class Builder implements AutoCloseable {
+
+        private final String archive;
+        private final ArchiveWriter writer;
+
+        private Builder(String archive, ArchiveWriter writer) {
+            this.archive = archive;
+            this.writer = writer;
+        }
+
+        /**
+         * Adds an account; all accounts come first, in ascending id order.
+         */
+        public void addAccount(long accountId, String accountNumber) {
+            writer.addAccount(accountId, accountNumber);
+        }
+
+        /**
+         * Adds the entry of one side of a transaction, ordered by account, timestamp, id and direction.
+         */
+        public void addEntry(long accountId, boolean received, LocalDateTime timestamp, long id, long counterpartyId,
+                             BigDecimal amount) {
+            writer.addEntry(accountId, received, timestamp, id, counterpartyId, amount);
+        }
+
+        /**
+         * Writes the remaining data, checks the files by reading them back and renames them into place.
+         *
+         * @return The number of part files and entries of the archive.
+         * @throws IOException If a file cannot be written or does not read back as written.
+         */
+        public Archived finish() throws IOException {
+            List<Path> written = writer.finish();
+            ArchiveReader check = ArchiveReader.open(written.get(0), written.subList(1, written.size()));
+            if (check.entries() != writer.entries()) {
+                throw new IOException("Archive " + archive + " holds " + check.entries() + " entries instead of "
+                        + writer.entries());
+            }
+            Path directory = written.get(0).getParent();
+            for (int i = 0; i < written.size(); i++) {
+                Path target = i == 0 ? ArchiveFormat.dictionaryFile(directory, archive)
+                        : ArchiveFormat.partFile(directory, archive, i - 1);
+                Files.move(written.get(i), target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return new Archived(writer.parts(), writer.entries());
+        }
+
+        @Override
+        public void close() {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * A written archive.
+     *
+     * @param parts   The number of part files.
+     * @param entries The number of entries, two per transaction.
+     */
+    public record Archived(int parts, long entries) {
+    }
+}
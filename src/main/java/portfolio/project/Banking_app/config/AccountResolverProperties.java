@@ -0,0 +1,24 @@
+package portfolio.project.Banking_app.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration properties for the account number to id resolver ({@code banking.account-resolver.*}).
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "banking.account-resolver")
+public class AccountResolverProperties {
+
+    /**
+     * Maximum number of cached account numbers. Each entry takes roughly 200 bytes of heap.
+     */
+    private long maximumSize = 1_000_000;
+
+    /**
+     * Whether the cache is filled from the database in the background once the application has started.
+     */
+    private boolean warmOnStartup = true;
+}
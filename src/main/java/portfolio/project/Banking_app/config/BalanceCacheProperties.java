@@ -0,0 +1,31 @@
+package portfolio.project.Banking_app.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties for the in-process account balance cache ({@code banking.balance-cache.*}).
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "banking.balance-cache")
+public class BalanceCacheProperties {
+
+    /**
+     * Whether balances are cached. When disabled every read goes to the database.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Maximum number of cached balances.
+     */
+    private long maximumSize = 100_000;
+
+    /**
+     * Time after which a cached balance is dropped, bounding staleness if an invalidation is ever missed.
+     */
+    private Duration ttl = Duration.ofSeconds(30);
+}
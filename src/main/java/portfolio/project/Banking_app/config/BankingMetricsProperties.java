@@ -0,0 +1,20 @@
+package portfolio.project.Banking_app.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration properties for the hot-path instrumentation ({@code banking.metrics.*}).
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "banking.metrics")
+public class BankingMetricsProperties {
+
+    /**
+     * Fraction of successful transfers logged at INFO, between 0 (none) and 1 (every transfer).
+     * Counts and latencies of all transfers are available as metrics regardless.
+     */
+    private double transferLogSampleRate = 1.0;
+}
@@ -0,0 +1,70 @@
+package portfolio.project.Banking_app.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+/**
+ * Sizes the HikariCP pool from the available cores when {@code banking.connection-pool.size-from-cores} is set.
+ * <p>
+ * The pool is made fixed-size (minimum idle equal to the maximum), so connections are not opened and closed as the
+ * load changes. Pool wait time, usage and pending requests are exported by Spring Boot as the {@code hikaricp.*}
+ * meters; see {@link ConnectionPoolSelfCheck} for the startup check of the resulting size.
+ */
+@Slf4j
+@Configuration(proxyBeanMethods = false)
+public class ConnectionPoolConfiguration {
+
+    private static final String PREFIX = "banking.connection-pool";
+
+    /**
+     * Registers the post-processor that sizes Hikari pools. Its settings are bound straight from the environment,
+     * and only for a Hikari pool: a post-processor that looks up a configuration properties bean for every bean it
+     * sees would request it while the binding infrastructure itself is still being created.
+     */
+    @Bean
+    static BeanPostProcessor connectionPoolSizingPostProcessor(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                HikariDataSource hikari = unwrapHikari(bean);
+                if (hikari == null) {
+                    return bean;
+                }
+                ConnectionPoolProperties settings = Binder.get(environment)
+                        .bindOrCreate(PREFIX, ConnectionPoolProperties.class);
+                if (settings.isSizeFromCores()) {
+                    int poolSize = settings.recommendedPoolSize(Runtime.getRuntime().availableProcessors());
+                    hikari.setMaximumPoolSize(poolSize);
+                    hikari.setMinimumIdle(poolSize);
+                    log.info("Sized connection pool {} to {} connections", hikari.getPoolName(), poolSize);
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Returns the Hikari pool behind a DataSource bean, also when it is wrapped, or null for any other bean.
+     */
+    static HikariDataSource unwrapHikari(Object bean) {
+        if (bean instanceof HikariDataSource hikari) {
+            return hikari;
+        }
+        try {
+            if (bean instanceof DataSource dataSource && dataSource.isWrapperFor(HikariDataSource.class)) {
+                return dataSource.unwrap(HikariDataSource.class);
+            }
+        } catch (SQLException e) {
+            log.debug("Could not unwrap DataSource", e);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,45 @@
+package portfolio.project.Banking_app.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration properties for sizing and checking the database connection pool ({@code banking.connection-pool.*}).
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "banking.connection-pool")
+public class ConnectionPoolProperties {
+
+    /**
+     * Whether the pool is sized from the available cores, as {@code cores * connections-per-core + spindles}, and
+     * kept at that fixed size. When false, {@code spring.datasource.hikari.*} applies unchanged.
+     */
+    private boolean sizeFromCores = false;
+
+    /**
+     * Connections per available core when sizing from cores.
+     */
+    private int connectionsPerCore = 2;
+
+    /**
+     * Connections added on top when sizing from cores, for the time connections wait on disk I/O.
+     */
+    private int spindles = 1;
+
+    /**
+     * Whether the pool size is checked against the database and the application's own workers at startup.
+     */
+    private boolean selfCheck = true;
+
+    /**
+     * Returns the pool size recommended for the given number of cores.
+     *
+     * @param cores The number of available cores.
+     * @return The recommended maximum pool size.
+     */
+    public int recommendedPoolSize(int cores) {
+        return cores * connectionsPerCore + spindles;
+    }
+}
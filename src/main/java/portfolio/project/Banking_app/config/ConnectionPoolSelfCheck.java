@@ -0,0 +1,131 @@
+package portfolio.project.Banking_app.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks the connection pool size once the application has started and logs a warning for every problem found:
+ * <ul>
+ *     <li>a pool larger than the connections the database server accepts, which fails under load instead of
+ *     queueing in the pool;</li>
+ *     <li>a pool no larger than the application's own background workers (end-of-day threads, outbox relay,
+ *     transfer batcher, ledger engine write-behind, replica lag monitor and scheduled jobs), which can leave requests waiting for a connection;</li>
+ *     <li>a pool more than twice the size recommended for the cores, where the extra connections add lock and
+ *     context-switch contention rather than throughput.</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+public class ConnectionPoolSelfCheck {
+
+    /**
+     * Connections held by scheduled jobs running at the same time; the jobs do not run concurrently with themselves.
+     */
+    private static final int SCHEDULED_JOB_CONNECTIONS = 1;
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final ConnectionPoolProperties properties;
+    private final EndOfDayProperties endOfDayProperties;
+    private final OutboxProperties outboxProperties;
+    private final TransferProperties transferProperties;
+    private final EngineProperties engineProperties;
+    private final ReadReplicaProperties readReplicaProperties;
+
+    public ConnectionPoolSelfCheck(DataSource dataSource,
+                                   JdbcTemplate jdbcTemplate,
+                                   ConnectionPoolProperties properties,
+                                   EndOfDayProperties endOfDayProperties,
+                                   OutboxProperties outboxProperties,
+                                   TransferProperties transferProperties,
+                                   EngineProperties engineProperties,
+                                   ReadReplicaProperties readReplicaProperties) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+        this.endOfDayProperties = endOfDayProperties;
+        this.outboxProperties = outboxProperties;
+        this.transferProperties = transferProperties;
+        this.engineProperties = engineProperties;
+        this.readReplicaProperties = readReplicaProperties;
+    }
+
+    /**
+     * Runs the check at startup if {@code banking.connection-pool.self-check} is set.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    void onApplicationReady() {
+        if (properties.isSelfCheck()) {
+            check().forEach(log::warn);
+        }
+    }
+
+    /**
+     * Checks the pool size.
+     *
+     * @return A description of every problem found; empty if the pool size is sound or the pool is not HikariCP.
+     */
+    public List<String> check() {
+        List<String> problems = new ArrayList<>();
+        HikariDataSource hikari = ConnectionPoolConfiguration.unwrapHikari(dataSource);
+        if (hikari == null) {
+            return problems;
+        }
+        int poolSize = hikari.getMaximumPoolSize();
+
+        try {
+            int serverLimit = jdbcTemplate.queryForObject("SELECT current_setting('max_connections')::int "
+                    + "- current_setting('superuser_reserved_connections')::int", Integer.class);
+            if (poolSize > serverLimit) {
+                problems.add("Connection pool size " + poolSize + " exceeds the " + serverLimit
+                        + " connections the database accepts; requests will fail under load instead of waiting for the pool");
+            }
+        } catch (DataAccessException e) {
+            log.debug("Could not read the connection limit of the database", e);
+        }
+
+        int workers = backgroundWorkers();
+        if (poolSize <= workers) {
+            problems.add("Connection pool size " + poolSize + " leaves no connection for requests while the "
+                    + workers + " background workers are busy; raise the pool size or reduce banking.eod.threads "
+                    + "or banking.outbox.relay.partitions");
+        }
+
+        int recommended = properties.recommendedPoolSize(Runtime.getRuntime().availableProcessors());
+        if (poolSize > 2 * recommended) {
+            problems.add("Connection pool size " + poolSize + " is more than twice the " + recommended
+                    + " connections recommended for " + Runtime.getRuntime().availableProcessors()
+                    + " cores; extra connections add contention rather than throughput");
+        }
+        return problems;
+    }
+
+    /**
+     * Returns the number of connections the application's own workers may hold at the same time.
+     */
+    private int backgroundWorkers() {
+        int workers = endOfDayProperties.getThreads() + SCHEDULED_JOB_CONNECTIONS;
+        if (outboxProperties.getRelay().isEnabled()) {
+            workers += outboxProperties.getRelay().getPartitions();
+        }
+        if (transferProperties.getBatch().isEnabled()) {
+            workers++;
+        }
+        if (engineProperties.isEnabled()) {
+            workers++;
+        }
+        if (readReplicaProperties.isEnabled()) {
+            workers++;
+        }
+        return workers;
+    }
+}
@@ -0,0 +1,52 @@
+package portfolio.project.Banking_app.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.math.BigDecimal;
+
+/**
+ * Configuration properties for the end-of-day interest and fee run ({@code banking.eod.*}).
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "banking.eod")
+public class EndOfDayProperties {
+
+    /**
+     * Quartz cron expression of the run; each run closes the day before it fires.
+     */
+    private String cron = "0 0 1 * * ?";
+
+    /**
+     * Number of account id ranges a run is split into. Partitions are the unit of parallelism and of resuming.
+     */
+    private int partitions = 64;
+
+    /**
+     * Number of partitions processed in parallel. Each needs one database connection, so keep it well below the
+     * connection pool size.
+     */
+    private int threads = 4;
+
+    /**
+     * Number of accounts locked, updated and checkpointed per transaction.
+     */
+    private int chunkSize = 1000;
+
+    /**
+     * Annual interest rate on positive balances, accrued daily as rate / 365.
+     */
+    private BigDecimal annualInterestRate = new BigDecimal("0.01");
+
+    /**
+     * Daily maintenance fee, charged to accounts below {@link #feeWaiverBalance} that can cover it. Zero disables fees.
+     */
+    private BigDecimal dailyFee = BigDecimal.ZERO;
+
+    /**
+     * Balance from which the daily fee is waived.
+     */
+    private BigDecimal feeWaiverBalance = new BigDecimal("1000");
+}
@@ -0,0 +1,74 @@
+package portfolio.project.Banking_app.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties of the in-memory ledger engine ({@code banking.engine.*}), see
+ * {@link portfolio.project.Banking_app.engine.LedgerEngine}.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "banking.engine")
+public class EngineProperties {
+
+    /**
+     * Whether the engine is started. While enabled it owns the balances of all accounts, and balance changes that
+     * bypass it, such as deposits or the end-of-day run, are rejected.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Directory of the journal segments.
+     */
+    private String directory = "ledger-engine";
+
+    /**
+     * Capacity of the command ring buffer, a power of two. Submissions beyond it are rejected right away.
+     */
+    private int ringCapacity = 65536;
+
+    /**
+     * Maximum number of commands the writer applies before forcing the journal and acknowledging them.
+     */
+    private int maxBatchSize = 4096;
+
+    /**
+     * Size of one journal segment file. A segment is deleted once the write-behind has written all its records.
+     */
+    private DataSize segmentSize = DataSize.ofMegabytes(64);
+
+    /**
+     * Whether the journal is forced to disk before transfers are acknowledged. Turning it off loses the
+     * acknowledged transfers not yet flushed by the operating system if the machine fails.
+     */
+    private boolean fsync = true;
+
+    /**
+     * Write-behind of committed transfers to the accounts and transactions tables.
+     */
+    private WriteBehind writeBehind = new WriteBehind();
+
+    @Getter
+    @Setter
+    public static class WriteBehind {
+        /**
+         * Maximum number of journal records written to the database in one transaction.
+         */
+        private int batchSize = 5000;
+
+        /**
+         * How long the write-behind waits before looking for new records once it has caught up.
+         */
+        private Duration pollInterval = Duration.ofMillis(10);
+
+        /**
+         * Upper bound of the backoff after a failed write.
+         */
+        private Duration maxBackoff = Duration.ofSeconds(5);
+    }
+}
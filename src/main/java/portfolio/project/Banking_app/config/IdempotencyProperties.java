@@ -0,0 +1,41 @@
+package portfolio.project.Banking_app.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties for idempotency keys ({@code banking.idempotency.*}).
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "banking.idempotency")
+public class IdempotencyProperties {
+
+    /**
+     * Maximum number of completed keys kept in memory, where a duplicate costs one lookup.
+     */
+    private long maximumSize = 100_000;
+
+    /**
+     * How long a completed key stays in memory. Older duplicates are answered from the database.
+     */
+    private Duration cacheTtl = Duration.ofMinutes(10);
+
+    /**
+     * How long keys are kept in the database. A key older than this is treated as new.
+     */
+    private Duration retention = Duration.ofHours(24);
+
+    /**
+     * How long a duplicate waits for the request holding its key before giving up.
+     */
+    private Duration waitTimeout = Duration.ofSeconds(30);
+
+    /**
+     * How often keys older than {@link #retention} are deleted.
+     */
+    private Duration purgeInterval = Duration.ofHours(1);
+}
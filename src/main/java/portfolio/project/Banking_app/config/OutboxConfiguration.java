@@ -0,0 +1,27 @@
+package portfolio.project.Banking_app.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import portfolio.project.Banking_app.outbox.FileOutboxSink;
+import portfolio.project.Banking_app.outbox.InMemoryOutboxSink;
+import portfolio.project.Banking_app.outbox.LoggingOutboxSink;
+import portfolio.project.Banking_app.outbox.OutboxSink;
+
+/**
+ * Provides the {@link OutboxSink} selected by {@code banking.outbox.sink}.
+ * A sink bean defined elsewhere, such as one publishing to a message broker, takes precedence.
+ */
+@Configuration
+public class OutboxConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public OutboxSink outboxSink(OutboxProperties properties) {
+        return switch (properties.getSink()) {
+            case LOG -> new LoggingOutboxSink();
+            case FILE -> new FileOutboxSink(properties.getFile());
+            case MEMORY -> new InMemoryOutboxSink(properties.getMemoryCapacity());
+        };
+    }
+}
@@ -0,0 +1,75 @@
+package portfolio.project.Banking_app.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Configuration properties for the transaction event outbox ({@code banking.outbox.*}).
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "banking.outbox")
+public class OutboxProperties {
+
+    /**
+     * The sinks events can be published to.
+     */
+    public enum Sink {
+        LOG, FILE, MEMORY
+    }
+
+    /**
+     * Where the relay publishes events, unless an {@link portfolio.project.Banking_app.outbox.OutboxSink} bean is
+     * provided.
+     */
+    private Sink sink = Sink.LOG;
+
+    /**
+     * The file appended to by the {@code file} sink, one JSON event per line.
+     */
+    private Path file = Path.of("outbox-events.ndjson");
+
+    /**
+     * Maximum number of events the {@code memory} sink holds. Batches beyond it are rejected.
+     */
+    private int memoryCapacity = 100_000;
+
+    /**
+     * The relay draining the outbox.
+     */
+    private Relay relay = new Relay();
+
+    @Getter
+    @Setter
+    public static class Relay {
+        /**
+         * Whether the relay threads are started.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Number of relay threads. Events are partitioned by account id, so each account is relayed by one thread.
+         */
+        private int partitions = 4;
+
+        /**
+         * Maximum number of events published and deleted in one transaction.
+         */
+        private int batchSize = 500;
+
+        /**
+         * How long a relay thread waits after finding less than a full batch.
+         */
+        private Duration pollInterval = Duration.ofMillis(50);
+
+        /**
+         * Upper bound of the backoff after the sink failed. The backoff starts at the poll interval and doubles on
+         * every further failure.
+         */
+        private Duration maxBackoff = Duration.ofSeconds(5);
+    }
+}
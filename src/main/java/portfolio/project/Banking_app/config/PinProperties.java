@@ -0,0 +1,41 @@
+package portfolio.project.Banking_app.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties for PIN hashing and verification ({@code banking.pin.*}).
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "banking.pin")
+public class PinProperties {
+
+    /**
+     * Number of threads hashing and verifying PINs. 0 means one per available core.
+     */
+    private int threads = 0;
+
+    /**
+     * Number of hashing tasks that may wait for a thread. Further requests are rejected.
+     */
+    private int queueCapacity = 256;
+
+    /**
+     * Verify latency the BCrypt work factor is calibrated to at startup.
+     */
+    private Duration targetVerifyTime = Duration.ofMillis(50);
+
+    /**
+     * Lowest work factor used, even if the calibration target cannot be met with it.
+     */
+    private int minStrength = 10;
+
+    /**
+     * Highest work factor the calibration may pick.
+     */
+    private int maxStrength = 16;
+}
@@ -0,0 +1,99 @@
+package portfolio.project.Banking_app.config;
+
+import org.quartz.CronScheduleBuilder;
+import org.quartz.JobBuilder;
+import org.quartz.JobDetail;
+import org.quartz.SimpleScheduleBuilder;
+import org.quartz.Trigger;
+import org.quartz.TriggerBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import portfolio.project.Banking_app.job.EndOfDayJob;
+import portfolio.project.Banking_app.job.IdempotencyPurgeJob;
+import portfolio.project.Banking_app.job.StripeFoldJob;
+import portfolio.project.Banking_app.job.TransactionPartitionJob;
+
+import java.time.Duration;
+import java.util.Date;
+
+/**
+ * Quartz jobs and their triggers. Spring Boot registers every {@link JobDetail} and {@link Trigger} bean with the
+ * scheduler, and the jobs get their dependencies injected through their constructor.
+ */
+@Configuration(proxyBeanMethods = false)
+public class QuartzJobsConfiguration {
+
+    @Bean
+    JobDetail stripeFoldJobDetail() {
+        return JobBuilder.newJob(StripeFoldJob.class)
+                .withIdentity("stripeFold")
+                .storeDurably()
+                .build();
+    }
+
+    @Bean
+    Trigger stripeFoldTrigger(JobDetail stripeFoldJobDetail, StripingProperties properties) {
+        return repeatingTrigger(stripeFoldJobDetail, "stripeFoldTrigger", properties.getFoldInterval());
+    }
+
+    @Bean
+    JobDetail endOfDayJobDetail() {
+        return JobBuilder.newJob(EndOfDayJob.class)
+                .withIdentity("endOfDay")
+                .storeDurably()
+                .build();
+    }
+
+    @Bean
+    Trigger endOfDayTrigger(JobDetail endOfDayJobDetail, EndOfDayProperties properties) {
+        return TriggerBuilder.newTrigger()
+                .forJob(endOfDayJobDetail)
+                .withIdentity("endOfDayTrigger")
+                .withSchedule(CronScheduleBuilder.cronSchedule(properties.getCron())
+                        .withMisfireHandlingInstructionFireAndProceed())
+                .build();
+    }
+
+    @Bean
+    JobDetail idempotencyPurgeJobDetail() {
+        return JobBuilder.newJob(IdempotencyPurgeJob.class)
+                .withIdentity("idempotencyPurge")
+                .storeDurably()
+                .build();
+    }
+
+    @Bean
+    Trigger idempotencyPurgeTrigger(JobDetail idempotencyPurgeJobDetail, IdempotencyProperties properties) {
+        return repeatingTrigger(idempotencyPurgeJobDetail, "idempotencyPurgeTrigger", properties.getPurgeInterval());
+    }
+
+    @Bean
+    JobDetail transactionPartitionJobDetail() {
+        return JobBuilder.newJob(TransactionPartitionJob.class)
+                .withIdentity("transactionPartition")
+                .storeDurably()
+                .build();
+    }
+
+    @Bean
+    Trigger transactionPartitionTrigger(JobDetail transactionPartitionJobDetail, TransactionPartitionProperties properties) {
+        return repeatingTrigger(transactionPartitionJobDetail, "transactionPartitionTrigger",
+                properties.getMaintenanceInterval());
+    }
+
+    /**
+     * Fires a job every interval, starting one interval from now. A run that is missed because the previous one is
+     * still going is skipped rather than caught up.
+     */
+    private static Trigger repeatingTrigger(JobDetail job, String name, Duration interval) {
+        return TriggerBuilder.newTrigger()
+                .forJob(job)
+                .withIdentity(name)
+                .startAt(new Date(System.currentTimeMillis() + interval.toMillis()))
+                .withSchedule(SimpleScheduleBuilder.simpleSchedule()
+                        .withIntervalInMilliseconds(interval.toMillis())
+                        .repeatForever()
+                        .withMisfireHandlingInstructionNextWithRemainingCount())
+                .build();
+    }
+}
@@ -0,0 +1,76 @@
+package portfolio.project.Banking_app.config;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Counts the JDBC statements of every request and logs a warning for requests running more than
+ * {@code banking.query-guard.warn-threshold} of them, which usually points at an N+1 access pattern.
+ * <p>
+ * The {@link QueryCounter.Scope} of a request is stored as request attribute {@link #SCOPE_ATTRIBUTE}, so tests can
+ * assert on it. Asynchronous requests are checked when they complete; their work on other threads is counted as
+ * long as it was handed over through {@link QueryCounter#propagating}.
+ */
+@Slf4j
+public class QueryCountFilter extends OncePerRequestFilter {
+
+    /**
+     * Request attribute holding the {@link QueryCounter.Scope} of the request.
+     */
+    public static final String SCOPE_ATTRIBUTE = QueryCountFilter.class.getName() + ".SCOPE";
+
+    private final int warnThreshold;
+
+    public QueryCountFilter(int warnThreshold) {
+        this.warnThreshold = warnThreshold;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        QueryCounter.Scope scope = QueryCounter.open();
+        request.setAttribute(SCOPE_ATTRIBUTE, scope);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            scope.close();
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        check(request, scope);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                check(request, scope);
+            }
+        }
+    }
+
+    private void check(HttpServletRequest request, QueryCounter.Scope scope) {
+        if (scope.count() > warnThreshold) {
+            log.warn("{} {} ran {} SQL statements (threshold {})",
+                    request.getMethod(), request.getRequestURI(), scope.count(), warnThreshold);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package portfolio.project.Banking_app.config;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts the JDBC statements executed on behalf of a unit of work, such as an HTTP request.
+ * <p>
+ * A {@link Scope} is bound to the thread that opens it. Work handed to another thread joins the scope only if the
+ * task was wrapped with {@link #propagate(Runnable)}, or submitted to an executor wrapped with
+ * {@link #propagating(Executor)}. Threads without a scope, such as background jobs, are not counted.
+ * Statements are counted by {@link QueryCountingDataSource}; a JDBC batch counts as one statement.
+ */
+public final class QueryCounter {
+
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+
+    private QueryCounter() {
+    }
+
+    /**
+     * Opens a scope on the current thread, replacing any scope that was open.
+     *
+     * @return The new scope.
+     */
+    public static Scope open() {
+        Scope scope = new Scope(CURRENT.get());
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    /**
+     * Wraps a task so that it counts into the scope of the calling thread, if any, wherever it runs.
+     *
+     * @param task The task.
+     * @return The wrapped task, or the task itself if the calling thread has no scope.
+     */
+    public static Runnable propagate(Runnable task) {
+        Scope scope = CURRENT.get();
+        if (scope == null) {
+            return task;
+        }
+        return () -> {
+            Scope previous = CURRENT.get();
+            CURRENT.set(scope);
+            try {
+                task.run();
+            } finally {
+                if (previous == null) {
+                    CURRENT.remove();
+                } else {
+                    CURRENT.set(previous);
+                }
+            }
+        };
+    }
+
+    /**
+     * Wraps an executor so that every task counts into the scope of the thread submitting it.
+     *
+     * @param executor The executor.
+     * @return The wrapping executor.
+     */
+    public static Executor propagating(Executor executor) {
+        return task -> executor.execute(propagate(task));
+    }
+
+    /**
+     * Counts one statement into the scope of the current thread, if any.
+     */
+    static void increment() {
+        Scope scope = CURRENT.get();
+        if (scope != null) {
+            scope.count.incrementAndGet();
+        }
+    }
+
+    /**
+     * The statements counted for one unit of work, possibly across several threads.
+     */
+    public static final class Scope implements AutoCloseable {
+        private final AtomicInteger count = new AtomicInteger();
+        private final Scope previous;
+
+        private Scope(Scope previous) {
+            this.previous = previous;
+        }
+
+        /**
+         * Returns the number of statements counted so far.
+         *
+         * @return The statement count.
+         */
+        public int count() {
+            return count.get();
+        }
+
+        /**
+         * Unbinds the scope from the current thread and restores the scope that was open before it. Work already
+         * handed to other threads keeps counting into it.
+         */
+        @Override
+        public void close() {
+            if (CURRENT.get() != this) {
+                return;
+            }
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package portfolio.project.Banking_app.config;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+
+import javax.sql.DataSource;
+
+/**
+ * Counts the JDBC statements of every request when {@code banking.query-guard.enabled} is set: the DataSource is
+ * wrapped in a {@link QueryCountingDataSource}, the {@link QueryCountFilter} opens a count per request, and
+ * Spring's task executors, which run asynchronous request processing, carry the count over to their threads.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "banking.query-guard", name = "enabled", havingValue = "true")
+public class QueryGuardConfiguration {
+
+    @Bean
+    static BeanPostProcessor queryCountingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof QueryCountingDataSource)) {
+                    return new QueryCountingDataSource(dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public QueryCountFilter queryCountFilter(QueryGuardProperties properties) {
+        return new QueryCountFilter(properties.getWarnThreshold());
+    }
+
+    @Bean
+    public TaskDecorator queryCountTaskDecorator() {
+        return QueryCounter::propagate;
+    }
+}
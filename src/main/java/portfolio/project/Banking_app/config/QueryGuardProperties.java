@@ -0,0 +1,25 @@
+package portfolio.project.Banking_app.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration properties for the SQL statement guard ({@code banking.query-guard.*}).
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "banking.query-guard")
+public class QueryGuardProperties {
+
+    /**
+     * Whether JDBC statements are counted per request. Counting wraps every connection and statement in a proxy,
+     * so it is meant for tests and for diagnosing an environment rather than for steady production use.
+     */
+    private boolean enabled = false;
+
+    /**
+     * A request running more statements than this is logged at WARN.
+     */
+    private int warnThreshold = 20;
+}
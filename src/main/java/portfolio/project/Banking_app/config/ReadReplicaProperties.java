@@ -0,0 +1,78 @@
+package portfolio.project.Banking_app.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuration properties of read replica routing ({@code banking.read-replicas.*}), see
+ * {@link ReplicaRoutingDataSource}.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "banking.read-replicas")
+public class ReadReplicaProperties {
+
+    /**
+     * Whether read-only transactions are routed to the replicas.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Replication lag above which a replica gets no reads until it has caught up again.
+     */
+    private Duration maxLag = Duration.ofSeconds(1);
+
+    /**
+     * How often the lag of every replica is measured.
+     */
+    private Duration lagCheckInterval = Duration.ofMillis(500);
+
+    /**
+     * The replicas; reads are spread over those within {@link #maxLag} in turn.
+     */
+    private List<Replica> replicas = new ArrayList<>();
+
+    /**
+     * How long a session reads from the primary after it wrote: a replica may lag by up to {@link #maxLag}, and
+     * by as much again as it falls behind until the next lag check.
+     *
+     * @return The read-your-writes window.
+     */
+    public Duration readYourWritesWindow() {
+        return maxLag.plus(lagCheckInterval);
+    }
+
+    @Getter
+    @Setter
+    public static class Replica {
+        /**
+         * Name of the replica, used for its connection pool and in logs and metrics; {@code replica-<n>} if not set.
+         */
+        private String name;
+
+        /**
+         * JDBC URL of the replica.
+         */
+        private String url;
+
+        private String username;
+
+        private String password;
+
+        /**
+         * Maximum number of connections to the replica.
+         */
+        private int maximumPoolSize = 10;
+
+        /**
+         * How long a read waits for a connection to the replica, and how long a lag check waits before the
+         * replica counts as unreachable.
+         */
+        private Duration connectionTimeout = Duration.ofSeconds(1);
+    }
+}
@@ -0,0 +1,141 @@
+package portfolio.project.Banking_app.config;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.function.LongConsumer;
+
+/**
+ * Tracks the writes of a client session, so that its reads go to the primary until the replicas have caught up
+ * with them.
+ * <p>
+ * A {@link Session} is bound to the thread that opens it, like a {@link QueryCounter} scope: work handed to another
+ * thread joins it only if the task was wrapped with {@link #propagate(Runnable)}, or submitted to an executor
+ * wrapped with {@link #propagating(Executor)}. Threads without a session, such as background jobs, read from the
+ * replicas whenever one is within the allowed lag.
+ */
+public final class ReadYourWrites {
+
+    private static final ThreadLocal<Session> CURRENT = new ThreadLocal<>();
+
+    private ReadYourWrites() {
+    }
+
+    /**
+     * Opens a session on the current thread, replacing any session that was open.
+     *
+     * @param primaryUntil Time in epoch milliseconds until which the session reads from the primary, 0 for none.
+     * @param onWrite      Called with the new time whenever a write of the session extends it.
+     * @return The new session.
+     */
+    public static Session open(long primaryUntil, LongConsumer onWrite) {
+        Session session = new Session(CURRENT.get(), primaryUntil, onWrite);
+        CURRENT.set(session);
+        return session;
+    }
+
+    /**
+     * Returns whether the current thread belongs to a session.
+     */
+    public static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    /**
+     * Returns whether the session of the current thread has written recently enough to read from the primary.
+     */
+    public static boolean readsFromPrimary() {
+        Session session = CURRENT.get();
+        return session != null && System.currentTimeMillis() < session.primaryUntil;
+    }
+
+    /**
+     * Records a committed write of the session of the current thread, if any: it reads from the primary for the
+     * given window from now on.
+     *
+     * @param window How long the replicas may take to catch up with the write.
+     */
+    public static void recordWrite(Duration window) {
+        Session session = CURRENT.get();
+        if (session != null) {
+            session.extend(System.currentTimeMillis() + window.toMillis());
+        }
+    }
+
+    /**
+     * Wraps a task so that it runs in the session of the calling thread, if any, wherever it runs.
+     *
+     * @param task The task.
+     * @return The wrapped task, or the task itself if the calling thread has no session.
+     */
+    public static Runnable propagate(Runnable task) {
+        Session session = CURRENT.get();
+        if (session == null) {
+            return task;
+        }
+        return () -> {
+            Session previous = CURRENT.get();
+            CURRENT.set(session);
+            try {
+                task.run();
+            } finally {
+                if (previous == null) {
+                    CURRENT.remove();
+                } else {
+                    CURRENT.set(previous);
+                }
+            }
+        };
+    }
+
+    /**
+     * Wraps an executor so that every task runs in the session of the thread submitting it.
+     *
+     * @param executor The executor.
+     * @return The wrapped executor.
+     */
+    public static Executor propagating(Executor executor) {
+        return task -> executor.execute(propagate(task));
+    }
+
+    /**
+     * The writes of one client session, as far as this request knows them. Closing it restores the session that
+     * was open before on this thread.
+     */
+    public static final class Session implements AutoCloseable {
+
+        private final Session previous;
+        private final LongConsumer onWrite;
+        private volatile long primaryUntil;
+
+        private Session(Session previous, long primaryUntil, LongConsumer onWrite) {
+            this.previous = previous;
+            this.primaryUntil = primaryUntil;
+            this.onWrite = onWrite;
+        }
+
+        /**
+         * Returns the time in epoch milliseconds until which the session reads from the primary.
+         */
+        public long primaryUntil() {
+            return primaryUntil;
+        }
+
+        private synchronized void extend(long until) {
+            if (until > primaryUntil) {
+                primaryUntil = until;
+                onWrite.accept(until);
+            }
+        }
+
+        @Override
+        public void close() {
+            if (CURRENT.get() == this) {
+                if (previous == null) {
+                    CURRENT.remove();
+                } else {
+                    CURRENT.set(previous);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package portfolio.project.Banking_app.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Opens a {@link ReadYourWrites} session for every request, carried between requests by the cookie
+ * {@link #COOKIE}: once a request has written, the response sets it to the time until which the client reads from
+ * the primary, and later requests sending it back read from the primary until then.
+ * <p>
+ * The cookie only holds a time, so it works across application instances without server-side state. A value
+ * further ahead than the read-your-writes window is capped to it, so a client cannot keep its reads off the
+ * replicas. A write committed after the response has been committed, such as on a thread the session was not
+ * handed to, is not reflected in the cookie.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    /**
+     * Cookie holding the time in epoch milliseconds until which the client reads from the primary.
+     */
+    public static final String COOKIE = "banking-primary-until";
+
+    private final Duration window;
+
+    public ReadYourWritesFilter(Duration window) {
+        this.window = window;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long primaryUntil = Math.min(primaryUntil(request), System.currentTimeMillis() + window.toMillis());
+        try (ReadYourWrites.Session ignored = ReadYourWrites.open(primaryUntil, until -> {
+            if (!response.isCommitted()) {
+                response.addCookie(cookie(until));
+            }
+        })) {
+            filterChain.doFilter(request, response);
+        }
+    }
+
+    private Cookie cookie(long primaryUntil) {
+        Cookie cookie = new Cookie(COOKIE, Long.toString(primaryUntil));
+        cookie.setPath("/");
+        cookie.setHttpOnly(true);
+        cookie.setMaxAge((int) Math.max(1, window.toSeconds() + 1));
+        return cookie;
+    }
+
+    private static long primaryUntil(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies != null) {
+            for (Cookie cookie : cookies) {
+                if (COOKIE.equals(cookie.getName())) {
+                    try {
+                        return Long.parseLong(cookie.getValue());
+                    } catch (NumberFormatException e) {
+                        return 0;
+                    }
+                }
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,171 @@
+package portfolio.project.Banking_app.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the replication lag of every replica at a fixed interval and keeps the list of replicas within the
+ * allowed lag, which {@link ReplicaRoutingDataSource} spreads the reads over.
+ * <p>
+ * A replica that has replayed the primary's WAL position read just before has no lag; otherwise its lag is the age
+ * of the last transaction it replayed. A server that is not in recovery, such as a stand-in for a replica, has no
+ * lag. A replica that cannot be reached counts as lagging, and until the first check every replica does, so reads
+ * start out on the primary.
+ */
+@Slf4j
+public class ReplicaLagMonitor implements AutoCloseable {
+
+    private static final String REPLICA_LAG_SQL = "SELECT pg_is_in_recovery(), "
+            + "pg_last_wal_replay_lsn() >= CAST(? AS pg_lsn), "
+            + "EXTRACT(EPOCH FROM clock_timestamp() - pg_last_xact_replay_timestamp())";
+
+    private final JdbcTemplate primary;
+    private final Map<String, JdbcTemplate> replicas = new LinkedHashMap<>();
+    private final Duration maxLag;
+    private final Duration interval;
+    private final Map<String, Duration> lags = new ConcurrentHashMap<>();
+    private volatile List<String> available = List.of();
+    private final Object lifecycle = new Object();
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * @param primary  The primary, whose current WAL position the replicas are compared with.
+     * @param replicas The replicas by name.
+     * @param maxLag   The lag above which a replica gets no reads.
+     * @param interval How often the lag is measured.
+     */
+    public ReplicaLagMonitor(DataSource primary, Map<String, DataSource> replicas, Duration maxLag, Duration interval) {
+        this.primary = new JdbcTemplate(primary);
+        replicas.forEach((name, replica) -> this.replicas.put(name, new JdbcTemplate(replica)));
+        this.maxLag = maxLag;
+        this.interval = interval;
+    }
+
+    /**
+     * Starts measuring on a daemon thread.
+     */
+    public void start() {
+        synchronized (lifecycle) {
+            if (scheduler == null) {
+                CustomizableThreadFactory threads = new CustomizableThreadFactory("replica-lag-");
+                threads.setDaemon(true);
+                scheduler = Executors.newSingleThreadScheduledExecutor(threads);
+                scheduler.scheduleWithFixedDelay(this::checkQuietly, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * Measures the lag of every replica now and updates the replicas available for reads. Checks do not overlap,
+     * so the last one to finish has also measured last.
+     */
+    public synchronized void check() {
+        String primaryPosition = null;
+        try {
+            primaryPosition = primary.queryForObject("SELECT CAST(pg_current_wal_lsn() AS text)", String.class);
+        } catch (DataAccessException e) {
+            log.debug("Could not read the WAL position of the primary", e);
+        }
+        List<String> withinLag = new ArrayList<>();
+        for (Map.Entry<String, JdbcTemplate> replica : replicas.entrySet()) {
+            String name = replica.getKey();
+            Duration lag = measure(replica.getValue(), primaryPosition);
+            if (lag == null) {
+                lags.remove(name);
+            } else {
+                lags.put(name, lag);
+            }
+            boolean wasAvailable = available.contains(name);
+            boolean isAvailable = lag != null && lag.compareTo(maxLag) <= 0;
+            if (isAvailable) {
+                withinLag.add(name);
+            }
+            if (wasAvailable && !isAvailable) {
+                log.warn("Replica {} gets no reads, its lag is {}", name, lag == null ? "unknown" : lag);
+            } else if (!wasAvailable && isAvailable) {
+                log.info("Replica {} gets reads, its lag is {}", name, lag);
+            }
+        }
+        available = List.copyOf(withinLag);
+    }
+
+    /**
+     * Returns the names of the replicas within the allowed lag at the last check.
+     */
+    public List<String> available() {
+        return available;
+    }
+
+    /**
+     * Returns the lag of a replica at the last check.
+     *
+     * @param name The replica name.
+     * @return The lag, or null if the replica could not be reached or was not checked yet.
+     */
+    public Duration lag(String name) {
+        return lags.get(name);
+    }
+
+    /**
+     * Returns the lag of a replica at the last check in seconds, NaN if it is not known; for metrics.
+     */
+    public double lagSeconds(String name) {
+        Duration lag = lags.get(name);
+        return lag == null ? Double.NaN : lag.toNanos() / 1e9;
+    }
+
+    /**
+     * Stops measuring.
+     */
+    @Override
+    public void close() {
+        synchronized (lifecycle) {
+            if (scheduler != null) {
+                scheduler.shutdownNow();
+                scheduler = null;
+            }
+        }
+    }
+
+    /**
+     * Checks without letting a failure end the schedule.
+     */
+    private void checkQuietly() {
+        try {
+            check();
+        } catch (RuntimeException e) {
+            log.warn("Replica lag check failed", e);
+        }
+    }
+
+    private static Duration measure(JdbcTemplate replica, String primaryPosition) {
+        try {
+            return replica.queryForObject(REPLICA_LAG_SQL, (rs, rowNum) -> {
+                if (!rs.getBoolean(1)) {
+                    return Duration.ZERO;
+                }
+                if (rs.getBoolean(2)) {
+                    return Duration.ZERO;
+                }
+                double seconds = rs.getDouble(3);
+                return rs.wasNull() ? null : Duration.ofNanos((long) (Math.max(seconds, 0) * 1e9));
+            }, primaryPosition);
+        } catch (DataAccessException e) {
+            log.debug("Could not measure the lag of a replica", e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package portfolio.project.Banking_app.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Routes read-only transactions to read replicas when {@code banking.read-replicas.enabled} is set: the
+ * application's DataSource is wrapped in a {@link ReplicaRoutingDataSource} over the primary and a connection pool
+ * per replica, behind a {@link LazyConnectionDataSourceProxy}, and the {@link ReadYourWritesFilter} keeps a
+ * client's reads on the primary for a while after it wrote.
+ * <p>
+ * The wrapping happens before any other post-processor wraps the DataSource, so the query guard counts the
+ * statements of the replicas too and the pool sizing still finds the primary's pool. The lag of every replica is
+ * exported as {@code banking.read_replica.lag} and its pool as the {@code hikaricp.*} meters.
+ */
+@Slf4j
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "banking.read-replicas", name = "enabled", havingValue = "true")
+public class ReplicaRoutingConfiguration {
+
+    @Bean
+    static BeanPostProcessor replicaRoutingDataSourcePostProcessor(ObjectProvider<ReadReplicaProperties> properties) {
+        return new RoutingPostProcessor(properties);
+    }
+
+    @Bean
+    public ReadYourWritesFilter readYourWritesFilter(ReadReplicaProperties properties) {
+        return new ReadYourWritesFilter(properties.readYourWritesWindow());
+    }
+
+    @Bean
+    public MeterBinder replicaMetrics(DataSource dataSource) {
+        return registry -> {
+            ReplicaRoutingDataSource routing = unwrapRouting(dataSource);
+            if (routing == null) {
+                return;
+            }
+            routing.getReplicas().forEach((name, replica) -> {
+                Gauge.builder("banking.read_replica.lag", routing.getMonitor(), monitor -> monitor.lagSeconds(name))
+                        .description("Replication lag of the replica at the last check")
+                        .baseUnit("seconds")
+                        .tag("replica", name)
+                        .register(registry);
+                if (replica instanceof HikariDataSource hikari) {
+                    hikari.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+                }
+            });
+        };
+    }
+
+    /**
+     * Returns the routing DataSource behind the application's DataSource, or null if it is not routed.
+     */
+    static ReplicaRoutingDataSource unwrapRouting(DataSource dataSource) {
+        try {
+            if (dataSource.isWrapperFor(ReplicaRoutingDataSource.class)) {
+                return dataSource.unwrap(ReplicaRoutingDataSource.class);
+            }
+        } catch (SQLException e) {
+            log.debug("Could not unwrap DataSource", e);
+        }
+        return null;
+    }
+
+    /**
+     * Wraps the {@code dataSource} bean, ahead of the post-processors that are not ordered.
+     */
+    private static final class RoutingPostProcessor implements BeanPostProcessor, Ordered {
+
+        private final ObjectProvider<ReadReplicaProperties> properties;
+
+        private RoutingPostProcessor(ObjectProvider<ReadReplicaProperties> properties) {
+            this.properties = properties;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!"dataSource".equals(beanName) || !(bean instanceof DataSource primary)) {
+                return bean;
+            }
+            ReadReplicaProperties settings = properties.getObject();
+            Map<String, DataSource> replicas = new LinkedHashMap<>();
+            for (ReadReplicaProperties.Replica replica : settings.getReplicas()) {
+                String name = replica.getName() != null ? replica.getName() : "replica-" + (replicas.size() + 1);
+                replicas.put(name, replicaPool(name, replica));
+            }
+            ReplicaLagMonitor monitor = new ReplicaLagMonitor(primary, replicas, settings.getMaxLag(),
+                    settings.getLagCheckInterval());
+            ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, replicas, monitor,
+                    settings.readYourWritesWindow());
+            monitor.start();
+            log.info("Routing read-only transactions to replicas {}", replicas.keySet());
+            return new ClosingLazyConnectionDataSourceProxy(routing);
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+
+        private static HikariDataSource replicaPool(String name, ReadReplicaProperties.Replica replica) {
+            HikariConfig config = new HikariConfig();
+            config.setPoolName(name);
+            config.setJdbcUrl(replica.getUrl());
+            config.setUsername(replica.getUsername());
+            config.setPassword(replica.getPassword());
+            config.setMaximumPoolSize(replica.getMaximumPoolSize());
+            config.setConnectionTimeout(replica.getConnectionTimeout().toMillis());
+            config.setReadOnly(true);
+            // An unreachable replica must not stop the application; it gets no reads until it answers
+            config.setInitializationFailTimeout(-1);
+            return new HikariDataSource(config);
+        }
+    }
+
+    /**
+     * Lazy connection proxy that closes the routing DataSource, so it can stand in for a pool bean with a
+     * {@code close} destroy method.
+     */
+    private static final class ClosingLazyConnectionDataSourceProxy extends LazyConnectionDataSourceProxy
+            implements AutoCloseable {
+
+        private ClosingLazyConnectionDataSourceProxy(ReplicaRoutingDataSource routing) {
+            super(routing);
+        }
+
+        @Override
+        public void close() throws Exception {
+            ((ReplicaRoutingDataSource) obtainTargetDataSource()).close();
+        }
+    }
+}
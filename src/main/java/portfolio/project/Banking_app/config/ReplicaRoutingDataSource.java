@@ -0,0 +1,163 @@
+package portfolio.project.Banking_app.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * DataSource sending the connections of read-only transactions ({@code @Transactional(readOnly = true)}) to the
+ * replicas and all others to the primary.
+ * <p>
+ * A read goes to the primary instead when every replica lags more than {@code banking.read-replicas.max-lag}, see
+ * {@link ReplicaLagMonitor}, or when its {@link ReadYourWrites} session wrote within the last
+ * {@link ReadReplicaProperties#readYourWritesWindow()}, so a client always reads its own writes. The writes of a
+ * session are recorded when a read-write transaction using the primary commits, whether or not it changed anything.
+ * Reads whose results are cached must not see an older state than the writes that evict them; they run in
+ * {@link #onPrimary(Supplier)}.
+ * <p>
+ * The connection must be chosen after the transaction has been marked read-only, which Spring's transaction
+ * managers do only after fetching it; {@link ReplicaRoutingConfiguration} therefore puts a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy} in front, which defers the choice to the
+ * first statement. Closing it stops the lag checks and closes the replica pools and the primary.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    /**
+     * Lookup key of the primary.
+     */
+    public static final String PRIMARY = "primary";
+
+    private static final ThreadLocal<Boolean> ON_PRIMARY = new ThreadLocal<>();
+
+    private final DataSource primary;
+    private final Map<String, DataSource> replicas;
+    private final ReplicaLagMonitor monitor;
+    private final Duration readYourWritesWindow;
+    private final AtomicInteger next = new AtomicInteger();
+
+    /**
+     * @param primary              The primary.
+     * @param replicas             The replicas by name.
+     * @param monitor              The lag monitor of the replicas.
+     * @param readYourWritesWindow How long a session reads from the primary after it wrote.
+     */
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, ReplicaLagMonitor monitor,
+                                    Duration readYourWritesWindow) {
+        this.primary = primary;
+        this.replicas = Map.copyOf(replicas);
+        this.monitor = monitor;
+        this.readYourWritesWindow = readYourWritesWindow;
+        Map<Object, Object> targets = new HashMap<>(replicas);
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    /**
+     * Runs work whose read-only transactions must read from the primary, such as loading a cache entry.
+     *
+     * @param work The work.
+     * @return The result of the work.
+     */
+    public static <T> T onPrimary(Supplier<T> work) {
+        if (Boolean.TRUE.equals(ON_PRIMARY.get())) {
+            return work.get();
+        }
+        ON_PRIMARY.set(Boolean.TRUE);
+        try {
+            return work.get();
+        } finally {
+            ON_PRIMARY.remove();
+        }
+    }
+
+    /**
+     * Returns the lag monitor of the replicas.
+     */
+    public ReplicaLagMonitor getMonitor() {
+        return monitor;
+    }
+
+    /**
+     * Returns the replica pools by name.
+     */
+    public Map<String, DataSource> getReplicas() {
+        return replicas;
+    }
+
+    /**
+     * Returns the name of the replica the next connection of the current transaction goes to, or {@link #PRIMARY}.
+     * Replicas within the allowed lag take turns.
+     */
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            recordWriteAfterCommit();
+            return PRIMARY;
+        }
+        if (ON_PRIMARY.get() != null || ReadYourWrites.readsFromPrimary()) {
+            return PRIMARY;
+        }
+        List<String> available = monitor.available();
+        if (available.isEmpty()) {
+            return PRIMARY;
+        }
+        return available.get(Math.floorMod(next.getAndIncrement(), available.size()));
+    }
+
+    /**
+     * Unwraps the primary, so pool settings and checks apply to it rather than to whichever target the calling
+     * thread would be routed to.
+     */
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        return primary.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || primary.isWrapperFor(iface);
+    }
+
+    @Override
+    public void close() throws Exception {
+        monitor.close();
+        for (DataSource replica : replicas.values()) {
+            if (replica instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+        if (primary instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    /**
+     * Marks the session of the current thread as having written once the current transaction commits.
+     */
+    private void recordWriteAfterCommit() {
+        if (ReadYourWrites.isActive() && TransactionSynchronizationManager.isActualTransactionActive()
+                && TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    ReadYourWrites.recordWrite(readYourWritesWindow);
+                }
+            });
+        }
+    }
+}
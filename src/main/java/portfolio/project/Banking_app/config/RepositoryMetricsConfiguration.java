@@ -0,0 +1,30 @@
+package portfolio.project.Banking_app.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import portfolio.project.Banking_app.service.BankingMetrics;
+
+/**
+ * Attaches the {@link BankingMetrics} repository listener to every Spring Data repository, so each repository
+ * method call is timed. It replaces Spring Boot's own repository timer, which builds its tags on every call.
+ */
+@Configuration(proxyBeanMethods = false)
+public class RepositoryMetricsConfiguration {
+
+    @Bean
+    static BeanPostProcessor repositoryMetricsPostProcessor(ObjectProvider<BankingMetrics> metrics) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> repositoryFactory) {
+                    repositoryFactory.addRepositoryFactoryCustomizer(
+                            factory -> factory.addInvocationListener(metrics.getObject().repositoryListener()));
+                }
+                return bean;
+            }
+        };
+    }
+}
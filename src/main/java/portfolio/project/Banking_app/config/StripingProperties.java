@@ -0,0 +1,27 @@
+package portfolio.project.Banking_app.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties for striped balances of hot accounts ({@code banking.striping.*}).
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "banking.striping")
+public class StripingProperties {
+
+    /**
+     * Number of stripes credits to a striped account are spread over.
+     * Credit throughput to one account grows with it, while balance reads sum one row per stripe.
+     */
+    private int stripes = 16;
+
+    /**
+     * How often the stripes of all striped accounts are folded back into their balance column.
+     */
+    private Duration foldInterval = Duration.ofSeconds(1);
+}
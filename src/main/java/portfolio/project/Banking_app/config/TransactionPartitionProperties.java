@@ -0,0 +1,63 @@
+package portfolio.project.Banking_app.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties of the monthly partitions of the transactions table and the archive of cold partitions
+ * ({@code banking.transaction-partitions.*}), see
+ * {@link portfolio.project.Banking_app.service.TransactionPartitionService}.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "banking.transaction-partitions")
+public class TransactionPartitionProperties {
+
+    /**
+     * Whether partitions are created and archived; nothing happens either way while the table is not partitioned.
+     */
+    private boolean enabled = true;
+
+    /**
+     * How many months ahead of the current one partitions are kept ready.
+     */
+    private int premakeMonths = 3;
+
+    /**
+     * How many full months before the current one stay in the database; older partitions are archived.
+     */
+    private int retentionMonths = 24;
+
+    /**
+     * Directory of the archive files. Every instance must see the same directory, since each serves the history
+     * of all archived partitions. A relative directory resolves against the working directory of each instance.
+     */
+    private String archiveDirectory = "transaction-archive";
+
+    /**
+     * Size of the data of an archive file above which the archive of a partition continues in a new file; at most
+     * 1GB, so every file can be memory-mapped at once.
+     */
+    private DataSize archivePartSize = DataSize.ofMegabytes(512);
+
+    /**
+     * Whether an archived partition is dropped after it was detached, rather than kept as a standalone table. The
+     * archive files are then the only copy of its transactions, so this needs an absolute {@code archive-directory}.
+     */
+    private boolean dropArchived = false;
+
+    /**
+     * How long archiving waits for the locks on a partition and the table before it gives up until the next run;
+     * writes of transactions wait behind the detach while it is queued.
+     */
+    private Duration lockTimeout = Duration.ofSeconds(1);
+
+    /**
+     * How often future partitions are created and cold partitions archived.
+     */
+    private Duration maintenanceInterval = Duration.ofHours(6);
+}
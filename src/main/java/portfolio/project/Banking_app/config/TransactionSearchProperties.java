@@ -0,0 +1,32 @@
+package portfolio.project.Banking_app.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties for transaction search ({@code banking.transaction-search.*}).
+ * They bound the filters that anchor a search on an index, so that no accepted search scans the transactions table.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "banking.transaction-search")
+public class TransactionSearchProperties {
+
+    /**
+     * Shortest account holder name prefix a search accepts.
+     */
+    private int minNamePrefix = 3;
+
+    /**
+     * Most accounts a name prefix may match; a broader prefix is rejected.
+     */
+    private int maxNameMatches = 100;
+
+    /**
+     * Longest date range a search accepts when the range is its only index-backed filter.
+     */
+    private Duration maxDateRange = Duration.ofDays(31);
+}
@@ -0,0 +1,93 @@
+package portfolio.project.Banking_app.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties for money transfers between accounts ({@code banking.transfer.*}).
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "banking.transfer")
+public class TransferProperties {
+
+    /**
+     * Retry policy applied when a transfer fails on a deadlock or serialization conflict.
+     */
+    private Retry retry = new Retry();
+
+    /**
+     * Micro-batching of submitted transfers into group commits.
+     */
+    private Batch batch = new Batch();
+
+    /**
+     * Bulk transfer uploads, such as payroll files.
+     */
+    private Bulk bulk = new Bulk();
+
+    @Getter
+    @Setter
+    public static class Retry {
+        /**
+         * Maximum number of attempts, including the first one.
+         */
+        private int maxAttempts = 5;
+
+        /**
+         * Backoff before the first retry. Doubled on every further attempt.
+         */
+        private Duration initialBackoff = Duration.ofMillis(10);
+
+        /**
+         * Upper bound for the backoff between two attempts.
+         */
+        private Duration maxBackoff = Duration.ofMillis(200);
+    }
+
+    @Getter
+    @Setter
+    public static class Batch {
+        /**
+         * Whether the batching pipeline is started.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Capacity of the submission queue. Submissions beyond it are rejected right away.
+         */
+        private int queueCapacity = 10_000;
+
+        /**
+         * Maximum number of transfers applied in one database transaction.
+         */
+        private int maxSize = 500;
+
+        /**
+         * Maximum time the first transfer of a batch waits for more transfers to arrive.
+         */
+        private Duration maxWait = Duration.ofMillis(5);
+    }
+
+    @Getter
+    @Setter
+    public static class Bulk {
+        /**
+         * Maximum number of rows of an upload applied in one database transaction.
+         */
+        private int chunkSize = 5_000;
+
+        /**
+         * Maximum number of account numbers or ids in one {@code IN (...)} lookup.
+         */
+        private int lookupSize = 1_000;
+
+        /**
+         * Number of threads parsing and validating rows; 0 uses one per available processor.
+         */
+        private int parallelism = 0;
+    }
+}
@@ -2,38 +2,89 @@ package portfolio.project.Banking_app.controller;
 
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import portfolio.project.Banking_app.entity.Account;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import portfolio.project.Banking_app.config.QueryCounter;
+import portfolio.project.Banking_app.config.ReadYourWrites;
+import portfolio.project.Banking_app.dto.IdempotentResponse;
+import portfolio.project.Banking_app.dto.TransactionHistoryPage;
+import portfolio.project.Banking_app.dto.TransactionSearchCriteria;
+import portfolio.project.Banking_app.dto.TransactionSearchPage;
 import portfolio.project.Banking_app.exception.IncorrectPinException;
 import portfolio.project.Banking_app.exception.ResourceNotFoundException;
-import portfolio.project.Banking_app.repository.AccountRepository;
 import portfolio.project.Banking_app.service.AccountService;
+import portfolio.project.Banking_app.service.IdempotencyService;
+import portfolio.project.Banking_app.service.PinService;
+import portfolio.project.Banking_app.service.StatementService;
+import portfolio.project.Banking_app.service.StripedBalanceService;
+import portfolio.project.Banking_app.service.TransactionHistoryService;
+import portfolio.project.Banking_app.service.TransactionSearchService;
 import portfolio.project.Banking_app.service.TransactionService;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Controller class for handling operations related to bank accounts.
  * This controller provides endpoints for managing account PINs, deposits, withdrawals, and PIN verification.
+ * Endpoints that hash or verify a PIN complete asynchronously, off the request thread. Work that follows a PIN check
+ * and touches the database runs on Spring's application task executor, never on the PIN hashing threads.
  */
 @RestController
 @RequestMapping("/api/accounts")
 public class AccountController {
 
-    // Stuff not yet Done, Transaction History, Transaction.
+    /**
+     * Request header carrying a client-chosen key that makes a retried request apply only once.
+     */
+    public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
+    /**
+     * Response header telling whether the response was stored by an earlier request with the same key.
+     */
+    public static final String IDEMPOTENT_REPLAYED = "Idempotent-Replayed";
+
+    // Stuff not yet Done, Transaction.
     //Login Set up, Errors.
-    //Search for specific Transaction By Account number/ name/ amount.
     @Autowired
     private AccountService accountService;
 
     @Autowired
-    private AccountRepository accountRepository;
+    private PinService pinService;
 
     @Autowired
     private TransactionService transactionService;
 
+    @Autowired
+    private TransactionHistoryService transactionHistoryService;
+
+    @Autowired
+    private TransactionSearchService transactionSearchService;
+
+    @Autowired
+    private StatementService statementService;
+
+    @Autowired
+    private StripedBalanceService stripedBalanceService;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private Executor applicationTaskExecutor;
+
     /**
      * Checks if the provided PIN matches the PIN associated with the account.
      *
@@ -43,14 +94,8 @@ public class AccountController {
      * @throws ResourceNotFoundException If the account with the given ID is not found.
      */
     @PutMapping("/{id}/check-pin")
-    public ResponseEntity<Boolean> checkPin(@PathVariable Long id, @RequestParam String pin) {
-        Optional<Account> optionalAccount = accountRepository.findById(id);
-        if (optionalAccount.isPresent()) {
-            Account account = optionalAccount.get();
-            return ResponseEntity.ok(account.getPin().equals(pin));
-        } else {
-            throw new ResourceNotFoundException("Account not found with id: " + id);
-        }
+    public CompletableFuture<ResponseEntity<Boolean>> checkPin(@PathVariable Long id, @RequestParam String pin) {
+        return pinService.verify(id, pin).thenApply(ResponseEntity::ok);
     }
 
     /**
@@ -64,20 +109,8 @@ public class AccountController {
      * @throws IncorrectPinException     If the old PIN provided is incorrect.
      */
     @PutMapping("/{id}/update-pin")
-    public ResponseEntity<Void> updatePin(@PathVariable Long id, @RequestParam String oldPin, @RequestParam String newPin) {
-        Optional<Account> optionalAccount = accountRepository.findById(id);
-        if (optionalAccount.isPresent()) {
-            Account account = optionalAccount.get();
-            if (account.getPin().equals(oldPin)) {
-                account.setPin(newPin);
-                accountRepository.save(account);
-                return ResponseEntity.noContent().build();
-            } else {
-                throw new IncorrectPinException("Incorrect old PIN provided.");
-            }
-        } else {
-            throw new ResourceNotFoundException("Account not found with id: " + id);
-        }
+    public CompletableFuture<ResponseEntity<Void>> updatePin(@PathVariable Long id, @RequestParam String oldPin, @RequestParam String newPin) {
+        return pinService.changePin(id, oldPin, newPin).thenApply(done -> ResponseEntity.noContent().build());
     }
 
     /**
@@ -89,70 +122,72 @@ public class AccountController {
      * @throws ResourceNotFoundException If the account with the given ID is not found.
      */
     @PutMapping("/{id}/create-pin")
-    public ResponseEntity<Void> createPin(@PathVariable Long id, @RequestParam String newPin) {
-        Optional<Account> optionalAccount = accountRepository.findById(id);
-        if (optionalAccount.isPresent()) {
-            Account account = optionalAccount.get();
-            account.setPin(newPin);
-            accountRepository.save(account);
-            return ResponseEntity.noContent().build();
-        } else {
-            throw new ResourceNotFoundException("Account not found with id: " + id);
-        }
+    public CompletableFuture<ResponseEntity<Void>> createPin(@PathVariable Long id, @RequestParam String newPin) {
+        return pinService.setPin(id, newPin).thenApply(done -> ResponseEntity.noContent().build());
     }
 
     /**
      * Deposits a specified amount of money into the account with the given ID.
+     * With an {@code Idempotency-Key} header, retries of the request return the first response and deposit nothing.
      *
-     * @param id     The ID of the account.
-     * @param amount The amount to deposit.
+     * @param id             The ID of the account.
+     * @param amount         The amount to deposit.
+     * @param idempotencyKey Optional key identifying the request across retries.
      * @return ResponseEntity with no content if the deposit is successful.
      * @throws ResourceNotFoundException If the account with the given ID is not found.
      */
     @PutMapping("/{id}/deposit")
-    public ResponseEntity<Void> deposit(@PathVariable Long id, @RequestParam BigDecimal amount) {
-        Optional<Account> optionalAccount = accountRepository.findById(id);
-        if (optionalAccount.isPresent()) {
-            Account account = optionalAccount.get();
-            account.setBalance(account.getBalance().add(amount));
-            accountRepository.save(account);
+    public ResponseEntity<Void> deposit(@PathVariable Long id, @RequestParam BigDecimal amount,
+                                        @RequestHeader(name = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        if (idempotencyKey == null) {
+            accountService.deposit(id, amount);
             return ResponseEntity.noContent().build();
-        } else {
-            throw new ResourceNotFoundException("Account not found with id: " + id);
         }
+        return toResponseEntity(idempotencyService.execute(idempotencyKey, fingerprint("deposit", id, amount), () -> {
+            accountService.deposit(id, amount);
+            return IdempotentResponse.of(HttpStatus.NO_CONTENT.value());
+        }));
     }
 
     /**
      * Withdraws a specified amount of money from the account with the given ID.
+     * With an {@code Idempotency-Key} header, retries of the request return the first response and withdraw nothing;
+     * a retry whose key is still in memory is answered before the PIN is hashed.
      *
-     * @param id     The ID of the account.
-     * @param pin    The PIN associated with the account.
-     * @param amount The amount to withdraw.
+     * @param id             The ID of the account.
+     * @param pin            The PIN associated with the account.
+     * @param amount         The amount to withdraw.
+     * @param idempotencyKey Optional key identifying the request across retries.
      * @return ResponseEntity with no content if the withdrawal is successful.
      * @throws ResourceNotFoundException If the account with the given ID is not found.
      * @throws IncorrectPinException     If the PIN provided is incorrect.
      * @throws IllegalArgumentException  If the withdrawal amount exceeds the account balance.
      */
     @PutMapping("/{id}/withdraw")
-    public ResponseEntity<Void> withdraw(@PathVariable Long id, @RequestParam String pin, @RequestParam BigDecimal amount) {
-        Optional<Account> optionalAccount = accountRepository.findById(id);
-        if (optionalAccount.isPresent()) {
-            Account account = optionalAccount.get();
-            if (account.getPin().equals(pin)) {
-                BigDecimal newBalance = account.getBalance().subtract(amount);
-                if (newBalance.compareTo(BigDecimal.ZERO) >= 0) {
-                    account.setBalance(newBalance);
-                    accountRepository.save(account);
-                    return ResponseEntity.noContent().build();
-                } else {
-                    throw new IllegalArgumentException("Insufficient funds.");
-                }
-            } else {
-                throw new IncorrectPinException("Incorrect PIN provided.");
+    public CompletableFuture<ResponseEntity<Void>> withdraw(@PathVariable Long id, @RequestParam String pin, @RequestParam BigDecimal amount,
+                                                            @RequestHeader(name = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        String fingerprint = fingerprint("withdraw", id, amount);
+        if (idempotencyKey != null) {
+            Optional<IdempotentResponse> replayed = idempotencyService.findCompleted(idempotencyKey, fingerprint);
+            if (replayed.isPresent()) {
+                return CompletableFuture.completedFuture(toResponseEntity(replayed.get()));
             }
-        } else {
-            throw new ResourceNotFoundException("Account not found with id: " + id);
         }
+        // The withdrawal, and the wait for a running request with the same key, must not hold a hashing thread
+        Executor tasks = QueryCounter.propagating(ReadYourWrites.propagating(applicationTaskExecutor));
+        return pinService.verify(id, pin).thenApplyAsync(matches -> {
+            if (!matches) {
+                throw new IncorrectPinException("Incorrect PIN provided.");
+            }
+            if (idempotencyKey == null) {
+                accountService.withdraw(id, amount);
+                return ResponseEntity.noContent().build();
+            }
+            return toResponseEntity(idempotencyService.execute(idempotencyKey, fingerprint, () -> {
+                accountService.withdraw(id, amount);
+                return IdempotentResponse.of(HttpStatus.NO_CONTENT.value());
+            }));
+        }, tasks);
     }
 
     /**
@@ -168,4 +203,107 @@ public class AccountController {
         BigDecimal balance = accountService.checkBalance(id);
         return ResponseEntity.ok(balance);
     }
-}
\ No newline at end of file
+
+    /**
+     * Turns striped balances on or off for the account with the given ID. Credits to a striped account are spread
+     * over several sub-balances, so a hot receiving account does not serialize its deposits and incoming transfers.
+     *
+     * @param id      The ID of the account.
+     * @param enabled Whether the account should be striped.
+     * @return ResponseEntity with no content if the setting is changed.
+     * @throws ResourceNotFoundException If the account with the given ID is not found.
+     */
+    @PutMapping("/{id}/striped")
+    public ResponseEntity<Void> setStriped(@PathVariable Long id, @RequestParam boolean enabled) {
+        stripedBalanceService.setStriped(id, enabled);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Retrieves one page of the transaction history of the account with the given ID, newest first.
+     * To get the next page, pass the returned cursor as {@code beforeTimestamp} and {@code beforeId}.
+     *
+     * @param id              The ID of the account.
+     * @param beforeTimestamp Timestamp of the cursor, omitted for the first page.
+     * @param beforeId        Id of the cursor, omitted for the first page.
+     * @param size            The page size.
+     * @return ResponseEntity containing the page of sent and received transactions.
+     * @throws ResourceNotFoundException If the account with the given ID is not found.
+     */
+    @GetMapping("/{id}/transactions")
+    public ResponseEntity<TransactionHistoryPage> getTransactionHistory(
+            @PathVariable Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime beforeTimestamp,
+            @RequestParam(required = false) Long beforeId,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(transactionHistoryService.getHistory(id, beforeTimestamp, beforeId, size));
+    }
+
+    /**
+     * Searches transactions by account number, account holder name, amount range and date range, newest first.
+     * Filters are passed as query parameters and combine with AND; a search needs at least one filter that an index
+     * serves (see {@link TransactionSearchService}). To get the next page, pass the returned cursor as
+     * {@code beforeTimestamp} and {@code beforeId}.
+     *
+     * @param criteria The filters, page size and cursor.
+     * @return ResponseEntity containing the page of matching transactions.
+     * @throws ResourceNotFoundException If the account number is not found.
+     * @throws IllegalArgumentException  If the filters are invalid or no index serves their combination.
+     */
+    @GetMapping("/transactions/search")
+    public ResponseEntity<TransactionSearchPage> searchTransactions(TransactionSearchCriteria criteria) {
+        return ResponseEntity.ok(transactionSearchService.search(criteria));
+    }
+
+    /**
+     * Exports the statement of the account with the given ID for a range of days, oldest transaction first.
+     * The statement is streamed to the client while it is read from the database.
+     *
+     * @param id     The ID of the account.
+     * @param from   First day of the statement, inclusive.
+     * @param to     Last day of the statement, exclusive.
+     * @param format The output format, NDJSON or CSV.
+     * @return ResponseEntity streaming the statement.
+     * @throws ResourceNotFoundException If the account with the given ID is not found.
+     */
+    @GetMapping("/{id}/statement")
+    public ResponseEntity<StreamingResponseBody> exportStatement(
+            @PathVariable Long id,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "NDJSON") StatementService.Format format) {
+        statementService.validateRequest(id, from, to);
+        StreamingResponseBody body = out -> statementService.exportStatement(id, from, to, format, out);
+        String fileName = "statement-" + id + "-" + from + "-" + to + "." + format.name().toLowerCase();
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getMediaType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .body(body);
+    }
+
+    /**
+     * Answers a request the PIN hashing pool had no room for with 503, so the client retries later instead of
+     * reading an overload as a server error.
+     *
+     * @return ResponseEntity with status 503 and a {@code Retry-After} header.
+     */
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<Void> handleRejectedExecution() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .build();
+    }
+
+    /**
+     * Identifies an operation and its arguments, so a key reused for a different request is detected.
+     */
+    private static String fingerprint(String operation, Long id, BigDecimal amount) {
+        return operation + ":" + id + ":" + amount.stripTrailingZeros().toPlainString();
+    }
+
+    private static ResponseEntity<Void> toResponseEntity(IdempotentResponse response) {
+        return ResponseEntity.status(response.status())
+                .header(IDEMPOTENT_REPLAYED, String.valueOf(response.replayed()))
+                .build();
+    }
+}
@@ -0,0 +1,96 @@
+package portfolio.project.Banking_app.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import portfolio.project.Banking_app.dto.TransferResult;
+import portfolio.project.Banking_app.engine.LedgerEngine;
+import portfolio.project.Banking_app.exception.InsufficientFundsException;
+import portfolio.project.Banking_app.exception.ResourceNotFoundException;
+import portfolio.project.Banking_app.exception.TransactionOperationException;
+import portfolio.project.Banking_app.service.BulkTransferService;
+import portfolio.project.Banking_app.service.TransactionService;
+import portfolio.project.Banking_app.service.TransferBatchService;
+
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Controller class for transfers between accounts.
+ */
+@RestController
+@RequestMapping("/api/transfers")
+public class TransferController {
+
+    private static final MediaType CSV = MediaType.parseMediaType(BulkTransferService.Format.CSV.getMediaType());
+
+    @Autowired
+    private BulkTransferService bulkTransferService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private TransferBatchService transferBatchService;
+
+    @Autowired
+    private LedgerEngine ledgerEngine;
+
+    /**
+     * Transfers an amount between two accounts. With {@code banking.engine.enabled} the transfer is submitted to the
+     * {@link LedgerEngine} and answered once it is in the engine's journal on disk; otherwise, with
+     * {@code banking.transfer.batch.enabled}, it is queued in {@link TransferBatchService} and answered once its batch
+     * has committed, or else it is committed to the database on its own by {@link TransactionService}.
+     *
+     * @param sender   The account number of the sender.
+     * @param receiver The account number of the receiver.
+     * @param amount   The amount to transfer.
+     * @return ResponseEntity containing the transfer.
+     * @throws ResourceNotFoundException     If either account does not exist.
+     * @throws InsufficientFundsException    If the sender's balance is insufficient.
+     * @throws TransactionOperationException If the transfer cannot be completed for other reasons.
+     */
+    @PostMapping
+    public CompletableFuture<ResponseEntity<TransferResult>> transfer(@RequestParam String sender, @RequestParam String receiver,
+                                                                      @RequestParam BigDecimal amount) {
+        if (ledgerEngine.isEnabled()) {
+            return ledgerEngine.submit(sender, receiver, amount).thenApply(ResponseEntity::ok);
+        }
+        if (transferBatchService.isEnabled()) {
+            return transferBatchService.submit(sender, receiver, amount).thenApply(ResponseEntity::ok);
+        }
+        return CompletableFuture.completedFuture(ResponseEntity.ok(transactionService.makeTransaction(sender, receiver, amount)));
+    }
+
+    /**
+     * Applies an uploaded file of transfers, such as a payroll run, as NDJSON or CSV according to its content type.
+     * The upload is read and applied while it arrives, and the result of every row is streamed back as NDJSON
+     * after the chunk containing it has committed.
+     *
+     * @param contentType The content type of the upload.
+     * @param body        The upload.
+     * @return ResponseEntity streaming one result per row.
+     * @throws TransactionOperationException If the {@link LedgerEngine} is enabled.
+     */
+    @PostMapping(path = "/bulk", consumes = {"application/x-ndjson", "text/csv"})
+    public ResponseEntity<StreamingResponseBody> bulkTransfer(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                              InputStream body) {
+        // Checked here as well, so the request fails before the response starts streaming
+        ledgerEngine.requireDatabaseWrites("Bulk transfers");
+        BulkTransferService.Format format = CSV.isCompatibleWith(MediaType.parseMediaType(contentType))
+                ? BulkTransferService.Format.CSV
+                : BulkTransferService.Format.NDJSON;
+        StreamingResponseBody results = out -> bulkTransferService.process(body, format, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(BulkTransferService.Format.NDJSON.getMediaType()))
+                .body(results);
+    }
+}
@@ -0,0 +1,10 @@
+package portfolio.project.Banking_app.dto;
+
+/**
+ * Read-only projection of the id of an account together with its account number.
+ *
+ * @param id            The unique identifier of the account.
+ * @param accountNumber The account number.
+ */
+public record AccountIdView(Long id, String accountNumber) {
+}
@@ -0,0 +1,34 @@
+package portfolio.project.Banking_app.dto;
+
+import lombok.Value;
+
+import java.time.Duration;
+
+/**
+ * Outcome of a bulk transfer upload; the result of each row is streamed to the client separately.
+ */
+@Value
+public class BulkTransferResult {
+
+    /**
+     * The number of rows in the upload.
+     */
+    long rows;
+
+    /**
+     * The number of rows whose transfer was applied.
+     */
+    long succeeded;
+
+    /**
+     * The wall-clock time of the upload.
+     */
+    Duration elapsed;
+
+    /**
+     * Processed rows per second.
+     */
+    public double getRowsPerSecond() {
+        return elapsed.isZero() ? 0 : rows / (elapsed.toNanos() / 1e9);
+    }
+}
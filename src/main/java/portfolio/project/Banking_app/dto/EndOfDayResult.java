@@ -0,0 +1,35 @@
+package portfolio.project.Banking_app.dto;
+
+import lombok.Value;
+
+import java.time.Duration;
+import java.time.LocalDate;
+
+/**
+ * Outcome of an end-of-day run, or of the part of it done by one invocation when it resumed a crashed run.
+ */
+@Value
+public class EndOfDayResult {
+
+    /**
+     * The business day the run closed.
+     */
+    LocalDate businessDate;
+
+    /**
+     * The number of accounts processed by this invocation.
+     */
+    long accounts;
+
+    /**
+     * The wall-clock time of this invocation.
+     */
+    Duration elapsed;
+
+    /**
+     * Processed accounts per second.
+     */
+    public double getAccountsPerSecond() {
+        return elapsed.isZero() ? 0 : accounts / (elapsed.toNanos() / 1e9);
+    }
+}
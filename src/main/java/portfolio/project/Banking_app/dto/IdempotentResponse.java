@@ -0,0 +1,30 @@
+package portfolio.project.Banking_app.dto;
+
+/**
+ * The response of a request sent with an idempotency key.
+ *
+ * @param status   The HTTP status.
+ * @param body     The response body, or null.
+ * @param replayed Whether the response was stored by an earlier request with the same key instead of produced now.
+ */
+public record IdempotentResponse(int status, String body, boolean replayed) {
+
+    /**
+     * Creates a fresh response without a body.
+     *
+     * @param status The HTTP status.
+     * @return The response.
+     */
+    public static IdempotentResponse of(int status) {
+        return new IdempotentResponse(status, null, false);
+    }
+
+    /**
+     * Returns this response marked as replayed.
+     *
+     * @return The replayed response.
+     */
+    public IdempotentResponse replay() {
+        return new IdempotentResponse(status, body, true);
+    }
+}
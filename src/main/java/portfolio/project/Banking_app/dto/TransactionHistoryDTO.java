@@ -0,0 +1,47 @@
+package portfolio.project.Banking_app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Data Transfer Object (DTO) for one entry of an account's transaction history.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionHistoryDTO {
+
+    /**
+     * The unique identifier of the transaction.
+     */
+    private Long id;
+
+    /**
+     * The amount of the transaction.
+     */
+    private BigDecimal amount;
+
+    /**
+     * The timestamp of the transaction.
+     */
+    private LocalDateTime timestamp;
+
+    /**
+     * The account number of the sender.
+     */
+    private String senderAccountNumber;
+
+    /**
+     * The account number of the receiver.
+     */
+    private String receiverAccountNumber;
+
+    /**
+     * Whether the account the history was requested for sent ({@code SENT}) or received ({@code RECEIVED}) the money.
+     */
+    private String direction;
+}
@@ -0,0 +1,33 @@
+package portfolio.project.Banking_app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * One page of an account's transaction history, newest first.
+ * The next page is requested by passing {@link #nextBeforeTimestamp} and {@link #nextBeforeId} back as cursor.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionHistoryPage {
+
+    /**
+     * The transactions of this page, ordered by timestamp and id, newest first.
+     */
+    private List<TransactionHistoryDTO> transactions;
+
+    /**
+     * Timestamp part of the cursor for the next page, or null if this is the last page.
+     */
+    private LocalDateTime nextBeforeTimestamp;
+
+    /**
+     * Id part of the cursor for the next page, or null if this is the last page.
+     */
+    private Long nextBeforeId;
+}
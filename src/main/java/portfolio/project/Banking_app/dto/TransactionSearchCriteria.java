@@ -0,0 +1,73 @@
+package portfolio.project.Banking_app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Filters of a transaction search. Every filter is optional and they combine with AND, but a search must contain
+ * at least one filter backed by an index; see {@link portfolio.project.Banking_app.service.TransactionSearchService}.
+ * The next page is requested by passing the cursor of the previous page as {@link #beforeTimestamp} and
+ * {@link #beforeId}.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionSearchCriteria {
+
+    /**
+     * Number of an account that sent or received the transactions.
+     */
+    private String accountNumber;
+
+    /**
+     * Case-insensitive prefix of the full name of the account holder on the other side of the transactions; without
+     * an account number, of the holder on either side.
+     */
+    private String counterpartyName;
+
+    /**
+     * Smallest amount, inclusive.
+     */
+    private BigDecimal minAmount;
+
+    /**
+     * Largest amount, inclusive.
+     */
+    private BigDecimal maxAmount;
+
+    /**
+     * Earliest timestamp, inclusive.
+     */
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime from;
+
+    /**
+     * Latest timestamp, exclusive.
+     */
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime to;
+
+    /**
+     * Timestamp part of the cursor, or null for the first page.
+     */
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime beforeTimestamp;
+
+    /**
+     * Id part of the cursor, or null for the first page.
+     */
+    private Long beforeId;
+
+    /**
+     * The page size.
+     */
+    @Builder.Default
+    private int size = 20;
+}
@@ -0,0 +1,52 @@
+package portfolio.project.Banking_app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Data Transfer Object (DTO) for one transaction found by a search.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionSearchResultDTO {
+
+    /**
+     * The unique identifier of the transaction.
+     */
+    private Long id;
+
+    /**
+     * The amount of the transaction.
+     */
+    private BigDecimal amount;
+
+    /**
+     * The timestamp of the transaction.
+     */
+    private LocalDateTime timestamp;
+
+    /**
+     * The account number of the sender.
+     */
+    private String senderAccountNumber;
+
+    /**
+     * The full name of the holder of the sender's account.
+     */
+    private String senderName;
+
+    /**
+     * The account number of the receiver.
+     */
+    private String receiverAccountNumber;
+
+    /**
+     * The full name of the holder of the receiver's account.
+     */
+    private String receiverName;
+}
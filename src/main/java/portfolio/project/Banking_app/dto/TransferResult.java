@@ -0,0 +1,33 @@
+package portfolio.project.Banking_app.dto;
+
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Outcome of a single committed transfer.
+ */
+@Value
+public class TransferResult {
+
+    /**
+     * The account number of the sender.
+     */
+    String senderAccountNumber;
+
+    /**
+     * The account number of the receiver.
+     */
+    String receiverAccountNumber;
+
+    /**
+     * The transferred amount.
+     */
+    BigDecimal amount;
+
+    /**
+     * The timestamp recorded for the transaction.
+     */
+    LocalDateTime timestamp;
+}
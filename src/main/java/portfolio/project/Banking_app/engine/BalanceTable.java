@@ -0,0 +1,116 @@
+package portfolio.project.Banking_app.engine;
+
+/**
+ * Open-addressing hash table from account id to balance in cents, on two primitive arrays.
+ * <p>
+ * Not thread-safe; it is owned by the engine's writer thread. Account ids are positive, 0 marks an empty slot.
+ * The table doubles once it is half full, so probe sequences stay short, and nothing is ever removed.
+ */
+final class BalanceTable {
+
+    private static final long EMPTY = 0;
+
+    private long[] keys;
+    private long[] values;
+    private int mask;
+    private int size;
+
+    /**
+     * @param expectedSize The number of accounts expected, to size the table without growing.
+     */
+    BalanceTable(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedSize) * 2 - 1) << 1;
+        allocate(capacity);
+    }
+
+    /**
+     * Returns the slot of an account, or -1 if the table does not hold it.
+     */
+    int indexOf(long accountId) {
+        int index = hash(accountId) & mask;
+        while (true) {
+            long key = keys[index];
+            if (key == accountId) {
+                return index;
+            }
+            if (key == EMPTY) {
+                return -1;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    /**
+     * Returns the balance in the given slot.
+     */
+    long valueAt(int index) {
+        return values[index];
+    }
+
+    /**
+     * Adds an amount, negative to subtract, to the balance in the given slot.
+     */
+    void addAt(int index, long delta) {
+        values[index] += delta;
+    }
+
+    /**
+     * Sets the balance of an account, adding the account if the table does not hold it.
+     */
+    void put(long accountId, long balance) {
+        if (accountId <= 0) {
+            throw new IllegalArgumentException("Account ids must be positive, got " + accountId);
+        }
+        int index = hash(accountId) & mask;
+        while (keys[index] != EMPTY && keys[index] != accountId) {
+            index = (index + 1) & mask;
+        }
+        if (keys[index] == EMPTY) {
+            keys[index] = accountId;
+            if (++size * 2 > keys.length) {
+                values[index] = balance;
+                grow();
+                return;
+            }
+        }
+        values[index] = balance;
+    }
+
+    /**
+     * Returns the number of accounts held.
+     */
+    int size() {
+        return size;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        allocate(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key != EMPTY) {
+                int index = hash(key) & mask;
+                while (keys[index] != EMPTY) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = key;
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Spreads sequential ids over the table (Fibonacci hashing).
+     */
+    private static int hash(long key) {
+        long mixed = key * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32));
+    }
+}
@@ -0,0 +1,108 @@
+package portfolio.project.Banking_app.engine;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded lock-free ring buffer of engine commands with many producers and one consumer.
+ * <p>
+ * A producer claims the next sequence with a compare-and-set, fills the slot's primitive fields and then publishes
+ * the slot by storing {@code sequence + 1} in its flag with release semantics. The consumer reads a slot once its flag
+ * shows the expected sequence and hands the slots back by moving its own sequence forward after a batch. Commands
+ * are stored in parallel arrays allocated up front, so offering a command allocates nothing but its attachment.
+ */
+final class CommandRing {
+
+    private final int mask;
+    private final int capacity;
+    private final AtomicLongArray published;
+    private final int[] types;
+    private final long[] firsts;
+    private final long[] seconds;
+    private final long[] amounts;
+    private final Object[] attachments;
+    private final AtomicLong claimed = new AtomicLong();
+    private final AtomicLong consumed = new AtomicLong();
+
+    /**
+     * @param capacity The number of slots, a power of two.
+     */
+    CommandRing(int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Ring capacity must be a power of two, got " + capacity);
+        }
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.published = new AtomicLongArray(capacity);
+        this.types = new int[capacity];
+        this.firsts = new long[capacity];
+        this.seconds = new long[capacity];
+        this.amounts = new long[capacity];
+        this.attachments = new Object[capacity];
+    }
+
+    /**
+     * Adds a command unless the ring is full. Safe to call from any thread.
+     *
+     * @return False if the ring is full.
+     */
+    boolean offer(int type, long first, long second, long amount, Object attachment) {
+        long sequence;
+        do {
+            sequence = claimed.get();
+            if (sequence - consumed.get() >= capacity) {
+                return false;
+            }
+        } while (!claimed.compareAndSet(sequence, sequence + 1));
+
+        int slot = (int) sequence & mask;
+        types[slot] = type;
+        firsts[slot] = first;
+        seconds[slot] = second;
+        amounts[slot] = amount;
+        attachments[slot] = attachment;
+        published.setRelease(slot, sequence + 1);
+        return true;
+    }
+
+    /**
+     * Hands up to {@code limit} published commands to the handler, in claim order. Must only be called by the
+     * consumer thread. Stops early at a slot that is claimed but not yet published.
+     *
+     * @return The number of commands handled.
+     */
+    int drain(Handler handler, int limit) {
+        long next = consumed.get();
+        int handled = 0;
+        while (handled < limit) {
+            int slot = (int) next & mask;
+            if (published.getAcquire(slot) != next + 1) {
+                break;
+            }
+            Object attachment = attachments[slot];
+            attachments[slot] = null;
+            handler.handle(types[slot], firsts[slot], seconds[slot], amounts[slot], attachment);
+            next++;
+            handled++;
+        }
+        if (handled > 0) {
+            consumed.setRelease(next);
+        }
+        return handled;
+    }
+
+    /**
+     * Returns the number of commands claimed but not yet consumed.
+     */
+    int size() {
+        return (int) Math.max(0, claimed.get() - consumed.get());
+    }
+
+    /**
+     * Receives the commands of {@link #drain(Handler, int)}.
+     */
+    @FunctionalInterface
+    interface Handler {
+        void handle(int type, long first, long second, long amount, Object attachment);
+    }
+}
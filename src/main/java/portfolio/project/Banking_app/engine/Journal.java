@@ -0,0 +1,326 @@
+package portfolio.project.Banking_app.engine;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only journal of the engine, stored in memory-mapped segment files of fixed-size records.
+ * <p>
+ * Every record has a sequence number, one more than the record before it, and is 48 bytes long: sequence, first
+ * account id, second account id, amount in cents and timestamp in epoch milliseconds as longs, then the record type
+ * and a CRC32C of the preceding 44 bytes as ints. A segment is named after the sequence of its first record, so the
+ * position of any record follows from its sequence. Records are written into the mapped segment and made durable
+ * by {@link #force()}; a record is only acknowledged after that.
+ * <p>
+ * {@link #recover(long, Visitor)} reads the journal back after a restart and stops at the first record whose
+ * checksum or sequence does not match, which is where a crash tore the last write. Everything after it is zeroed.
+ * <p>
+ * Appending, forcing, recovery and deleting are only called by the engine's writer thread;
+ * {@link #read(long, long, Visitor)} may be called by another thread for records already forced.
+ */
+@Slf4j
+final class Journal implements Closeable {
+
+    /**
+     * Size of one record in bytes.
+     */
+    static final int RECORD_SIZE = 48;
+
+    /**
+     * A transfer from the first to the second account.
+     */
+    static final int TRANSFER = 1;
+
+    /**
+     * An account joining the engine with an opening balance.
+     */
+    static final int OPEN = 2;
+
+    /**
+     * A deposit into the first account.
+     */
+    static final int DEPOSIT = 3;
+
+    /**
+     * A withdrawal from the first account.
+     */
+    static final int WITHDRAWAL = 4;
+
+    private static final int CHECKSUMMED_SIZE = RECORD_SIZE - Integer.BYTES;
+    private static final int ZERO_CHUNK = 64 * 1024;
+    private static final String PREFIX = "journal-";
+    private static final String SUFFIX = ".log";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final boolean fsync;
+    private final ConcurrentSkipListMap<Long, Path> segments = new ConcurrentSkipListMap<>();
+    private final byte[] writeRecord = new byte[RECORD_SIZE];
+    private final ByteBuffer writeView = ByteBuffer.wrap(writeRecord);
+    private final CRC32C writeChecksum = new CRC32C();
+
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int position;
+    private int forcedPosition;
+    private long lastSequence;
+    private boolean rolled;
+
+    /**
+     * @param directory   The directory of the segment files.
+     * @param segmentSize The size of a segment file in bytes; rounded down to whole records.
+     * @param fsync       Whether {@link #force()} forces the written records to disk.
+     */
+    Journal(Path directory, long segmentSize, boolean fsync) throws IOException {
+        if (segmentSize < RECORD_SIZE || segmentSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Journal segment size must be between " + RECORD_SIZE + " bytes and 2 GB");
+        }
+        this.directory = directory;
+        this.segmentSize = (int) (segmentSize / RECORD_SIZE * RECORD_SIZE);
+        this.fsync = fsync;
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> {
+                String name = file.getFileName().toString();
+                if (name.startsWith(PREFIX) && name.endsWith(SUFFIX)) {
+                    segments.put(Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length())), file);
+                }
+            });
+        }
+    }
+
+    /**
+     * Reads the journal back after a restart and positions it for appending after its last valid record.
+     *
+     * @param afterSequence The sequence the recovered state already reflects, the checkpoint of the database.
+     *                      Only later records are handed to the visitor.
+     * @param visitor       Receives the records after {@code afterSequence}, in order.
+     * @return The sequence of the last valid record, or {@code afterSequence} if the journal is empty.
+     * @throws IllegalStateException If the journal does not continue the given sequence.
+     */
+    long recover(long afterSequence, Visitor visitor) throws IOException {
+        long expected = -1;
+        Map.Entry<Long, Path> last = null;
+        int lastEnd = 0;
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+        CRC32C checksum = new CRC32C();
+        for (Map.Entry<Long, Path> segment : segments.entrySet()) {
+            long first = segment.getKey();
+            if (expected == -1 ? first > afterSequence + 1 : first != expected) {
+                throw new IllegalStateException("Journal segment " + segment.getValue() + " starts at sequence " + first
+                        + " but sequence " + (expected == -1 ? afterSequence + 1 : expected) + " was expected");
+            }
+            expected = first;
+            int end = 0;
+            try (FileChannel segmentChannel = FileChannel.open(segment.getValue(), StandardOpenOption.READ)) {
+                MappedByteBuffer mapped = segmentChannel.map(FileChannel.MapMode.READ_ONLY, 0, segmentChannel.size());
+                while (end + RECORD_SIZE <= mapped.capacity()) {
+                    mapped.get(end, record.array());
+                    if (!isValid(record, checksum, expected)) {
+                        break;
+                    }
+                    if (expected > afterSequence) {
+                        visitor.visit(expected, record.getInt(40), record.getLong(8), record.getLong(16),
+                                record.getLong(24), record.getLong(32));
+                    }
+                    expected++;
+                    end += RECORD_SIZE;
+                }
+            }
+            last = segment;
+            lastEnd = end;
+        }
+
+        if (last == null) {
+            lastSequence = afterSequence;
+            openSegment(afterSequence + 1);
+            return lastSequence;
+        }
+        lastSequence = expected - 1;
+        if (lastSequence < afterSequence) {
+            throw new IllegalStateException("Journal ends at sequence " + lastSequence + " but the recovered state is at "
+                    + afterSequence + "; records were lost. Delete the journal directory to rebuild from the database.");
+        }
+        channel = FileChannel.open(last.getValue(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(segmentSize, channel.size()));
+        position = lastEnd;
+        // A torn write may have left parts of later records behind; they must never be read as valid again
+        byte[] zeros = new byte[Math.min(ZERO_CHUNK, buffer.capacity())];
+        boolean zeroed = false;
+        for (int at = lastEnd; at < buffer.capacity(); at += zeros.length) {
+            int length = Math.min(zeros.length, buffer.capacity() - at);
+            if (buffer.slice(at, length).mismatch(ByteBuffer.wrap(zeros, 0, length)) != -1) {
+                buffer.put(at, zeros, 0, length);
+                zeroed = true;
+            }
+        }
+        if (zeroed) {
+            buffer.force();
+            log.warn("Ledger journal had a torn tail after sequence {}; it was discarded", lastSequence);
+        }
+        forcedPosition = position;
+        return lastSequence;
+    }
+
+    /**
+     * Appends a record, starting a new segment if the current one is full. The record is not durable before the
+     * next {@link #force()}.
+     *
+     * @return The sequence of the record.
+     */
+    long append(int type, long first, long second, long amount, long epochMillis) throws IOException {
+        if (position + RECORD_SIZE > buffer.capacity()) {
+            roll();
+        }
+        long sequence = lastSequence + 1;
+        writeView.putLong(0, sequence)
+                .putLong(8, first)
+                .putLong(16, second)
+                .putLong(24, amount)
+                .putLong(32, epochMillis)
+                .putInt(40, type);
+        writeChecksum.reset();
+        writeChecksum.update(writeRecord, 0, CHECKSUMMED_SIZE);
+        writeView.putInt(CHECKSUMMED_SIZE, (int) writeChecksum.getValue());
+        buffer.put(position, writeRecord);
+        position += RECORD_SIZE;
+        lastSequence = sequence;
+        return sequence;
+    }
+
+    /**
+     * Forces the records appended since the last call to disk, unless fsync is turned off.
+     */
+    void force() {
+        if (fsync && position > forcedPosition) {
+            buffer.force(forcedPosition, position - forcedPosition);
+        }
+        forcedPosition = position;
+    }
+
+    /**
+     * Returns the sequence of the last appended record.
+     */
+    long lastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * Returns whether a new segment was started since the last call.
+     */
+    boolean takeRolled() {
+        boolean result = rolled;
+        rolled = false;
+        return result;
+    }
+
+    /**
+     * Hands the records in the given sequence range to the visitor. The records must have been forced.
+     *
+     * @param fromSequence The first sequence, inclusive.
+     * @param toSequence   The last sequence, inclusive.
+     * @param visitor      Receives the records, in order.
+     */
+    void read(long fromSequence, long toSequence, Visitor visitor) throws IOException {
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+        long sequence = fromSequence;
+        while (sequence <= toSequence) {
+            Map.Entry<Long, Path> segment = segments.floorEntry(sequence);
+            if (segment == null) {
+                throw new IllegalStateException("No journal segment holds sequence " + sequence);
+            }
+            Long next = segments.higherKey(segment.getKey());
+            long segmentLast = Math.min(toSequence, next == null ? Long.MAX_VALUE : next - 1);
+            long offset = (sequence - segment.getKey()) * RECORD_SIZE;
+            long length = (segmentLast - sequence + 1) * RECORD_SIZE;
+            try (FileChannel segmentChannel = FileChannel.open(segment.getValue(), StandardOpenOption.READ)) {
+                MappedByteBuffer mapped = segmentChannel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+                for (int at = 0; at < length; at += RECORD_SIZE) {
+                    mapped.get(at, record.array());
+                    if (record.getLong(0) != sequence) {
+                        throw new IllegalStateException("Journal record at sequence " + sequence + " is missing");
+                    }
+                    visitor.visit(sequence, record.getInt(40), record.getLong(8), record.getLong(16),
+                            record.getLong(24), record.getLong(32));
+                    sequence++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Deletes the segments whose records all have a sequence up to the given one. The current segment is kept.
+     *
+     * @param sequence The last sequence no longer needed.
+     * @return The number of segments deleted.
+     */
+    int deleteSegmentsUpTo(long sequence) throws IOException {
+        List<Long> deletable = new ArrayList<>();
+        for (Map.Entry<Long, Path> segment : segments.entrySet()) {
+            Long next = segments.higherKey(segment.getKey());
+            if (next == null || next - 1 > sequence) {
+                break;
+            }
+            deletable.add(segment.getKey());
+        }
+        for (Long first : deletable) {
+            Files.deleteIfExists(segments.remove(first));
+        }
+        return deletable.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            force();
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private void roll() throws IOException {
+        force();
+        channel.close();
+        openSegment(lastSequence + 1);
+        rolled = true;
+    }
+
+    private void openSegment(long first) throws IOException {
+        Path file = directory.resolve(String.format("%s%020d%s", PREFIX, first, SUFFIX));
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        position = 0;
+        forcedPosition = 0;
+        segments.put(first, file);
+    }
+
+    private static boolean isValid(ByteBuffer record, CRC32C checksum, long expectedSequence) {
+        if (record.getLong(0) != expectedSequence) {
+            return false;
+        }
+        checksum.reset();
+        checksum.update(record.array(), 0, CHECKSUMMED_SIZE);
+        return record.getInt(CHECKSUMMED_SIZE) == (int) checksum.getValue();
+    }
+
+    /**
+     * Receives journal records.
+     */
+    @FunctionalInterface
+    interface Visitor {
+        void visit(long sequence, int type, long first, long second, long amount, long epochMillis);
+    }
+}
@@ -0,0 +1,745 @@
+package portfolio.project.Banking_app.engine;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import portfolio.project.Banking_app.config.EngineProperties;
+import portfolio.project.Banking_app.dto.TransferResult;
+import portfolio.project.Banking_app.exception.InsufficientFundsException;
+import portfolio.project.Banking_app.exception.ResourceNotFoundException;
+import portfolio.project.Banking_app.exception.TransactionOperationException;
+import portfolio.project.Banking_app.repository.EngineJdbcRepository;
+import portfolio.project.Banking_app.repository.TransferJdbcRepository;
+import portfolio.project.Banking_app.repository.TransferJdbcRepository.TransferRow;
+import portfolio.project.Banking_app.service.AccountNumberResolver;
+import portfolio.project.Banking_app.service.BalanceCache;
+import portfolio.project.Banking_app.service.BankingMetrics;
+import portfolio.project.Banking_app.service.BankingMetrics.Operation;
+import portfolio.project.Banking_app.service.BankingMetrics.Outcome;
+import portfolio.project.Banking_app.service.OutboxService;
+import portfolio.project.Banking_app.service.OutboxService.Change;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * In-memory ledger engine for the highest-volume transfer tier, an alternative to the JPA path of
+ * {@link portfolio.project.Banking_app.service.TransactionService}.
+ * <p>
+ * The balances of all accounts are held in cents in a primitive hash table owned by a single writer thread.
+ * Callers submit commands through a lock-free ring buffer; the writer applies them one after another without locks,
+ * appends every accepted transfer, deposit and withdrawal to a memory-mapped {@link Journal}, and forces the journal
+ * once per batch of up to
+ * {@code banking.engine.max-batch-size} commands before completing the callers' futures. A balance change is
+ * therefore acknowledged only once it is durable.
+ * <p>
+ * A second thread writes the journal to the database behind the writer: per batch of records, one transaction adds
+ * the balance deltas to the accounts, inserts the transactions of the transfers and the outbox events of all changes
+ * and moves the
+ * {@link portfolio.project.Banking_app.entity.EngineCheckpoint}, so each record is written exactly once even if the
+ * application crashes in between. A delta that would take an account below zero, or finds no account, fails the
+ * whole batch, which is retried and logged until someone repairs the account. Journal segments are deleted once the
+ * checkpoint covers them. On startup the balances are loaded from the database together with the checkpoint, and the
+ * journal after the checkpoint is replayed, so changes made while the engine was disabled are picked up.
+ * <p>
+ * While the engine is enabled it owns the balances of all accounts: {@code POST /api/transfers} submits transfers
+ * to it, {@link portfolio.project.Banking_app.service.AccountService} submits deposits and withdrawals to it, and its
+ * balance checks read the balances the engine holds, which the database only reaches after the write-behind. Every
+ * other balance change (database, batch and bulk transfers, the end-of-day run) and the deletion of accounts is
+ * rejected by {@link #requireDatabaseWrites(String)}, since the engine would not see it and could move money the
+ * account no longer has, or write behind a change of an account that no longer exists. Accounts created while it runs join it after their creation commits, see
+ * {@link #registerAfterCommit(long, BigDecimal)}. Futures are completed on the writer thread, so callers must not
+ * block in their continuations.
+ * <p>
+ * The latency of each transfer, from submission until its future is completed, is recorded in {@link BankingMetrics}
+ * as operation {@code engine_transfer}.
+ */
+@Slf4j
+@Component
+public class LedgerEngine {
+
+    private static final String NAME = "default";
+    private static final int TRANSFER = Journal.TRANSFER;
+    private static final int OPEN = Journal.OPEN;
+    private static final int DEPOSIT = Journal.DEPOSIT;
+    private static final int WITHDRAWAL = Journal.WITHDRAWAL;
+    // Reads are not journaled, so their type only needs to differ from the record types
+    private static final int BALANCE = 0;
+    private static final int SPIN_POLLS = 1_000;
+    private static final int YIELD_POLLS = 1_100;
+    private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    private final EngineProperties properties;
+    private final EngineJdbcRepository engineRepository;
+    private final TransferJdbcRepository transferJdbcRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate loadTemplate;
+    private final AccountNumberResolver accountNumberResolver;
+    private final BalanceCache balanceCache;
+    private final BankingMetrics metrics;
+    private final OutboxService outbox;
+
+    // Owned by the writer thread once started
+    private CommandRing ring;
+    private BalanceTable balances;
+    private Journal journal;
+    private Pending[] batch;
+    private int batchSize;
+    private RuntimeException journalFailure;
+
+    private volatile boolean running;
+    private volatile boolean draining;
+    private volatile long durableSequence;
+    private volatile long checkpoint;
+    private Thread writer;
+    private Thread writeBehind;
+
+    public LedgerEngine(EngineProperties properties,
+                        EngineJdbcRepository engineRepository,
+                        TransferJdbcRepository transferJdbcRepository,
+                        TransactionTemplate transactionTemplate,
+                        AccountNumberResolver accountNumberResolver,
+                        BalanceCache balanceCache,
+                        BankingMetrics metrics,
+                        OutboxService outbox) {
+        this.properties = properties;
+        this.engineRepository = engineRepository;
+        this.transferJdbcRepository = transferJdbcRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.accountNumberResolver = accountNumberResolver;
+        this.balanceCache = balanceCache;
+        this.metrics = metrics;
+        this.outbox = outbox;
+        // All balances and the checkpoint are read from one snapshot of the database
+        this.loadTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.loadTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        metrics.monitorEngine(() -> running ? ring.size() : 0, this::writeBehindLag);
+    }
+
+    /**
+     * Recovers the balances and starts the writer and write-behind threads if the engine is enabled.
+     *
+     * @throws UncheckedIOException  If the journal cannot be read.
+     * @throws IllegalStateException If the journal does not continue the database checkpoint.
+     */
+    @PostConstruct
+    public synchronized void start() {
+        if (!properties.isEnabled() || running) {
+            return;
+        }
+        try {
+            recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not recover the ledger engine from " + properties.getDirectory(), e);
+        }
+        ring = new CommandRing(properties.getRingCapacity());
+        batch = new Pending[properties.getMaxBatchSize()];
+        draining = false;
+        running = true;
+        writer = new Thread(this::writeLoop, "ledger-engine-writer");
+        writer.setDaemon(true);
+        writer.start();
+        writeBehind = new Thread(this::writeBehindLoop, "ledger-engine-write-behind");
+        writeBehind.setDaemon(true);
+        writeBehind.start();
+    }
+
+    /**
+     * Stops accepting commands, applies the ones already submitted and lets the write-behind catch up before
+     * stopping it.
+     */
+    @PreDestroy
+    public synchronized void stop() throws InterruptedException {
+        if (writer == null) {
+            return;
+        }
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(30));
+        // Commands offered while the writer was finishing are turned away
+        TransactionOperationException shuttingDown = new TransactionOperationException("Ledger engine is shutting down.");
+        ring.drain((type, first, second, amount, attachment) -> complete((Pending) attachment, shuttingDown), Integer.MAX_VALUE);
+        draining = true;
+        writeBehind.join(TimeUnit.SECONDS.toMillis(30));
+        if (writeBehind.isAlive()) {
+            log.warn("Ledger engine write-behind did not catch up, {} records remain in the journal", writeBehindLag());
+            writeBehind.interrupt();
+            writeBehind.join();
+        }
+        deleteWrittenSegments();
+        try {
+            journal.close();
+        } catch (IOException e) {
+            log.warn("Could not close the ledger journal", e);
+        }
+        writer = null;
+        writeBehind = null;
+    }
+
+    /**
+     * Returns whether the engine accepts commands.
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Returns whether the engine is enabled ({@code banking.engine.enabled}), and so owns the balances, whether or
+     * not it accepts commands right now.
+     */
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * Rejects a balance change or account deletion that would bypass the engine while it is enabled. The engine would
+     * not see such a change, so it could accept a transfer the database balance no longer covers, or keep writing
+     * behind a change of a deleted account.
+     *
+     * @param operation The rejected operation, in the plural, such as {@code "Deposits"}.
+     * @throws TransactionOperationException If the engine is enabled.
+     */
+    public void requireDatabaseWrites(String operation) {
+        if (properties.isEnabled()) {
+            throw new TransactionOperationException(operation + " are not available while the ledger engine holds the balances.");
+        }
+    }
+
+    /**
+     * Submits a transfer to the engine.
+     *
+     * @param senderAccountNumber   The account number of the sender.
+     * @param receiverAccountNumber The account number of the receiver.
+     * @param amount                The amount of money to transfer, in whole cents.
+     * @return A future completed with the result once the transfer is in the journal on disk, or completed
+     * exceptionally with {@link InsufficientFundsException}, {@link ResourceNotFoundException}
+     * or {@link TransactionOperationException}.
+     * @throws IllegalArgumentException If the amount is not positive or has fractions of a cent.
+     */
+    public CompletableFuture<TransferResult> submit(String senderAccountNumber, String receiverAccountNumber, BigDecimal amount) {
+        if (amount == null || amount.signum() <= 0) {
+            throw new IllegalArgumentException("Transfer amount must be positive.");
+        }
+        if (senderAccountNumber.equals(receiverAccountNumber)) {
+            throw new TransactionOperationException("Sender and receiver accounts must be different.");
+        }
+        long cents = toCents(amount);
+        if (!running) {
+            return CompletableFuture.failedFuture(new TransactionOperationException("Ledger engine is not running."));
+        }
+        PendingTransfer pending = new PendingTransfer(senderAccountNumber, receiverAccountNumber, amount);
+        Optional<Long> senderId = accountNumberResolver.resolve(senderAccountNumber);
+        Optional<Long> receiverId = accountNumberResolver.resolve(receiverAccountNumber);
+        if (senderId.isEmpty() || receiverId.isEmpty()) {
+            complete(pending, new ResourceNotFoundException("Account not found with number: "
+                    + (senderId.isEmpty() ? senderAccountNumber : receiverAccountNumber)));
+            return pending.future;
+        }
+        return offer(TRANSFER, senderId.get(), receiverId.get(), cents, pending) ? pending.future
+                : CompletableFuture.failedFuture(new TransactionOperationException("Ledger engine queue is full."));
+    }
+
+    /**
+     * Submits a deposit to the engine.
+     *
+     * @param accountId The ID of the account to deposit into.
+     * @param amount    The amount to deposit, in whole cents.
+     * @return A future completed with the new balance once the deposit is in the journal on disk, or completed
+     * exceptionally with {@link ResourceNotFoundException} or {@link TransactionOperationException}.
+     * @throws IllegalArgumentException If the amount is not positive or has fractions of a cent.
+     */
+    public CompletableFuture<BigDecimal> deposit(long accountId, BigDecimal amount) {
+        return change(DEPOSIT, accountId, amount);
+    }
+
+    /**
+     * Submits a withdrawal to the engine.
+     *
+     * @param accountId The ID of the account to withdraw from.
+     * @param amount    The amount to withdraw, in whole cents.
+     * @return A future completed with the new balance once the withdrawal is in the journal on disk, or completed
+     * exceptionally with {@link InsufficientFundsException}, {@link ResourceNotFoundException}
+     * or {@link TransactionOperationException}.
+     * @throws IllegalArgumentException If the amount is not positive or has fractions of a cent.
+     */
+    public CompletableFuture<BigDecimal> withdraw(long accountId, BigDecimal amount) {
+        return change(WITHDRAWAL, accountId, amount);
+    }
+
+    private CompletableFuture<BigDecimal> change(int type, long accountId, BigDecimal amount) {
+        if (amount == null || amount.signum() <= 0) {
+            throw new IllegalArgumentException("Amount must be positive");
+        }
+        long cents = toCents(amount);
+        if (!running) {
+            return CompletableFuture.failedFuture(new TransactionOperationException("Ledger engine is not running."));
+        }
+        PendingBalance pending = new PendingBalance("Account not found with id: " + accountId);
+        return offer(type, accountId, 0, cents, pending) ? pending.future
+                : CompletableFuture.failedFuture(new TransactionOperationException("Ledger engine queue is full."));
+    }
+
+    /**
+     * Reads the balance of an account as the engine holds it, including all changes acknowledged so far.
+     *
+     * @param accountNumber The account number.
+     * @return A future completed with the balance, or completed exceptionally with {@link ResourceNotFoundException}
+     * or {@link TransactionOperationException}.
+     */
+    public CompletableFuture<BigDecimal> balance(String accountNumber) {
+        if (!running) {
+            return CompletableFuture.failedFuture(new TransactionOperationException("Ledger engine is not running."));
+        }
+        Optional<Long> accountId = accountNumberResolver.resolve(accountNumber);
+        if (accountId.isEmpty()) {
+            return CompletableFuture.failedFuture(new ResourceNotFoundException("Account not found with number: " + accountNumber));
+        }
+        return balance(accountId.get(), "Account not found with number: " + accountNumber);
+    }
+
+    /**
+     * Reads the balance of an account as the engine holds it, including all changes acknowledged so far.
+     *
+     * @param accountId The ID of the account.
+     * @return A future completed with the balance, or completed exceptionally with {@link ResourceNotFoundException}
+     * or {@link TransactionOperationException}.
+     */
+    public CompletableFuture<BigDecimal> balance(long accountId) {
+        if (!running) {
+            return CompletableFuture.failedFuture(new TransactionOperationException("Ledger engine is not running."));
+        }
+        return balance(accountId, "Account not found with id: " + accountId);
+    }
+
+    private CompletableFuture<BigDecimal> balance(long accountId, String notFoundMessage) {
+        PendingBalance pending = new PendingBalance(notFoundMessage);
+        return offer(BALANCE, accountId, 0, 0, pending) ? pending.future
+                : CompletableFuture.failedFuture(new TransactionOperationException("Ledger engine queue is full."));
+    }
+
+    /**
+     * Adds an account to the engine with its opening balance. Does nothing if the engine already holds the account.
+     *
+     * @param accountId The ID of the account.
+     * @param balance   The balance of the account, in whole cents.
+     * @return A future completed once the account is in the journal on disk.
+     */
+    public CompletableFuture<Void> register(long accountId, BigDecimal balance) {
+        if (!running) {
+            return CompletableFuture.failedFuture(new TransactionOperationException("Ledger engine is not running."));
+        }
+        PendingOpen pending = new PendingOpen();
+        return offer(OPEN, accountId, 0, toCents(balance), pending) ? pending.future
+                : CompletableFuture.failedFuture(new TransactionOperationException("Ledger engine queue is full."));
+    }
+
+    /**
+     * Adds a newly created account to the engine once the current transaction commits, or right away outside a
+     * transaction. Does nothing if the engine is not running.
+     *
+     * @param accountId The ID of the account.
+     * @param balance   The opening balance of the account.
+     */
+    public void registerAfterCommit(long accountId, BigDecimal balance) {
+        if (!running) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            registerLogged(accountId, balance);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                registerLogged(accountId, balance);
+            }
+        });
+    }
+
+    /**
+     * Returns the number of acknowledged journal records not yet written to the database.
+     */
+    public long writeBehindLag() {
+        return Math.max(0, durableSequence - checkpoint);
+    }
+
+    private void registerLogged(long accountId, BigDecimal balance) {
+        register(accountId, balance).whenComplete((ignored, failure) -> {
+            if (failure != null) {
+                log.warn("Could not add account {} to the ledger engine", accountId, failure);
+            }
+        });
+    }
+
+    private boolean offer(int type, long first, long second, long amount, Pending pending) {
+        return ring.offer(type, first, second, amount, pending);
+    }
+
+    /**
+     * Loads the balances from the database as of the checkpoint and replays the journal after it.
+     */
+    private void recover() throws IOException {
+        Path directory = Path.of(properties.getDirectory());
+        Files.createDirectories(directory);
+        journal = new Journal(directory, properties.getSegmentSize().toBytes(), properties.isFsync());
+
+        BalanceTable loaded = new BalanceTable(1024);
+        checkpoint = loadTemplate.execute(status -> {
+            long sequence = engineRepository.findOrCreateCheckpoint(NAME);
+            engineRepository.loadBalances((accountId, balance) -> loaded.put(accountId, balanceInCents(accountId, balance)));
+            return sequence;
+        });
+        balances = loaded;
+
+        long last = journal.recover(checkpoint, this::replay);
+        durableSequence = last;
+        journal.deleteSegmentsUpTo(checkpoint);
+        log.info("Ledger engine recovered {} accounts at journal sequence {}, {} records behind in the database",
+                balances.size(), last, last - checkpoint);
+    }
+
+    private void replay(long sequence, int type, long first, long second, long amount, long epochMillis) {
+        if (type == TRANSFER) {
+            int sender = balances.indexOf(first);
+            int receiver = balances.indexOf(second);
+            if (sender < 0 || receiver < 0) {
+                throw new IllegalStateException("Journal record " + sequence + " moves money of account "
+                        + (sender < 0 ? first : second) + ", which the ledger engine does not hold");
+            }
+            balances.addAt(sender, -amount);
+            balances.addAt(receiver, amount);
+        } else if (type == DEPOSIT || type == WITHDRAWAL) {
+            int account = balances.indexOf(first);
+            if (account < 0) {
+                throw new IllegalStateException("Journal record " + sequence + " moves money of account " + first
+                        + ", which the ledger engine does not hold");
+            }
+            balances.addAt(account, type == DEPOSIT ? amount : -amount);
+        } else if (type == OPEN && balances.indexOf(first) < 0) {
+            balances.put(first, amount);
+        }
+    }
+
+    private void writeLoop() {
+        int idlePolls = 0;
+        while (running || ring.size() > 0) {
+            if (ring.drain(this::apply, batch.length) == 0) {
+                idlePolls = idle(idlePolls);
+                continue;
+            }
+            idlePolls = 0;
+            commitBatch();
+        }
+    }
+
+    /**
+     * Spins first, then yields and finally parks for short periods, so a busy engine reacts within nanoseconds and
+     * an idle one does not burn a core.
+     */
+    private static int idle(int polls) {
+        if (polls < SPIN_POLLS) {
+            Thread.onSpinWait();
+        } else if (polls < YIELD_POLLS) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(PARK_NANOS);
+        }
+        return polls == Integer.MAX_VALUE ? polls : polls + 1;
+    }
+
+    /**
+     * Applies one command to the balances and journals it. Runs on the writer thread.
+     */
+    private void apply(int type, long first, long second, long amount, Object attachment) {
+        Pending pending = (Pending) attachment;
+        batch[batchSize++] = pending;
+        if (journalFailure != null) {
+            pending.failure = journalFailure;
+            return;
+        }
+        try {
+            switch (type) {
+                case TRANSFER -> transfer(first, second, amount, pending);
+                case DEPOSIT, WITHDRAWAL -> change(type, first, amount, (PendingBalance) pending);
+                case OPEN -> {
+                    if (balances.indexOf(first) < 0) {
+                        journal.append(OPEN, first, 0, amount, System.currentTimeMillis());
+                        balances.put(first, amount);
+                    }
+                }
+                case BALANCE -> {
+                    int index = balances.indexOf(first);
+                    if (index < 0) {
+                        pending.failure = new ResourceNotFoundException(((PendingBalance) pending).notFoundMessage);
+                    } else {
+                        pending.value = balances.valueAt(index);
+                    }
+                }
+                default -> pending.failure = new IllegalStateException("Unknown engine command " + type);
+            }
+        } catch (IOException e) {
+            log.error("Ledger journal could not be written; the engine stops accepting commands", e);
+            journalFailure = new TransactionOperationException("Ledger journal could not be written.", e);
+            pending.failure = journalFailure;
+            running = false;
+        }
+    }
+
+    private void transfer(long senderId, long receiverId, long amount, Pending pending) throws IOException {
+        PendingTransfer transfer = (PendingTransfer) pending;
+        int sender = balances.indexOf(senderId);
+        int receiver = balances.indexOf(receiverId);
+        if (sender < 0 || receiver < 0) {
+            transfer.failure = new ResourceNotFoundException("Account not found with number: "
+                    + (sender < 0 ? transfer.senderAccountNumber : transfer.receiverAccountNumber));
+            return;
+        }
+        if (balances.valueAt(sender) < amount) {
+            transfer.failure = new InsufficientFundsException("Sender doesn't have sufficient balance.");
+            return;
+        }
+        long now = System.currentTimeMillis();
+        journal.append(TRANSFER, senderId, receiverId, amount, now);
+        balances.addAt(sender, -amount);
+        balances.addAt(receiver, amount);
+        transfer.value = now;
+    }
+
+    private void change(int type, long accountId, long amount, PendingBalance pending) throws IOException {
+        int account = balances.indexOf(accountId);
+        if (account < 0) {
+            pending.failure = new ResourceNotFoundException(pending.notFoundMessage);
+            return;
+        }
+        if (type == WITHDRAWAL && balances.valueAt(account) < amount) {
+            pending.failure = new InsufficientFundsException("Insufficient funds");
+            return;
+        }
+        journal.append(type, accountId, 0, amount, System.currentTimeMillis());
+        balances.addAt(account, type == DEPOSIT ? amount : -amount);
+        pending.value = balances.valueAt(account);
+    }
+
+    /**
+     * Forces the journal records of the applied commands to disk, then completes their futures.
+     */
+    private void commitBatch() {
+        RuntimeException failure = journalFailure;
+        if (failure == null) {
+            try {
+                journal.force();
+                durableSequence = journal.lastSequence();
+            } catch (RuntimeException e) {
+                log.error("Ledger journal could not be forced; the engine stops accepting commands", e);
+                failure = new TransactionOperationException("Ledger journal could not be forced; the outcome is unknown.", e);
+                journalFailure = failure;
+                running = false;
+            }
+        }
+        for (int i = 0; i < batchSize; i++) {
+            complete(batch[i], failure);
+            batch[i] = null;
+        }
+        batchSize = 0;
+        if (failure == null && journal.takeRolled()) {
+            deleteWrittenSegments();
+        }
+    }
+
+    private void complete(Pending pending, RuntimeException batchFailure) {
+        RuntimeException failure = batchFailure != null ? batchFailure : pending.failure;
+        if (pending instanceof PendingTransfer transfer) {
+            metrics.record(Operation.ENGINE_TRANSFER, failure == null ? Outcome.SUCCESS : Outcome.of(failure), transfer.submittedAt);
+            if (failure == null) {
+                transfer.future.complete(new TransferResult(transfer.senderAccountNumber, transfer.receiverAccountNumber,
+                        transfer.amount, LocalDateTime.ofInstant(Instant.ofEpochMilli(transfer.value), ZONE)));
+            } else {
+                transfer.future.completeExceptionally(failure);
+            }
+        } else if (pending instanceof PendingBalance balance) {
+            if (failure == null) {
+                balance.future.complete(BigDecimal.valueOf(balance.value, 2));
+            } else {
+                balance.future.completeExceptionally(failure);
+            }
+        } else if (pending instanceof PendingOpen open) {
+            if (failure == null) {
+                open.future.complete(null);
+            } else {
+                open.future.completeExceptionally(failure);
+            }
+        }
+    }
+
+    /**
+     * Deletes the journal segments whose records the write-behind has all written to the database.
+     */
+    private void deleteWrittenSegments() {
+        try {
+            journal.deleteSegmentsUpTo(checkpoint);
+        } catch (IOException e) {
+            log.warn("Could not delete ledger journal segments up to sequence {}", checkpoint, e);
+        }
+    }
+
+    private void writeBehindLoop() {
+        EngineProperties.WriteBehind settings = properties.getWriteBehind();
+        Duration backoff = settings.getPollInterval();
+        while (true) {
+            long durable = durableSequence;
+            long from = checkpoint + 1;
+            if (from > durable) {
+                if (draining || !pause(settings.getPollInterval())) {
+                    return;
+                }
+                continue;
+            }
+            long to = Math.min(durable, from + settings.getBatchSize() - 1);
+            try {
+                writeBehind(from, to);
+                checkpoint = to;
+                backoff = settings.getPollInterval();
+            } catch (IOException | RuntimeException e) {
+                log.error("Ledger engine write-behind of journal records {} to {} failed, retrying in {}", from, to, backoff, e);
+                if (!pause(backoff)) {
+                    return;
+                }
+                backoff = backoff.multipliedBy(2).compareTo(settings.getMaxBackoff()) > 0
+                        ? settings.getMaxBackoff() : backoff.multipliedBy(2);
+            }
+        }
+    }
+
+    /**
+     * Writes the journal records in the given range to the database in one transaction, together with the
+     * checkpoint.
+     */
+    private void writeBehind(long from, long to) throws IOException {
+        Map<Long, BigDecimal> deltas = new HashMap<>();
+        List<TransferRow> rows = new ArrayList<>((int) (to - from + 1));
+        List<Change> changes = new ArrayList<>((int) (to - from + 1));
+        journal.read(from, to, (sequence, type, first, second, amount, epochMillis) -> {
+            BigDecimal value = BigDecimal.valueOf(amount, 2);
+            LocalDateTime timestamp = LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZONE);
+            switch (type) {
+                case TRANSFER -> {
+                    deltas.merge(first, value.negate(), BigDecimal::add);
+                    deltas.merge(second, value, BigDecimal::add);
+                    TransferRow row = new TransferRow(first, second, value, timestamp);
+                    rows.add(row);
+                    changes.add(Change.transfer(row));
+                }
+                case DEPOSIT -> {
+                    deltas.merge(first, value, BigDecimal::add);
+                    changes.add(Change.deposit(first, value, timestamp));
+                }
+                case WITHDRAWAL -> {
+                    deltas.merge(first, value.negate(), BigDecimal::add);
+                    changes.add(Change.withdrawal(first, value, timestamp));
+                }
+                default -> {
+                    // Opening balances are already in the database
+                }
+            }
+        });
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!changes.isEmpty()) {
+                engineRepository.addToBalances(deltas);
+                if (!rows.isEmpty()) {
+                    transferJdbcRepository.insertTransactions(rows);
+                }
+                outbox.recordChanges(changes);
+                balanceCache.evictAfterCommit(deltas.keySet());
+            }
+            engineRepository.updateCheckpoint(NAME, to);
+        });
+        log.debug("Wrote ledger engine journal records {} to {} to the database", from, to);
+    }
+
+    /**
+     * Sleeps for the given time.
+     *
+     * @return False if the thread was interrupted.
+     */
+    private static boolean pause(Duration duration) {
+        try {
+            Thread.sleep(Math.max(1, duration.toMillis()));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static long toCents(BigDecimal amount) {
+        try {
+            return amount.movePointRight(2).longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Amount must be a whole number of cents: " + amount, e);
+        }
+    }
+
+    private static long balanceInCents(long accountId, BigDecimal balance) {
+        try {
+            return balance.movePointRight(2).longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalStateException("Balance " + balance + " of account " + accountId
+                    + " is not a whole number of cents and cannot be held by the ledger engine", e);
+        }
+    }
+
+    /**
+     * A submitted command with the outcome the writer recorded for it.
+     */
+    private abstract static class Pending {
+        final long submittedAt = System.nanoTime();
+        long value;
+        RuntimeException failure;
+    }
+
+    private static final class PendingTransfer extends Pending {
+        private final String senderAccountNumber;
+        private final String receiverAccountNumber;
+        private final BigDecimal amount;
+        private final CompletableFuture<TransferResult> future = new CompletableFuture<>();
+
+        private PendingTransfer(String senderAccountNumber, String receiverAccountNumber, BigDecimal amount) {
+            this.senderAccountNumber = senderAccountNumber;
+            this.receiverAccountNumber = receiverAccountNumber;
+            this.amount = amount;
+        }
+    }
+
+    private static final class PendingBalance extends Pending {
+        private final String notFoundMessage;
+        private final CompletableFuture<BigDecimal> future = new CompletableFuture<>();
+
+        private PendingBalance(String notFoundMessage) {
+            this.notFoundMessage = notFoundMessage;
+        }
+    }
+
+    private static final class PendingOpen extends Pending {
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+    }
+}
@@ -7,9 +7,9 @@ import jakarta.validation.constraints.NotNull;
 import java.math.BigDecimal;
 import java.util.List;
 
-import jakarta.validation.constraints.Pattern;
 import lombok.*;
 import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.ColumnDefault;
 
 /**
  * Represents a bank account entity.
@@ -19,14 +19,17 @@ import org.hibernate.annotations.BatchSize;
 @Entity
 @Table(
         name = "accounts",
-        uniqueConstraints = @UniqueConstraint(columnNames = "accountNumber")
+        uniqueConstraints = @UniqueConstraint(columnNames = "account_number"),
+        // Accounts of the holders matched by name in transaction search
+        indexes = @Index(name = "idx_accounts_user_id", columnList = "user_id")
 )
 public class Account {
     /**
      * The unique identifier of the account.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "accounts_seq")
+    @SequenceGenerator(name = "accounts_seq", sequenceName = "accounts_seq", allocationSize = 50)
     private Long id;
 
     /**
@@ -37,11 +40,10 @@ public class Account {
     private String accountNumber;
 
     /**
-     * The PIN (Personal Identification Number) associated with the account.
-     * Must be a 4-digit number.
+     * BCrypt hash of the PIN (Personal Identification Number) associated with the account.
+     * The PIN itself is a 4-digit number; it is hashed and verified by the PinService.
      */
     @NotBlank
-    @Pattern(regexp = "\\d{4}", message = "PIN must be a 4-digit number")
     private String pin;
 
     /**
@@ -58,11 +60,20 @@ public class Account {
     private String accountLoginPassword;
 
     /**
-     * The balance of the account.
+     * The balance of the account. For a striped account this is only the main part, which may be negative after a
+     * debit that borrowed from the stripes; the full balance adds the {@link AccountBalanceStripe} rows.
      */
     @NotNull(message = "Balance is required")
     private BigDecimal balance;
 
+    /**
+     * Whether credits to this account are spread over {@link AccountBalanceStripe} rows instead of updating
+     * the balance column, for accounts that receive many concurrent transfers.
+     */
+    @ColumnDefault("false")
+    @Column(nullable = false)
+    private boolean striped;
+
     /**
      * The user associated with this account.
      */
@@ -0,0 +1,63 @@
+package portfolio.project.Banking_app.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+/**
+ * One sub-balance of a striped account.
+ * <p>
+ * Credits to a striped {@link Account} are added to one of its stripes instead of its balance column, so
+ * concurrent credits update different rows. The balance of an account is always its balance column plus the sum of
+ * its stripes. A background job periodically folds the stripes back into the balance column.
+ */
+@Getter
+@Setter
+@Entity
+@IdClass(AccountBalanceStripe.Key.class)
+@Table(name = "account_balance_stripes")
+public class AccountBalanceStripe {
+
+    /**
+     * The ID of the striped account.
+     */
+    @Id
+    @Column(name = "account_id")
+    private Long accountId;
+
+    /**
+     * The stripe number, from 0 to the configured number of stripes.
+     */
+    @Id
+    private Integer stripe;
+
+    /**
+     * The amount credited to this stripe since it was last folded.
+     */
+    @NotNull
+    private BigDecimal balance;
+
+    /**
+     * The striped account. Stripes are removed together with their account.
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "account_id", insertable = false, updatable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Account account;
+
+    /**
+     * Composite primary key of a stripe.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long accountId;
+        private Integer stripe;
+    }
+}
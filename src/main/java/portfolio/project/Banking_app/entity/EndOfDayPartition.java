@@ -0,0 +1,95 @@
+package portfolio.project.Banking_app.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Checkpoint of one account id range of an end-of-day run.
+ * <p>
+ * A partition covers the accounts with {@code fromId < id <= toId}. Every processed chunk moves {@code lastId}
+ * forward in the same transaction as its balance updates, so a run that crashed resumes each partition after its
+ * last committed chunk, and no account is credited or charged twice for a day.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@IdClass(EndOfDayPartition.Key.class)
+@Table(name = "eod_partitions")
+public class EndOfDayPartition {
+
+    /**
+     * Processing state of a partition.
+     */
+    public enum Status {
+        PENDING, RUNNING, DONE
+    }
+
+    /**
+     * The business day the run closes.
+     */
+    @Id
+    @Column(name = "business_date")
+    private LocalDate businessDate;
+
+    /**
+     * The number of the partition within its run.
+     */
+    @Id
+    @Column(name = "partition_no")
+    private Integer partitionNo;
+
+    /**
+     * Exclusive lower bound of the account ids.
+     */
+    @Column(name = "from_id", nullable = false)
+    private long fromId;
+
+    /**
+     * Inclusive upper bound of the account ids.
+     */
+    @Column(name = "to_id", nullable = false)
+    private long toId;
+
+    /**
+     * The highest account id processed so far.
+     */
+    @Column(name = "last_id", nullable = false)
+    private long lastId;
+
+    /**
+     * The processing state.
+     */
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Status status;
+
+    /**
+     * The number of accounts processed so far.
+     */
+    @Column(name = "processed", nullable = false)
+    private long processed;
+
+    /**
+     * When the partition was finished.
+     */
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    /**
+     * Composite primary key of a partition.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private LocalDate businessDate;
+        private Integer partitionNo;
+    }
+}
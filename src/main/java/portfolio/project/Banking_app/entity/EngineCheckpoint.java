@@ -0,0 +1,31 @@
+package portfolio.project.Banking_app.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * How far the journal of the in-memory ledger engine has been written to the database.
+ * <p>
+ * The write-behind moves {@code sequence} forward in the same transaction as the balance updates and transaction
+ * rows of the journal records it covers, so every record reaches the database exactly once, also across crashes.
+ */
+@Getter
+@NoArgsConstructor
+@Entity
+@Table(name = "engine_checkpoints")
+public class EngineCheckpoint {
+
+    /**
+     * The name of the engine; there is one engine per database.
+     */
+    @Id
+    @Column(length = 32)
+    private String name;
+
+    /**
+     * The sequence number of the last journal record written to the database, 0 if none.
+     */
+    @Column(nullable = false)
+    private long sequence;
+}
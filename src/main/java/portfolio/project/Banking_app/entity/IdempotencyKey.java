@@ -0,0 +1,57 @@
+package portfolio.project.Banking_app.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A client-supplied idempotency key and the response of the request that used it first.
+ * <p>
+ * The row is inserted in the same transaction as the request's balance change, so it exists exactly when the
+ * change was committed. The unique key makes a concurrent duplicate on another instance wait for that transaction.
+ */
+@Getter
+@NoArgsConstructor
+@Entity
+@Table(name = "idempotency_keys", indexes = {
+        // Purging expired keys
+        @Index(name = "idx_idempotency_keys_created_at", columnList = "created_at")
+})
+public class IdempotencyKey {
+
+    /**
+     * The key sent in the {@code Idempotency-Key} header.
+     */
+    @Id
+    @Column(name = "idempotency_key", length = 128)
+    private String key;
+
+    /**
+     * The operation and arguments of the first request; a duplicate must match it.
+     */
+    @NotNull
+    @Column(nullable = false, length = 256)
+    private String fingerprint;
+
+    /**
+     * The HTTP status of the stored response.
+     */
+    @Column(name = "response_status")
+    private Integer responseStatus;
+
+    /**
+     * The body of the stored response, if any.
+     */
+    @Column(name = "response_body", columnDefinition = "text")
+    private String responseBody;
+
+    /**
+     * When the key was first used.
+     */
+    @NotNull
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,67 @@
+package portfolio.project.Banking_app.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * An event waiting in the transactional outbox to be published to downstream consumers.
+ * <p>
+ * Events are inserted in the same transaction as the balance change they describe and deleted once the relay has
+ * published them. Each event belongs to one account; the ids of an account's events follow the order in which
+ * they commit, because they are drawn from an unpooled sequence under the account's append lock, held until commit
+ * (see {@code OutboxJdbcRepository#append}). Credits to a striped account, which hold no row lock, are ordered the
+ * same way.
+ */
+@Getter
+@NoArgsConstructor
+@Entity
+@Table(name = "outbox_events")
+public class OutboxEvent {
+
+    /**
+     * The kind of change an event describes.
+     */
+    public enum Type {
+        DEPOSIT, WITHDRAWAL, TRANSFER_OUT, TRANSFER_IN
+    }
+
+    /**
+     * The unique identifier of the event, increasing in the order events were written.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_events_seq")
+    @SequenceGenerator(name = "outbox_events_seq", sequenceName = "outbox_events_seq", allocationSize = 1)
+    private Long id;
+
+    /**
+     * The account whose balance changed.
+     */
+    @Column(name = "account_id", nullable = false)
+    private long accountId;
+
+    /**
+     * The kind of change.
+     */
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Type type;
+
+    /**
+     * The event as JSON.
+     */
+    @NotNull
+    @Column(nullable = false, columnDefinition = "text")
+    private String payload;
+
+    /**
+     * When the event was written.
+     */
+    @NotNull
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -1,7 +1,6 @@
 package portfolio.project.Banking_app.entity;
 
 import jakarta.persistence.*;
-import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 
 import java.math.BigDecimal;
@@ -14,22 +13,32 @@ import org.springframework.format.annotation.DateTimeFormat;
  * Represents a transaction entity in the system.
  */
 @Data
+@NoArgsConstructor
 @AllArgsConstructor
 @Entity
 @Builder
-@Table(name = "transactions")
+@Table(name = "transactions", indexes = {
+        // Keyset pagination of the history of an account, see TransactionRepository; the migrations add the
+        // counterparty and amount as INCLUDE columns for transaction search
+        @Index(name = "idx_transactions_sender_timestamp_id", columnList = "sender_id, timestamp, id"),
+        @Index(name = "idx_transactions_receiver_timestamp_id", columnList = "receiver_id, timestamp, id"),
+        // Transaction search by date range or exact amount, see TransactionSearchJdbcRepository
+        @Index(name = "idx_transactions_timestamp_id", columnList = "timestamp, id"),
+        @Index(name = "idx_transactions_amount_timestamp_id", columnList = "amount, timestamp, id")
+})
 public class Transaction {
     /**
      * The unique identifier of the transaction.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transactions_seq")
+    @SequenceGenerator(name = "transactions_seq", sequenceName = "transactions_seq", allocationSize = 50)
     private Long id;
 
     /**
      * The amount of the transaction.
      */
-    @NotBlank(message = "Amount is required")
+    @NotNull(message = "Amount is required")
     private BigDecimal amount;
 
     /**
@@ -0,0 +1,58 @@
+package portfolio.project.Banking_app.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Catalog entry of a partition of the transactions table that was exported to archive files and detached.
+ * <p>
+ * The entry is written in the same transaction as the detach, so every transaction is either in an attached
+ * partition or in an archive listed here, never in both or neither. Archived ranges are always older than the
+ * partitions still attached.
+ */
+@Getter
+@NoArgsConstructor
+@Entity
+@Table(name = "transaction_archives")
+public class TransactionArchive {
+
+    /**
+     * The name of the archived partition, which also names its archive files.
+     */
+    @Id
+    @Column(name = "partition_name", length = 63)
+    private String partitionName;
+
+    /**
+     * Inclusive lower bound of the timestamps of the archived transactions.
+     */
+    @Column(name = "range_start", nullable = false)
+    private LocalDateTime rangeStart;
+
+    /**
+     * Exclusive upper bound of the timestamps of the archived transactions.
+     */
+    @Column(name = "range_end", nullable = false)
+    private LocalDateTime rangeEnd;
+
+    /**
+     * The number of data files of the archive.
+     */
+    @Column(name = "parts", nullable = false)
+    private int parts;
+
+    /**
+     * The number of archived transactions.
+     */
+    @Column(name = "row_count", nullable = false)
+    private long rowCount;
+
+    /**
+     * When the partition was archived.
+     */
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+}
@@ -0,0 +1,16 @@
+package portfolio.project.Banking_app.exception;
+
+/**
+ * Exception thrown when an idempotency key is sent again with a different operation or arguments.
+ */
+public class IdempotencyKeyReusedException extends RuntimeException {
+
+    /**
+     * Constructs a new IdempotencyKeyReusedException with the specified detail message.
+     *
+     * @param message the detail message.
+     */
+    public IdempotencyKeyReusedException(String message) {
+        super(message);
+    }
+}
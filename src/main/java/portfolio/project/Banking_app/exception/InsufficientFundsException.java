@@ -2,8 +2,9 @@ package portfolio.project.Banking_app.exception;
 
 /**
  * Exception thrown to indicate that a transaction cannot be completed due to insufficient funds in the sender's account.
+ * It is an {@link IllegalArgumentException}, since the requested amount exceeds what the account can pay.
  */
-public class InsufficientFundsException extends RuntimeException {
+public class InsufficientFundsException extends IllegalArgumentException {
 
     /**
      * Constructs a new InsufficientFundsException with the specified detail message.
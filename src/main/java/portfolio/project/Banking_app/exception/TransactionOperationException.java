@@ -13,5 +13,15 @@ public class TransactionOperationException extends RuntimeException {
     public TransactionOperationException(String message) {
         super(message);
     }
+
+    /**
+     * Constructs a new TransactionOperationException with the specified detail message and cause.
+     *
+     * @param message the detail message.
+     * @param cause   the underlying failure.
+     */
+    public TransactionOperationException(String message, Throwable cause) {
+        super(message, cause);
+    }
 }
 
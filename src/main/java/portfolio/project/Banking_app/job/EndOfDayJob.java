@@ -0,0 +1,31 @@
+package portfolio.project.Banking_app.job;
+
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.JobExecutionContext;
+import org.springframework.scheduling.quartz.QuartzJobBean;
+import portfolio.project.Banking_app.service.EndOfDayService;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+/**
+ * Quartz job closing the previous business day, scheduled by {@code banking.eod.cron}.
+ * Runs of earlier days that did not finish are resumed first.
+ */
+@DisallowConcurrentExecution
+public class EndOfDayJob extends QuartzJobBean {
+
+    private final EndOfDayService endOfDayService;
+
+    public EndOfDayJob(EndOfDayService endOfDayService) {
+        this.endOfDayService = endOfDayService;
+    }
+
+    @Override
+    protected void executeInternal(JobExecutionContext context) {
+        LocalDate businessDate = context.getScheduledFireTime().toInstant()
+                .atZone(ZoneId.systemDefault()).toLocalDate().minusDays(1);
+        endOfDayService.resumeUnfinished(businessDate);
+        endOfDayService.run(businessDate);
+    }
+}
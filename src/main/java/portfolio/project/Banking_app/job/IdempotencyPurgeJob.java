@@ -0,0 +1,24 @@
+package portfolio.project.Banking_app.job;
+
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.JobExecutionContext;
+import org.springframework.scheduling.quartz.QuartzJobBean;
+import portfolio.project.Banking_app.service.IdempotencyService;
+
+/**
+ * Quartz job deleting expired idempotency keys, scheduled every {@code banking.idempotency.purge-interval}.
+ */
+@DisallowConcurrentExecution
+public class IdempotencyPurgeJob extends QuartzJobBean {
+
+    private final IdempotencyService idempotencyService;
+
+    public IdempotencyPurgeJob(IdempotencyService idempotencyService) {
+        this.idempotencyService = idempotencyService;
+    }
+
+    @Override
+    protected void executeInternal(JobExecutionContext context) {
+        idempotencyService.purgeExpired();
+    }
+}
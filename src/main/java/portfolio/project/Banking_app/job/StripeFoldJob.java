@@ -0,0 +1,30 @@
+package portfolio.project.Banking_app.job;
+
+import lombok.extern.slf4j.Slf4j;
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.JobExecutionContext;
+import org.springframework.scheduling.quartz.QuartzJobBean;
+import portfolio.project.Banking_app.service.StripedBalanceService;
+
+/**
+ * Quartz job folding the stripes of all striped accounts back into their balance column,
+ * scheduled every {@code banking.striping.fold-interval}.
+ */
+@Slf4j
+@DisallowConcurrentExecution
+public class StripeFoldJob extends QuartzJobBean {
+
+    private final StripedBalanceService stripedBalances;
+
+    public StripeFoldJob(StripedBalanceService stripedBalances) {
+        this.stripedBalances = stripedBalances;
+    }
+
+    @Override
+    protected void executeInternal(JobExecutionContext context) {
+        int folded = stripedBalances.foldAll();
+        if (folded > 0) {
+            log.debug("Folded the stripes of {} accounts", folded);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package portfolio.project.Banking_app.job;
+
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.JobExecutionContext;
+import org.springframework.scheduling.quartz.QuartzJobBean;
+import portfolio.project.Banking_app.service.TransactionPartitionService;
+
+/**
+ * Quartz job creating the future partitions of the transactions table and archiving the cold ones, scheduled every
+ * {@code banking.transaction-partitions.maintenance-interval}.
+ */
+@DisallowConcurrentExecution
+public class TransactionPartitionJob extends QuartzJobBean {
+
+    private final TransactionPartitionService partitionService;
+
+    public TransactionPartitionJob(TransactionPartitionService partitionService) {
+        this.partitionService = partitionService;
+    }
+
+    @Override
+    protected void executeInternal(JobExecutionContext context) {
+        partitionService.maintain();
+    }
+}
@@ -0,0 +1,44 @@
+package portfolio.project.Banking_app.outbox;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Sink appending events to a file, one JSON object per line holding the event id and the event, for local runs and
+ * tests.
+ * <p>
+ * Each batch is written with one call and forced to disk before the relay deletes it from the outbox.
+ * A batch that was written but not deleted, because the relay's transaction failed afterwards, is appended again.
+ */
+public class FileOutboxSink implements OutboxSink {
+
+    private final Path file;
+
+    public FileOutboxSink(Path file) {
+        this.file = file;
+    }
+
+    @Override
+    public synchronized void publish(List<OutboxMessage> messages) {
+        StringBuilder lines = new StringBuilder(messages.size() * 160);
+        for (OutboxMessage message : messages) {
+            lines.append("{\"id\":").append(message.id()).append(",\"event\":").append(message.payload()).append("}\n");
+        }
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not append outbox events to " + file, e);
+        }
+    }
+}
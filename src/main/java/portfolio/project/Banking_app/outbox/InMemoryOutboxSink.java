@@ -0,0 +1,55 @@
+package portfolio.project.Banking_app.outbox;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded in-process sink, for tests and for consumers running in the same JVM.
+ * <p>
+ * A batch that does not fit into the remaining capacity is rejected as a whole, so the relay backs off until
+ * the consumer has taken enough events.
+ */
+public class InMemoryOutboxSink implements OutboxSink {
+
+    private final BlockingQueue<OutboxMessage> queue;
+    private final int capacity;
+
+    public InMemoryOutboxSink(int capacity) {
+        this.capacity = capacity;
+        this.queue = new LinkedBlockingQueue<>(capacity);
+    }
+
+    @Override
+    public synchronized void publish(List<OutboxMessage> messages) {
+        if (queue.remainingCapacity() < messages.size()) {
+            throw new IllegalStateException("Outbox sink is full (" + capacity + " events).");
+        }
+        queue.addAll(messages);
+    }
+
+    /**
+     * Takes the next event, waiting up to the given time for one to arrive.
+     *
+     * @param timeout How long to wait.
+     * @param unit    The unit of the timeout.
+     * @return The event, or null if none arrived in time.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public OutboxMessage poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return queue.poll(timeout, unit);
+    }
+
+    /**
+     * Takes all events published so far.
+     *
+     * @return The events, in the order they were published.
+     */
+    public List<OutboxMessage> drain() {
+        List<OutboxMessage> messages = new ArrayList<>(queue.size());
+        queue.drainTo(messages);
+        return messages;
+    }
+}
@@ -0,0 +1,21 @@
+package portfolio.project.Banking_app.outbox;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+
+/**
+ * Sink writing events to the application log at DEBUG, the default until a real consumer is configured.
+ */
+@Slf4j
+public class LoggingOutboxSink implements OutboxSink {
+
+    @Override
+    public void publish(List<OutboxMessage> messages) {
+        if (log.isDebugEnabled()) {
+            for (OutboxMessage message : messages) {
+                log.debug("Outbox event {} for account {}: {}", message.id(), message.accountId(), message.payload());
+            }
+        }
+    }
+}
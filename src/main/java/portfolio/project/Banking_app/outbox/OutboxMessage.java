@@ -0,0 +1,20 @@
+package portfolio.project.Banking_app.outbox;
+
+import portfolio.project.Banking_app.entity.OutboxEvent;
+
+import java.time.LocalDateTime;
+
+/**
+ * An outbox event as handed to an {@link OutboxSink}.
+ * <p>
+ * Delivery is at least once: consumers that must not see an event twice deduplicate by {@link #id()}, which also
+ * orders the events of one account.
+ *
+ * @param id        The id of the event, increasing per account in the order of the changes.
+ * @param accountId The account whose balance changed.
+ * @param type      The kind of change.
+ * @param payload   The event as JSON.
+ * @param createdAt When the event was written.
+ */
+public record OutboxMessage(long id, long accountId, OutboxEvent.Type type, String payload, LocalDateTime createdAt) {
+}
@@ -0,0 +1,22 @@
+package portfolio.project.Banking_app.outbox;
+
+import java.util.List;
+
+/**
+ * Destination of the events relayed from the outbox, such as a message broker.
+ * <p>
+ * The relay calls {@link #publish} from several threads, one per partition of accounts, while it holds the rows
+ * of the batch locked; the events are deleted only after it returns. A sink that cannot take a batch right now
+ * throws, and the relay retries the same batch after a backoff. That is how a slow consumer pushes back: events
+ * then wait in the outbox table, and the transfer path is never slowed down.
+ */
+public interface OutboxSink {
+
+    /**
+     * Publishes a batch of events. The events of each account are in order.
+     *
+     * @param messages The events to publish.
+     * @throws RuntimeException If the batch could not be published; none of it counts as published then.
+     */
+    void publish(List<OutboxMessage> messages);
+}
@@ -1,10 +1,123 @@
 package portfolio.project.Banking_app.repository;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import portfolio.project.Banking_app.dto.AccountIdView;
 import portfolio.project.Banking_app.entity.Account;
 
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Repository for accounts.
+ * <p>
+ * Read paths that need one or two columns use the projection queries below instead of {@code findById}: they
+ * transfer only those columns and put nothing into the persistence context, so no dirty-check snapshot is kept
+ * and the associated {@code User} is never touched.
+ */
 @Repository
 public interface AccountRepository extends JpaRepository<Account, Long> {
-    Account findByAccountNumber(String accountNumber);
-}
\ No newline at end of file
+    Optional<Account> findByAccountNumber(String accountNumber);
+
+    /**
+     * Loads all accounts together with their users in one statement; with the lazy association alone, every
+     * account whose user is touched afterwards would cost one more statement.
+     *
+     * @return All accounts, with their users initialized.
+     */
+    @Override
+    @EntityGraph(attributePaths = "user")
+    List<Account> findAll();
+
+    @Query("select a.id from Account a where a.accountNumber = :accountNumber")
+    Optional<Long> findIdByAccountNumber(@Param("accountNumber") String accountNumber);
+
+    @Query("select a.accountNumber from Account a where a.id = :id")
+    Optional<String> findAccountNumberById(@Param("id") Long id);
+
+    /**
+     * Streams the id and number of every account through a forward-only cursor.
+     * The stream must be consumed and closed inside a transaction.
+     *
+     * @return The ids and numbers of all accounts.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "10000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select new portfolio.project.Banking_app.dto.AccountIdView(a.id, a.accountNumber) from Account a")
+    Stream<AccountIdView> streamAccountIds();
+
+    /**
+     * Returns the full balance of an account: its balance column plus the stripes of a striped account.
+     */
+    @Query("select a.balance + coalesce((select sum(s.balance) from AccountBalanceStripe s where s.accountId = a.id), 0) "
+            + "from Account a where a.id = :id")
+    Optional<BigDecimal> findBalanceById(@Param("id") Long id);
+
+    @Query("select a.pin from Account a where a.id = :id")
+    Optional<String> findPinById(@Param("id") Long id);
+
+    /**
+     * Sets the PIN of an account without loading it.
+     *
+     * @param id  The ID of the account.
+     * @param pin The new PIN.
+     * @return The number of updated rows, 0 if the account does not exist.
+     */
+    @Transactional
+    @Modifying
+    @Query("update Account a set a.pin = :pin where a.id = :id")
+    int updatePin(@Param("id") Long id, @Param("pin") String pin);
+
+    /**
+     * Loads and row-locks ({@code SELECT ... FOR UPDATE}) all accounts with the given ids in one round trip.
+     * Rows are locked in ascending id order, so two transfers touching the same pair of accounts
+     * always acquire their locks in the same order and cannot deadlock each other.
+     *
+     * @param ids The IDs of the accounts to lock.
+     * @return The locked accounts, ordered by id.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select a from Account a where a.id in :ids order by a.id")
+    List<Account> findAllByIdInForUpdate(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Atomically adds the amount to the account balance in a single statement.
+     *
+     * @param id     The ID of the account.
+     * @param amount The amount to add.
+     * @return The new balance, or empty if no account has the given ID.
+     */
+    @Transactional
+    @Query(value = "UPDATE accounts SET balance = balance + :amount WHERE id = :id RETURNING balance",
+            nativeQuery = true)
+    Optional<BigDecimal> depositAndGetBalance(@Param("id") Long id, @Param("amount") BigDecimal amount);
+
+    /**
+     * Atomically subtracts the amount from the account balance, provided the balance covers it.
+     * The funds check and the update happen in the same statement, so concurrent withdrawals
+     * can neither lose updates nor overdraw the account.
+     *
+     * @param id     The ID of the account.
+     * @param amount The amount to subtract.
+     * @return The new balance, or empty if the account does not exist or has insufficient funds.
+     */
+    @Transactional
+    @Query(value = "UPDATE accounts SET balance = balance - :amount WHERE id = :id AND balance >= :amount RETURNING balance",
+            nativeQuery = true)
+    Optional<BigDecimal> withdrawAndGetBalance(@Param("id") Long id, @Param("amount") BigDecimal amount);
+}
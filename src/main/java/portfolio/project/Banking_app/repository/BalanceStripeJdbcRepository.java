@@ -0,0 +1,143 @@
+package portfolio.project.Banking_app.repository;
+
+import lombok.AllArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Plain JDBC access to the balance stripes of striped accounts and to the balance column they are folded into.
+ * <p>
+ * All methods must be called inside a transaction; they share its connection with JPA.
+ */
+@Repository
+@AllArgsConstructor
+public class BalanceStripeJdbcRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    /**
+     * Adds an amount to one stripe of an account, creating the stripe on its first credit.
+     *
+     * @param accountId The ID of the account.
+     * @param stripe    The stripe number.
+     * @param amount    The amount to add.
+     * @throws org.springframework.dao.DataIntegrityViolationException If the account does not exist.
+     */
+    public void credit(long accountId, int stripe, BigDecimal amount) {
+        jdbcTemplate.update("INSERT INTO account_balance_stripes (account_id, stripe, balance) VALUES (?, ?, ?) "
+                        + "ON CONFLICT (account_id, stripe) DO UPDATE SET balance = account_balance_stripes.balance + EXCLUDED.balance",
+                accountId, stripe, amount);
+    }
+
+    /**
+     * Returns the sum of the stripes of an account.
+     *
+     * @param accountId The ID of the account.
+     * @return The sum, zero if the account has no stripes.
+     */
+    public BigDecimal sumStripes(long accountId) {
+        return jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(balance), 0) FROM account_balance_stripes WHERE account_id = ?",
+                BigDecimal.class, accountId);
+    }
+
+    /**
+     * Returns the sums of the stripes of several accounts.
+     *
+     * @param accountIds The IDs of the accounts.
+     * @return The sum per account id; accounts without stripes are left out.
+     */
+    public Map<Long, BigDecimal> sumStripes(Collection<Long> accountIds) {
+        Map<Long, BigDecimal> sums = new HashMap<>();
+        if (accountIds.isEmpty()) {
+            return sums;
+        }
+        namedParameterJdbcTemplate.query(
+                "SELECT account_id, SUM(balance) AS total FROM account_balance_stripes WHERE account_id IN (:ids) GROUP BY account_id",
+                Map.of("ids", accountIds),
+                rs -> {
+                    sums.put(rs.getLong("account_id"), rs.getBigDecimal("total"));
+                });
+        return sums;
+    }
+
+    /**
+     * Returns the full balance of an account, its balance column plus its stripes, without locking anything.
+     *
+     * @param accountId The ID of the account.
+     * @return The full balance, or empty if the account does not exist.
+     */
+    public Optional<BigDecimal> findBalance(long accountId) {
+        return jdbcTemplate.query("SELECT a.balance + COALESCE((SELECT SUM(s.balance) FROM account_balance_stripes s "
+                        + "WHERE s.account_id = a.id), 0) AS balance FROM accounts a WHERE a.id = ?",
+                (rs, rowNum) -> rs.getBigDecimal("balance"), accountId).stream().findFirst();
+    }
+
+    /**
+     * Row-locks an account and returns its balance column.
+     *
+     * @param accountId The ID of the account.
+     * @return The balance column, or empty if the account does not exist.
+     */
+    public Optional<BigDecimal> lockBalance(long accountId) {
+        return jdbcTemplate.query("SELECT balance FROM accounts WHERE id = ? FOR UPDATE",
+                (rs, rowNum) -> rs.getBigDecimal("balance"), accountId).stream().findFirst();
+    }
+
+    /**
+     * Adds an amount, possibly negative, to the balance column of an account.
+     *
+     * @param accountId The ID of the account.
+     * @param amount    The amount to add.
+     * @return The new balance column.
+     */
+    public BigDecimal addToBalance(long accountId, BigDecimal amount) {
+        return jdbcTemplate.queryForObject("UPDATE accounts SET balance = balance + ? WHERE id = ? RETURNING balance",
+                BigDecimal.class, amount, accountId);
+    }
+
+    /**
+     * Resets the stripes of an account to zero and returns what they held. The caller must hold the row lock of the
+     * account, so no debit reads the stripes half-way.
+     *
+     * @param accountId The ID of the account.
+     * @return The sum of the stripes before they were reset.
+     */
+    public BigDecimal drainStripes(long accountId) {
+        List<BigDecimal> drained = jdbcTemplate.queryForList(
+                "WITH drained AS (SELECT stripe, balance FROM account_balance_stripes WHERE account_id = ? AND balance <> 0 FOR UPDATE) "
+                        + "UPDATE account_balance_stripes s SET balance = 0 FROM drained "
+                        + "WHERE s.account_id = ? AND s.stripe = drained.stripe RETURNING drained.balance",
+                BigDecimal.class, accountId, accountId);
+        return drained.stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    /**
+     * Sets or clears the striped flag of an account.
+     *
+     * @param accountId The ID of the account.
+     * @param striped   The new flag.
+     * @return The number of updated rows, 0 if the account does not exist.
+     */
+    public int updateStriped(long accountId, boolean striped) {
+        return jdbcTemplate.update("UPDATE accounts SET striped = ? WHERE id = ?", striped, accountId);
+    }
+
+    /**
+     * Returns the ids of all striped accounts.
+     *
+     * @return The account ids.
+     */
+    public List<Long> findStripedAccountIds() {
+        return jdbcTemplate.queryForList("SELECT id FROM accounts WHERE striped", Long.class);
+    }
+}
@@ -0,0 +1,171 @@
+package portfolio.project.Banking_app.repository;
+
+import lombok.AllArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import portfolio.project.Banking_app.entity.EndOfDayPartition.Status;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Plain JDBC access for the end-of-day run: partition checkpoints, chunked account locking and batched balance
+ * updates.
+ * <p>
+ * All methods must be called inside a transaction; they share its connection with JPA.
+ */
+@Repository
+@AllArgsConstructor
+public class EndOfDayJdbcRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Splits the current account id range into partitions of equal width for a business day, unless the day
+     * already has partitions.
+     *
+     * @param businessDate The business day.
+     * @param partitions   The number of partitions.
+     * @return The number of partitions created, 0 if the day already had them.
+     */
+    public int createPartitions(LocalDate businessDate, int partitions) {
+        Map<String, Object> range = jdbcTemplate.queryForMap("SELECT MIN(id) AS min_id, MAX(id) AS max_id FROM accounts");
+        if (range.get("min_id") == null) {
+            return 0;
+        }
+        long first = ((Number) range.get("min_id")).longValue() - 1;
+        long width = ((Number) range.get("max_id")).longValue() - first;
+        List<long[]> bounds = new ArrayList<>(partitions);
+        for (int i = 0; i < partitions; i++) {
+            long from = first + width * i / partitions;
+            long to = first + width * (i + 1) / partitions;
+            if (to > from) {
+                bounds.add(new long[]{bounds.size(), from, to});
+            }
+        }
+        int[][] inserted = jdbcTemplate.batchUpdate("INSERT INTO eod_partitions "
+                        + "(business_date, partition_no, from_id, to_id, last_id, status, processed) VALUES (?, ?, ?, ?, ?, ?, 0) "
+                        + "ON CONFLICT (business_date, partition_no) DO NOTHING",
+                bounds, bounds.size(),
+                (ps, bound) -> {
+                    ps.setDate(1, Date.valueOf(businessDate));
+                    ps.setInt(2, (int) bound[0]);
+                    ps.setLong(3, bound[1]);
+                    ps.setLong(4, bound[2]);
+                    ps.setLong(5, bound[1]);
+                    ps.setString(6, Status.PENDING.name());
+                });
+        int created = 0;
+        for (int[] batch : inserted) {
+            for (int count : batch) {
+                created += Math.max(count, 0);
+            }
+        }
+        return created;
+    }
+
+    /**
+     * Returns the partitions of a business day that are not done yet.
+     *
+     * @param businessDate The business day.
+     * @return The partition numbers.
+     */
+    public List<Integer> findUnfinishedPartitions(LocalDate businessDate) {
+        return jdbcTemplate.queryForList("SELECT partition_no FROM eod_partitions WHERE business_date = ? AND status <> ? "
+                + "ORDER BY partition_no", Integer.class, Date.valueOf(businessDate), Status.DONE.name());
+    }
+
+    /**
+     * Returns the business days before the given one whose run did not finish.
+     *
+     * @param before The business day to look before.
+     * @return The business days, oldest first.
+     */
+    public List<LocalDate> findUnfinishedDates(LocalDate before) {
+        return jdbcTemplate.queryForList("SELECT DISTINCT business_date FROM eod_partitions WHERE business_date < ? AND status <> ? "
+                        + "ORDER BY business_date", Date.class, Date.valueOf(before), Status.DONE.name())
+                .stream().map(Date::toLocalDate).toList();
+    }
+
+    /**
+     * Row-locks the checkpoint of a partition, so two workers never process the same partition at once.
+     *
+     * @param businessDate The business day.
+     * @param partitionNo  The partition number.
+     * @return The checkpoint, or empty if the partition does not exist.
+     */
+    public Optional<Checkpoint> lockPartition(LocalDate businessDate, int partitionNo) {
+        return jdbcTemplate.query("SELECT last_id, to_id, status FROM eod_partitions "
+                                + "WHERE business_date = ? AND partition_no = ? FOR UPDATE",
+                        (rs, rowNum) -> new Checkpoint(rs.getLong("last_id"), rs.getLong("to_id"),
+                                Status.valueOf(rs.getString("status"))),
+                        Date.valueOf(businessDate), partitionNo)
+                .stream().findFirst();
+    }
+
+    /**
+     * Row-locks the next chunk of accounts of a partition, in ascending id order.
+     *
+     * @param afterId The highest account id already processed.
+     * @param toId    The inclusive upper bound of the partition.
+     * @param limit   The maximum number of accounts.
+     * @return The accounts with their balance column.
+     */
+    public List<AccountBalance> lockChunk(long afterId, long toId, int limit) {
+        return jdbcTemplate.query("SELECT id, balance FROM accounts WHERE id > ? AND id <= ? ORDER BY id LIMIT ? FOR UPDATE",
+                (rs, rowNum) -> new AccountBalance(rs.getLong("id"), rs.getBigDecimal("balance")),
+                afterId, toId, limit);
+    }
+
+    /**
+     * Adds amounts, possibly negative, to the balance columns of accounts with one JDBC batch.
+     *
+     * @param amounts The amount per account id; the caller holds the row locks.
+     */
+    public void addToBalances(Map<Long, BigDecimal> amounts) {
+        List<Map.Entry<Long, BigDecimal>> ordered = amounts.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .toList();
+        jdbcTemplate.batchUpdate("UPDATE accounts SET balance = balance + ? WHERE id = ?", ordered, ordered.size(),
+                (ps, amount) -> {
+                    ps.setBigDecimal(1, amount.getValue());
+                    ps.setLong(2, amount.getKey());
+                });
+    }
+
+    /**
+     * Moves the checkpoint of a partition forward.
+     *
+     * @param businessDate The business day.
+     * @param partitionNo  The partition number.
+     * @param lastId       The highest account id processed.
+     * @param processed    The number of accounts processed since the previous checkpoint.
+     * @param status       The new state of the partition.
+     */
+    public void checkpoint(LocalDate businessDate, int partitionNo, long lastId, int processed, Status status) {
+        jdbcTemplate.update("UPDATE eod_partitions SET last_id = ?, processed = processed + ?, status = ?, finished_at = ? "
+                        + "WHERE business_date = ? AND partition_no = ?",
+                lastId, processed, status.name(),
+                status == Status.DONE ? Timestamp.valueOf(LocalDateTime.now()) : null,
+                Date.valueOf(businessDate), partitionNo);
+    }
+
+    /**
+     * The checkpoint of a partition.
+     */
+    public record Checkpoint(long lastId, long toId, Status status) {
+    }
+
+    /**
+     * An account row locked for the duration of the current transaction, with its balance column.
+     */
+    public record AccountBalance(long id, BigDecimal balance) {
+    }
+}
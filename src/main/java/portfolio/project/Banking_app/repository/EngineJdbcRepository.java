@@ -0,0 +1,103 @@
+package portfolio.project.Banking_app.repository;
+
+import lombok.AllArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Plain JDBC access for the in-memory ledger engine: loading all balances, the write-behind checkpoint and
+ * batched, conditional balance deltas.
+ * <p>
+ * All methods must be called inside a transaction; they share its connection with JPA.
+ */
+@Repository
+@AllArgsConstructor
+public class EngineJdbcRepository {
+
+    private static final int LOAD_FETCH_SIZE = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Streams the balance of every account, including the stripes of striped accounts, in ascending id order.
+     *
+     * @param consumer Receives each account id and balance.
+     */
+    public void loadBalances(BalanceConsumer consumer) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement("SELECT a.id, a.balance + COALESCE(s.total, 0) AS balance "
+                    + "FROM accounts a LEFT JOIN (SELECT account_id, SUM(balance) AS total FROM account_balance_stripes "
+                    + "GROUP BY account_id) s ON s.account_id = a.id ORDER BY a.id");
+            // Fetched in chunks rather than all at once, the transaction keeps the cursor open
+            statement.setFetchSize(LOAD_FETCH_SIZE);
+            return statement;
+        }, (RowCallbackHandler) rs -> consumer.accept(rs.getLong(1), rs.getBigDecimal(2)));
+    }
+
+    /**
+     * Returns the checkpoint of an engine, creating it at 0 if it does not exist yet.
+     *
+     * @param name The name of the engine.
+     * @return The sequence number of the last journal record written to the database.
+     */
+    public long findOrCreateCheckpoint(String name) {
+        jdbcTemplate.update("INSERT INTO engine_checkpoints (name, sequence) VALUES (?, 0) ON CONFLICT (name) DO NOTHING", name);
+        return jdbcTemplate.queryForObject("SELECT sequence FROM engine_checkpoints WHERE name = ?", Long.class, name);
+    }
+
+    /**
+     * Moves the checkpoint of an engine.
+     *
+     * @param name     The name of the engine.
+     * @param sequence The sequence number of the last journal record written to the database.
+     */
+    public void updateCheckpoint(String name, long sequence) {
+        jdbcTemplate.update("UPDATE engine_checkpoints SET sequence = ? WHERE name = ?", sequence, name);
+    }
+
+    /**
+     * Adds the given amounts to the balance column of their accounts with one JDBC batch, in ascending id order.
+     * An amount is only added if the balance of the account, including its stripes, stays non-negative.
+     *
+     * @param deltas The amount to add per account id; negative to subtract.
+     * @throws IllegalStateException If an account does not exist or would be overdrawn; nothing should be committed
+     *                               then.
+     */
+    public void addToBalances(Map<Long, BigDecimal> deltas) {
+        List<Map.Entry<Long, BigDecimal>> ordered = List.copyOf(new TreeMap<>(deltas).entrySet());
+        int[][] counts = jdbcTemplate.batchUpdate("UPDATE accounts a SET balance = a.balance + ? WHERE a.id = ? "
+                        + "AND a.balance + ? + COALESCE((SELECT SUM(s.balance) FROM account_balance_stripes s "
+                        + "WHERE s.account_id = a.id), 0) >= 0", ordered, ordered.size(),
+                (ps, delta) -> {
+                    ps.setBigDecimal(1, delta.getValue());
+                    ps.setLong(2, delta.getKey());
+                    ps.setBigDecimal(3, delta.getValue());
+                });
+        int index = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                if (count == 0) {
+                    Map.Entry<Long, BigDecimal> delta = ordered.get(index);
+                    throw new IllegalStateException("Cannot add " + delta.getValue() + " to the balance of account "
+                            + delta.getKey() + ": it does not exist or would be overdrawn");
+                }
+                index++;
+            }
+        }
+    }
+
+    /**
+     * Receives the rows of {@link #loadBalances(BalanceConsumer)}.
+     */
+    @FunctionalInterface
+    public interface BalanceConsumer {
+        void accept(long accountId, BigDecimal balance);
+    }
+}
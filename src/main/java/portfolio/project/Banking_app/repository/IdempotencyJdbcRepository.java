@@ -0,0 +1,79 @@
+package portfolio.project.Banking_app.repository;
+
+import lombok.AllArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Plain JDBC access to idempotency keys.
+ * <p>
+ * All methods must be called inside a transaction; they share its connection with JPA.
+ */
+@Repository
+@AllArgsConstructor
+public class IdempotencyJdbcRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Claims a key for the current transaction. If another transaction inserted the key and has not finished yet,
+     * this waits until it commits or rolls back.
+     *
+     * @param key         The idempotency key.
+     * @param fingerprint The operation and arguments of the request.
+     * @param expiredAt   Keys created before this are replaced, as if they did not exist.
+     * @return True if the key was claimed, false if a committed request holds it.
+     */
+    public boolean claim(String key, String fingerprint, LocalDateTime expiredAt) {
+        return jdbcTemplate.update("INSERT INTO idempotency_keys (idempotency_key, fingerprint, created_at) VALUES (?, ?, ?) "
+                        + "ON CONFLICT (idempotency_key) DO UPDATE SET fingerprint = EXCLUDED.fingerprint, "
+                        + "response_status = NULL, response_body = NULL, created_at = EXCLUDED.created_at "
+                        + "WHERE idempotency_keys.created_at < ?",
+                key, fingerprint, Timestamp.valueOf(LocalDateTime.now()), Timestamp.valueOf(expiredAt)) > 0;
+    }
+
+    /**
+     * Stores the response of the request holding a key.
+     *
+     * @param key    The idempotency key.
+     * @param status The HTTP status.
+     * @param body   The response body, or null.
+     */
+    public void complete(String key, int status, String body) {
+        jdbcTemplate.update("UPDATE idempotency_keys SET response_status = ?, response_body = ? WHERE idempotency_key = ?",
+                status, body, key);
+    }
+
+    /**
+     * Loads a committed key.
+     *
+     * @param key The idempotency key.
+     * @return The fingerprint and response, or empty if the key does not exist.
+     */
+    public Optional<StoredKey> find(String key) {
+        return jdbcTemplate.query("SELECT fingerprint, response_status, response_body FROM idempotency_keys WHERE idempotency_key = ?",
+                        (rs, rowNum) -> new StoredKey(rs.getString("fingerprint"), rs.getInt("response_status"), rs.getString("response_body")),
+                        key)
+                .stream().findFirst();
+    }
+
+    /**
+     * Deletes keys created before a point in time.
+     *
+     * @param expiredAt The oldest creation time to keep.
+     * @return The number of deleted keys.
+     */
+    public int deleteCreatedBefore(LocalDateTime expiredAt) {
+        return jdbcTemplate.update("DELETE FROM idempotency_keys WHERE created_at < ?", Timestamp.valueOf(expiredAt));
+    }
+
+    /**
+     * A committed key with its stored response.
+     */
+    public record StoredKey(String fingerprint, int status, String body) {
+    }
+}
@@ -0,0 +1,131 @@
+package portfolio.project.Banking_app.repository;
+
+import lombok.AllArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import portfolio.project.Banking_app.entity.OutboxEvent;
+import portfolio.project.Banking_app.outbox.OutboxMessage;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Plain JDBC access to the transaction event outbox: batched inserts, and the locking reads and bulk deletes of
+ * the relay.
+ * <p>
+ * All methods must be called inside a transaction; they share its connection with JPA.
+ */
+@Repository
+@AllArgsConstructor
+public class OutboxJdbcRepository {
+
+    /**
+     * Key of the advisory locks of relay partitions; the partition number is the second key.
+     */
+    private static final int RELAY_LOCK_KEY = 0x4f555458;
+
+    /**
+     * Key of the advisory locks serializing the appends of each account; the hash of the account id is the second
+     * key.
+     */
+    private static final int APPEND_LOCK_KEY = 0x4f555441;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    /**
+     * Inserts the given events with one JDBC batch. Their ids are drawn from the unpooled sequence at insert time,
+     * after the append locks of their accounts were taken; the locks are held until the end of the transaction, so
+     * no event of these accounts can commit with a lower id afterwards and the relay publishes each account's
+     * events in the order they committed. Changes holding the account's row lock take the append lock uncontended;
+     * credits to a striped account only wait for each other from here to their commit.
+     *
+     * @param events The events to append.
+     */
+    public void append(List<EventRow> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        lockAppends(events);
+        jdbcTemplate.batchUpdate("INSERT INTO outbox_events (id, account_id, type, payload, created_at) "
+                        + "VALUES (nextval('outbox_events_seq'), ?, ?, ?, ?)",
+                events, events.size(),
+                (ps, event) -> {
+                    ps.setLong(1, event.accountId());
+                    ps.setString(2, event.type().name());
+                    ps.setString(3, event.payload());
+                    ps.setTimestamp(4, Timestamp.valueOf(event.createdAt()));
+                });
+    }
+
+    /**
+     * Takes the append locks of the accounts of the given events in one statement, in ascending key order so that
+     * appends of several accounts cannot deadlock each other.
+     */
+    private void lockAppends(List<EventRow> events) {
+        int[] keys = events.stream().mapToInt(event -> Long.hashCode(event.accountId())).distinct().sorted().toArray();
+        StringJoiner values = new StringJoiner(", ", "SELECT pg_advisory_xact_lock(?, k) FROM (VALUES ", ") AS t(k)");
+        Object[] args = new Object[keys.length + 1];
+        args[0] = APPEND_LOCK_KEY;
+        for (int i = 0; i < keys.length; i++) {
+            values.add("(?)");
+            args[i + 1] = keys[i];
+        }
+        jdbcTemplate.queryForList(values.toString(), Object.class, args);
+    }
+
+    /**
+     * Tries to take the advisory lock of a relay partition until the end of the current transaction.
+     *
+     * @param partition The partition number.
+     * @return true if the lock was taken, false if another relay holds it.
+     */
+    public boolean tryLockPartition(int partition) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT pg_try_advisory_xact_lock(?, ?)", Boolean.class, RELAY_LOCK_KEY, partition));
+    }
+
+    /**
+     * Locks the oldest events of a partition of accounts, skipping rows another transaction has locked.
+     *
+     * @param partition  The partition number.
+     * @param partitions The number of partitions.
+     * @param limit      The maximum number of events.
+     * @return The events in id order.
+     */
+    public List<OutboxMessage> lockBatch(int partition, int partitions, int limit) {
+        return jdbcTemplate.query("SELECT id, account_id, type, payload, created_at FROM outbox_events "
+                        + "WHERE mod(account_id, ?) = ? ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED",
+                (rs, rowNum) -> new OutboxMessage(
+                        rs.getLong("id"),
+                        rs.getLong("account_id"),
+                        OutboxEvent.Type.valueOf(rs.getString("type")),
+                        rs.getString("payload"),
+                        rs.getTimestamp("created_at").toLocalDateTime()),
+                partitions, partition, limit);
+    }
+
+    /**
+     * Deletes the given events.
+     *
+     * @param ids The IDs of the events.
+     * @return The number of deleted events.
+     */
+    public int delete(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        return namedParameterJdbcTemplate.update("DELETE FROM outbox_events WHERE id IN (:ids)", Map.of("ids", ids));
+    }
+
+    /**
+     * An outbox event to insert.
+     */
+    public record EventRow(long accountId, OutboxEvent.Type type, String payload, LocalDateTime createdAt) {
+    }
+}
@@ -0,0 +1,269 @@
+package portfolio.project.Banking_app.repository;
+
+import lombok.AllArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Plain JDBC access to the monthly partitions of the transactions table and the catalog of archived partitions.
+ * <p>
+ * Partition names come from the database catalog or from {@link #partitionName(LocalDateTime)} and are quoted as
+ * identifiers wherever they are spliced into SQL.
+ * All methods must be called inside a transaction; they share its connection with JPA.
+ */
+@Repository
+@AllArgsConstructor
+public class TransactionPartitionJdbcRepository {
+
+    /**
+     * Key of the advisory lock serializing partition maintenance across instances.
+     */
+    private static final long MAINTENANCE_LOCK_KEY = 0x54585041525453L;
+
+    private static final int EXPORT_FETCH_SIZE = 10_000;
+
+    private static final Pattern RANGE_BOUND = Pattern.compile("FOR VALUES FROM \\((.+)\\) TO \\((.+)\\)");
+
+    private static final DateTimeFormatter BOUND_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final DateTimeFormatter NAME_FORMAT = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Returns the name of the monthly partition starting at the given time.
+     *
+     * @param from The first day of the month, at midnight.
+     * @return The partition name, {@code transactions_pYYYYMM}.
+     */
+    public static String partitionName(LocalDateTime from) {
+        return "transactions_p" + from.format(NAME_FORMAT);
+    }
+
+    /**
+     * Returns whether the transactions table is partitioned, i.e. the partitioning migration has run.
+     */
+    public boolean isPartitioned() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM pg_partitioned_table "
+                + "WHERE partrelid = to_regclass('transactions'))", Boolean.class));
+    }
+
+    /**
+     * Takes the advisory lock of partition maintenance until the end of the current transaction.
+     */
+    public void lockMaintenance() {
+        jdbcTemplate.queryForList("SELECT pg_advisory_xact_lock(?)", Object.class, MAINTENANCE_LOCK_KEY);
+    }
+
+    /**
+     * Limits how long the statements of the current transaction wait for a lock.
+     *
+     * @param timeout The lock timeout.
+     */
+    public void setLockTimeout(Duration timeout) {
+        jdbcTemplate.queryForList("SELECT set_config('lock_timeout', ?, true)", Object.class,
+                timeout.toMillis() + "ms");
+    }
+
+    /**
+     * Returns the range partitions attached to the transactions table, oldest first. A default partition, which
+     * the application never creates, is not listed.
+     *
+     * @return The partitions.
+     */
+    public List<Partition> findPartitions() {
+        List<Partition> partitions = new ArrayList<>();
+        jdbcTemplate.query("SELECT c.relname, pg_get_expr(c.relpartbound, c.oid) FROM pg_inherits i "
+                        + "JOIN pg_class c ON c.oid = i.inhrelid WHERE i.inhparent = 'transactions'::regclass",
+                (RowCallbackHandler) rs -> {
+                    Matcher bound = RANGE_BOUND.matcher(rs.getString(2));
+                    if (bound.matches()) {
+                        partitions.add(new Partition(rs.getString(1), parseBound(bound.group(1)), parseBound(bound.group(2))));
+                    }
+                });
+        partitions.sort((a, b) -> a.to().compareTo(b.to()));
+        return partitions;
+    }
+
+    /**
+     * Creates the partition of a time range, unless a partition of that name exists.
+     *
+     * @param name The partition name.
+     * @param from Inclusive lower bound of the timestamps.
+     * @param to   Exclusive upper bound of the timestamps.
+     */
+    public void createPartition(String name, LocalDateTime from, LocalDateTime to) {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + identifier(name) + " PARTITION OF transactions "
+                + "FOR VALUES FROM ('" + from.format(BOUND_FORMAT) + "') TO ('" + to.format(BOUND_FORMAT) + "')");
+    }
+
+    /**
+     * Locks a partition against writes until the end of the current transaction; reads go on.
+     *
+     * @param name The partition name.
+     */
+    public void lockPartition(String name) {
+        jdbcTemplate.execute("LOCK TABLE " + identifier(name) + " IN SHARE MODE");
+    }
+
+    /**
+     * Returns the number of transactions in a partition.
+     *
+     * @param name The partition name.
+     */
+    public long countRows(String name) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM " + identifier(name), Long.class);
+    }
+
+    /**
+     * Returns the oldest timestamp in a partition, or null if it is empty.
+     *
+     * @param name The partition name.
+     */
+    public LocalDateTime minTimestamp(String name) {
+        return jdbcTemplate.queryForObject("SELECT min(timestamp) FROM " + identifier(name), LocalDateTime.class);
+    }
+
+    /**
+     * Streams the id and account number of every account sending or receiving a transaction of a partition, in
+     * ascending id order.
+     *
+     * @param name     The partition name.
+     * @param consumer Receives each account.
+     */
+    public void streamAccounts(String name, AccountConsumer consumer) {
+        String table = identifier(name);
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement("SELECT a.id, a.account_number FROM accounts a "
+                    + "WHERE a.id IN (SELECT sender_id FROM " + table + " UNION SELECT receiver_id FROM " + table + ") "
+                    + "ORDER BY a.id");
+            statement.setFetchSize(EXPORT_FETCH_SIZE);
+            return statement;
+        }, (RowCallbackHandler) rs -> consumer.accept(rs.getLong(1), rs.getString(2)));
+    }
+
+    /**
+     * Streams every transaction of a partition twice, once for the sender and once for the receiver, ordered by
+     * account, timestamp, id and direction.
+     *
+     * @param name     The partition name.
+     * @param consumer Receives each entry.
+     */
+    public void streamEntries(String name, EntryConsumer consumer) {
+        String table = identifier(name);
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement("SELECT account_id, received, timestamp, id, "
+                    + "counterparty_id, amount FROM ("
+                    + "SELECT sender_id AS account_id, false AS received, timestamp, id, receiver_id AS counterparty_id, "
+                    + "amount FROM " + table + " UNION ALL "
+                    + "SELECT receiver_id, true, timestamp, id, sender_id, amount FROM " + table + ") e "
+                    + "ORDER BY account_id, timestamp, id, received");
+            // Fetched in chunks rather than all at once, the transaction keeps the cursor open
+            statement.setFetchSize(EXPORT_FETCH_SIZE);
+            return statement;
+        }, (RowCallbackHandler) rs -> consumer.accept(rs.getLong(1), rs.getBoolean(2),
+                rs.getTimestamp(3).toLocalDateTime(), rs.getLong(4), rs.getLong(5), rs.getBigDecimal(6)));
+    }
+
+    /**
+     * Detaches a partition from the transactions table; it stays as a standalone table.
+     *
+     * @param name The partition name.
+     */
+    public void detachPartition(String name) {
+        jdbcTemplate.execute("ALTER TABLE transactions DETACH PARTITION " + identifier(name));
+    }
+
+    /**
+     * Drops a detached partition.
+     *
+     * @param name The partition name.
+     */
+    public void dropTable(String name) {
+        jdbcTemplate.execute("DROP TABLE " + identifier(name));
+    }
+
+    /**
+     * Adds an archived partition to the catalog.
+     *
+     * @param archive The archived partition.
+     */
+    public void insertArchive(ArchiveRow archive) {
+        jdbcTemplate.update("INSERT INTO transaction_archives (partition_name, range_start, range_end, parts, row_count, "
+                        + "archived_at) VALUES (?, ?, ?, ?, ?, now())",
+                archive.partitionName(), Timestamp.valueOf(archive.rangeStart()), Timestamp.valueOf(archive.rangeEnd()),
+                archive.parts(), archive.rowCount());
+    }
+
+    /**
+     * Returns the catalog of archived partitions, newest first.
+     *
+     * @return The archived partitions.
+     */
+    public List<ArchiveRow> findArchives() {
+        return jdbcTemplate.query("SELECT partition_name, range_start, range_end, parts, row_count "
+                        + "FROM transaction_archives ORDER BY range_start DESC",
+                (rs, rowNum) -> new ArchiveRow(rs.getString(1), rs.getTimestamp(2).toLocalDateTime(),
+                        rs.getTimestamp(3).toLocalDateTime(), rs.getInt(4), rs.getLong(5)));
+    }
+
+    private static LocalDateTime parseBound(String bound) {
+        if ("MINVALUE".equals(bound)) {
+            return null;
+        }
+        if ("MAXVALUE".equals(bound)) {
+            return LocalDateTime.MAX;
+        }
+        return LocalDateTime.parse(bound.substring(1, bound.length() - 1).replace(' ', 'T'));
+    }
+
+    private static String identifier(String name) {
+        return '"' + name.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * A range partition of the transactions table.
+     *
+     * @param name The partition name.
+     * @param from Inclusive lower bound of the timestamps, null if unbounded.
+     * @param to   Exclusive upper bound of the timestamps.
+     */
+    public record Partition(String name, LocalDateTime from, LocalDateTime to) {
+    }
+
+    /**
+     * A catalog entry of an archived partition, see {@link portfolio.project.Banking_app.entity.TransactionArchive}.
+     */
+    public record ArchiveRow(String partitionName, LocalDateTime rangeStart, LocalDateTime rangeEnd, int parts,
+                             long rowCount) {
+    }
+
+    /**
+     * Receives the rows of {@link #streamAccounts(String, AccountConsumer)}.
+     */
+    @FunctionalInterface
+    public interface AccountConsumer {
+        void accept(long accountId, String accountNumber);
+    }
+
+    /**
+     * Receives the rows of {@link #streamEntries(String, EntryConsumer)}.
+     */
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(long accountId, boolean received, LocalDateTime timestamp, long id, long counterpartyId,
+                    BigDecimal amount);
+    }
+}
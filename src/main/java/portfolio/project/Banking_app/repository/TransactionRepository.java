@@ -1,11 +1,81 @@
 package portfolio.project.Banking_app.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import portfolio.project.Banking_app.dto.TransactionHistoryDTO;
 import portfolio.project.Banking_app.entity.Transaction;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
+/**
+ * Repository for transactions.
+ * <p>
+ * History queries use keyset (seek) pagination on {@code (timestamp, id)}: each page continues strictly before the
+ * last row of the previous one, so the database walks the {@code (sender_id, timestamp, id)} and
+ * {@code (receiver_id, timestamp, id)} indexes from the cursor instead of skipping rows as OFFSET would.
+ * <p>
+ * Statement queries return a forward-only {@link Stream} backed by a database cursor with a fixed fetch size, so
+ * only one fetch of rows is on the heap at a time. They must be consumed inside a transaction and closed.
+ */
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
+
+    String HISTORY_DTO = "new portfolio.project.Banking_app.dto.TransactionHistoryDTO("
+            + "t.id, t.amount, t.timestamp, t.sender.accountNumber, t.receiver.accountNumber, ";
+
+    @Query("select " + HISTORY_DTO + "'SENT') from Transaction t "
+            + "where t.sender.id = :accountId "
+            + "order by t.timestamp desc, t.id desc")
+    List<TransactionHistoryDTO> findSentHistory(@Param("accountId") Long accountId, Pageable pageable);
+
+    @Query("select " + HISTORY_DTO + "'SENT') from Transaction t "
+            + "where t.sender.id = :accountId and (t.timestamp, t.id) < (:beforeTimestamp, :beforeId) "
+            + "order by t.timestamp desc, t.id desc")
+    List<TransactionHistoryDTO> findSentHistoryBefore(@Param("accountId") Long accountId,
+                                                      @Param("beforeTimestamp") LocalDateTime beforeTimestamp,
+                                                      @Param("beforeId") Long beforeId,
+                                                      Pageable pageable);
+
+    @Query("select " + HISTORY_DTO + "'RECEIVED') from Transaction t "
+            + "where t.receiver.id = :accountId "
+            + "order by t.timestamp desc, t.id desc")
+    List<TransactionHistoryDTO> findReceivedHistory(@Param("accountId") Long accountId, Pageable pageable);
+
+    @Query("select " + HISTORY_DTO + "'RECEIVED') from Transaction t "
+            + "where t.receiver.id = :accountId and (t.timestamp, t.id) < (:beforeTimestamp, :beforeId) "
+            + "order by t.timestamp desc, t.id desc")
+    List<TransactionHistoryDTO> findReceivedHistoryBefore(@Param("accountId") Long accountId,
+                                                          @Param("beforeTimestamp") LocalDateTime beforeTimestamp,
+                                                          @Param("beforeId") Long beforeId,
+                                                          Pageable pageable);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select " + HISTORY_DTO + "'SENT') from Transaction t "
+            + "where t.sender.id = :accountId and t.timestamp >= :from and t.timestamp < :to "
+            + "order by t.timestamp, t.id")
+    Stream<TransactionHistoryDTO> streamSent(@Param("accountId") Long accountId,
+                                             @Param("from") LocalDateTime from,
+                                             @Param("to") LocalDateTime to);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select " + HISTORY_DTO + "'RECEIVED') from Transaction t "
+            + "where t.receiver.id = :accountId and t.timestamp >= :from and t.timestamp < :to "
+            + "order by t.timestamp, t.id")
+    Stream<TransactionHistoryDTO> streamReceived(@Param("accountId") Long accountId,
+                                                 @Param("from") LocalDateTime from,
+                                                 @Param("to") LocalDateTime to);
 }
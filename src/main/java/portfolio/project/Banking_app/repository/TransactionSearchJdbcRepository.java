@@ -0,0 +1,188 @@
+package portfolio.project.Banking_app.repository;
+
+import lombok.AllArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import portfolio.project.Banking_app.dto.TransactionSearchResultDTO;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Plain JDBC access for transaction search, whose SQL depends on the combination of filters given.
+ * <p>
+ * Every query shape is written to be served by an index (see {@code db/migration/V10__transaction_search_indexes.sql}):
+ * <ul>
+ *     <li>with accounts to search, each account's sent and received transactions are read newest first from the
+ *     covering {@code (sender_id, timestamp, id)} and {@code (receiver_id, timestamp, id)} indexes, at most one
+ *     page per account and side, and merged;</li>
+ *     <li>otherwise the transactions are read newest first from {@code (amount, timestamp, id)} for an exact amount
+ *     or from {@code (timestamp, id)} for a date range.</li>
+ * </ul>
+ * Account holders are matched by name prefix through the {@code lower(full_name) text_pattern_ops} index on users.
+ * The prefix is turned into a range of names, so a generic plan of a server-side prepared statement can use it too.
+ * <p>
+ * All methods must be called inside a transaction; they share its connection with JPA.
+ */
+@Repository
+@AllArgsConstructor
+public class TransactionSearchJdbcRepository {
+
+    private static final String RESULT_COLUMNS = "SELECT t.id, t.amount, t.timestamp, "
+            + "sa.account_number AS sender_account_number, su.full_name AS sender_name, "
+            + "ra.account_number AS receiver_account_number, ru.full_name AS receiver_name FROM (";
+
+    private static final String RESULT_JOINS = ") t "
+            + "JOIN accounts sa ON sa.id = t.sender_id JOIN users su ON su.id = sa.user_id "
+            + "JOIN accounts ra ON ra.id = t.receiver_id JOIN users ru ON ru.id = ra.user_id "
+            + "ORDER BY t.timestamp DESC, t.id DESC LIMIT :limit";
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    /**
+     * Returns the ids of the accounts whose holder's full name starts with the given prefix, ignoring case.
+     *
+     * @param namePrefix The name prefix.
+     * @param limit      The maximum number of ids to return.
+     * @return The account ids, in ascending order.
+     */
+    public List<Long> findAccountIdsByHolderNamePrefix(String namePrefix, int limit) {
+        String prefix = namePrefix.toLowerCase(Locale.ROOT);
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("prefix", prefix)
+                .addValue("upper", prefix.substring(0, prefix.length() - 1) + (char) (prefix.charAt(prefix.length() - 1) + 1))
+                .addValue("pattern", prefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%")
+                .addValue("limit", limit);
+        return namedParameterJdbcTemplate.queryForList(
+                "SELECT a.id FROM users u JOIN accounts a ON a.user_id = u.id "
+                        + "WHERE lower(u.full_name) ~>=~ :prefix AND lower(u.full_name) ~<~ :upper "
+                        + "AND lower(u.full_name) LIKE :pattern "
+                        + "ORDER BY a.id LIMIT :limit",
+                params, Long.class);
+    }
+
+    /**
+     * Runs a search and returns one page of results, newest first.
+     *
+     * @param query The search.
+     * @return The transactions found, at most {@link SearchQuery#limit()}.
+     */
+    public List<TransactionSearchResultDTO> search(SearchQuery query) {
+        return namedParameterJdbcTemplate.query(sql(query), params(query), (rs, rowNum) -> new TransactionSearchResultDTO(
+                rs.getLong("id"),
+                rs.getBigDecimal("amount"),
+                rs.getTimestamp("timestamp").toLocalDateTime(),
+                rs.getString("sender_account_number"),
+                rs.getString("sender_name"),
+                rs.getString("receiver_account_number"),
+                rs.getString("receiver_name")));
+    }
+
+    /**
+     * Returns the plan the database chooses for a search, one line per row of {@code EXPLAIN} output.
+     * Used to check that every filter combination the search accepts is served by an index.
+     *
+     * @param query The search.
+     * @return The plan.
+     */
+    public List<String> explain(SearchQuery query) {
+        return namedParameterJdbcTemplate.queryForList("EXPLAIN " + sql(query), params(query), String.class);
+    }
+
+    private static String sql(SearchQuery query) {
+        StringBuilder sql = new StringBuilder(RESULT_COLUMNS);
+        if (query.partyIds() == null) {
+            sql.append(page(query, null));
+        } else {
+            String sentFilter = "t.sender_id = p.id" + (query.counterpartyIds() == null ? "" : " AND t.receiver_id IN (:counterpartyIds)");
+            String receivedFilter = "t.receiver_id = p.id" + (query.counterpartyIds() == null ? "" : " AND t.sender_id IN (:counterpartyIds)");
+            // One index range scan per account and side, each stopping after a page; UNION drops the transactions
+            // found from both sides
+            sql.append("SELECT s.* FROM accounts p CROSS JOIN LATERAL (").append(page(query, sentFilter))
+                    .append(") s WHERE p.id IN (:partyIds) UNION ")
+                    .append("SELECT r.* FROM accounts p CROSS JOIN LATERAL (").append(page(query, receivedFilter))
+                    .append(") r WHERE p.id IN (:partyIds)");
+        }
+        return sql.append(RESULT_JOINS).toString();
+    }
+
+    /**
+     * Returns the query of one page of transactions matching the given condition, if any, and the filters of the search.
+     */
+    private static String page(SearchQuery query, String condition) {
+        List<String> conditions = new ArrayList<>();
+        if (condition != null) {
+            conditions.add(condition);
+        }
+        if (query.isExactAmount()) {
+            // An equality keeps the (amount, timestamp, id) index in timestamp order, so no sort is needed
+            conditions.add("t.amount = :minAmount");
+        } else {
+            if (query.minAmount() != null) {
+                conditions.add("t.amount >= :minAmount");
+            }
+            if (query.maxAmount() != null) {
+                conditions.add("t.amount <= :maxAmount");
+            }
+        }
+        if (query.from() != null) {
+            conditions.add("t.timestamp >= :from");
+        }
+        if (query.to() != null) {
+            conditions.add("t.timestamp < :to");
+        }
+        if (query.beforeTimestamp() != null) {
+            conditions.add("(t.timestamp, t.id) < (:beforeTimestamp, :beforeId)");
+        }
+        return "SELECT t.id, t.amount, t.timestamp, t.sender_id, t.receiver_id FROM transactions t"
+                + (conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions))
+                + " ORDER BY t.timestamp DESC, t.id DESC LIMIT :limit";
+    }
+
+    private static MapSqlParameterSource params(SearchQuery query) {
+        return new MapSqlParameterSource()
+                .addValue("partyIds", query.partyIds())
+                .addValue("counterpartyIds", query.counterpartyIds())
+                .addValue("minAmount", query.minAmount())
+                .addValue("maxAmount", query.maxAmount())
+                .addValue("from", timestamp(query.from()))
+                .addValue("to", timestamp(query.to()))
+                .addValue("beforeTimestamp", timestamp(query.beforeTimestamp()))
+                .addValue("beforeId", query.beforeId())
+                .addValue("limit", query.limit());
+    }
+
+    private static Timestamp timestamp(LocalDateTime value) {
+        return value == null ? null : Timestamp.valueOf(value);
+    }
+
+    /**
+     * A search to run.
+     *
+     * @param partyIds        Accounts that sent or received the transactions, or null to search all transactions.
+     * @param counterpartyIds Accounts on the other side of the transactions, or null for any.
+     * @param minAmount       Smallest amount, inclusive, or null.
+     * @param maxAmount       Largest amount, inclusive, or null.
+     * @param from            Earliest timestamp, inclusive, or null.
+     * @param to              Latest timestamp, exclusive, or null.
+     * @param beforeTimestamp Timestamp of the cursor, or null for the first page.
+     * @param beforeId        Id of the cursor, or null for the first page.
+     * @param limit           The page size.
+     */
+    public record SearchQuery(List<Long> partyIds, List<Long> counterpartyIds, BigDecimal minAmount, BigDecimal maxAmount,
+                              LocalDateTime from, LocalDateTime to, LocalDateTime beforeTimestamp, Long beforeId,
+                              int limit) {
+
+        /**
+         * Returns whether the minimum and maximum amount are given and equal.
+         */
+        public boolean isExactAmount() {
+            return minAmount != null && maxAmount != null && minAmount.compareTo(maxAmount) == 0;
+        }
+    }
+}
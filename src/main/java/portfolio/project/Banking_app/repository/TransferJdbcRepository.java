@@ -0,0 +1,115 @@
+package portfolio.project.Banking_app.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Plain JDBC access for set-based transfer processing, where going through the persistence context
+ * would cost one statement and one dirty-check snapshot per row.
+ * <p>
+ * All methods must be called inside a transaction; they share its connection with JPA.
+ */
+@Repository
+@AllArgsConstructor
+public class TransferJdbcRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    /**
+     * Looks up the ids of the accounts with the given numbers in one round trip, without locking them.
+     *
+     * @param accountNumbers The account numbers.
+     * @return The id per account number; unknown numbers are left out.
+     */
+    public Map<String, Long> findIdsByAccountNumbers(Collection<String> accountNumbers) {
+        Map<String, Long> ids = new HashMap<>();
+        if (accountNumbers.isEmpty()) {
+            return ids;
+        }
+        namedParameterJdbcTemplate.query(
+                "SELECT id, account_number FROM accounts WHERE account_number IN (:numbers)",
+                Map.of("numbers", accountNumbers),
+                rs -> {
+                    ids.put(rs.getString("account_number"), rs.getLong("id"));
+                });
+        return ids;
+    }
+
+    /**
+     * Loads and row-locks all accounts with the given ids in one round trip, in ascending id order.
+     *
+     * @param ids The IDs of the accounts to lock.
+     * @return The locked accounts, ordered by id.
+     */
+    public List<LockedAccount> lockByIds(Collection<Long> ids) {
+        return namedParameterJdbcTemplate.query(
+                "SELECT id, account_number, balance FROM accounts WHERE id IN (:ids) ORDER BY id FOR UPDATE",
+                Map.of("ids", ids),
+                (rs, rowNum) -> new LockedAccount(rs.getLong("id"), rs.getString("account_number"), rs.getBigDecimal("balance")));
+    }
+
+    /**
+     * Writes the balances of the given accounts with one JDBC batch, in ascending id order.
+     *
+     * @param accounts The accounts whose balance changed.
+     */
+    public void updateBalances(Collection<LockedAccount> accounts) {
+        List<LockedAccount> ordered = accounts.stream()
+                .sorted(Comparator.comparingLong(LockedAccount::getId))
+                .toList();
+        jdbcTemplate.batchUpdate("UPDATE accounts SET balance = ? WHERE id = ?", ordered, ordered.size(),
+                (ps, account) -> {
+                    ps.setBigDecimal(1, account.getBalance());
+                    ps.setLong(2, account.getId());
+                });
+    }
+
+    /**
+     * Inserts the given transactions with one JDBC batch.
+     *
+     * @param transfers The transactions to record.
+     */
+    public void insertTransactions(List<TransferRow> transfers) {
+        jdbcTemplate.batchUpdate("INSERT INTO transactions (id, amount, timestamp, sender_id, receiver_id) VALUES (nextval('transactions_seq'), ?, ?, ?, ?)",
+                transfers, transfers.size(),
+                (ps, transfer) -> {
+                    ps.setBigDecimal(1, transfer.amount());
+                    ps.setTimestamp(2, Timestamp.valueOf(transfer.timestamp()));
+                    ps.setLong(3, transfer.senderId());
+                    ps.setLong(4, transfer.receiverId());
+                });
+    }
+
+    /**
+     * An account row locked for the duration of the current transaction. The balance is tracked in memory
+     * while transfers are applied and written back with {@link #updateBalances(Collection)}.
+     */
+    @Getter
+    @Setter
+    @AllArgsConstructor
+    public static class LockedAccount {
+        private final long id;
+        private final String accountNumber;
+        private BigDecimal balance;
+    }
+
+    /**
+     * A transaction row to insert.
+     */
+    public record TransferRow(long senderId, long receiverId, BigDecimal amount, LocalDateTime timestamp) {
+    }
+}
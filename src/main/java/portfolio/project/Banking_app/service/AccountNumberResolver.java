@@ -0,0 +1,154 @@
+package portfolio.project.Banking_app.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import portfolio.project.Banking_app.config.AccountResolverProperties;
+import portfolio.project.Banking_app.dto.AccountIdView;
+import portfolio.project.Banking_app.repository.AccountRepository;
+
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Resolves account numbers to account ids through a bounded in-memory cache.
+ * <p>
+ * Account numbers hardly ever change, so a cached mapping stays valid until its account is deleted or renumbered;
+ * there is no TTL. Unknown numbers are not cached, so an account created after a failed lookup is found right away.
+ * Creating, renumbering or deleting an account through {@link AccountService} evicts the affected numbers after
+ * commit. Ids come from a sequence and
+ * are never reused, so a mapping that is stale anyway (the account was deleted behind the application's back)
+ * points to a missing row; callers that lock by id detect that, {@link #evict(String) evict} the number and
+ * resolve it again.
+ * <p>
+ * The cache is filled once in the background after startup with a single streaming query, up to
+ * {@code banking.account-resolver.maximum-size} entries. Lookups never run a query inside the cache's locks.
+ */
+@Slf4j
+@Component
+public class AccountNumberResolver {
+
+    private final AccountRepository accountRepository;
+    private final AccountResolverProperties properties;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Cache<String, Long> cache;
+
+    public AccountNumberResolver(AccountRepository accountRepository,
+                                 AccountResolverProperties properties,
+                                 PlatformTransactionManager transactionManager,
+                                 MeterRegistry meterRegistry) {
+        this.accountRepository = accountRepository;
+        this.properties = properties;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "account-numbers");
+    }
+
+    /**
+     * Returns the id of the account with the given number, loading it on a miss.
+     *
+     * @param accountNumber The account number.
+     * @return The account id, or empty if no account has this number.
+     */
+    public Optional<Long> resolve(String accountNumber) {
+        Long id = cache.getIfPresent(accountNumber);
+        if (id != null) {
+            return Optional.of(id);
+        }
+        Optional<Long> loaded = accountRepository.findIdByAccountNumber(accountNumber);
+        loaded.ifPresent(accountId -> cache.put(accountNumber, accountId));
+        return loaded;
+    }
+
+    /**
+     * Drops the cached id of an account number.
+     *
+     * @param accountNumber The account number.
+     */
+    public void evict(String accountNumber) {
+        cache.invalidate(accountNumber);
+    }
+
+    /**
+     * Drops the cached id of an account number once the current transaction commits, or right away outside a
+     * transaction.
+     *
+     * @param accountNumber The account number of an account that was created or deleted.
+     */
+    public void evictAfterCommit(String accountNumber) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            cache.invalidate(accountNumber);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cache.invalidate(accountNumber);
+            }
+        });
+    }
+
+    /**
+     * Drops all cached ids.
+     */
+    public void evictAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Fills the cache from one streaming query over all accounts, until the cache is full.
+     *
+     * @return The number of cached account numbers.
+     */
+    public long warm() {
+        long limit = properties.getMaximumSize();
+        Long loaded = readOnlyTransaction.execute(status -> {
+            long count = 0;
+            try (Stream<AccountIdView> accounts = accountRepository.streamAccountIds()) {
+                Iterator<AccountIdView> iterator = accounts.iterator();
+                while (count < limit && iterator.hasNext()) {
+                    AccountIdView account = iterator.next();
+                    cache.put(account.accountNumber(), account.id());
+                    count++;
+                }
+            }
+            return count;
+        });
+        return loaded == null ? 0 : loaded;
+    }
+
+    /**
+     * Warms the cache on a background thread once the application is ready, so startup is not delayed.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    void warmOnStartup() {
+        if (!properties.isWarmOnStartup()) {
+            return;
+        }
+        Thread warmer = new Thread(() -> {
+            try {
+                long start = System.nanoTime();
+                long loaded = warm();
+                log.info("Cached {} account numbers in {} ms", loaded, (System.nanoTime() - start) / 1_000_000);
+            } catch (RuntimeException e) {
+                log.warn("Could not warm the account number cache", e);
+            }
+        }, "account-resolver-warmup");
+        warmer.setDaemon(true);
+        warmer.start();
+    }
+}
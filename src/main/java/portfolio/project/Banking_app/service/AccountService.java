@@ -2,15 +2,30 @@ package portfolio.project.Banking_app.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import portfolio.project.Banking_app.config.ReplicaRoutingDataSource;
+import portfolio.project.Banking_app.engine.LedgerEngine;
 import portfolio.project.Banking_app.entity.Account;
+import portfolio.project.Banking_app.exception.InsufficientFundsException;
+import portfolio.project.Banking_app.exception.ResourceNotFoundException;
+import portfolio.project.Banking_app.exception.TransactionOperationException;
 import portfolio.project.Banking_app.repository.AccountRepository;
+import portfolio.project.Banking_app.service.BankingMetrics.Operation;
+import portfolio.project.Banking_app.service.BankingMetrics.Outcome;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * Service class for managing accounts.
+ * <p>
+ * Read paths run in read-only transactions: Spring switches the Hibernate session to flush mode MANUAL for them,
+ * so no dirty checking or flush happens on the way out, and with {@code banking.read-replicas.enabled} they are
+ * served by a read replica (see {@link ReplicaRoutingDataSource}).
  */
 @Service
 @Transactional
@@ -19,14 +34,46 @@ public class AccountService {
     @Autowired
     private AccountRepository accountRepository;
 
+    @Autowired
+    private BalanceCache balanceCache;
+
+    @Autowired
+    private BankingMetrics metrics;
+
+    @Autowired
+    private AccountNumberResolver accountNumberResolver;
+
+    @Autowired
+    private StripedBalanceService stripedBalances;
+
+    @Autowired
+    private OutboxService outbox;
+
+    @Autowired
+    private LedgerEngine ledgerEngine;
+
     /**
      * Saves the provided account.
+     * Its number is evicted from the {@link AccountNumberResolver} after commit, in case it was cached for a
+     * deleted account, and so is its previous number if the save renumbers it. A new account joins the
+     * {@link LedgerEngine} after commit if the engine is running.
      *
      * @param account The account to save.
      * @return The saved account.
      */
     public Account saveAccount(Account account) {
-        return accountRepository.save(account);
+        boolean created = account.getId() == null;
+        if (!created) {
+            accountRepository.findAccountNumberById(account.getId())
+                    .filter(number -> !number.equals(account.getAccountNumber()))
+                    .ifPresent(accountNumberResolver::evictAfterCommit);
+        }
+        Account saved = accountRepository.save(account);
+        if (created && saved.getBalance() != null) {
+            ledgerEngine.registerAfterCommit(saved.getId(), saved.getBalance());
+        }
+        accountNumberResolver.evictAfterCommit(saved.getAccountNumber());
+        return saved;
     }
 
     /**
@@ -35,77 +82,161 @@ public class AccountService {
      * @param id The ID of the account to retrieve.
      * @return The account if found, otherwise null.
      */
+    @Transactional(readOnly = true)
     public Account getAccountById(Long id) {
         return accountRepository.findById(id).orElse(null);
     }
 
     /**
-     * Retrieves all accounts.
+     * Retrieves all accounts, with their users loaded in the same statement.
      *
      * @return List of all accounts.
      */
+    @Transactional(readOnly = true)
     public List<Account> getAllAccounts() {
         return accountRepository.findAll();
     }
 
     /**
-     * Deletes an account by its ID.
+     * Deletes an account by its ID and evicts its number from the {@link AccountNumberResolver} after commit.
      *
      * @param id The ID of the account to delete.
+     * @throws TransactionOperationException If the {@link LedgerEngine} is enabled.
      */
     public void deleteAccount(Long id) {
+        ledgerEngine.requireDatabaseWrites("Account deletions");
+        accountRepository.findAccountNumberById(id).ifPresent(accountNumberResolver::evictAfterCommit);
         accountRepository.deleteById(id);
     }
 
     /**
      * Deposits an amount into the account specified by the ID.
+     * The balance is changed with a single conditional {@code UPDATE ... RETURNING} statement, or, for a striped
+     * account, credited to one of its stripes without locking the account row (see {@link StripedBalanceService}).
+     * A deposit event is written to the outbox in the same transaction (see {@link OutboxService}).
+     * While the {@link LedgerEngine} is enabled the deposit is submitted to the engine instead, which writes it and
+     * its event to the database behind.
      *
      * @param accountId The ID of the account to deposit into.
      * @param amount    The amount to deposit.
+     * @return The new balance of the account.
+     * @throws IllegalArgumentException      If the amount is not positive, or has fractions of a cent while the
+     *                                       {@link LedgerEngine} is enabled.
+     * @throws ResourceNotFoundException     If the account is not found.
+     * @throws TransactionOperationException If the {@link LedgerEngine} cannot accept the deposit.
      */
-    public void deposit(Long accountId, BigDecimal amount) {
-        Account account = accountRepository.findById(accountId).orElse(null);
-        if (account != null) {
-            BigDecimal currentBalance = account.getBalance();
-            account.setBalance(currentBalance.add(amount));
-            accountRepository.save(account);
+    public BigDecimal deposit(Long accountId, BigDecimal amount) {
+        long start = System.nanoTime();
+        try {
+            requirePositive(amount);
+            BigDecimal balance;
+            if (ledgerEngine.isEnabled()) {
+                balance = join(ledgerEngine.deposit(accountId, amount));
+            } else {
+                balance = stripedBalances.isStriped(accountId)
+                        ? stripedBalances.deposit(accountId, amount)
+                        : accountRepository.depositAndGetBalance(accountId, amount)
+                                .orElseThrow(() -> new ResourceNotFoundException("Account not found with id: " + accountId));
+                outbox.recordDeposit(accountId, amount);
+                balanceCache.evictAfterCommit(accountId);
+            }
+            metrics.record(Operation.DEPOSIT, Outcome.SUCCESS, start);
+            return balance;
+        } catch (RuntimeException e) {
+            metrics.record(Operation.DEPOSIT, Outcome.of(e), start);
+            throw e;
         }
     }
 
     /**
      * Withdraws an amount from the account specified by the ID.
+     * The funds check and the balance change happen in a single conditional {@code UPDATE ... RETURNING} statement;
+     * only when it matches no row is the account looked up again to tell a missing account from insufficient funds.
+     * A striped account is locked first and its stripes count towards the funds.
+     * A withdrawal event is written to the outbox in the same transaction.
+     * While the {@link LedgerEngine} is enabled the withdrawal is submitted to the engine instead, which checks the
+     * funds it holds.
      *
      * @param accountId The ID of the account to withdraw from.
      * @param amount    The amount to withdraw.
-     * @throws IllegalArgumentException If there are insufficient funds.
+     * @return The new balance of the account.
+     * @throws IllegalArgumentException      If the amount is not positive, or has fractions of a cent while the
+     *                                       {@link LedgerEngine} is enabled.
+     * @throws InsufficientFundsException    If there are insufficient funds.
+     * @throws ResourceNotFoundException     If the account is not found.
+     * @throws TransactionOperationException If the {@link LedgerEngine} cannot accept the withdrawal.
      */
-    public void withdraw(Long accountId, BigDecimal amount) {
-        Account account = accountRepository.findById(accountId).orElse(null);
-        if (account != null) {
-            BigDecimal currentBalance = account.getBalance();
-            if (currentBalance.compareTo(amount) >= 0) {
-                account.setBalance(currentBalance.subtract(amount));
-                accountRepository.save(account);
+    public BigDecimal withdraw(Long accountId, BigDecimal amount) {
+        long start = System.nanoTime();
+        try {
+            requirePositive(amount);
+            BigDecimal balance;
+            if (ledgerEngine.isEnabled()) {
+                balance = join(ledgerEngine.withdraw(accountId, amount));
             } else {
-                throw new IllegalArgumentException("Insufficient funds");
+                Optional<BigDecimal> withdrawn = stripedBalances.isStriped(accountId)
+                        ? stripedBalances.withdraw(accountId, amount)
+                        : accountRepository.withdrawAndGetBalance(accountId, amount);
+                balance = withdrawn.orElseThrow(() -> accountRepository.existsById(accountId)
+                        ? new InsufficientFundsException("Insufficient funds")
+                        : new ResourceNotFoundException("Account not found with id: " + accountId));
+                outbox.recordWithdrawal(accountId, amount);
+                balanceCache.evictAfterCommit(accountId);
             }
+            metrics.record(Operation.WITHDRAW, Outcome.SUCCESS, start);
+            return balance;
+        } catch (RuntimeException e) {
+            metrics.record(Operation.WITHDRAW, Outcome.of(e), start);
+            throw e;
         }
     }
 
     /**
      * Checks the balance of the account specified by the ID.
+     * Balances are served from the {@link BalanceCache}; the database is only read on a miss,
+     * and no transaction is opened for a cache hit. A miss is read from the primary, never from a read replica,
+     * so the cache cannot be filled with a balance older than the write that last evicted it.
+     * While the {@link LedgerEngine} is enabled the balance is read from the engine instead, since the database only
+     * catches up with the engine's transfers through its write-behind.
      *
      * @param accountId The ID of the account to check balance.
      * @return The balance of the account.
-     * @throws IllegalArgumentException If the account is not found.
+     * @throws ResourceNotFoundException If the account is not found.
      */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public BigDecimal checkBalance(Long accountId) {
-        Account account = accountRepository.findById(accountId).orElse(null);
-        if (account != null) {
-            return account.getBalance();
-        } else {
-            throw new IllegalArgumentException("Account not found");
+        long start = System.nanoTime();
+        try {
+            BigDecimal balance = ledgerEngine.isEnabled()
+                    ? join(ledgerEngine.balance(accountId))
+                    : balanceCache.get(accountId, this::loadBalance);
+            metrics.record(Operation.CHECK_BALANCE, Outcome.SUCCESS, start);
+            return balance;
+        } catch (RuntimeException e) {
+            metrics.record(Operation.CHECK_BALANCE, Outcome.of(e), start);
+            throw e;
         }
     }
-}
 
+    /**
+     * Waits for the outcome of a {@link LedgerEngine} command and rethrows its failure unwrapped.
+     */
+    private static BigDecimal join(CompletableFuture<BigDecimal> command) {
+        try {
+            return command.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    private BigDecimal loadBalance(Long accountId) {
+        return ReplicaRoutingDataSource.onPrimary(() -> accountRepository.findBalanceById(accountId))
+                .orElseThrow(() -> new ResourceNotFoundException("Account not found with id: " + accountId));
+    }
+
+    private static void requirePositive(BigDecimal amount) {
+        if (amount == null || amount.signum() <= 0) {
+            throw new IllegalArgumentException("Amount must be positive");
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package portfolio.project.Banking_app.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import portfolio.project.Banking_app.config.BalanceCacheProperties;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * Bounded, size- and TTL-evicting read-through cache of account balances, keyed by account id.
+ * <p>
+ * Every path that changes a balance evicts the entry only after its database transaction has committed, so an
+ * uncommitted balance is never cached. An eviction also drops a load of the same key that is still in flight,
+ * so a balance read before the commit is never cached after it.
+ * <p>
+ * Loads run on the calling thread but outside of the cache's internal locks: the cache only holds a future per key,
+ * and concurrent readers of a missing key wait on that future. A database read inside a locked section would pin
+ * a virtual thread to its carrier for the whole round trip.
+ * <p>
+ * Hit, miss and eviction counters are published to Micrometer under the cache name {@code balances}.
+ */
+@Component
+public class BalanceCache {
+
+    private final AsyncCache<Long, BigDecimal> cache;
+
+    public BalanceCache(BalanceCacheProperties properties, MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.isEnabled() ? properties.getMaximumSize() : 0)
+                .expireAfterWrite(properties.getTtl())
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache.synchronous(), "balances");
+    }
+
+    /**
+     * Returns the cached balance of an account, loading it on a miss.
+     *
+     * @param accountId The ID of the account.
+     * @param loader    Loads the committed balance from the database.
+     * @return The balance.
+     */
+    public BigDecimal get(Long accountId, Function<Long, BigDecimal> loader) {
+        CompletableFuture<BigDecimal> load = new CompletableFuture<>();
+        CompletableFuture<BigDecimal> balance = cache.get(accountId, (id, executor) -> load);
+        if (balance == load) {
+            // This caller registered the miss, so it loads; a failed future is dropped by the cache
+            try {
+                load.complete(loader.apply(accountId));
+            } catch (RuntimeException e) {
+                load.completeExceptionally(e);
+                throw e;
+            }
+        }
+        try {
+            return balance.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    /**
+     * Evicts the balance of an account once the current transaction commits, or right away outside a transaction.
+     *
+     * @param accountId The ID of the account whose balance changed.
+     */
+    public void evictAfterCommit(Long accountId) {
+        evictAfterCommit(List.of(accountId));
+    }
+
+    /**
+     * Evicts the balances of accounts once the current transaction commits, or right away outside a transaction.
+     *
+     * @param accountIds The IDs of the accounts whose balance changed.
+     */
+    public void evictAfterCommit(Collection<Long> accountIds) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            cache.synchronous().invalidateAll(accountIds);
+            return;
+        }
+        List<Long> ids = List.copyOf(accountIds);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cache.synchronous().invalidateAll(ids);
+            }
+        });
+    }
+
+    /**
+     * Drops all cached balances.
+     */
+    public void evictAll() {
+        cache.synchronous().invalidateAll();
+    }
+
+    /**
+     * Returns a snapshot of the hit, miss and eviction counters.
+     *
+     * @return The cache statistics.
+     */
+    public CacheStats stats() {
+        return cache.synchronous().stats();
+    }
+}
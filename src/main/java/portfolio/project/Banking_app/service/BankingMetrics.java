@@ -0,0 +1,267 @@
+package portfolio.project.Banking_app.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.data.repository.core.support.RepositoryMethodInvocationListener;
+import org.springframework.data.repository.core.support.RepositoryMethodInvocationListener.RepositoryMethodInvocationResult;
+import org.springframework.stereotype.Component;
+import portfolio.project.Banking_app.config.BankingMetricsProperties;
+import portfolio.project.Banking_app.exception.InsufficientFundsException;
+import portfolio.project.Banking_app.exception.ResourceNotFoundException;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Latency timers, outcome counts and gauges of the money-moving hot paths, exported through Micrometer.
+ * <ul>
+ *     <li>{@code banking.operation} - latency of each service operation, tagged with {@code operation} and
+ *     {@code outcome}; the count of a timer is the number of operations with that outcome.</li>
+ *     <li>{@code banking.transfer.phase} - time a transfer spends waiting for its row locks ({@code phase=lock_wait})
+ *     and executing once it holds them ({@code phase=execution}), up to its last statement; the rest of its latency
+ *     is spent acquiring a connection, resolving the accounts and committing, which flushes the entity writes.</li>
+ *     <li>{@code banking.repository} - latency of each repository method, tagged with {@code repository},
+ *     {@code method} and {@code state}.</li>
+ *     <li>{@code banking.transfers.active} - transfers currently in progress.</li>
+ *     <li>{@code banking.transfer.batch.queued} - transfers waiting for the next batch.</li>
+ *     <li>{@code banking.engine.queued} - commands waiting in the ledger engine's ring buffer, and
+ *     {@code banking.engine.write_behind.lag} the journal records acknowledged but not yet written to the database.</li>
+ *     <li>{@code banking.outbox.events} - events published by the outbox relay, and {@code banking.outbox.publish}
+ *     the latency of publishing one batch to the sink; {@code banking.outbox.lag} is the age of the oldest event of
+ *     each batch when it was published, and {@code banking.outbox.failures} counts failed relay attempts.</li>
+ * </ul>
+ * All timers publish percentile histograms (see {@code management.metrics.distribution.*}). Timers of services
+ * annotated with {@code @Transactional} stop when the method returns, before the surrounding commit.
+ * <p>
+ * Every service timer is registered up front and looked up by enum ordinal, and latencies are recorded as raw
+ * nanoseconds, so recording a successful operation does not allocate. Repository timers are created on the first
+ * call of each method and then looked up by {@link Method}.
+ */
+@Component
+public class BankingMetrics {
+
+    /**
+     * Instrumented service operations.
+     */
+    public enum Operation {
+        DEPOSIT, WITHDRAW, CHECK_BALANCE, TRANSFER, BATCH_TRANSFER, BULK_TRANSFER, ENGINE_TRANSFER;
+
+        private final String tag = name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Outcomes of a service operation.
+     */
+    public enum Outcome {
+        SUCCESS, INSUFFICIENT_FUNDS, NOT_FOUND, REJECTED, ERROR;
+
+        private final String tag = name().toLowerCase(Locale.ROOT);
+
+        /**
+         * Classifies the exception an operation failed with.
+         *
+         * @param failure The exception.
+         * @return The outcome.
+         */
+        public static Outcome of(Throwable failure) {
+            if (failure instanceof InsufficientFundsException) {
+                return INSUFFICIENT_FUNDS;
+            }
+            if (failure instanceof ResourceNotFoundException) {
+                return NOT_FOUND;
+            }
+            if (failure instanceof IllegalArgumentException) {
+                return REJECTED;
+            }
+            return ERROR;
+        }
+    }
+
+    private final MeterRegistry registry;
+    private final double transferLogSampleRate;
+    private final Timer[][] operationTimers;
+    private final Timer lockWaitTimer;
+    private final Timer executionTimer;
+    private final Counter outboxEvents;
+    private final Timer outboxPublishTimer;
+    private final Timer outboxLagTimer;
+    private final Counter outboxFailures;
+    private final AtomicInteger activeTransfers = new AtomicInteger();
+    private final Map<Method, Timer> repositorySuccessTimers = new ConcurrentHashMap<>();
+    private final Map<Method, Timer> repositoryErrorTimers = new ConcurrentHashMap<>();
+
+    public BankingMetrics(MeterRegistry registry, BankingMetricsProperties properties) {
+        this.registry = registry;
+        this.transferLogSampleRate = properties.getTransferLogSampleRate();
+        this.operationTimers = new Timer[Operation.values().length][Outcome.values().length];
+        for (Operation operation : Operation.values()) {
+            for (Outcome outcome : Outcome.values()) {
+                operationTimers[operation.ordinal()][outcome.ordinal()] = Timer.builder("banking.operation")
+                        .description("Latency of account operations")
+                        .tag("operation", operation.tag)
+                        .tag("outcome", outcome.tag)
+                        .register(registry);
+            }
+        }
+        this.lockWaitTimer = phaseTimer("lock_wait");
+        this.executionTimer = phaseTimer("execution");
+        this.outboxEvents = Counter.builder("banking.outbox.events")
+                .description("Events published by the outbox relay")
+                .register(registry);
+        this.outboxPublishTimer = Timer.builder("banking.outbox.publish")
+                .description("Latency of publishing a batch of outbox events")
+                .register(registry);
+        this.outboxLagTimer = Timer.builder("banking.outbox.lag")
+                .description("Age of the oldest event of a batch when it was published")
+                .register(registry);
+        this.outboxFailures = Counter.builder("banking.outbox.failures")
+                .description("Failed outbox relay attempts")
+                .register(registry);
+        Gauge.builder("banking.transfers.active", activeTransfers, AtomicInteger::get)
+                .description("Transfers currently in progress")
+                .register(registry);
+    }
+
+    private Timer phaseTimer(String phase) {
+        return Timer.builder("banking.transfer.phase")
+                .description("Time transfers spend waiting for row locks and executing")
+                .tag("phase", phase)
+                .register(registry);
+    }
+
+    /**
+     * Records a finished operation.
+     *
+     * @param operation  The operation.
+     * @param outcome    How it ended.
+     * @param startNanos The {@link System#nanoTime()} at which it started.
+     */
+    public void record(Operation operation, Outcome outcome, long startNanos) {
+        operationTimers[operation.ordinal()][outcome.ordinal()].record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Marks the start of a transfer for the active-transfers gauge.
+     */
+    public void transferStarted() {
+        activeTransfers.incrementAndGet();
+    }
+
+    /**
+     * Marks the end of a transfer and records it.
+     *
+     * @param outcome    How it ended.
+     * @param startNanos The {@link System#nanoTime()} at which it started.
+     */
+    public void transferFinished(Outcome outcome, long startNanos) {
+        activeTransfers.decrementAndGet();
+        record(Operation.TRANSFER, outcome, startNanos);
+    }
+
+    /**
+     * Records the time a transfer waited for its row locks.
+     *
+     * @param nanos The wait, in nanoseconds.
+     */
+    public void recordLockWait(long nanos) {
+        lockWaitTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records the time a transfer spent executing after its locks were granted, up to its last statement.
+     *
+     * @param nanos The execution time, in nanoseconds.
+     */
+    public void recordExecution(long nanos) {
+        executionTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Publishes the number of transfers waiting in the batching queue.
+     *
+     * @param queue The queue.
+     */
+    public void monitorBatchQueue(Collection<?> queue) {
+        Gauge.builder("banking.transfer.batch.queued", queue, Collection::size)
+                .description("Transfers waiting for the next batch")
+                .register(registry);
+    }
+
+    /**
+     * Publishes the queue length and write-behind lag of the ledger engine.
+     *
+     * @param queued         Returns the number of commands waiting for the writer.
+     * @param writeBehindLag Returns the number of journal records not yet written to the database.
+     */
+    public void monitorEngine(Supplier<Number> queued, Supplier<Number> writeBehindLag) {
+        Gauge.builder("banking.engine.queued", queued)
+                .description("Commands waiting in the ledger engine's ring buffer")
+                .register(registry);
+        Gauge.builder("banking.engine.write_behind.lag", writeBehindLag)
+                .description("Journal records acknowledged but not yet written to the database")
+                .register(registry);
+    }
+
+    /**
+     * Records a batch of outbox events published to the sink.
+     *
+     * @param events       The number of events.
+     * @param publishNanos The time the sink took, in nanoseconds.
+     * @param lag          The age of the oldest event of the batch.
+     */
+    public void recordOutboxBatch(int events, long publishNanos, Duration lag) {
+        outboxEvents.increment(events);
+        outboxPublishTimer.record(publishNanos, TimeUnit.NANOSECONDS);
+        outboxLagTimer.record(lag);
+    }
+
+    /**
+     * Counts a relay attempt that failed, in the sink or in the database.
+     */
+    public void recordOutboxFailure() {
+        outboxFailures.increment();
+    }
+
+    /**
+     * Decides whether a successful transfer is logged, according to {@code banking.metrics.transfer-log-sample-rate}.
+     *
+     * @return True if this transfer should be logged.
+     */
+    public boolean sampleTransferLog() {
+        return transferLogSampleRate >= 1.0
+                || (transferLogSampleRate > 0 && ThreadLocalRandom.current().nextDouble() < transferLogSampleRate);
+    }
+
+    /**
+     * Returns a listener that records the latency of every repository method invocation.
+     *
+     * @return The listener.
+     */
+    public RepositoryMethodInvocationListener repositoryListener() {
+        return invocation -> {
+            boolean success = invocation.getResult() != null
+                    && invocation.getResult().getState() == RepositoryMethodInvocationResult.State.SUCCESS;
+            Map<Method, Timer> timers = success ? repositorySuccessTimers : repositoryErrorTimers;
+            Timer timer = timers.get(invocation.getMethod());
+            if (timer == null) {
+                timer = timers.computeIfAbsent(invocation.getMethod(), method -> Timer.builder("banking.repository")
+                        .description("Latency of repository calls")
+                        .tag("repository", invocation.getRepositoryInterface().getSimpleName())
+                        .tag("method", method.getName())
+                        .tag("state", success ? "success" : "error")
+                        .register(registry));
+            }
+            timer.record(invocation.getDuration(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+        };
+    }
+}
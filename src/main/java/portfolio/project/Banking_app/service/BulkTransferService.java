@@ -0,0 +1,401 @@
+package portfolio.project.Banking_app.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import portfolio.project.Banking_app.config.TransferProperties;
+import portfolio.project.Banking_app.dto.BulkTransferResult;
+import portfolio.project.Banking_app.engine.LedgerEngine;
+import portfolio.project.Banking_app.exception.InsufficientFundsException;
+import portfolio.project.Banking_app.exception.ResourceNotFoundException;
+import portfolio.project.Banking_app.exception.TransactionOperationException;
+import portfolio.project.Banking_app.repository.TransferJdbcRepository;
+import portfolio.project.Banking_app.repository.TransferJdbcRepository.LockedAccount;
+import portfolio.project.Banking_app.repository.TransferJdbcRepository.TransferRow;
+import portfolio.project.Banking_app.service.BankingMetrics.Operation;
+import portfolio.project.Banking_app.service.BankingMetrics.Outcome;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Service class for bulk transfer uploads, such as payroll files of tens of thousands of transfers.
+ * <p>
+ * The upload is read as a stream and processed in chunks of {@code banking.transfer.bulk.chunk-size} rows, so heap
+ * usage does not grow with the file. For each chunk:
+ * <ol>
+ *     <li>the rows are parsed and validated in parallel on a dedicated pool;</li>
+ *     <li>in one transaction, the referenced account numbers are resolved to ids with a few
+ *     {@code WHERE account_number IN (...)} lookups, and the accounts are row-locked with
+ *     {@code WHERE id IN (...) ... FOR UPDATE} lookups in ascending id order, the lock order of every other
+ *     transfer path;</li>
+ *     <li>the transfers are applied in file order against the locked balances, so each row is checked against the
+ *     funds left by the rows before it, and a failing row is rejected on its own;</li>
+ *     <li>the net change of every account is written with one ordered JDBC batch, along with the transaction rows
+ *     and outbox events;</li>
+ *     <li>after commit, the result of each row is written to the response and flushed.</li>
+ * </ol>
+ * A chunk hitting a lock conflict is retried as a whole. Account numbers are not resolved through the
+ * {@link AccountNumberResolver}: a payroll file mostly references accounts that are not cached, and the chunked
+ * lookups cost fewer round trips than filling the cache one number at a time.
+ * <p>
+ * The latency of each row, from the start of its chunk until commit, is recorded in {@link BankingMetrics} as
+ * operation {@code bulk_transfer}.
+ */
+@Slf4j
+@Service
+public class BulkTransferService {
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final TransferJdbcRepository transferJdbcRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TransferProperties transferProperties;
+    private final BalanceCache balanceCache;
+    private final BankingMetrics metrics;
+    private final StripedBalanceService stripedBalances;
+    private final OutboxService outbox;
+    private final LedgerEngine ledgerEngine;
+    private final ObjectReader rowReader;
+    private final ForkJoinPool validationPool;
+
+    /**
+     * Formats of a bulk transfer upload.
+     */
+    public enum Format {
+        /**
+         * One JSON object per line with {@code senderAccountNumber}, {@code receiverAccountNumber} and {@code amount}.
+         */
+        NDJSON("application/x-ndjson"),
+        /**
+         * Comma separated sender account number, receiver account number and amount, with an optional header line.
+         */
+        CSV("text/csv");
+
+        private final String mediaType;
+
+        Format(String mediaType) {
+            this.mediaType = mediaType;
+        }
+
+        public String getMediaType() {
+            return mediaType;
+        }
+    }
+
+    public BulkTransferService(TransferJdbcRepository transferJdbcRepository,
+                               TransactionTemplate transactionTemplate,
+                               TransferProperties transferProperties,
+                               BalanceCache balanceCache,
+                               BankingMetrics metrics,
+                               StripedBalanceService stripedBalances,
+                               OutboxService outbox,
+                               LedgerEngine ledgerEngine,
+                               ObjectMapper objectMapper) {
+        this.transferJdbcRepository = transferJdbcRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.transferProperties = transferProperties;
+        this.balanceCache = balanceCache;
+        this.metrics = metrics;
+        this.stripedBalances = stripedBalances;
+        this.outbox = outbox;
+        this.ledgerEngine = ledgerEngine;
+        this.rowReader = objectMapper.readerFor(RowInput.class);
+        int parallelism = transferProperties.getBulk().getParallelism();
+        this.validationPool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Stops the validation threads.
+     */
+    @PreDestroy
+    void shutdown() {
+        validationPool.shutdown();
+    }
+
+    /**
+     * Applies the transfers of an upload and writes one result line per row, as NDJSON:
+     * {@code {"row":2,"status":"SUCCESS"}}, or a status of {@code REJECTED}, {@code NOT_FOUND},
+     * {@code INSUFFICIENT_FUNDS} or {@code ERROR} together with an {@code error} message. The row is the line number
+     * in the upload; blank lines and a CSV header line get no result.
+     *
+     * @param in     The upload.
+     * @param format The format of the upload.
+     * @param out    The stream to write the results to. It is flushed after every chunk but not closed.
+     * @return The row counts of the upload.
+     * @throws IOException                   If reading the upload or writing the results fails.
+     * @throws TransactionOperationException If the {@link LedgerEngine} is enabled; nothing is read then.
+     */
+    public BulkTransferResult process(InputStream in, Format format, OutputStream out) throws IOException {
+        ledgerEngine.requireDatabaseWrites("Bulk transfers");
+        long start = System.nanoTime();
+        int chunkSize = transferProperties.getBulk().getChunkSize();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), READ_BUFFER_SIZE);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+        JsonGenerator generator = JSON_FACTORY.createGenerator(writer);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        // Lines are separated by the newline written after each result, not by Jackson's default space
+        generator.setRootValueSeparator(null);
+
+        List<BulkRow> chunk = new ArrayList<>(chunkSize);
+        long rows = 0;
+        long succeeded = 0;
+        long lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank() || (format == Format.CSV && lineNumber == 1 && isCsvHeader(line))) {
+                continue;
+            }
+            chunk.add(new BulkRow(lineNumber, line));
+            if (chunk.size() == chunkSize) {
+                succeeded += processChunk(chunk, format, generator);
+                rows += chunk.size();
+                chunk.clear();
+                generator.flush();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            succeeded += processChunk(chunk, format, generator);
+            rows += chunk.size();
+        }
+        generator.flush();
+
+        BulkTransferResult result = new BulkTransferResult(rows, succeeded, Duration.ofNanos(System.nanoTime() - start));
+        log.info("Bulk transfer of {} rows applied {} transfers in {} ms", rows, succeeded, result.getElapsed().toMillis());
+        return result;
+    }
+
+    /**
+     * Validates, applies and reports one chunk of rows.
+     *
+     * @return The number of applied transfers.
+     */
+    private int processChunk(List<BulkRow> chunk, Format format, JsonGenerator generator) throws IOException {
+        long start = System.nanoTime();
+        validationPool.submit(() -> chunk.parallelStream().forEach(row -> parse(row, format))).join();
+        try {
+            applyWithRetry(chunk);
+        } catch (RuntimeException e) {
+            log.error("Bulk transfer chunk of {} rows failed", chunk.size(), e);
+            TransactionOperationException failure = new TransactionOperationException("Bulk transfer chunk failed.", e);
+            for (BulkRow row : chunk) {
+                if (row.valid) {
+                    row.failure = failure;
+                }
+            }
+        }
+        int succeeded = 0;
+        for (BulkRow row : chunk) {
+            Outcome outcome = row.failure == null ? Outcome.SUCCESS : Outcome.of(row.failure);
+            metrics.record(Operation.BULK_TRANSFER, outcome, start);
+            generator.writeStartObject();
+            generator.writeNumberField("row", row.lineNumber);
+            generator.writeStringField("status", outcome.name());
+            if (row.failure != null) {
+                generator.writeStringField("error", row.failure.getMessage());
+            } else {
+                succeeded++;
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+        generator.flush();
+        return succeeded;
+    }
+
+    /**
+     * Applies one chunk in a single transaction, retrying the whole chunk on lock conflicts.
+     */
+    private void applyWithRetry(List<BulkRow> chunk) {
+        int maxAttempts = transferProperties.getRetry().getMaxAttempts();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> applyChunk(chunk));
+                return;
+            } catch (ConcurrencyFailureException e) {
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+                log.debug("Bulk transfer chunk of {} rows hit a lock conflict, retrying (attempt {})", chunk.size(), attempt, e);
+            }
+        }
+    }
+
+    private void applyChunk(List<BulkRow> chunk) {
+        int lookupSize = transferProperties.getBulk().getLookupSize();
+        Set<String> accountNumbers = new HashSet<>();
+        for (BulkRow row : chunk) {
+            if (row.valid) {
+                accountNumbers.add(row.senderAccountNumber);
+                accountNumbers.add(row.receiverAccountNumber);
+            }
+        }
+        Map<String, Long> ids = new HashMap<>();
+        for (List<String> part : partition(new ArrayList<>(accountNumbers), lookupSize)) {
+            ids.putAll(transferJdbcRepository.findIdsByAccountNumbers(part));
+        }
+        // Lock in ascending id order across all lookups, like every other transfer path
+        Map<Long, LockedAccount> accounts = new HashMap<>();
+        for (List<Long> part : partition(ids.values().stream().sorted().toList(), lookupSize)) {
+            for (LockedAccount account : transferJdbcRepository.lockByIds(part)) {
+                accounts.put(account.getId(), account);
+            }
+        }
+        Map<Long, BigDecimal> stripes = stripedBalances.stripeTotals(accounts.keySet());
+
+        LocalDateTime timestamp = LocalDateTime.now();
+        Map<Long, LockedAccount> changed = new HashMap<>();
+        List<TransferRow> transfers = new ArrayList<>(chunk.size());
+        for (BulkRow row : chunk) {
+            if (!row.valid) {
+                continue;
+            }
+            // Reset outcome, the chunk may be applied again after a lock conflict
+            row.failure = null;
+            LockedAccount sender = accounts.get(ids.get(row.senderAccountNumber));
+            LockedAccount receiver = accounts.get(ids.get(row.receiverAccountNumber));
+            if (sender == null || receiver == null) {
+                row.failure = new ResourceNotFoundException("Account not found with number: "
+                        + (sender == null ? row.senderAccountNumber : row.receiverAccountNumber));
+                continue;
+            }
+            BigDecimal available = sender.getBalance().add(stripes.getOrDefault(sender.getId(), BigDecimal.ZERO));
+            if (available.compareTo(row.amount) < 0) {
+                row.failure = new InsufficientFundsException("Sender doesn't have sufficient balance.");
+                continue;
+            }
+            sender.setBalance(sender.getBalance().subtract(row.amount));
+            receiver.setBalance(receiver.getBalance().add(row.amount));
+            changed.put(sender.getId(), sender);
+            changed.put(receiver.getId(), receiver);
+            transfers.add(new TransferRow(sender.getId(), receiver.getId(), row.amount, timestamp));
+        }
+
+        if (!transfers.isEmpty()) {
+            // One update per account with its net change, however many rows touched it
+            transferJdbcRepository.updateBalances(changed.values());
+            transferJdbcRepository.insertTransactions(transfers);
+            outbox.recordTransfers(transfers);
+            balanceCache.evictAfterCommit(changed.keySet());
+        }
+    }
+
+    /**
+     * Parses and validates a row; runs on the validation pool, one row per task.
+     */
+    private void parse(BulkRow row, Format format) {
+        try {
+            if (format == Format.CSV) {
+                String[] fields = row.line.split(",", -1);
+                if (fields.length != 3) {
+                    throw new IllegalArgumentException("Expected 3 fields but found " + fields.length);
+                }
+                row.senderAccountNumber = unquote(fields[0]);
+                row.receiverAccountNumber = unquote(fields[1]);
+                row.amount = new BigDecimal(unquote(fields[2]));
+            } else {
+                RowInput input = rowReader.readValue(row.line);
+                if (input == null) {
+                    throw new IllegalArgumentException("Expected a JSON object.");
+                }
+                row.senderAccountNumber = input.senderAccountNumber();
+                row.receiverAccountNumber = input.receiverAccountNumber();
+                row.amount = input.amount();
+            }
+            if (row.senderAccountNumber == null || row.senderAccountNumber.isBlank()
+                    || row.receiverAccountNumber == null || row.receiverAccountNumber.isBlank()) {
+                throw new IllegalArgumentException("Sender and receiver account numbers are required.");
+            }
+            if (row.amount == null || row.amount.signum() <= 0) {
+                throw new IllegalArgumentException("Transfer amount must be positive.");
+            }
+            if (row.senderAccountNumber.equals(row.receiverAccountNumber)) {
+                throw new IllegalArgumentException("Sender and receiver accounts must be different.");
+            }
+            row.valid = true;
+        } catch (IllegalArgumentException e) {
+            row.failure = e;
+        } catch (JsonProcessingException e) {
+            row.failure = new IllegalArgumentException("Malformed row: " + e.getOriginalMessage(), e);
+        }
+    }
+
+    /**
+     * A first CSV line whose last field is not an amount is taken for the header.
+     */
+    private static boolean isCsvHeader(String line) {
+        try {
+            new BigDecimal(unquote(line.substring(line.lastIndexOf(',') + 1)));
+            return false;
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    private static String unquote(String field) {
+        String trimmed = field.trim();
+        if (trimmed.length() >= 2 && trimmed.startsWith("\"") && trimmed.endsWith("\"")) {
+            return trimmed.substring(1, trimmed.length() - 1).replace("\"\"", "\"");
+        }
+        return trimmed;
+    }
+
+    private static <T> List<List<T>> partition(List<T> values, int size) {
+        List<List<T>> parts = new ArrayList<>((values.size() + size - 1) / size);
+        for (int from = 0; from < values.size(); from += size) {
+            parts.add(values.subList(from, Math.min(values.size(), from + size)));
+        }
+        return parts;
+    }
+
+    /**
+     * A row of an NDJSON upload.
+     */
+    record RowInput(String senderAccountNumber, String receiverAccountNumber, BigDecimal amount) {
+    }
+
+    /**
+     * A row of the upload together with its parsed fields and outcome.
+     */
+    private static final class BulkRow {
+        private final long lineNumber;
+        private final String line;
+        private String senderAccountNumber;
+        private String receiverAccountNumber;
+        private BigDecimal amount;
+        private boolean valid;
+        private RuntimeException failure;
+
+        private BulkRow(long lineNumber, String line) {
+            this.lineNumber = lineNumber;
+            this.line = line;
+        }
+    }
+}
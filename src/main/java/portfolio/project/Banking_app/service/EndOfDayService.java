@@ -0,0 +1,215 @@
+package portfolio.project.Banking_app.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import portfolio.project.Banking_app.config.EndOfDayProperties;
+import portfolio.project.Banking_app.dto.EndOfDayResult;
+import portfolio.project.Banking_app.engine.LedgerEngine;
+import portfolio.project.Banking_app.entity.EndOfDayPartition.Status;
+import portfolio.project.Banking_app.exception.TransactionOperationException;
+import portfolio.project.Banking_app.repository.EndOfDayJdbcRepository;
+import portfolio.project.Banking_app.repository.EndOfDayJdbcRepository.AccountBalance;
+import portfolio.project.Banking_app.repository.EndOfDayJdbcRepository.Checkpoint;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * End-of-day run accruing daily interest and charging maintenance fees on every account.
+ * <p>
+ * A run splits the account id range into {@code banking.eod.partitions} partitions and processes them on
+ * {@code banking.eod.threads} worker threads. Each partition is walked in chunks of {@code banking.eod.chunk-size}
+ * accounts: one transaction locks the partition's checkpoint and the next accounts in id order, writes their new
+ * balances with a JDBC batch and moves the checkpoint past them. A crashed run therefore resumes
+ * each partition after its last committed chunk, and running a day again never books it twice.
+ * <p>
+ * Interest and fees are computed on the full balance, including the stripes of striped accounts, and booked on the
+ * balance column.
+ */
+@Slf4j
+@Service
+public class EndOfDayService {
+
+    private static final BigDecimal DAYS_PER_YEAR = BigDecimal.valueOf(365);
+    private static final int MAX_CHUNK_ATTEMPTS = 3;
+
+    private final EndOfDayJdbcRepository endOfDayRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final EndOfDayProperties properties;
+    private final StripedBalanceService stripedBalances;
+    private final BalanceCache balanceCache;
+    private final LedgerEngine ledgerEngine;
+
+    public EndOfDayService(EndOfDayJdbcRepository endOfDayRepository,
+                           TransactionTemplate transactionTemplate,
+                           EndOfDayProperties properties,
+                           StripedBalanceService stripedBalances,
+                           BalanceCache balanceCache,
+                           LedgerEngine ledgerEngine) {
+        this.endOfDayRepository = endOfDayRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+        this.stripedBalances = stripedBalances;
+        this.balanceCache = balanceCache;
+        this.ledgerEngine = ledgerEngine;
+    }
+
+    /**
+     * Finishes the runs of earlier days that did not complete, oldest first.
+     *
+     * @param businessDate The business day about to be run.
+     * @return The results of the resumed runs.
+     */
+    public List<EndOfDayResult> resumeUnfinished(LocalDate businessDate) {
+        List<EndOfDayResult> results = new ArrayList<>();
+        for (LocalDate unfinished : endOfDayRepository.findUnfinishedDates(businessDate)) {
+            log.info("Resuming unfinished end-of-day run of {}", unfinished);
+            results.add(run(unfinished));
+        }
+        return results;
+    }
+
+    /**
+     * Runs, or resumes, the end-of-day processing of a business day.
+     *
+     * @param businessDate The business day to close.
+     * @return The number of accounts processed by this call and the throughput.
+     * @throws TransactionOperationException If a partition fails; its checkpoint is kept for the next call. Also if
+     *                                       the {@link LedgerEngine} is enabled, before anything is written.
+     */
+    public EndOfDayResult run(LocalDate businessDate) {
+        ledgerEngine.requireDatabaseWrites("End-of-day runs");
+        long start = System.nanoTime();
+        transactionTemplate.executeWithoutResult(status ->
+                endOfDayRepository.createPartitions(businessDate, properties.getPartitions()));
+        List<Integer> partitions = endOfDayRepository.findUnfinishedPartitions(businessDate);
+
+        long processed = 0;
+        if (!partitions.isEmpty()) {
+            ExecutorService workers = Executors.newFixedThreadPool(Math.min(properties.getThreads(), partitions.size()),
+                    new CustomizableThreadFactory("eod-"));
+            try {
+                List<Future<Long>> futures = new ArrayList<>(partitions.size());
+                for (Integer partitionNo : partitions) {
+                    futures.add(workers.submit(() -> processPartition(businessDate, partitionNo)));
+                }
+                for (Future<Long> future : futures) {
+                    processed += future.get();
+                }
+            } catch (ExecutionException e) {
+                workers.shutdownNow();
+                throw new TransactionOperationException("End-of-day run of " + businessDate + " failed.", e.getCause());
+            } catch (InterruptedException e) {
+                workers.shutdownNow();
+                Thread.currentThread().interrupt();
+                throw new TransactionOperationException("End-of-day run of " + businessDate + " interrupted.", e);
+            } finally {
+                workers.shutdown();
+            }
+        }
+
+        EndOfDayResult result = new EndOfDayResult(businessDate, processed, Duration.ofNanos(System.nanoTime() - start));
+        log.info("End-of-day run of {}: {} accounts in {} ms ({} accounts/sec, {} partitions on {} threads)",
+                businessDate, processed, result.getElapsed().toMillis(), Math.round(result.getAccountsPerSecond()),
+                partitions.size(), properties.getThreads());
+        return result;
+    }
+
+    /**
+     * Processes one partition chunk by chunk until it is done.
+     */
+    private long processPartition(LocalDate businessDate, int partitionNo) {
+        long processed = 0;
+        while (true) {
+            ChunkResult chunk = processChunkWithRetry(businessDate, partitionNo);
+            processed += chunk.processed();
+            if (chunk.done()) {
+                return processed;
+            }
+        }
+    }
+
+    private ChunkResult processChunkWithRetry(LocalDate businessDate, int partitionNo) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> processChunk(businessDate, partitionNo));
+            } catch (ConcurrencyFailureException e) {
+                if (attempt >= MAX_CHUNK_ATTEMPTS) {
+                    throw e;
+                }
+                log.debug("End-of-day chunk of partition {} hit a lock conflict, retrying (attempt {})", partitionNo, attempt, e);
+            }
+        }
+    }
+
+    /**
+     * Books interest and fees for the next chunk of a partition and moves its checkpoint, in one transaction.
+     */
+    private ChunkResult processChunk(LocalDate businessDate, int partitionNo) {
+        Checkpoint checkpoint = endOfDayRepository.lockPartition(businessDate, partitionNo).orElse(null);
+        if (checkpoint == null || checkpoint.status() == Status.DONE) {
+            return new ChunkResult(0, true);
+        }
+        List<AccountBalance> accounts = endOfDayRepository.lockChunk(checkpoint.lastId(), checkpoint.toId(), properties.getChunkSize());
+        if (accounts.isEmpty()) {
+            endOfDayRepository.checkpoint(businessDate, partitionNo, checkpoint.toId(), 0, Status.DONE);
+            return new ChunkResult(0, true);
+        }
+
+        // Stripes are read after the account rows are locked, so no fold can move them in between
+        Map<Long, BigDecimal> stripes = stripedBalances.stripeTotals(accounts.stream().map(AccountBalance::id).toList());
+        Map<Long, BigDecimal> changes = new HashMap<>();
+        for (AccountBalance account : accounts) {
+            BigDecimal balance = account.balance().add(stripes.getOrDefault(account.id(), BigDecimal.ZERO));
+            BigDecimal accrued = interestOn(balance);
+            BigDecimal fee = feeOn(balance.add(accrued));
+            BigDecimal change = accrued.subtract(fee);
+            if (change.signum() != 0) {
+                changes.put(account.id(), change);
+            }
+        }
+
+        if (!changes.isEmpty()) {
+            endOfDayRepository.addToBalances(changes);
+            balanceCache.evictAfterCommit(changes.keySet());
+        }
+        boolean done = accounts.size() < properties.getChunkSize();
+        long lastId = done ? checkpoint.toId() : accounts.get(accounts.size() - 1).id();
+        endOfDayRepository.checkpoint(businessDate, partitionNo, lastId, accounts.size(), done ? Status.DONE : Status.RUNNING);
+        return new ChunkResult(accounts.size(), done);
+    }
+
+    private BigDecimal interestOn(BigDecimal balance) {
+        if (balance.signum() <= 0) {
+            return BigDecimal.ZERO;
+        }
+        return balance.multiply(properties.getAnnualInterestRate()).divide(DAYS_PER_YEAR, 2, RoundingMode.HALF_EVEN);
+    }
+
+    private BigDecimal feeOn(BigDecimal balance) {
+        BigDecimal fee = properties.getDailyFee();
+        if (fee.signum() <= 0 || balance.compareTo(properties.getFeeWaiverBalance()) >= 0 || balance.compareTo(fee) < 0) {
+            return BigDecimal.ZERO;
+        }
+        return fee;
+    }
+
+    /**
+     * The number of accounts a chunk processed and whether its partition is done.
+     */
+    private record ChunkResult(int processed, boolean done) {
+    }
+}
@@ -0,0 +1,188 @@
+package portfolio.project.Banking_app.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import portfolio.project.Banking_app.config.IdempotencyProperties;
+import portfolio.project.Banking_app.dto.IdempotentResponse;
+import portfolio.project.Banking_app.exception.IdempotencyKeyReusedException;
+import portfolio.project.Banking_app.exception.TransactionOperationException;
+import portfolio.project.Banking_app.repository.IdempotencyJdbcRepository;
+import portfolio.project.Banking_app.repository.IdempotencyJdbcRepository.StoredKey;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Runs requests carrying an {@code Idempotency-Key} at most once and answers duplicates with the stored response.
+ * <p>
+ * Keys are looked up in three places, cheapest first:
+ * <ol>
+ *     <li>a bounded in-memory cache of completed keys ({@code banking.idempotency.maximum-size} and
+ *     {@code cache-ttl}), so a duplicate usually costs one map lookup;</li>
+ *     <li>the requests currently running on this instance: a duplicate waits for the first one instead of racing
+ *     it;</li>
+ *     <li>the {@code idempotency_keys} table, whose row is inserted in the same transaction as the request's
+ *     balance change. A duplicate on another instance blocks on the unique key until that transaction ends.</li>
+ * </ol>
+ * A request that fails stores nothing, since its transaction rolled back; its duplicates run again.
+ * A key sent again with a different operation or arguments is rejected.
+ */
+@Slf4j
+@Service
+public class IdempotencyService {
+
+    /**
+     * Maximum length of a key.
+     */
+    public static final int MAX_KEY_LENGTH = 128;
+
+    private final IdempotencyJdbcRepository idempotencyRepository;
+    private final IdempotencyProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private final Cache<String, Completed> completed;
+    private final ConcurrentMap<String, CompletableFuture<Completed>> inFlight = new ConcurrentHashMap<>();
+
+    public IdempotencyService(IdempotencyJdbcRepository idempotencyRepository,
+                              IdempotencyProperties properties,
+                              PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry) {
+        this.idempotencyRepository = idempotencyRepository;
+        this.properties = properties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.completed = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getCacheTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, completed, "idempotency-keys");
+    }
+
+    /**
+     * Returns the stored response of a key if it is in memory, without touching the database.
+     *
+     * @param key         The idempotency key.
+     * @param fingerprint The operation and arguments of the request.
+     * @return The replayed response, or empty if the key is not known in memory.
+     * @throws IdempotencyKeyReusedException If the key was used for a different request.
+     */
+    public Optional<IdempotentResponse> findCompleted(String key, String fingerprint) {
+        requireValidKey(key);
+        Completed done = completed.getIfPresent(key);
+        return done == null ? Optional.empty() : Optional.of(done.replayFor(fingerprint));
+    }
+
+    /**
+     * Runs a request once per key. The action runs in a new transaction together with the key's insert, so it must
+     * not be called inside a transaction.
+     *
+     * @param key         The idempotency key.
+     * @param fingerprint The operation and arguments of the request.
+     * @param action      The request, returning its response.
+     * @return The response of the action, or the stored response of the first request with this key.
+     * @throws IdempotencyKeyReusedException If the key was used for a different request.
+     * @throws TransactionOperationException If a request with the same key is still running after the wait timeout.
+     */
+    public IdempotentResponse execute(String key, String fingerprint, Supplier<IdempotentResponse> action) {
+        requireValidKey(key);
+        while (true) {
+            Completed done = completed.getIfPresent(key);
+            if (done != null) {
+                return done.replayFor(fingerprint);
+            }
+            CompletableFuture<Completed> mine = new CompletableFuture<>();
+            CompletableFuture<Completed> running = inFlight.putIfAbsent(key, mine);
+            if (running != null) {
+                Optional<Completed> first = await(running);
+                if (first.isPresent()) {
+                    return first.get().replayFor(fingerprint);
+                }
+                // The first request failed and left nothing behind, so this one runs
+                continue;
+            }
+            try {
+                Completed result = transactionTemplate.execute(status -> runOnce(key, fingerprint, action));
+                completed.put(key, result);
+                mine.complete(result);
+                return result.fresh ? result.response : result.replayFor(fingerprint);
+            } catch (RuntimeException e) {
+                mine.completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlight.remove(key, mine);
+            }
+        }
+    }
+
+    /**
+     * Deletes keys older than {@code banking.idempotency.retention}.
+     *
+     * @return The number of deleted keys.
+     */
+    public int purgeExpired() {
+        Integer deleted = transactionTemplate.execute(status ->
+                idempotencyRepository.deleteCreatedBefore(LocalDateTime.now().minus(properties.getRetention())));
+        log.debug("Purged {} expired idempotency keys", deleted);
+        return deleted == null ? 0 : deleted;
+    }
+
+    private Completed runOnce(String key, String fingerprint, Supplier<IdempotentResponse> action) {
+        if (!idempotencyRepository.claim(key, fingerprint, LocalDateTime.now().minus(properties.getRetention()))) {
+            StoredKey stored = idempotencyRepository.find(key)
+                    .orElseThrow(() -> new TransactionOperationException("Idempotency key " + key + " vanished."));
+            return new Completed(stored.fingerprint(), new IdempotentResponse(stored.status(), stored.body(), false), false);
+        }
+        IdempotentResponse response = action.get();
+        idempotencyRepository.complete(key, response.status(), response.body());
+        return new Completed(fingerprint, response, true);
+    }
+
+    /**
+     * Waits for the request holding a key.
+     *
+     * @return Its result, or empty if it failed.
+     */
+    private Optional<Completed> await(CompletableFuture<Completed> running) {
+        try {
+            return Optional.of(running.get(properties.getWaitTimeout().toMillis(), TimeUnit.MILLISECONDS));
+        } catch (ExecutionException e) {
+            return Optional.empty();
+        } catch (TimeoutException e) {
+            throw new TransactionOperationException("A request with the same idempotency key is still running.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TransactionOperationException("Interrupted while waiting for a request with the same idempotency key.", e);
+        }
+    }
+
+    private static void requireValidKey(String key) {
+        if (key == null || key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency key must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+    }
+
+    /**
+     * A completed key: the fingerprint of its first request and the response to replay.
+     */
+    private record Completed(String fingerprint, IdempotentResponse response, boolean fresh) {
+
+        IdempotentResponse replayFor(String requestFingerprint) {
+            if (!fingerprint.equals(requestFingerprint)) {
+                throw new IdempotencyKeyReusedException("Idempotency key was already used for a different request.");
+            }
+            return response.replay();
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package portfolio.project.Banking_app.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import portfolio.project.Banking_app.config.OutboxProperties;
+import portfolio.project.Banking_app.outbox.OutboxMessage;
+import portfolio.project.Banking_app.outbox.OutboxSink;
+import portfolio.project.Banking_app.repository.OutboxJdbcRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drains the transaction event outbox into the {@link OutboxSink}.
+ * <p>
+ * Accounts are split into {@code banking.outbox.relay.partitions} partitions by id, each drained by its own thread.
+ * A relay transaction takes the advisory lock of its partition, so only one relay thread across all instances
+ * works on a partition at a time and the events of an account are published in id order. It then locks up to
+ * {@code banking.outbox.relay.batch-size} events with {@code FOR UPDATE SKIP LOCKED}, publishes them and deletes
+ * them in bulk before committing. Should instances disagree on the partition count during a rolling change, the
+ * advisory locks no longer exclude each other; {@code SKIP LOCKED} still keeps them from waiting on or publishing
+ * each other's rows.
+ * <p>
+ * Delivery is at least once: a batch published just before its transaction failed is published again.
+ * When the sink fails, the thread retries the same batch after an exponential backoff up to
+ * {@code banking.outbox.relay.max-backoff}; events then wait in the table, and writers are never held up.
+ * Throughput, publish latency and delivery lag are recorded in {@link BankingMetrics}.
+ */
+@Slf4j
+@Service
+public class OutboxRelay {
+
+    private final OutboxJdbcRepository outboxRepository;
+    private final OutboxSink sink;
+    private final TransactionTemplate transactionTemplate;
+    private final OutboxProperties properties;
+    private final BankingMetrics metrics;
+    private final List<Thread> workers = new ArrayList<>();
+
+    private volatile boolean running;
+
+    public OutboxRelay(OutboxJdbcRepository outboxRepository,
+                       OutboxSink sink,
+                       TransactionTemplate transactionTemplate,
+                       OutboxProperties properties,
+                       BankingMetrics metrics) {
+        this.outboxRepository = outboxRepository;
+        this.sink = sink;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Starts one relay thread per partition if the relay is enabled.
+     */
+    @PostConstruct
+    void start() {
+        OutboxProperties.Relay relay = properties.getRelay();
+        if (!relay.isEnabled()) {
+            return;
+        }
+        running = true;
+        for (int partition = 0; partition < relay.getPartitions(); partition++) {
+            int current = partition;
+            Thread worker = new Thread(() -> relayLoop(current), "outbox-relay-" + partition);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    /**
+     * Stops the relay threads. Events not yet published stay in the outbox.
+     */
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+        for (Thread worker : workers) {
+            worker.join(TimeUnit.SECONDS.toMillis(30));
+        }
+        workers.clear();
+    }
+
+    /**
+     * Publishes and deletes one batch of a partition in a single transaction.
+     *
+     * @param partition The partition number.
+     * @return The number of published events; zero if the partition is empty or held by another relay.
+     */
+    public int relayBatch(int partition) {
+        OutboxProperties.Relay relay = properties.getRelay();
+        Integer published = transactionTemplate.execute(status -> {
+            if (!outboxRepository.tryLockPartition(partition)) {
+                return 0;
+            }
+            List<OutboxMessage> batch = outboxRepository.lockBatch(partition, relay.getPartitions(), relay.getBatchSize());
+            if (batch.isEmpty()) {
+                return 0;
+            }
+            long start = System.nanoTime();
+            sink.publish(batch);
+            metrics.recordOutboxBatch(batch.size(), System.nanoTime() - start,
+                    Duration.between(batch.get(0).createdAt(), LocalDateTime.now()));
+            outboxRepository.delete(batch.stream().map(OutboxMessage::id).toList());
+            return batch.size();
+        });
+        return published == null ? 0 : published;
+    }
+
+    private void relayLoop(int partition) {
+        OutboxProperties.Relay relay = properties.getRelay();
+        int failures = 0;
+        while (running) {
+            try {
+                int published = relayBatch(partition);
+                if (failures > 0) {
+                    log.info("Outbox relay of partition {} recovered after {} failed attempts", partition, failures);
+                    failures = 0;
+                }
+                if (published < relay.getBatchSize()) {
+                    Thread.sleep(relay.getPollInterval().toMillis());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                metrics.recordOutboxFailure();
+                failures++;
+                if (failures == 1) {
+                    log.warn("Outbox relay of partition {} failed, backing off", partition, e);
+                } else {
+                    log.debug("Outbox relay of partition {} failed again (attempt {})", partition, failures, e);
+                }
+                try {
+                    Thread.sleep(backoffMillis(failures, relay));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * The backoff after the given number of consecutive failures: the poll interval, doubled per further failure.
+     */
+    private static long backoffMillis(int failures, OutboxProperties.Relay relay) {
+        return Math.min(relay.getMaxBackoff().toMillis(),
+                Math.max(1, relay.getPollInterval().toMillis()) << Math.min(failures - 1, 20));
+    }
+}
@@ -0,0 +1,138 @@
+package portfolio.project.Banking_app.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import portfolio.project.Banking_app.entity.OutboxEvent.Type;
+import portfolio.project.Banking_app.repository.OutboxJdbcRepository;
+import portfolio.project.Banking_app.repository.OutboxJdbcRepository.EventRow;
+import portfolio.project.Banking_app.repository.TransferJdbcRepository.TransferRow;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Service class writing balance change events to the transactional outbox.
+ * <p>
+ * Events are inserted with JDBC batches in the transaction of the change they describe, so they are committed or
+ * rolled back with it, and the {@link OutboxRelay} publishes them afterwards, off the request path. Every change
+ * yields one event per affected account: a transfer is a {@code TRANSFER_OUT} event of the sender and a
+ * {@code TRANSFER_IN} event of the receiver.
+ */
+@Service
+@AllArgsConstructor
+public class OutboxService {
+
+    private final OutboxJdbcRepository outboxRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Writes the event of a deposit.
+     *
+     * @param accountId The ID of the account.
+     * @param amount    The deposited amount.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordDeposit(long accountId, BigDecimal amount) {
+        outboxRepository.append(List.of(event(Type.DEPOSIT, accountId, null, amount, LocalDateTime.now())));
+    }
+
+    /**
+     * Writes the event of a withdrawal.
+     *
+     * @param accountId The ID of the account.
+     * @param amount    The withdrawn amount.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordWithdrawal(long accountId, BigDecimal amount) {
+        outboxRepository.append(List.of(event(Type.WITHDRAWAL, accountId, null, amount, LocalDateTime.now())));
+    }
+
+    /**
+     * Writes the events of a transfer.
+     *
+     * @param senderId   The ID of the sender's account.
+     * @param receiverId The ID of the receiver's account.
+     * @param amount     The transferred amount.
+     * @param timestamp  The timestamp of the transfer.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordTransfer(long senderId, long receiverId, BigDecimal amount, LocalDateTime timestamp) {
+        outboxRepository.append(List.of(
+                event(Type.TRANSFER_OUT, senderId, receiverId, amount, timestamp),
+                event(Type.TRANSFER_IN, receiverId, senderId, amount, timestamp)));
+    }
+
+    /**
+     * Writes the events of several transfers with one JDBC batch, in the order of the transfers.
+     *
+     * @param transfers The transfers.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordTransfers(List<TransferRow> transfers) {
+        List<EventRow> events = new ArrayList<>(transfers.size() * 2);
+        for (TransferRow transfer : transfers) {
+            events.add(event(Type.TRANSFER_OUT, transfer.senderId(), transfer.receiverId(), transfer.amount(), transfer.timestamp()));
+            events.add(event(Type.TRANSFER_IN, transfer.receiverId(), transfer.senderId(), transfer.amount(), transfer.timestamp()));
+        }
+        outboxRepository.append(events);
+    }
+
+    /**
+     * Writes the events of several balance changes with one JDBC batch, in the order of the changes.
+     *
+     * @param changes The changes.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordChanges(List<Change> changes) {
+        List<EventRow> events = new ArrayList<>(changes.size() * 2);
+        for (Change change : changes) {
+            if (change.counterpartyId() == null) {
+                events.add(event(change.type(), change.accountId(), null, change.amount(), change.timestamp()));
+            } else {
+                events.add(event(Type.TRANSFER_OUT, change.accountId(), change.counterpartyId(), change.amount(), change.timestamp()));
+                events.add(event(Type.TRANSFER_IN, change.counterpartyId(), change.accountId(), change.amount(), change.timestamp()));
+            }
+        }
+        outboxRepository.append(events);
+    }
+
+    private EventRow event(Type type, long accountId, Long counterpartyId, BigDecimal amount, LocalDateTime timestamp) {
+        try {
+            String payload = objectMapper.writeValueAsString(
+                    new Payload(type, accountId, counterpartyId, amount, timestamp));
+            return new EventRow(accountId, type, payload, timestamp);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize outbox event", e);
+        }
+    }
+
+    /**
+     * A balance change: a deposit or withdrawal of an account, or a transfer from an account to its counterparty.
+     */
+    public record Change(Type type, long accountId, Long counterpartyId, BigDecimal amount, LocalDateTime timestamp) {
+
+        public static Change deposit(long accountId, BigDecimal amount, LocalDateTime timestamp) {
+            return new Change(Type.DEPOSIT, accountId, null, amount, timestamp);
+        }
+
+        public static Change withdrawal(long accountId, BigDecimal amount, LocalDateTime timestamp) {
+            return new Change(Type.WITHDRAWAL, accountId, null, amount, timestamp);
+        }
+
+        public static Change transfer(TransferRow transfer) {
+            return new Change(Type.TRANSFER_OUT, transfer.senderId(), transfer.receiverId(), transfer.amount(), transfer.timestamp());
+        }
+    }
+
+    /**
+     * The JSON form of an event; the counterparty is the other account of a transfer.
+     */
+    record Payload(Type type, long accountId, Long counterpartyId, BigDecimal amount, LocalDateTime timestamp) {
+    }
+}
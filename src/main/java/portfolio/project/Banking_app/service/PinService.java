@@ -0,0 +1,169 @@
+package portfolio.project.Banking_app.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+import portfolio.project.Banking_app.config.PinProperties;
+import portfolio.project.Banking_app.config.QueryCounter;
+import portfolio.project.Banking_app.config.ReadYourWrites;
+import portfolio.project.Banking_app.exception.IncorrectPinException;
+import portfolio.project.Banking_app.exception.ResourceNotFoundException;
+import portfolio.project.Banking_app.repository.AccountRepository;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Service class for hashing and verifying account PINs.
+ * <p>
+ * PINs are stored as BCrypt hashes. Hashing and verification are CPU-heavy by design, so they run on a dedicated,
+ * bounded thread pool ({@code banking.pin.*}) rather than on request threads, and the methods return futures.
+ * Only BCrypt runs on that pool: a stored hash is read on the calling thread, and a new one is written on Spring's
+ * application task executor, so a slow database never holds a hashing thread. When the pool and its queue are full,
+ * new requests fail fast with a {@link java.util.concurrent.RejectedExecutionException}, which the controller
+ * answers with 503.
+ * <p>
+ * The BCrypt work factor is calibrated once at startup: the highest strength whose hash time stays within
+ * {@code banking.pin.target-verify-time} on this machine is used for new hashes. Existing hashes keep the
+ * strength they were created with, since BCrypt stores it in the hash.
+ */
+@Slf4j
+@Service
+public class PinService {
+
+    private static final Pattern PIN_PATTERN = Pattern.compile("\\d{4}");
+
+    private final AccountRepository accountRepository;
+    private final ExecutorService hashingExecutor;
+    private final Executor hashingTasks;
+    private final Executor ioTasks;
+    private final BCryptPasswordEncoder encoder;
+
+    public PinService(AccountRepository accountRepository, PinProperties properties,
+                      @Qualifier("applicationTaskExecutor") Executor ioExecutor) {
+        this.accountRepository = accountRepository;
+        int threads = properties.getThreads() > 0 ? properties.getThreads() : Runtime.getRuntime().availableProcessors();
+        this.hashingExecutor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(properties.getQueueCapacity()),
+                new CustomizableThreadFactory("pin-hash-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        // Statements run by the continuations of the futures count towards the request that started them, and
+        // their writes keep its client's reads on the primary
+        this.hashingTasks = QueryCounter.propagating(ReadYourWrites.propagating(hashingExecutor));
+        this.ioTasks = QueryCounter.propagating(ReadYourWrites.propagating(ioExecutor));
+        this.encoder = new BCryptPasswordEncoder(calibrateStrength(properties));
+    }
+
+    /**
+     * Stops the hashing threads.
+     */
+    @PreDestroy
+    void shutdown() {
+        hashingExecutor.shutdown();
+    }
+
+    /**
+     * Verifies a PIN against the stored hash of an account.
+     *
+     * @param accountId The ID of the account.
+     * @param pin       The PIN to check.
+     * @return A future completed with true if the PIN matches, false otherwise.
+     * @throws ResourceNotFoundException If the account is not found.
+     */
+    public CompletableFuture<Boolean> verify(Long accountId, String pin) {
+        String pinHash = findPinHash(accountId);
+        return CompletableFuture.supplyAsync(() -> matches(pin, pinHash), hashingTasks);
+    }
+
+    /**
+     * Replaces the PIN of an account after verifying the old one.
+     *
+     * @param accountId The ID of the account.
+     * @param oldPin    The current PIN.
+     * @param newPin    The new PIN, a 4-digit number.
+     * @return A future completed once the new PIN is stored, or completed exceptionally with
+     * {@link IncorrectPinException} if the old PIN is incorrect.
+     * @throws ResourceNotFoundException If the account is not found.
+     * @throws IllegalArgumentException  If the new PIN is not a 4-digit number.
+     */
+    public CompletableFuture<Void> changePin(Long accountId, String oldPin, String newPin) {
+        requireValidPin(newPin);
+        String pinHash = findPinHash(accountId);
+        return CompletableFuture.supplyAsync(() -> {
+                    if (!matches(oldPin, pinHash)) {
+                        throw new IncorrectPinException("Incorrect old PIN provided.");
+                    }
+                    return encoder.encode(newPin);
+                }, hashingTasks)
+                .thenAcceptAsync(newPinHash -> store(accountId, newPinHash), ioTasks);
+    }
+
+    /**
+     * Sets the PIN of an account.
+     *
+     * @param accountId The ID of the account.
+     * @param newPin    The new PIN, a 4-digit number.
+     * @return A future completed once the new PIN is stored, or completed exceptionally with
+     * {@link ResourceNotFoundException} if the account is not found.
+     * @throws IllegalArgumentException If the new PIN is not a 4-digit number.
+     */
+    public CompletableFuture<Void> setPin(Long accountId, String newPin) {
+        requireValidPin(newPin);
+        return CompletableFuture.supplyAsync(() -> encoder.encode(newPin), hashingTasks)
+                .thenAcceptAsync(pinHash -> store(accountId, pinHash), ioTasks);
+    }
+
+    private String findPinHash(Long accountId) {
+        return accountRepository.findPinById(accountId)
+                .orElseThrow(() -> new ResourceNotFoundException("Account not found with id: " + accountId));
+    }
+
+    private boolean matches(String pin, String pinHash) {
+        return pin != null && encoder.matches(pin, pinHash);
+    }
+
+    private void store(Long accountId, String pinHash) {
+        if (accountRepository.updatePin(accountId, pinHash) == 0) {
+            throw new ResourceNotFoundException("Account not found with id: " + accountId);
+        }
+    }
+
+    private static void requireValidPin(String pin) {
+        if (pin == null || !PIN_PATTERN.matcher(pin).matches()) {
+            throw new IllegalArgumentException("PIN must be a 4-digit number");
+        }
+    }
+
+    /**
+     * Picks the highest BCrypt strength whose hash time on this machine stays within the target.
+     * Each strength step doubles the work, so the search stops at the first one over the target.
+     */
+    private static int calibrateStrength(PinProperties properties) {
+        long targetNanos = properties.getTargetVerifyTime().toNanos();
+        int strength = properties.getMinStrength();
+        for (int candidate = properties.getMinStrength(); candidate <= properties.getMaxStrength(); candidate++) {
+            BCryptPasswordEncoder probe = new BCryptPasswordEncoder(candidate);
+            long best = Long.MAX_VALUE;
+            // Best of three, to keep JIT warm-up and scheduling noise out of the measurement
+            for (int run = 0; run < 3; run++) {
+                long start = System.nanoTime();
+                probe.encode("0000");
+                best = Math.min(best, System.nanoTime() - start);
+            }
+            if (best > targetNanos) {
+                break;
+            }
+            strength = candidate;
+        }
+        log.info("Using BCrypt strength {} for PIN hashes (target verify time {})", strength, properties.getTargetVerifyTime());
+        return strength;
+    }
+}
@@ -0,0 +1,198 @@
+package portfolio.project.Banking_app.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import portfolio.project.Banking_app.dto.TransactionHistoryDTO;
+import portfolio.project.Banking_app.exception.ResourceNotFoundException;
+import portfolio.project.Banking_app.repository.AccountRepository;
+import portfolio.project.Banking_app.repository.TransactionRepository;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Service class for exporting account statements.
+ * <p>
+ * Statements are streamed: rows are read through forward-only database cursors and written to the output as they
+ * arrive, so heap usage stays constant regardless of how many transactions the statement covers.
+ */
+@Service
+@AllArgsConstructor
+public class StatementService {
+
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final Comparator<TransactionHistoryDTO> OLDEST_FIRST =
+            Comparator.comparing(TransactionHistoryDTO::getTimestamp).thenComparing(TransactionHistoryDTO::getId);
+
+    private final TransactionRepository transactionRepository;
+    private final AccountRepository accountRepository;
+
+    /**
+     * Output formats of a statement.
+     */
+    public enum Format {
+        /**
+         * One JSON object per line.
+         */
+        NDJSON("application/x-ndjson"),
+        /**
+         * Comma separated values with a header line.
+         */
+        CSV("text/csv");
+
+        private final String mediaType;
+
+        Format(String mediaType) {
+            this.mediaType = mediaType;
+        }
+
+        public String getMediaType() {
+            return mediaType;
+        }
+    }
+
+    /**
+     * Validates a statement request before any output is produced.
+     *
+     * @param accountId The ID of the account.
+     * @param from      First day of the statement, inclusive.
+     * @param to        Last day of the statement, exclusive.
+     * @throws ResourceNotFoundException If the account is not found.
+     * @throws IllegalArgumentException  If the date range is empty.
+     */
+    @Transactional(readOnly = true)
+    public void validateRequest(Long accountId, LocalDate from, LocalDate to) {
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("Statement start must be before its end");
+        }
+        if (!accountRepository.existsById(accountId)) {
+            throw new ResourceNotFoundException("Account not found with id: " + accountId);
+        }
+    }
+
+    /**
+     * Writes the statement of an account for the given days to the output stream, oldest transaction first.
+     * Sent and received transactions are read from two cursors and merged on the fly.
+     *
+     * @param accountId The ID of the account.
+     * @param from      First day of the statement, inclusive.
+     * @param to        Last day of the statement, exclusive.
+     * @param format    The output format.
+     * @param out       The stream to write to. It is flushed but not closed.
+     * @return The number of transactions written.
+     * @throws IOException If writing to the stream fails.
+     */
+    @Transactional(readOnly = true)
+    public long exportStatement(Long accountId, LocalDate from, LocalDate to, Format format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+        RowWriter rowWriter = format == Format.CSV ? new CsvRowWriter(writer) : new NdjsonRowWriter(writer);
+        long rows = 0;
+        try (Stream<TransactionHistoryDTO> sentStream = transactionRepository.streamSent(accountId, from.atStartOfDay(), to.atStartOfDay());
+             Stream<TransactionHistoryDTO> receivedStream = transactionRepository.streamReceived(accountId, from.atStartOfDay(), to.atStartOfDay())) {
+            Iterator<TransactionHistoryDTO> sent = sentStream.iterator();
+            Iterator<TransactionHistoryDTO> received = receivedStream.iterator();
+            TransactionHistoryDTO nextSent = sent.hasNext() ? sent.next() : null;
+            TransactionHistoryDTO nextReceived = received.hasNext() ? received.next() : null;
+            while (nextSent != null || nextReceived != null) {
+                if (nextReceived == null || (nextSent != null && OLDEST_FIRST.compare(nextSent, nextReceived) <= 0)) {
+                    rowWriter.write(nextSent);
+                    nextSent = sent.hasNext() ? sent.next() : null;
+                } else {
+                    rowWriter.write(nextReceived);
+                    nextReceived = received.hasNext() ? received.next() : null;
+                }
+                rows++;
+            }
+        }
+        rowWriter.finish();
+        return rows;
+    }
+
+    private interface RowWriter {
+        void write(TransactionHistoryDTO row) throws IOException;
+
+        void finish() throws IOException;
+    }
+
+    private static final class NdjsonRowWriter implements RowWriter {
+        private final Writer writer;
+        private final JsonGenerator generator;
+
+        private NdjsonRowWriter(Writer writer) throws IOException {
+            this.writer = writer;
+            this.generator = JSON_FACTORY.createGenerator(writer);
+            this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        }
+
+        @Override
+        public void write(TransactionHistoryDTO row) throws IOException {
+            generator.writeStartObject();
+            generator.writeNumberField("id", row.getId());
+            generator.writeStringField("timestamp", row.getTimestamp().toString());
+            generator.writeStringField("direction", row.getDirection());
+            generator.writeNumberField("amount", row.getAmount());
+            generator.writeStringField("senderAccountNumber", row.getSenderAccountNumber());
+            generator.writeStringField("receiverAccountNumber", row.getReceiverAccountNumber());
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            generator.flush();
+            writer.flush();
+        }
+    }
+
+    private static final class CsvRowWriter implements RowWriter {
+        private final Writer writer;
+
+        private CsvRowWriter(Writer writer) throws IOException {
+            this.writer = writer;
+            writer.write("id,timestamp,direction,amount,sender_account_number,receiver_account_number\n");
+        }
+
+        @Override
+        public void write(TransactionHistoryDTO row) throws IOException {
+            writer.write(Long.toString(row.getId()));
+            writer.write(',');
+            writer.write(row.getTimestamp().toString());
+            writer.write(',');
+            writer.write(row.getDirection());
+            writer.write(',');
+            writer.write(row.getAmount().toPlainString());
+            writer.write(',');
+            writeField(row.getSenderAccountNumber());
+            writer.write(',');
+            writeField(row.getReceiverAccountNumber());
+            writer.write('\n');
+        }
+
+        private void writeField(String value) throws IOException {
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+                writer.write(value);
+            } else {
+                writer.write('"');
+                writer.write(value.replace("\"", "\"\""));
+                writer.write('"');
+            }
+        }
+
+        @Override
+        public void finish() throws IOException {
+            writer.flush();
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package portfolio.project.Banking_app.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import portfolio.project.Banking_app.config.StripingProperties;
+import portfolio.project.Banking_app.exception.ResourceNotFoundException;
+import portfolio.project.Banking_app.repository.BalanceStripeJdbcRepository;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Service class for striped balances of hot accounts.
+ * <p>
+ * Credits to a striped account are added to one of {@code banking.striping.stripes} sub-balance rows, picked by
+ * hashing the credit's source and thread, instead of its balance column. Concurrent credits therefore rarely wait
+ * for each other and never wait for debits. The balance of any account is its balance column plus the sum of its
+ * stripes.
+ * <p>
+ * Debits still lock the account row. Once the lock is held they read the stripes in a new statement and may take
+ * more than the balance column holds, as long as column plus stripes cover the amount; the column then goes
+ * negative until the next fold. Folding locks the account row as well, moves the stripes into the column and resets
+ * them, so a debit never sees stripes that were already folded.
+ * <p>
+ * Which accounts are striped is kept in memory and only used to route credits and to decide whether a debit has to
+ * read the stripes. A stale entry is harmless: crediting the column of a striped account is correct, and a debit
+ * that ignores stripes can only refuse an amount the account could have paid. The set is refreshed from the
+ * database on every fold.
+ */
+@Slf4j
+@Service
+public class StripedBalanceService {
+
+    private final BalanceStripeJdbcRepository stripeRepository;
+    private final StripingProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private final Set<Long> stripedAccounts = ConcurrentHashMap.newKeySet();
+
+    public StripedBalanceService(BalanceStripeJdbcRepository stripeRepository,
+                                 StripingProperties properties,
+                                 PlatformTransactionManager transactionManager) {
+        this.stripeRepository = stripeRepository;
+        this.properties = properties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Returns whether credits to the account go to its stripes.
+     *
+     * @param accountId The ID of the account.
+     * @return True if the account is known to be striped.
+     */
+    public boolean isStriped(long accountId) {
+        return !stripedAccounts.isEmpty() && stripedAccounts.contains(accountId);
+    }
+
+    /**
+     * Adds an amount to one of the stripes of an account, inside the current transaction.
+     *
+     * @param accountId The ID of the striped account.
+     * @param sourceKey A key of the credit's source, such as the sender's account id, used to pick the stripe.
+     * @param amount    The amount to credit.
+     * @throws ResourceNotFoundException If the account does not exist.
+     */
+    public void credit(long accountId, long sourceKey, BigDecimal amount) {
+        try {
+            stripeRepository.credit(accountId, pickStripe(sourceKey), amount);
+        } catch (DataIntegrityViolationException e) {
+            throw new ResourceNotFoundException("Account not found with id: " + accountId);
+        }
+    }
+
+    /**
+     * Returns the sum of the stripes of an account. Debits must hold the account's row lock when calling this.
+     *
+     * @param accountId The ID of the account.
+     * @return The sum of its stripes.
+     */
+    public BigDecimal stripeTotal(long accountId) {
+        return stripeRepository.sumStripes(accountId);
+    }
+
+    /**
+     * Returns the sums of the stripes of those of the given accounts that are striped.
+     *
+     * @param accountIds The IDs of the accounts, row-locked by the caller.
+     * @return The sum per striped account id.
+     */
+    public Map<Long, BigDecimal> stripeTotals(Collection<Long> accountIds) {
+        List<Long> striped = accountIds.stream().filter(this::isStriped).toList();
+        return striped.isEmpty() ? Map.of() : stripeRepository.sumStripes(striped);
+    }
+
+    /**
+     * Deposits into a striped account, inside the current transaction. The account row is not locked; the returned
+     * balance is read right after the credit and does not wait for concurrent debits.
+     *
+     * @param accountId The ID of the striped account.
+     * @param amount    The amount to deposit.
+     * @return The new balance of the account.
+     * @throws ResourceNotFoundException If the account does not exist.
+     */
+    public BigDecimal deposit(long accountId, BigDecimal amount) {
+        credit(accountId, accountId, amount);
+        return stripeRepository.findBalance(accountId)
+                .orElseThrow(() -> new ResourceNotFoundException("Account not found with id: " + accountId));
+    }
+
+    /**
+     * Withdraws from a striped account, inside the current transaction. The amount may be covered by the balance
+     * column and the stripes together.
+     *
+     * @param accountId The ID of the striped account.
+     * @param amount    The amount to withdraw.
+     * @return The new balance of the account, or empty if it does not exist or has insufficient funds.
+     */
+    public Optional<BigDecimal> withdraw(long accountId, BigDecimal amount) {
+        Optional<BigDecimal> column = stripeRepository.lockBalance(accountId);
+        if (column.isEmpty()) {
+            return Optional.empty();
+        }
+        BigDecimal stripes = stripeRepository.sumStripes(accountId);
+        if (column.get().add(stripes).compareTo(amount) < 0) {
+            return Optional.empty();
+        }
+        return Optional.of(stripeRepository.addToBalance(accountId, amount.negate()).add(stripes));
+    }
+
+    /**
+     * Turns striping of an account on or off. Turning it off folds the stripes into the balance column right away.
+     *
+     * @param accountId The ID of the account.
+     * @param striped   Whether credits should go to stripes.
+     * @throws ResourceNotFoundException If the account does not exist.
+     */
+    @Transactional
+    public void setStriped(long accountId, boolean striped) {
+        if (stripeRepository.updateStriped(accountId, striped) == 0) {
+            throw new ResourceNotFoundException("Account not found with id: " + accountId);
+        }
+        if (striped) {
+            stripedAccounts.add(accountId);
+            return;
+        }
+        fold(accountId);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                stripedAccounts.remove(accountId);
+            }
+        });
+    }
+
+    /**
+     * Reloads the striped accounts from the database and folds the stripes of each of them into its balance
+     * column, one short transaction per account.
+     *
+     * @return The number of accounts whose stripes held a non-zero amount.
+     */
+    public int foldAll() {
+        List<Long> striped = stripeRepository.findStripedAccountIds();
+        stripedAccounts.retainAll(striped);
+        stripedAccounts.addAll(striped);
+        int folded = 0;
+        for (Long accountId : striped) {
+            Boolean changed = transactionTemplate.execute(status -> fold(accountId));
+            if (Boolean.TRUE.equals(changed)) {
+                folded++;
+            }
+        }
+        return folded;
+    }
+
+    /**
+     * Moves the stripes of an account into its balance column, holding the account's row lock.
+     */
+    private boolean fold(long accountId) {
+        if (stripeRepository.lockBalance(accountId).isEmpty()) {
+            return false;
+        }
+        BigDecimal drained = stripeRepository.drainStripes(accountId);
+        if (drained.signum() == 0) {
+            return false;
+        }
+        stripeRepository.addToBalance(accountId, drained);
+        log.debug("Folded {} from the stripes of account {}", drained, accountId);
+        return true;
+    }
+
+    /**
+     * Spreads credits from different sources and threads over the stripes.
+     */
+    private int pickStripe(long sourceKey) {
+        long hash = (sourceKey ^ Thread.currentThread().getId()) * 0x9E3779B97F4A7C15L;
+        return (int) Math.floorMod(hash >>> 32, (long) properties.getStripes());
+    }
+}
@@ -0,0 +1,94 @@
+package portfolio.project.Banking_app.service;
+
+import lombok.AllArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import portfolio.project.Banking_app.archive.TransactionArchiveStore;
+import portfolio.project.Banking_app.dto.TransactionHistoryDTO;
+import portfolio.project.Banking_app.dto.TransactionHistoryPage;
+import portfolio.project.Banking_app.exception.ResourceNotFoundException;
+import portfolio.project.Banking_app.repository.AccountRepository;
+import portfolio.project.Banking_app.repository.TransactionRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Service class for reading the transaction history of accounts, from the database and, past its oldest
+ * transactions, from the archived partitions (see {@link TransactionPartitionService}).
+ */
+@Service
+@AllArgsConstructor
+@Transactional(readOnly = true)
+public class TransactionHistoryService {
+
+    /**
+     * Largest page size a client may request.
+     */
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private static final Comparator<TransactionHistoryDTO> NEWEST_FIRST =
+            Comparator.comparing(TransactionHistoryDTO::getTimestamp)
+                    .thenComparing(TransactionHistoryDTO::getId)
+                    .reversed();
+
+    private final TransactionRepository transactionRepository;
+    private final AccountRepository accountRepository;
+    private final TransactionArchiveStore archiveStore;
+
+    /**
+     * Retrieves one page of the sent and received transactions of an account, newest first.
+     * <p>
+     * Sent and received transactions are read with two keyset queries, each limited to the page size and served by
+     * its own composite index, and merged in memory. The cost of a page therefore does not depend on how deep into
+     * the history it is. A page the database cannot fill continues into the archives, which only hold transactions
+     * older than those left in the database.
+     *
+     * @param accountId       The ID of the account.
+     * @param beforeTimestamp Timestamp of the cursor, or null for the first page.
+     * @param beforeId        Id of the cursor, or null for the first page.
+     * @param size            The page size, between 1 and {@link #MAX_PAGE_SIZE}.
+     * @return The page and the cursor of the next page.
+     * @throws ResourceNotFoundException If the account is not found.
+     * @throws IllegalArgumentException  If the page size is out of range or only half of the cursor is given.
+     */
+    public TransactionHistoryPage getHistory(Long accountId, LocalDateTime beforeTimestamp, Long beforeId, int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        if ((beforeTimestamp == null) != (beforeId == null)) {
+            throw new IllegalArgumentException("Both beforeTimestamp and beforeId must be given to continue a history");
+        }
+        if (!accountRepository.existsById(accountId)) {
+            throw new ResourceNotFoundException("Account not found with id: " + accountId);
+        }
+
+        Pageable limit = PageRequest.of(0, size);
+        List<TransactionHistoryDTO> merged = new ArrayList<>(2 * size);
+        if (beforeTimestamp == null) {
+            merged.addAll(transactionRepository.findSentHistory(accountId, limit));
+            merged.addAll(transactionRepository.findReceivedHistory(accountId, limit));
+        } else {
+            merged.addAll(transactionRepository.findSentHistoryBefore(accountId, beforeTimestamp, beforeId, limit));
+            merged.addAll(transactionRepository.findReceivedHistoryBefore(accountId, beforeTimestamp, beforeId, limit));
+        }
+        merged.sort(NEWEST_FIRST);
+        List<TransactionHistoryDTO> page = merged.size() > size ? new ArrayList<>(merged.subList(0, size)) : merged;
+        if (page.size() < size) {
+            TransactionHistoryDTO oldest = page.isEmpty() ? null : page.get(page.size() - 1);
+            page.addAll(oldest == null
+                    ? archiveStore.history(accountId, beforeTimestamp, beforeId, size)
+                    : archiveStore.history(accountId, oldest.getTimestamp(), oldest.getId(), size - page.size()));
+        }
+
+        if (page.size() < size) {
+            return new TransactionHistoryPage(page, null, null);
+        }
+        TransactionHistoryDTO last = page.get(page.size() - 1);
+        return new TransactionHistoryPage(page, last.getTimestamp(), last.getId());
+    }
+}
@@ -0,0 +1,186 @@
+package portfolio.project.Banking_app.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import portfolio.project.Banking_app.archive.TransactionArchiveStore;
+import portfolio.project.Banking_app.config.TransactionPartitionProperties;
+import portfolio.project.Banking_app.repository.TransactionPartitionJdbcRepository;
+import portfolio.project.Banking_app.repository.TransactionPartitionJdbcRepository.ArchiveRow;
+import portfolio.project.Banking_app.repository.TransactionPartitionJdbcRepository.Partition;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Service class maintaining the monthly partitions of the transactions table, once the partitioning migration
+ * ({@code V12__partition_transactions.sql}) has run; until then it does nothing.
+ * <p>
+ * Partitions are created {@code banking.transaction-partitions.premake-months} ahead, so a write never finds its
+ * month missing. Partitions older than the retention are archived, oldest first, each in one transaction: it locks
+ * the partition against writes, streams it into archive files (see {@link TransactionArchiveStore}), catalogs the
+ * archive and detaches the partition, which is only dropped with {@code drop-archived}. The indexes and the vacuum
+ * work of the table thus only cover the retained months, however long the history grows, while
+ * {@link TransactionHistoryService} continues a history into the archives. A failed archive stops the run, so
+ * archived ranges stay older than every attached partition.
+ * <p>
+ * Runs are serialized across instances by an advisory lock, and scheduled by {@code TransactionPartitionJob}.
+ */
+@Slf4j
+@Service
+public class TransactionPartitionService {
+
+    private final TransactionPartitionJdbcRepository partitionRepository;
+    private final TransactionArchiveStore archiveStore;
+    private final TransactionPartitionProperties properties;
+    private final TransactionTemplate transactionTemplate;
+
+    public TransactionPartitionService(TransactionPartitionJdbcRepository partitionRepository,
+                                       TransactionArchiveStore archiveStore,
+                                       TransactionPartitionProperties properties,
+                                       TransactionTemplate transactionTemplate) {
+        if (properties.isDropArchived() && !Path.of(properties.getArchiveDirectory()).isAbsolute()) {
+            throw new IllegalStateException("banking.transaction-partitions.drop-archived needs an absolute "
+                    + "archive-directory, the archive files are the only copy of a dropped partition; got "
+                    + properties.getArchiveDirectory());
+        }
+        this.partitionRepository = partitionRepository;
+        this.archiveStore = archiveStore;
+        this.properties = properties;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * Creates the partitions due at startup, so writes do not wait for the first scheduled run.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    void onApplicationReady() {
+        if (properties.isEnabled()) {
+            ensurePartitions();
+        }
+    }
+
+    /**
+     * Creates the partitions due and archives the cold ones, if {@code banking.transaction-partitions.enabled} is
+     * set.
+     */
+    public void maintain() {
+        if (properties.isEnabled()) {
+            ensurePartitions();
+            archiveColdPartitions();
+        }
+    }
+
+    /**
+     * Creates the monthly partitions from the end of the newest one through {@code premake-months} after the
+     * current month.
+     *
+     * @return The number of partitions created.
+     */
+    public int ensurePartitions() {
+        return transactionTemplate.execute(status -> {
+            if (!partitionRepository.isPartitioned()) {
+                log.debug("The transactions table is not partitioned");
+                return 0;
+            }
+            partitionRepository.lockMaintenance();
+            YearMonth current = YearMonth.now();
+            YearMonth last = current.plusMonths(properties.getPremakeMonths());
+            List<Partition> partitions = partitionRepository.findPartitions();
+            YearMonth month = partitions.isEmpty() ? current : YearMonth.from(partitions.get(partitions.size() - 1).to());
+            int created = 0;
+            for (; !month.isAfter(last); month = month.plusMonths(1)) {
+                createPartition(month);
+                created++;
+            }
+            if (created > 0) {
+                log.info("Created {} transaction partitions through {}", created, last);
+            }
+            return created;
+        });
+    }
+
+    /**
+     * Creates the partition of a month, unless it exists. Must be called inside a transaction.
+     *
+     * @param month The month.
+     */
+    public void createPartition(YearMonth month) {
+        LocalDateTime from = month.atDay(1).atStartOfDay();
+        partitionRepository.createPartition(TransactionPartitionJdbcRepository.partitionName(from), from,
+                from.plusMonths(1));
+    }
+
+    /**
+     * Archives, oldest first, the partitions ending before the first {@code retention-months} months before the
+     * current one. A partition that cannot be archived, for instance because its lock times out, stays attached
+     * and stops the run; the next run retries it.
+     *
+     * @return The number of archived partitions.
+     */
+    public int archiveColdPartitions() {
+        if (!Boolean.TRUE.equals(transactionTemplate.execute(status -> partitionRepository.isPartitioned()))) {
+            return 0;
+        }
+        LocalDateTime cutoff = YearMonth.now().minusMonths(properties.getRetentionMonths()).atDay(1).atStartOfDay();
+        List<Partition> cold = transactionTemplate.execute(status -> partitionRepository.findPartitions()).stream()
+                .filter(partition -> !partition.to().isAfter(cutoff))
+                .toList();
+        int archived = 0;
+        for (Partition partition : cold) {
+            try {
+                if (Boolean.TRUE.equals(transactionTemplate.execute(status -> archive(partition)))) {
+                    archived++;
+                }
+            } catch (RuntimeException e) {
+                log.warn("Could not archive transaction partition {}", partition.name(), e);
+                break;
+            }
+        }
+        return archived;
+    }
+
+    /**
+     * Archives one partition inside the current transaction.
+     *
+     * @return False if another instance archived it meanwhile.
+     */
+    private boolean archive(Partition partition) {
+        partitionRepository.lockMaintenance();
+        if (partitionRepository.findPartitions().stream().noneMatch(p -> p.name().equals(partition.name()))) {
+            return false;
+        }
+        partitionRepository.setLockTimeout(properties.getLockTimeout());
+        partitionRepository.lockPartition(partition.name());
+        long rows = partitionRepository.countRows(partition.name());
+        if (rows > 0) {
+            LocalDateTime from = partition.from() != null ? partition.from()
+                    : partitionRepository.minTimestamp(partition.name());
+            try (TransactionArchiveStore.Builder builder = archiveStore.builder(partition.name(), from, partition.to())) {
+                partitionRepository.streamAccounts(partition.name(), builder::addAccount);
+                partitionRepository.streamEntries(partition.name(), builder::addEntry);
+                TransactionArchiveStore.Archived archived = builder.finish();
+                if (archived.entries() != 2 * rows) {
+                    throw new IllegalStateException("Archive of " + partition.name() + " holds " + archived.entries()
+                            + " entries for " + rows + " transactions");
+                }
+                partitionRepository.insertArchive(new ArchiveRow(partition.name(), from, partition.to(),
+                        archived.parts(), rows));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        partitionRepository.detachPartition(partition.name());
+        if (properties.isDropArchived()) {
+            partitionRepository.dropTable(partition.name());
+        }
+        log.info("Archived transaction partition {} with {} transactions", partition.name(), rows);
+        return true;
+    }
+}
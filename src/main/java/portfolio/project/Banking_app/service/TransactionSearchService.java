@@ -0,0 +1,127 @@
+package portfolio.project.Banking_app.service;
+
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import portfolio.project.Banking_app.config.TransactionSearchProperties;
+import portfolio.project.Banking_app.dto.TransactionSearchCriteria;
+import portfolio.project.Banking_app.dto.TransactionSearchPage;
+import portfolio.project.Banking_app.dto.TransactionSearchResultDTO;
+import portfolio.project.Banking_app.exception.ResourceNotFoundException;
+import portfolio.project.Banking_app.repository.TransactionSearchJdbcRepository;
+import portfolio.project.Banking_app.repository.TransactionSearchJdbcRepository.SearchQuery;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Service class for searching transactions by account number, account holder name, amount and date.
+ * <p>
+ * Filters combine with AND. A search is only accepted if at least one of its filters lets the database find the
+ * matching transactions through an index rather than by scanning the transactions table:
+ * <ul>
+ *     <li>an account number;</li>
+ *     <li>a counterparty name prefix of at least {@code banking.transaction-search.min-name-prefix} characters,
+ *     matching at most {@code banking.transaction-search.max-name-matches} accounts;</li>
+ *     <li>an exact amount (equal minimum and maximum);</li>
+ *     <li>a date range with both ends, spanning at most {@code banking.transaction-search.max-date-range}.</li>
+ * </ul>
+ * Any other combination is rejected before a statement is run. Results are paged with a keyset cursor on
+ * (timestamp, id), newest first, so the cost of a page does not depend on how deep into the results it is.
+ */
+@Service
+@AllArgsConstructor
+@Transactional(readOnly = true)
+public class TransactionSearchService {
+
+    /**
+     * Largest page size a client may request.
+     */
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private final TransactionSearchJdbcRepository searchRepository;
+    private final AccountNumberResolver accountNumberResolver;
+    private final TransactionSearchProperties properties;
+
+    /**
+     * Retrieves one page of the transactions matching the given filters, newest first.
+     *
+     * @param criteria The filters, page size and cursor.
+     * @return The page and the cursor of the next page.
+     * @throws ResourceNotFoundException If the account number is not found.
+     * @throws IllegalArgumentException  If the filters are invalid, no index serves their combination, the name
+     *                                   prefix matches too many accounts, or the page size is out of range.
+     */
+    public TransactionSearchPage search(TransactionSearchCriteria criteria) {
+        validate(criteria);
+
+        List<Long> partyIds = null;
+        List<Long> counterpartyIds = null;
+        if (criteria.getAccountNumber() != null) {
+            partyIds = List.of(accountNumberResolver.resolve(criteria.getAccountNumber())
+                    .orElseThrow(() -> new ResourceNotFoundException("Account not found with number: " + criteria.getAccountNumber())));
+        }
+        if (criteria.getCounterpartyName() != null) {
+            List<Long> named = findAccountsByHolderName(criteria.getCounterpartyName().strip());
+            if (named.isEmpty()) {
+                return new TransactionSearchPage(List.of(), null, null);
+            }
+            if (partyIds == null) {
+                partyIds = named;
+            } else {
+                counterpartyIds = named;
+            }
+        }
+
+        int size = criteria.getSize();
+        List<TransactionSearchResultDTO> page = searchRepository.search(new SearchQuery(partyIds, counterpartyIds,
+                criteria.getMinAmount(), criteria.getMaxAmount(), criteria.getFrom(), criteria.getTo(),
+                criteria.getBeforeTimestamp(), criteria.getBeforeId(), size));
+        if (page.size() < size) {
+            return new TransactionSearchPage(page, null, null);
+        }
+        TransactionSearchResultDTO last = page.get(page.size() - 1);
+        return new TransactionSearchPage(page, last.getTimestamp(), last.getId());
+    }
+
+    private List<Long> findAccountsByHolderName(String namePrefix) {
+        int maxMatches = properties.getMaxNameMatches();
+        List<Long> accountIds = searchRepository.findAccountIdsByHolderNamePrefix(namePrefix, maxMatches + 1);
+        if (accountIds.size() > maxMatches) {
+            throw new IllegalArgumentException("Name '" + namePrefix + "' matches more than " + maxMatches
+                    + " accounts; give a longer name");
+        }
+        return accountIds;
+    }
+
+    /**
+     * Checks the filters and rejects combinations that no index serves.
+     */
+    private void validate(TransactionSearchCriteria criteria) {
+        if (criteria.getSize() < 1 || criteria.getSize() > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        if ((criteria.getBeforeTimestamp() == null) != (criteria.getBeforeId() == null)) {
+            throw new IllegalArgumentException("Both beforeTimestamp and beforeId must be given to continue a search");
+        }
+        if (criteria.getMinAmount() != null && criteria.getMaxAmount() != null
+                && criteria.getMinAmount().compareTo(criteria.getMaxAmount()) > 0) {
+            throw new IllegalArgumentException("minAmount must not be greater than maxAmount");
+        }
+        if (criteria.getFrom() != null && criteria.getTo() != null && !criteria.getFrom().isBefore(criteria.getTo())) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+        if (criteria.getCounterpartyName() != null && criteria.getCounterpartyName().strip().length() < properties.getMinNamePrefix()) {
+            throw new IllegalArgumentException("counterpartyName must have at least " + properties.getMinNamePrefix() + " characters");
+        }
+
+        boolean exactAmount = criteria.getMinAmount() != null && criteria.getMaxAmount() != null
+                && criteria.getMinAmount().compareTo(criteria.getMaxAmount()) == 0;
+        boolean boundedDates = criteria.getFrom() != null && criteria.getTo() != null
+                && Duration.between(criteria.getFrom(), criteria.getTo()).compareTo(properties.getMaxDateRange()) <= 0;
+        if (criteria.getAccountNumber() == null && criteria.getCounterpartyName() == null && !exactAmount && !boundedDates) {
+            throw new IllegalArgumentException("A search needs an account number, a counterparty name, an exact amount "
+                    + "or a date range of at most " + properties.getMaxDateRange().toDays() + " days");
+        }
+    }
+}
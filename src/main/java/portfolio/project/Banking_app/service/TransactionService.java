@@ -1,16 +1,27 @@
 package portfolio.project.Banking_app.service;
 
-import jakarta.transaction.Transactional;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import portfolio.project.Banking_app.config.TransferProperties;
+import portfolio.project.Banking_app.dto.TransferResult;
+import portfolio.project.Banking_app.engine.LedgerEngine;
 import portfolio.project.Banking_app.entity.Account;
 import portfolio.project.Banking_app.entity.Transaction;
 import portfolio.project.Banking_app.exception.InsufficientFundsException;
+import portfolio.project.Banking_app.exception.ResourceNotFoundException;
+import portfolio.project.Banking_app.exception.TransactionOperationException;
 import portfolio.project.Banking_app.repository.AccountRepository;
 import portfolio.project.Banking_app.repository.TransactionRepository;
+import portfolio.project.Banking_app.service.BankingMetrics.Outcome;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Service class responsible for handling transactions between accounts.
@@ -21,45 +32,185 @@ import java.math.BigDecimal;
 public class TransactionService {
     private final TransactionRepository transactionRepository;
     private final AccountRepository accountRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TransferProperties transferProperties;
+    private final BalanceCache balanceCache;
+    private final BankingMetrics metrics;
+    private final AccountNumberResolver accountNumberResolver;
+    private final StripedBalanceService stripedBalances;
+    private final OutboxService outbox;
+    private final LedgerEngine ledgerEngine;
 
     /**
      * Makes a transaction between two accounts.
      * <p>
      * This method transfers a specified amount of money from the sender's account to the receiver's account.
-     * It first retrieves the sender and receiver accounts from the repository based on their IDs. Then, it checks
-     * if the sender's balance is sufficient to perform the transaction. If so, it deducts the specified amount from
-     * the sender's balance and adds it to the receiver's balance. Finally, it saves the transaction details and logs
-     * the success message.
+     * The account numbers are resolved to ids through the {@link AccountNumberResolver}, and both accounts are then
+     * loaded and row-locked by primary key in a single {@code SELECT ... FOR UPDATE} round trip, always in
+     * ascending id order, so concurrent transfers in opposite directions (A to B while B to A) cannot deadlock.
+     * If the sender's balance is sufficient, the amount is moved and the transaction details are saved.
+     * A striped receiver is not locked at all; the amount is credited to one of its stripes instead
+     * (see {@link StripedBalanceService}). The transfer's events are written to the outbox in the same transaction;
+     * they are published later by the {@link OutboxRelay}.
+     * <p>
+     * When the database still reports a deadlock or serialization failure, the whole transfer is retried in a
+     * fresh transaction with jittered exponential backoff, as configured by {@code banking.transfer.retry.*}.
+     * If the caller already runs inside a transaction, the transfer joins it and is not retried, because the
+     * outer transaction is no longer usable after such a failure.
+     * <p>
+     * Latency, outcome and the time spent waiting for the row locks are recorded in {@link BankingMetrics}.
+     * Successful transfers are logged at INFO as sampled by {@code banking.metrics.transfer-log-sample-rate}.
      *
      * @param senderAccountNumber   The String of the sender's account.
      * @param receiverAccountNumber The String of the receiver's account.
      * @param amount                The amount of money to transfer.
-     * @throws InsufficientFundsException      If the sender's balance is insufficient to perform the transaction.
-     * //@throws TransactionOperationException If the transaction cannot be completed for other reasons.
+     * @return The committed transfer.
+     * @throws InsufficientFundsException    If the sender's balance is insufficient to perform the transaction.
+     * @throws ResourceNotFoundException     If either account does not exist.
+     * @throws TransactionOperationException If the transaction cannot be completed for other reasons, or the
+     *                                       {@link LedgerEngine} is enabled.
+     */
+    public TransferResult makeTransaction(String senderAccountNumber, String receiverAccountNumber, BigDecimal amount) {
+        long start = System.nanoTime();
+        metrics.transferStarted();
+        LocalDateTime timestamp;
+        try {
+            timestamp = transferWithRetry(senderAccountNumber, receiverAccountNumber, amount);
+            metrics.transferFinished(Outcome.SUCCESS, start);
+        } catch (RuntimeException e) {
+            metrics.transferFinished(Outcome.of(e), start);
+            throw e;
+        }
+        if (log.isInfoEnabled() && metrics.sampleTransferLog()) {
+            log.info("Transaction successful: {} transferred from account {} to account {}", amount, senderAccountNumber, receiverAccountNumber);
+        }
+        return new TransferResult(senderAccountNumber, receiverAccountNumber, amount, timestamp);
+    }
+
+    /**
+     * Runs the transfer, retrying it on lock conflicts unless it joins an outer transaction.
+     *
+     * @return The timestamp recorded for the transaction.
      */
-    @Transactional
-    public void makeTransaction(String senderAccountNumber, String receiverAccountNumber, BigDecimal amount) {
-        // Retrieve sender and receiver accounts from the repository
-        Account sender = accountRepository.findByAccountNumber(senderAccountNumber);
-        Account receiver = accountRepository.findByAccountNumber(receiverAccountNumber);
-        // Check if sender's balance is sufficient
-        if (sender.getBalance().compareTo(amount) >= 0) {
+    private LocalDateTime transferWithRetry(String senderAccountNumber, String receiverAccountNumber, BigDecimal amount) {
+        if (amount == null || amount.signum() <= 0) {
+            throw new IllegalArgumentException("Transfer amount must be positive.");
+        }
+        if (senderAccountNumber.equals(receiverAccountNumber)) {
+            throw new TransactionOperationException("Sender and receiver accounts must be different.");
+        }
+        ledgerEngine.requireDatabaseWrites("Database transfers");
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return transfer(senderAccountNumber, receiverAccountNumber, amount);
+        }
+
+        TransferProperties.Retry retry = transferProperties.getRetry();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status ->
+                        transfer(senderAccountNumber, receiverAccountNumber, amount));
+            } catch (ConcurrencyFailureException e) {
+                if (attempt >= retry.getMaxAttempts()) {
+                    throw new TransactionOperationException(
+                            "Transaction could not be completed after " + attempt + " attempts.", e);
+                }
+                log.debug("Transfer from account {} to account {} hit a lock conflict, retrying (attempt {})",
+                        senderAccountNumber, receiverAccountNumber, attempt, e);
+                backOff(attempt, retry);
+            }
+        }
+    }
+
+    /**
+     * Performs a single transfer attempt inside the current transaction.
+     *
+     * @return The timestamp recorded for the transaction.
+     */
+    private LocalDateTime transfer(String senderAccountNumber, String receiverAccountNumber, BigDecimal amount) {
+        Long receiverId = resolve(receiverAccountNumber);
+        boolean stripedReceiver = stripedBalances.isStriped(receiverId);
+        // Lock both accounts in one round trip, in a fixed (id) order; a striped receiver is credited without a lock
+        long lockStart = System.nanoTime();
+        List<Account> accounts = lockAccounts(stripedReceiver
+                ? List.of(senderAccountNumber)
+                : List.of(senderAccountNumber, receiverAccountNumber));
+        long locked = System.nanoTime();
+        metrics.recordLockWait(locked - lockStart);
+        Account sender = findLocked(accounts, senderAccountNumber);
+        Account receiver = stripedReceiver
+                ? accountRepository.getReferenceById(receiverId)
+                : findLocked(accounts, receiverAccountNumber);
+        // Check if sender's balance is sufficient; the stripes of a striped sender count as well
+        BigDecimal available = stripedBalances.isStriped(sender.getId())
+                ? sender.getBalance().add(stripedBalances.stripeTotal(sender.getId()))
+                : sender.getBalance();
+        if (available.compareTo(amount) >= 0) {
             // Deduct amount from sender's balance
             sender.setBalance(sender.getBalance().subtract(amount));
             // Add amount to receiver's balance
-            receiver.setBalance(receiver.getBalance().add(amount));
+            if (stripedReceiver) {
+                stripedBalances.credit(receiverId, sender.getId(), amount);
+            } else {
+                receiver.setBalance(receiver.getBalance().add(amount));
+            }
             // Save transaction details
+            LocalDateTime timestamp = LocalDateTime.now();
             transactionRepository.save(Transaction.builder()
                     .sender(sender)
                     .receiver(receiver)
                     .amount(amount)
+                    .timestamp(timestamp)
                     .build());
-            // Log success message
-            log.info("Transaction successful: {} transferred from account {} to account {}", amount, senderAccountNumber, receiverAccountNumber);
+            outbox.recordTransfer(sender.getId(), receiverId, amount, timestamp);
+            metrics.recordExecution(System.nanoTime() - locked);
+            balanceCache.evictAfterCommit(List.of(sender.getId(), receiverId));
+            return timestamp;
         } else {
             // Throw exception if sender doesn't have sufficient balance
             throw new InsufficientFundsException("Sender doesn't have sufficient balance.");
         }
     }
 
-}
\ No newline at end of file
+    /**
+     * Locks the accounts by id. A cached id can only be stale if its account was deleted, in which case the row
+     * is missing; the numbers are then resolved once more from the database.
+     */
+    private List<Account> lockAccounts(List<String> accountNumbers) {
+        List<Account> accounts = accountRepository.findAllByIdInForUpdate(accountNumbers.stream().map(this::resolve).toList());
+        if (accounts.size() == accountNumbers.size()) {
+            return accounts;
+        }
+        accountNumbers.forEach(accountNumberResolver::evict);
+        return accountRepository.findAllByIdInForUpdate(accountNumbers.stream().map(this::resolve).toList());
+    }
+
+    private Long resolve(String accountNumber) {
+        return accountNumberResolver.resolve(accountNumber)
+                .orElseThrow(() -> new ResourceNotFoundException("Account not found with number: " + accountNumber));
+    }
+
+    private static Account findLocked(List<Account> accounts, String accountNumber) {
+        for (Account account : accounts) {
+            if (account.getAccountNumber().equals(accountNumber)) {
+                return account;
+            }
+        }
+        throw new ResourceNotFoundException("Account not found with number: " + accountNumber);
+    }
+
+    /**
+     * Sleeps for a random time up to the exponential backoff of the given attempt ("full jitter"),
+     * so that colliding transfers do not retry in lock-step. Also used by the retries of
+     * {@link TransferBatchService}.
+     */
+    static void backOff(int attempt, TransferProperties.Retry retry) {
+        long ceiling = Math.min(retry.getMaxBackoff().toMillis(),
+                retry.getInitialBackoff().toMillis() << Math.min(attempt - 1, 20));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TransactionOperationException("Transaction retry interrupted.", e);
+        }
+    }
+}
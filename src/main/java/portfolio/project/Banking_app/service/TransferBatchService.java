@@ -0,0 +1,325 @@
+package portfolio.project.Banking_app.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import portfolio.project.Banking_app.config.TransferProperties;
+import portfolio.project.Banking_app.dto.TransferResult;
+import portfolio.project.Banking_app.engine.LedgerEngine;
+import portfolio.project.Banking_app.exception.InsufficientFundsException;
+import portfolio.project.Banking_app.exception.ResourceNotFoundException;
+import portfolio.project.Banking_app.exception.TransactionOperationException;
+import portfolio.project.Banking_app.repository.TransferJdbcRepository;
+import portfolio.project.Banking_app.repository.TransferJdbcRepository.LockedAccount;
+import portfolio.project.Banking_app.repository.TransferJdbcRepository.TransferRow;
+import portfolio.project.Banking_app.service.BankingMetrics.Operation;
+import portfolio.project.Banking_app.service.BankingMetrics.Outcome;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micro-batching transfer pipeline for bulk runs such as payroll and settlement.
+ * <p>
+ * Submitted transfers are queued and a single worker thread groups them into batches of up to
+ * {@code banking.transfer.batch.max-size} transfers or {@code banking.transfer.batch.max-wait}, whichever comes first.
+ * Each batch resolves the account numbers to ids, locks all involved accounts by id in one ordered
+ * {@code SELECT ... FOR UPDATE}, applies the transfers in submission order, writes balances, transaction rows
+ * and outbox events with JDBC batches and commits once. A transfer that fails
+ * on its own (unknown account, insufficient funds) is rejected individually and does not abort the rest of the batch.
+ * Every caller's future is completed only after the batch has committed.
+ * <p>
+ * The latency of each transfer, from submission until its future is completed, is recorded in {@link BankingMetrics}
+ * as operation {@code batch_transfer}.
+ * <p>
+ * Batches always credit the balance column, also of striped accounts, since the receivers are locked anyway;
+ * the stripes of a striped sender count towards its funds (see {@link StripedBalanceService}).
+ */
+@Slf4j
+@Service
+public class TransferBatchService {
+
+    private final TransferJdbcRepository transferJdbcRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TransferProperties transferProperties;
+    private final BalanceCache balanceCache;
+    private final BankingMetrics metrics;
+    private final AccountNumberResolver accountNumberResolver;
+    private final StripedBalanceService stripedBalances;
+    private final OutboxService outbox;
+    private final LedgerEngine ledgerEngine;
+    private final BlockingQueue<PendingTransfer> queue;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public TransferBatchService(TransferJdbcRepository transferJdbcRepository,
+                                TransactionTemplate transactionTemplate,
+                                TransferProperties transferProperties,
+                                BalanceCache balanceCache,
+                                BankingMetrics metrics,
+                                AccountNumberResolver accountNumberResolver,
+                                StripedBalanceService stripedBalances,
+                                OutboxService outbox,
+                                LedgerEngine ledgerEngine) {
+        this.transferJdbcRepository = transferJdbcRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.transferProperties = transferProperties;
+        this.balanceCache = balanceCache;
+        this.metrics = metrics;
+        this.accountNumberResolver = accountNumberResolver;
+        this.stripedBalances = stripedBalances;
+        this.outbox = outbox;
+        this.ledgerEngine = ledgerEngine;
+        this.queue = new ArrayBlockingQueue<>(transferProperties.getBatch().getQueueCapacity());
+        metrics.monitorBatchQueue(queue);
+    }
+
+    /**
+     * Starts the batching worker if batching is enabled.
+     */
+    @PostConstruct
+    void start() {
+        if (!transferProperties.getBatch().isEnabled()) {
+            return;
+        }
+        running = true;
+        worker = new Thread(this::drainLoop, "transfer-batcher");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Stops accepting transfers, finishes the ones already queued and stops the worker.
+     */
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        if (worker != null) {
+            worker.join(TimeUnit.SECONDS.toMillis(30));
+        }
+        PendingTransfer pending;
+        while ((pending = queue.poll()) != null) {
+            pending.future.completeExceptionally(new TransactionOperationException("Transfer pipeline is shutting down."));
+        }
+    }
+
+    /**
+     * Returns whether the batching worker is accepting transfers.
+     *
+     * @return {@code true} if {@code banking.transfer.batch.enabled} is set and the service has not been stopped.
+     */
+    public boolean isEnabled() {
+        return running;
+    }
+
+    /**
+     * Queues a transfer for the next batch.
+     *
+     * @param senderAccountNumber   The account number of the sender.
+     * @param receiverAccountNumber The account number of the receiver.
+     * @param amount                The amount of money to transfer.
+     * @return A future completed with the result once the batch containing the transfer has committed, or
+     * completed exceptionally with {@link InsufficientFundsException}, {@link ResourceNotFoundException}
+     * or {@link TransactionOperationException}, also while the {@link LedgerEngine} is enabled.
+     */
+    public CompletableFuture<TransferResult> submit(String senderAccountNumber, String receiverAccountNumber, BigDecimal amount) {
+        if (amount == null || amount.signum() <= 0) {
+            throw new IllegalArgumentException("Transfer amount must be positive.");
+        }
+        if (senderAccountNumber.equals(receiverAccountNumber)) {
+            throw new TransactionOperationException("Sender and receiver accounts must be different.");
+        }
+        if (!running) {
+            return CompletableFuture.failedFuture(new TransactionOperationException("Transfer batching is not enabled."));
+        }
+        try {
+            ledgerEngine.requireDatabaseWrites("Batched transfers");
+        } catch (TransactionOperationException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        PendingTransfer pending = new PendingTransfer(senderAccountNumber, receiverAccountNumber, amount);
+        if (!queue.offer(pending)) {
+            return CompletableFuture.failedFuture(new TransactionOperationException("Transfer queue is full."));
+        }
+        return pending.future;
+    }
+
+    private void drainLoop() {
+        TransferProperties.Batch settings = transferProperties.getBatch();
+        List<PendingTransfer> batch = new ArrayList<>(settings.getMaxSize());
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingTransfer first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + settings.getMaxWait().toNanos();
+                while (batch.size() < settings.getMaxSize()) {
+                    if (queue.drainTo(batch, settings.getMaxSize() - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    PendingTransfer next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                process(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            } catch (RuntimeException e) {
+                log.error("Transfer batch of {} failed", batch.size(), e);
+                for (PendingTransfer pending : batch) {
+                    metrics.record(Operation.BATCH_TRANSFER, Outcome.ERROR, pending.submittedAt);
+                    pending.future.completeExceptionally(new TransactionOperationException("Transfer batch failed.", e));
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Applies one batch in a single transaction, retrying the whole batch on lock conflicts after the same jittered
+     * exponential backoff as single transfers ({@code banking.transfer.retry.*}), and completes the callers' futures
+     * after commit.
+     */
+    private void process(List<PendingTransfer> batch) {
+        TransferProperties.Retry retry = transferProperties.getRetry();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> applyBatch(batch));
+                break;
+            } catch (ConcurrencyFailureException e) {
+                if (attempt >= retry.getMaxAttempts()) {
+                    throw e;
+                }
+                log.debug("Transfer batch of {} hit a lock conflict, retrying (attempt {})", batch.size(), attempt, e);
+                TransactionService.backOff(attempt, retry);
+            }
+        }
+        for (PendingTransfer pending : batch) {
+            if (pending.failure != null) {
+                metrics.record(Operation.BATCH_TRANSFER, Outcome.of(pending.failure), pending.submittedAt);
+                pending.future.completeExceptionally(pending.failure);
+            } else {
+                metrics.record(Operation.BATCH_TRANSFER, Outcome.SUCCESS, pending.submittedAt);
+                pending.future.complete(pending.result);
+            }
+        }
+        log.debug("Committed transfer batch of {}", batch.size());
+    }
+
+    private void applyBatch(List<PendingTransfer> batch) {
+        Set<String> accountNumbers = new HashSet<>();
+        for (PendingTransfer pending : batch) {
+            accountNumbers.add(pending.senderAccountNumber);
+            accountNumbers.add(pending.receiverAccountNumber);
+        }
+        Map<String, LockedAccount> accounts = lockAccounts(accountNumbers);
+        Map<Long, BigDecimal> stripes = stripedBalances.stripeTotals(
+                accounts.values().stream().map(LockedAccount::getId).toList());
+
+        LocalDateTime timestamp = LocalDateTime.now();
+        Map<Long, LockedAccount> changed = new HashMap<>();
+        List<TransferRow> rows = new ArrayList<>(batch.size());
+        for (PendingTransfer pending : batch) {
+            // Reset outcome, the batch may be applied again after a lock conflict
+            pending.result = null;
+            pending.failure = null;
+            LockedAccount sender = accounts.get(pending.senderAccountNumber);
+            LockedAccount receiver = accounts.get(pending.receiverAccountNumber);
+            if (sender == null || receiver == null) {
+                pending.failure = new ResourceNotFoundException("Account not found with number: "
+                        + (sender == null ? pending.senderAccountNumber : pending.receiverAccountNumber));
+                continue;
+            }
+            BigDecimal available = sender.getBalance().add(stripes.getOrDefault(sender.getId(), BigDecimal.ZERO));
+            if (available.compareTo(pending.amount) < 0) {
+                pending.failure = new InsufficientFundsException("Sender doesn't have sufficient balance.");
+                continue;
+            }
+            sender.setBalance(sender.getBalance().subtract(pending.amount));
+            receiver.setBalance(receiver.getBalance().add(pending.amount));
+            changed.put(sender.getId(), sender);
+            changed.put(receiver.getId(), receiver);
+            rows.add(new TransferRow(sender.getId(), receiver.getId(), pending.amount, timestamp));
+            pending.result = new TransferResult(pending.senderAccountNumber, pending.receiverAccountNumber,
+                    pending.amount, timestamp);
+        }
+
+        if (!rows.isEmpty()) {
+            transferJdbcRepository.updateBalances(changed.values());
+            transferJdbcRepository.insertTransactions(rows);
+            outbox.recordTransfers(rows);
+            balanceCache.evictAfterCommit(changed.keySet());
+        }
+    }
+
+    /**
+     * Resolves the account numbers to ids and locks the accounts, keyed by account number. Unknown numbers are left
+     * out. A cached id can only be stale if its account was deleted, in which case the row is missing; such numbers
+     * are resolved once more from the database and the accounts found then are locked as well.
+     */
+    private Map<String, LockedAccount> lockAccounts(Set<String> accountNumbers) {
+        Set<Long> ids = new HashSet<>();
+        for (String accountNumber : accountNumbers) {
+            accountNumberResolver.resolve(accountNumber).ifPresent(ids::add);
+        }
+        Map<String, LockedAccount> accounts = new HashMap<>();
+        for (LockedAccount account : transferJdbcRepository.lockByIds(ids)) {
+            accounts.put(account.getAccountNumber(), account);
+        }
+        if (accounts.size() < ids.size()) {
+            Set<Long> retry = new HashSet<>();
+            for (String accountNumber : accountNumbers) {
+                if (!accounts.containsKey(accountNumber)) {
+                    accountNumberResolver.evict(accountNumber);
+                    accountNumberResolver.resolve(accountNumber).ifPresent(retry::add);
+                }
+            }
+            if (!retry.isEmpty()) {
+                for (LockedAccount account : transferJdbcRepository.lockByIds(retry)) {
+                    accounts.put(account.getAccountNumber(), account);
+                }
+            }
+        }
+        return accounts;
+    }
+
+    /**
+     * A queued transfer together with the future of its caller.
+     */
+    private static final class PendingTransfer {
+        private final String senderAccountNumber;
+        private final String receiverAccountNumber;
+        private final BigDecimal amount;
+        private final CompletableFuture<TransferResult> future = new CompletableFuture<>();
+        private final long submittedAt = System.nanoTime();
+        private TransferResult result;
+        private RuntimeException failure;
+
+        private PendingTransfer(String senderAccountNumber, String receiverAccountNumber, BigDecimal amount) {
+            this.senderAccountNumber = senderAccountNumber;
+            this.receiverAccountNumber = receiverAccountNumber;
+            this.amount = amount;
+        }
+    }
+}
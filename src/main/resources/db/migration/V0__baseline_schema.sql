@@ -0,0 +1,30 @@
+-- The schema as it was before the first migration, so Flyway can build a new database from scratch. Existing
+-- databases are baselined at version 0 (spring.flyway.baseline-on-migrate) and skip this script.
+
+CREATE TABLE IF NOT EXISTS users (
+    id        bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    username  varchar(255),
+    password  varchar(255),
+    full_name varchar(255),
+    email     varchar(255),
+    birthdate bytea,
+    CONSTRAINT username UNIQUE (username)
+);
+
+CREATE TABLE IF NOT EXISTS accounts (
+    id                     bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    account_number         varchar(255) NOT NULL UNIQUE,
+    pin                    varchar(255),
+    account_login_number   varchar(255) NOT NULL UNIQUE,
+    account_login_password varchar(255),
+    balance                numeric(38, 2),
+    user_id                bigint       NOT NULL REFERENCES users (id)
+);
+
+CREATE TABLE IF NOT EXISTS transactions (
+    id          bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    amount      numeric(38, 2),
+    timestamp   timestamp(6),
+    sender_id   bigint NOT NULL REFERENCES accounts (id),
+    receiver_id bigint NOT NULL REFERENCES accounts (id)
+);
@@ -0,0 +1,27 @@
+-- Indexes for transaction search (see TransactionSearchJdbcRepository).
+
+-- The history indexes become covering: a search by account filters on the counterparty and the amount inside the
+-- index and reads the page with an index-only scan. Built under a temporary name, then swapped in.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_transactions_sender_timestamp_id_covering
+    ON transactions (sender_id, timestamp, id) INCLUDE (receiver_id, amount);
+DROP INDEX CONCURRENTLY IF EXISTS idx_transactions_sender_timestamp_id;
+ALTER INDEX idx_transactions_sender_timestamp_id_covering RENAME TO idx_transactions_sender_timestamp_id;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_transactions_receiver_timestamp_id_covering
+    ON transactions (receiver_id, timestamp, id) INCLUDE (sender_id, amount);
+DROP INDEX CONCURRENTLY IF EXISTS idx_transactions_receiver_timestamp_id;
+ALTER INDEX idx_transactions_receiver_timestamp_id_covering RENAME TO idx_transactions_receiver_timestamp_id;
+
+-- Searches without an account: a date range, or an exact amount in timestamp order
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_transactions_timestamp_id
+    ON transactions (timestamp, id);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_transactions_amount_timestamp_id
+    ON transactions (amount, timestamp, id);
+
+-- Account holder name prefix, matched case-insensitively, and the accounts of the matched holders
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_users_full_name_prefix
+    ON users (lower(full_name) text_pattern_ops);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_accounts_user_id
+    ON accounts (user_id);
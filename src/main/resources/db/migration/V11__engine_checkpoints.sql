@@ -0,0 +1,6 @@
+-- Write-behind checkpoint of the in-memory ledger engine (see EngineCheckpoint and LedgerEngine).
+
+CREATE TABLE IF NOT EXISTS engine_checkpoints (
+    name     varchar(32) NOT NULL PRIMARY KEY,
+    sequence bigint      NOT NULL
+);
@@ -0,0 +1,102 @@
+-- Monthly range partitioning of transactions on timestamp, and the catalog of archived partitions
+-- (see TransactionPartitionService and TransactionArchive).
+--
+-- The existing table becomes the partition transactions_legacy, holding every row before the first monthly
+-- partition, attached without rewriting or rescanning it: the unique index the primary key needs and a validated
+-- CHECK constraint implying the partition bound are prepared while the table stays writable, so the final step only
+-- takes a short exclusive lock. An empty table is dropped instead. The bound lies two months ahead, so writes keep
+-- satisfying the CHECK constraint until the conversion has run; the application creates the monthly partitions
+-- after it. Run outside a transaction block, like the other CONCURRENTLY migrations.
+
+-- The primary key of a partitioned table must include the partition key
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS transactions_id_timestamp_key
+    ON transactions (id, timestamp);
+
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = 'transactions'::regclass)
+            AND NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'transactions_legacy_bound')
+            AND EXISTS (SELECT 1 FROM transactions) THEN
+        EXECUTE format('ALTER TABLE transactions ADD CONSTRAINT transactions_legacy_bound '
+                           'CHECK (timestamp IS NOT NULL AND timestamp < %L) NOT VALID',
+                       date_trunc('month', localtimestamp) + interval '2 months');
+    END IF;
+END
+$$;
+
+-- Scans the table under a lock that lets reads and writes go on
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'transactions_legacy_bound' AND NOT convalidated) THEN
+        EXECUTE 'ALTER TABLE transactions VALIDATE CONSTRAINT transactions_legacy_bound';
+    END IF;
+END
+$$;
+
+DO $$
+DECLARE
+    bound timestamp;
+    first_day timestamp;
+BEGIN
+    IF EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = 'transactions'::regclass) THEN
+        RETURN;
+    END IF;
+    SET LOCAL lock_timeout = '5s';
+    LOCK TABLE transactions IN ACCESS EXCLUSIVE MODE;
+
+    ALTER TABLE transactions RENAME TO transactions_legacy;
+    ALTER TABLE transactions_legacy RENAME CONSTRAINT transactions_pkey TO transactions_legacy_id_key;
+    ALTER INDEX IF EXISTS idx_transactions_sender_timestamp_id RENAME TO transactions_legacy_sender_timestamp_id;
+    ALTER INDEX IF EXISTS idx_transactions_receiver_timestamp_id RENAME TO transactions_legacy_receiver_timestamp_id;
+    ALTER INDEX IF EXISTS idx_transactions_timestamp_id RENAME TO transactions_legacy_timestamp_id;
+    ALTER INDEX IF EXISTS idx_transactions_amount_timestamp_id RENAME TO transactions_legacy_amount_timestamp_id;
+
+    CREATE TABLE transactions (LIKE transactions_legacy INCLUDING DEFAULTS) PARTITION BY RANGE (timestamp);
+    ALTER TABLE transactions ADD PRIMARY KEY (id, timestamp);
+    ALTER TABLE transactions ADD CONSTRAINT transactions_sender_id_fkey
+        FOREIGN KEY (sender_id) REFERENCES accounts (id);
+    ALTER TABLE transactions ADD CONSTRAINT transactions_receiver_id_fkey
+        FOREIGN KEY (receiver_id) REFERENCES accounts (id);
+    CREATE INDEX idx_transactions_sender_timestamp_id
+        ON transactions (sender_id, timestamp, id) INCLUDE (receiver_id, amount);
+    CREATE INDEX idx_transactions_receiver_timestamp_id
+        ON transactions (receiver_id, timestamp, id) INCLUDE (sender_id, amount);
+    CREATE INDEX idx_transactions_timestamp_id ON transactions (timestamp, id);
+    CREATE INDEX idx_transactions_amount_timestamp_id ON transactions (amount, timestamp, id);
+
+    IF EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'transactions_legacy_bound') THEN
+        SELECT substring(pg_get_constraintdef(oid) FROM '''([^'']+)''')::timestamp INTO bound
+        FROM pg_constraint WHERE conname = 'transactions_legacy_bound';
+    ELSIF EXISTS (SELECT 1 FROM transactions_legacy) THEN
+        -- Written to after the checks above found it empty; few enough rows to scan while attaching
+        bound := date_trunc('month', localtimestamp) + interval '2 months';
+    END IF;
+
+    IF bound IS NOT NULL THEN
+        -- The partition key must be NOT NULL like in the new table; the validated bound implies it, so no scan
+        ALTER TABLE transactions_legacy ALTER COLUMN timestamp SET NOT NULL;
+        -- A partition cannot keep a primary key of its own; the (id, timestamp) index becomes its part of the new one
+        ALTER TABLE transactions_legacy DROP CONSTRAINT transactions_legacy_id_key;
+        -- Matching indexes and foreign keys of the old table are attached to those of the new one, not rebuilt
+        EXECUTE format('ALTER TABLE transactions ATTACH PARTITION transactions_legacy '
+                           'FOR VALUES FROM (MINVALUE) TO (%L)', bound);
+    ELSE
+        DROP TABLE transactions_legacy;
+        first_day := date_trunc('month', localtimestamp);
+        FOR i IN 0..1 LOOP
+            EXECUTE format('CREATE TABLE %I PARTITION OF transactions FOR VALUES FROM (%L) TO (%L)',
+                           'transactions_p' || to_char(first_day, 'YYYYMM'), first_day, first_day + interval '1 month');
+            first_day := first_day + interval '1 month';
+        END LOOP;
+    END IF;
+END
+$$;
+
+CREATE TABLE IF NOT EXISTS transaction_archives (
+    partition_name varchar(63)  NOT NULL PRIMARY KEY,
+    range_start    timestamp(6) NOT NULL,
+    range_end      timestamp(6) NOT NULL,
+    parts          integer      NOT NULL,
+    row_count      bigint       NOT NULL,
+    archived_at    timestamp(6) NOT NULL
+);
@@ -0,0 +1,18 @@
+-- Replaces IDENTITY primary keys with sequences so Hibernate can batch inserts.
+-- Each sequence value reserves a block of 50 ids (Hibernate "pooled-lo" optimizer),
+-- so the increment must match the allocationSize of the entity mappings.
+
+CREATE SEQUENCE IF NOT EXISTS users_seq INCREMENT BY 50;
+SELECT setval('users_seq', COALESCE((SELECT MAX(id) FROM users), 0) + 1, false);
+ALTER TABLE users ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE users ALTER COLUMN id SET DEFAULT nextval('users_seq');
+
+CREATE SEQUENCE IF NOT EXISTS accounts_seq INCREMENT BY 50;
+SELECT setval('accounts_seq', COALESCE((SELECT MAX(id) FROM accounts), 0) + 1, false);
+ALTER TABLE accounts ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE accounts ALTER COLUMN id SET DEFAULT nextval('accounts_seq');
+
+CREATE SEQUENCE IF NOT EXISTS transactions_seq INCREMENT BY 50;
+SELECT setval('transactions_seq', COALESCE((SELECT MAX(id) FROM transactions), 0) + 1, false);
+ALTER TABLE transactions ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE transactions ALTER COLUMN id SET DEFAULT nextval('transactions_seq');
@@ -0,0 +1,8 @@
+-- Composite indexes for keyset-paginated transaction history (see TransactionRepository).
+-- They also replace the single-column foreign key lookups on sender_id and receiver_id.
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_transactions_sender_timestamp_id
+    ON transactions (sender_id, timestamp, id);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_transactions_receiver_timestamp_id
+    ON transactions (receiver_id, timestamp, id);
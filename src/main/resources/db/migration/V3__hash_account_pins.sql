@@ -0,0 +1,8 @@
+-- PINs are now stored as BCrypt hashes (see PinService). Hash the remaining plaintext PINs in place.
+-- pgcrypto's 'bf' algorithm produces $2a$ hashes, which Spring Security's BCryptPasswordEncoder verifies.
+
+CREATE EXTENSION IF NOT EXISTS pgcrypto;
+
+UPDATE accounts
+SET pin = crypt(pin, gen_salt('bf', 10))
+WHERE pin !~ '^\$2[aby]\$';
@@ -0,0 +1,19 @@
+-- Unique index backing account number lookups (AccountNumberResolver, findByAccountNumber).
+-- Schemas created before the unique constraint on accounts.account_number was fixed have no such index.
+-- The index is only created when no single-column unique index on account_number exists yet.
+
+DO $$
+BEGIN
+    IF NOT EXISTS (
+        SELECT 1
+        FROM pg_index i
+                 JOIN pg_attribute a ON a.attrelid = i.indrelid AND a.attnum = i.indkey[0]
+        WHERE i.indrelid = 'accounts'::regclass
+          AND i.indisunique
+          AND i.indnkeyatts = 1
+          AND a.attname = 'account_number'
+    ) THEN
+        CREATE UNIQUE INDEX idx_accounts_account_number ON accounts (account_number);
+    END IF;
+END
+$$;
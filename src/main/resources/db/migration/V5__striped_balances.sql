@@ -0,0 +1,11 @@
+-- Striped balances for accounts with many concurrent credits (see AccountBalanceStripe and StripedBalanceService).
+-- The balance of an account is accounts.balance plus the sum of its stripes.
+
+ALTER TABLE accounts ADD COLUMN IF NOT EXISTS striped boolean NOT NULL DEFAULT false;
+
+CREATE TABLE IF NOT EXISTS account_balance_stripes (
+    account_id bigint         NOT NULL REFERENCES accounts (id) ON DELETE CASCADE,
+    stripe     integer        NOT NULL,
+    balance    numeric(38, 2) NOT NULL,
+    PRIMARY KEY (account_id, stripe)
+);
@@ -0,0 +1,13 @@
+-- Checkpoints of the partitioned end-of-day interest and fee run (see EndOfDayPartition and EndOfDayService).
+
+CREATE TABLE IF NOT EXISTS eod_partitions (
+    business_date date         NOT NULL,
+    partition_no  integer      NOT NULL,
+    from_id       bigint       NOT NULL,
+    to_id         bigint       NOT NULL,
+    last_id       bigint       NOT NULL,
+    status        varchar(16)  NOT NULL,
+    processed     bigint       NOT NULL,
+    finished_at   timestamp(6),
+    PRIMARY KEY (business_date, partition_no)
+);
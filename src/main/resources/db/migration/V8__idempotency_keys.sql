@@ -0,0 +1,10 @@
+-- Idempotency keys of deposit and withdrawal requests (see IdempotencyKey and IdempotencyService).
+
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    idempotency_key varchar(128) NOT NULL PRIMARY KEY,
+    fingerprint     varchar(256) NOT NULL,
+    response_status integer,
+    response_body   text,
+    created_at      timestamp(6) NOT NULL
+);
+CREATE INDEX IF NOT EXISTS idx_idempotency_keys_created_at ON idempotency_keys (created_at);
@@ -0,0 +1,12 @@
+-- Transactional outbox of balance change events (see OutboxEvent and OutboxRelay).
+-- The sequence is deliberately not pooled: ids are drawn while the account row is locked, so they follow the
+-- order of each account's changes.
+
+CREATE SEQUENCE IF NOT EXISTS outbox_events_seq INCREMENT BY 1;
+CREATE TABLE IF NOT EXISTS outbox_events (
+    id         bigint       NOT NULL DEFAULT nextval('outbox_events_seq') PRIMARY KEY,
+    account_id bigint       NOT NULL,
+    type       varchar(16)  NOT NULL,
+    payload    text         NOT NULL,
+    created_at timestamp(6) NOT NULL
+);
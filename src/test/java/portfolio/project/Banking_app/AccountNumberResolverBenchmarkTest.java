@@ -0,0 +1,101 @@
+package portfolio.project.Banking_app;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import portfolio.project.Banking_app.repository.AccountRepository;
+import portfolio.project.Banking_app.service.AccountNumberResolver;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares the cost of resolving the two account numbers of a transfer with a database lookup per number
+ * (as transfers did before) and with the {@link AccountNumberResolver}, on a table of 10 million accounts.
+ * Lookups draw from the first million accounts, which the warmed resolver holds.
+ */
+@Slf4j
+@Tag("perf")
+@IntegrationTest
+class AccountNumberResolverBenchmarkTest {
+
+    private static final int ACCOUNTS = 10_000_000;
+    private static final int ACTIVE_ACCOUNTS = 1_000_000;
+    private static final int WARMUP = 10_000;
+    private static final int TRANSFERS = 100_000;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private AccountNumberResolver accountNumberResolver;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Seeds 10 million accounts in one statement.
+     */
+    @BeforeEach
+    void setUp() {
+        TestData.clear(jdbcTemplate);
+        long userId = TestData.createUser(jdbcTemplate, "resolver-bench");
+        jdbcTemplate.update("INSERT INTO accounts (id, account_number, pin, account_login_number, account_login_password, balance, user_id) "
+                + "SELECT nextval('accounts_seq'), 'RES-' || n, 'x', 'login-' || n, 'password', 0, ? "
+                + "FROM generate_series(0, ?) AS n", userId, ACCOUNTS - 1);
+        jdbcTemplate.execute("ANALYZE accounts");
+        accountNumberResolver.evictAll();
+    }
+
+    /**
+     * Drops the 10 million accounts and the cached numbers, so other tests start from a small table.
+     */
+    @AfterEach
+    void tearDown() {
+        TestData.clear(jdbcTemplate);
+        accountNumberResolver.evictAll();
+    }
+
+    /**
+     * Resolves the sender and receiver of 100k transfers both ways and reports the latency per transfer.
+     */
+    @Test
+    @DisplayName("Account Number Lookup Cost Per Transfer, Database vs Resolver")
+    void resolveAccountNumbers_ShouldReportCostPerTransfer() {
+        Latencies database = run(WARMUP, TRANSFERS, true);
+
+        long warmStart = System.nanoTime();
+        long cached = accountNumberResolver.warm();
+        log.info("Warmed {} account numbers in {} ms", cached, (System.nanoTime() - warmStart) / 1_000_000);
+        Latencies resolver = run(WARMUP, TRANSFERS, false);
+
+        log.info("Lookups per transfer, database: {}", database.summary());
+        log.info("Lookups per transfer, resolver: {}", resolver.summary());
+        assertTrue(resolver.percentileMicros(50) < database.percentileMicros(50), "Resolver must be cheaper than a query");
+    }
+
+    private Latencies run(int warmup, int transfers, boolean fromDatabase) {
+        Latencies latencies = new Latencies(transfers);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < warmup + transfers; i++) {
+            String sender = "RES-" + random.nextInt(ACTIVE_ACCOUNTS);
+            String receiver = "RES-" + random.nextInt(ACTIVE_ACCOUNTS);
+            long start = System.nanoTime();
+            boolean found = fromDatabase
+                    ? accountRepository.findIdByAccountNumber(sender).isPresent() && accountRepository.findIdByAccountNumber(receiver).isPresent()
+                    : accountNumberResolver.resolve(sender).isPresent() && accountNumberResolver.resolve(receiver).isPresent();
+            long elapsed = System.nanoTime() - start;
+            assertTrue(found, "Seeded account numbers must resolve");
+            if (i >= warmup) {
+                latencies.record(elapsed);
+            }
+        }
+        return latencies;
+    }
+}
@@ -0,0 +1,104 @@
+package portfolio.project.Banking_app;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+import portfolio.project.Banking_app.config.AccountResolverProperties;
+import portfolio.project.Banking_app.repository.AccountRepository;
+import portfolio.project.Banking_app.service.AccountNumberResolver;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class for the evictions of {@link AccountNumberResolver} inside a transaction, as {@code AccountService} runs
+ * them when it deletes or renumbers an account.
+ */
+class AccountNumberResolverTest {
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private AccountNumberResolver accountNumberResolver;
+
+    private AutoCloseable mocks;
+
+    /**
+     * Set up method to build the resolver on the mocked repository and start transaction synchronization, as an
+     * open transaction would.
+     */
+    @BeforeEach
+    void setUp() {
+        mocks = MockitoAnnotations.openMocks(this);
+        accountNumberResolver = new AccountNumberResolver(accountRepository, new AccountResolverProperties(),
+                transactionManager, new SimpleMeterRegistry());
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        TransactionSynchronizationManager.clearSynchronization();
+        mocks.close();
+    }
+
+    /**
+     * Test method to verify that a number evicted inside a transaction stays cached until the transaction commits,
+     * and is looked up again afterwards.
+     */
+    @Test
+    @DisplayName("Number Is Evicted After Commit")
+    void evictAfterCommit_ShouldEvictOnCommit() {
+        // Arrange
+        when(accountRepository.findIdByAccountNumber("ACC-1")).thenReturn(Optional.of(7L));
+        accountNumberResolver.resolve("ACC-1");
+
+        // Act
+        accountNumberResolver.evictAfterCommit("ACC-1");
+        Optional<Long> beforeCommit = accountNumberResolver.resolve("ACC-1");
+        when(accountRepository.findIdByAccountNumber("ACC-1")).thenReturn(Optional.empty());
+        TransactionSynchronizationUtils.invokeAfterCommit(TransactionSynchronizationManager.getSynchronizations());
+        Optional<Long> afterCommit = accountNumberResolver.resolve("ACC-1");
+
+        // Assert
+        assertEquals(Optional.of(7L), beforeCommit, "The number must stay cached while the transaction may roll back");
+        assertEquals(Optional.empty(), afterCommit, "The number must be looked up again after the commit");
+        verify(accountRepository, times(2)).findIdByAccountNumber("ACC-1");
+    }
+
+    /**
+     * Test method to verify that a number evicted inside a transaction that rolls back stays cached, since the
+     * account still has it.
+     */
+    @Test
+    @DisplayName("Number Stays Cached After Rollback")
+    void evictAfterCommit_ShouldKeepNumberOnRollback() {
+        // Arrange
+        when(accountRepository.findIdByAccountNumber("ACC-1")).thenReturn(Optional.of(7L));
+        accountNumberResolver.resolve("ACC-1");
+
+        // Act
+        accountNumberResolver.evictAfterCommit("ACC-1");
+        TransactionSynchronizationUtils.invokeAfterCompletion(TransactionSynchronizationManager.getSynchronizations(),
+                TransactionSynchronization.STATUS_ROLLED_BACK);
+        Optional<Long> afterRollback = accountNumberResolver.resolve("ACC-1");
+
+        // Assert
+        assertEquals(Optional.of(7L), afterRollback);
+        verify(accountRepository, times(1)).findIdByAccountNumber("ACC-1");
+    }
+}
@@ -7,15 +7,34 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import portfolio.project.Banking_app.config.BalanceCacheProperties;
+import portfolio.project.Banking_app.config.BankingMetricsProperties;
+import portfolio.project.Banking_app.engine.LedgerEngine;
 import portfolio.project.Banking_app.entity.Account;
+import portfolio.project.Banking_app.exception.InsufficientFundsException;
+import portfolio.project.Banking_app.exception.ResourceNotFoundException;
+import portfolio.project.Banking_app.exception.TransactionOperationException;
 import portfolio.project.Banking_app.repository.AccountRepository;
+import portfolio.project.Banking_app.service.AccountNumberResolver;
 import portfolio.project.Banking_app.service.AccountService;
+import portfolio.project.Banking_app.service.BalanceCache;
+import portfolio.project.Banking_app.service.BankingMetrics;
+import portfolio.project.Banking_app.service.OutboxService;
+import portfolio.project.Banking_app.service.StripedBalanceService;
 
 import java.math.BigDecimal;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -26,6 +45,26 @@ class AccountServiceTest {
     @Mock
     private AccountRepository accountRepository;
 
+    @Mock
+    private AccountNumberResolver accountNumberResolver;
+
+    @Mock
+    private StripedBalanceService stripedBalances;
+
+    @Mock
+    private OutboxService outbox;
+
+    @Mock
+    private LedgerEngine ledgerEngine;
+
+    @Spy
+    private BalanceCache balanceCache = new BalanceCache(new BalanceCacheProperties(), new SimpleMeterRegistry());
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private BankingMetrics metrics = new BankingMetrics(meterRegistry, new BankingMetricsProperties());
+
     @InjectMocks
     private AccountService accountService;
 
@@ -49,6 +88,7 @@ class AccountServiceTest {
 
         // Stubbing behavior for accountRepository
         when(accountRepository.findById(anyLong())).thenReturn(Optional.of(testAccount));
+        when(accountRepository.findBalanceById(anyLong())).thenReturn(Optional.of(testAccount.getBalance()));
     }
 
 
@@ -69,6 +109,57 @@ class AccountServiceTest {
         assertEquals(testAccount, savedAccount, "Saved account should be equal to the test account");
     }
 
+    /**
+     * Test method to verify that renumbering an account evicts both its previous and its new number from the
+     * resolver after commit.
+     */
+    @Test
+    @DisplayName("Renumbering Account Evicts Both Numbers")
+    void saveAccount_Renumbered_ShouldEvictPreviousNumber() {
+        // Arrange
+        when(accountRepository.findAccountNumberById(1L)).thenReturn(Optional.of("987654321"));
+        when(accountRepository.save(testAccount)).thenReturn(testAccount);
+
+        // Act
+        accountService.saveAccount(testAccount);
+
+        // Assert
+        verify(accountNumberResolver).evictAfterCommit("987654321");
+        verify(accountNumberResolver).evictAfterCommit("123456789");
+    }
+
+    /**
+     * Test method to verify that deleting an account evicts its number from the resolver after commit.
+     */
+    @Test
+    @DisplayName("Deleting Account Evicts Its Number")
+    void deleteAccount_ShouldEvictNumber() {
+        // Arrange
+        when(accountRepository.findAccountNumberById(1L)).thenReturn(Optional.of("123456789"));
+
+        // Act
+        accountService.deleteAccount(1L);
+
+        // Assert
+        verify(accountNumberResolver).evictAfterCommit("123456789");
+        verify(accountRepository).deleteById(1L);
+    }
+
+    /**
+     * Test method to verify that accounts cannot be deleted while the ledger engine holds their balances.
+     */
+    @Test
+    @DisplayName("Deleting Account Is Rejected While The Ledger Engine Is Enabled")
+    void deleteAccount_EngineEnabled_ShouldBeRejected() {
+        // Arrange
+        doThrow(new TransactionOperationException("Account deletions are not available"))
+                .when(ledgerEngine).requireDatabaseWrites("Account deletions");
+
+        // Act & Assert
+        assertThrows(TransactionOperationException.class, () -> accountService.deleteAccount(1L));
+        verify(accountRepository, never()).deleteById(anyLong());
+    }
+
     /**
      * Test method to verify the behavior of retrieving an account by ID when the ID exists.
      */
@@ -108,11 +199,28 @@ class AccountServiceTest {
         BigDecimal depositAmount = BigDecimal.valueOf(500);
         BigDecimal expectedBalance = testAccount.getBalance().add(depositAmount);
 
+        when(accountRepository.depositAndGetBalance(1L, depositAmount)).thenReturn(Optional.of(expectedBalance));
+
         // Act
-        accountService.deposit(1L, depositAmount);
+        BigDecimal newBalance = accountService.deposit(1L, depositAmount);
 
         // Assert
-        assertEquals(expectedBalance, testAccount.getBalance(), "Balance should increase after deposit");
+        assertEquals(expectedBalance, newBalance, "Balance should increase after deposit");
+    }
+
+    /**
+     * Test method to verify the behavior of depositing into a non-existing account.
+     */
+    @Test
+    @DisplayName("Depositing Into Non-Existing Account Should Throw Exception")
+    void deposit_NonExistingAccount_ShouldThrowException() {
+        // Arrange
+        BigDecimal depositAmount = BigDecimal.valueOf(500);
+        when(accountRepository.depositAndGetBalance(2L, depositAmount)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThrows(ResourceNotFoundException.class, () -> accountService.deposit(2L, depositAmount),
+                "Exception should be thrown for a non-existing account");
     }
 
     /**
@@ -125,11 +233,13 @@ class AccountServiceTest {
         BigDecimal withdrawAmount = BigDecimal.valueOf(500);
         BigDecimal expectedBalance = testAccount.getBalance().subtract(withdrawAmount);
 
+        when(accountRepository.withdrawAndGetBalance(1L, withdrawAmount)).thenReturn(Optional.of(expectedBalance));
+
         // Act
-        accountService.withdraw(1L, withdrawAmount);
+        BigDecimal newBalance = accountService.withdraw(1L, withdrawAmount);
 
         // Assert
-        assertEquals(expectedBalance, testAccount.getBalance(), "Balance should decrease after withdrawal");
+        assertEquals(expectedBalance, newBalance, "Balance should decrease after withdrawal");
     }
 
     /**
@@ -140,12 +250,62 @@ class AccountServiceTest {
     void withdraw_InsufficientFunds_ShouldThrowException() {
         // Arrange
         BigDecimal withdrawAmount = BigDecimal.valueOf(1500);
+        when(accountRepository.withdrawAndGetBalance(1L, withdrawAmount)).thenReturn(Optional.empty());
+        when(accountRepository.existsById(1L)).thenReturn(true);
 
         // Act & Assert
         assertThrows(IllegalArgumentException.class, () -> accountService.withdraw(1L, withdrawAmount),
                 "Exception should be thrown for insufficient funds");
     }
 
+    /**
+     * Test method to verify that withdrawals are counted by outcome.
+     */
+    @Test
+    @DisplayName("Withdrawals Are Recorded By Outcome")
+    void withdraw_ShouldRecordOutcome() {
+        // Arrange
+        when(accountRepository.withdrawAndGetBalance(1L, BigDecimal.TEN)).thenReturn(Optional.of(BigDecimal.valueOf(990)));
+        when(accountRepository.withdrawAndGetBalance(1L, BigDecimal.valueOf(1500))).thenReturn(Optional.empty());
+        when(accountRepository.existsById(1L)).thenReturn(true);
+
+        // Act
+        accountService.withdraw(1L, BigDecimal.TEN);
+        assertThrows(IllegalArgumentException.class, () -> accountService.withdraw(1L, BigDecimal.valueOf(1500)));
+
+        // Assert
+        assertEquals(1, meterRegistry.get("banking.operation").tags("operation", "withdraw", "outcome", "success").timer().count());
+        assertEquals(1, meterRegistry.get("banking.operation").tags("operation", "withdraw", "outcome", "insufficient_funds").timer().count());
+    }
+
+    /**
+     * Test method to verify that while the ledger engine is enabled, deposits and withdrawals are submitted to the
+     * engine and leave the database to its write-behind.
+     */
+    @Test
+    @DisplayName("Deposits And Withdrawals Go Through The Ledger Engine While It Is Enabled")
+    void depositAndWithdraw_EngineEnabled_ShouldSubmitToEngine() {
+        // Arrange
+        when(ledgerEngine.isEnabled()).thenReturn(true);
+        when(ledgerEngine.deposit(1L, BigDecimal.TEN)).thenReturn(CompletableFuture.completedFuture(BigDecimal.valueOf(1010)));
+        when(ledgerEngine.withdraw(1L, BigDecimal.ONE)).thenReturn(CompletableFuture.completedFuture(BigDecimal.valueOf(1009)));
+        when(ledgerEngine.withdraw(1L, BigDecimal.valueOf(1500))).thenReturn(CompletableFuture.failedFuture(
+                new InsufficientFundsException("Insufficient funds")));
+
+        // Act
+        BigDecimal deposited = accountService.deposit(1L, BigDecimal.TEN);
+        BigDecimal withdrawn = accountService.withdraw(1L, BigDecimal.ONE);
+
+        // Assert
+        assertEquals(BigDecimal.valueOf(1010), deposited);
+        assertEquals(BigDecimal.valueOf(1009), withdrawn);
+        assertThrows(InsufficientFundsException.class, () -> accountService.withdraw(1L, BigDecimal.valueOf(1500)));
+        verify(accountRepository, never()).depositAndGetBalance(anyLong(), any());
+        verify(accountRepository, never()).withdrawAndGetBalance(anyLong(), any());
+        verify(outbox, never()).recordDeposit(anyLong(), any());
+        assertEquals(1, meterRegistry.get("banking.operation").tags("operation", "withdraw", "outcome", "insufficient_funds").timer().count());
+    }
+
     /**
      * Test method to verify the behavior of checking the balance of an existing account.
      */
@@ -159,6 +319,25 @@ class AccountServiceTest {
         assertEquals(testAccount.getBalance(), balance, "Balance should be equal to the test account's balance");
     }
 
+    /**
+     * Test method to verify that repeated balance checks are served from the cache until a deposit evicts the entry.
+     */
+    @Test
+    @DisplayName("Checking Balance Is Cached Until Balance Changes")
+    void checkBalance_Repeated_ShouldReadDatabaseOncePerChange() {
+        // Arrange
+        when(accountRepository.depositAndGetBalance(1L, BigDecimal.TEN)).thenReturn(Optional.of(BigDecimal.valueOf(1010)));
+
+        // Act
+        accountService.checkBalance(1L);
+        accountService.checkBalance(1L);
+        accountService.deposit(1L, BigDecimal.TEN);
+        accountService.checkBalance(1L);
+
+        // Assert
+        verify(accountRepository, times(2)).findBalanceById(1L);
+    }
+
     /**
      * Test method to verify the behavior of checking the balance of a non-existing account.
      */
@@ -166,11 +345,34 @@ class AccountServiceTest {
     @DisplayName("Checking Balance of Non-Existing Account Should Throw Exception")
     void checkBalance_NonExistingAccount_ShouldThrowException() {
         // Arrange - Stubbing behavior for accountRepository
-        when(accountRepository.findById(anyLong())).thenReturn(Optional.empty());
+        when(accountRepository.findBalanceById(anyLong())).thenReturn(Optional.empty());
 
         // Act & Assert
-        assertThrows(IllegalArgumentException.class, () -> {
+        assertThrows(ResourceNotFoundException.class, () -> {
             accountService.checkBalance(2L);
-        }, "Expected IllegalArgumentException was not thrown");
+        }, "Expected ResourceNotFoundException was not thrown");
+        assertEquals(1, meterRegistry.get("banking.operation").tags("operation", "check_balance", "outcome", "not_found").timer().count());
+    }
+
+    /**
+     * Test method to verify that while the ledger engine is enabled, balances are read from the engine rather than
+     * from the database, which lags behind it.
+     */
+    @Test
+    @DisplayName("Checking Balance Reads The Ledger Engine While It Is Enabled")
+    void checkBalance_EngineEnabled_ShouldReadEngine() {
+        // Arrange
+        when(ledgerEngine.isEnabled()).thenReturn(true);
+        when(ledgerEngine.balance(1L)).thenReturn(CompletableFuture.completedFuture(BigDecimal.valueOf(750)));
+        when(ledgerEngine.balance(2L)).thenReturn(CompletableFuture.failedFuture(
+                new ResourceNotFoundException("Account not found with id: 2")));
+
+        // Act
+        BigDecimal balance = accountService.checkBalance(1L);
+
+        // Assert
+        assertEquals(BigDecimal.valueOf(750), balance);
+        assertThrows(ResourceNotFoundException.class, () -> accountService.checkBalance(2L));
+        verify(accountRepository, never()).findBalanceById(anyLong());
     }
 }
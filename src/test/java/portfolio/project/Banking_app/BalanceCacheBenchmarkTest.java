@@ -0,0 +1,83 @@
+package portfolio.project.Banking_app;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import portfolio.project.Banking_app.service.AccountService;
+import portfolio.project.Banking_app.service.BalanceCache;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares the latency of {@link AccountService#checkBalance} with and without the {@link BalanceCache}.
+ * The uncached run evicts the entry before every call, so each call takes the database path.
+ */
+@Slf4j
+@Tag("perf")
+@IntegrationTest
+class BalanceCacheBenchmarkTest {
+
+    private static final int WARMUP = 5_000;
+    private static final int CALLS = 50_000;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private BalanceCache balanceCache;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long accountId;
+
+    /**
+     * Seeds the polled account.
+     */
+    @BeforeEach
+    void setUp() {
+        TestData.clear(jdbcTemplate);
+        long userId = TestData.createUser(jdbcTemplate, "cache-bench");
+        accountId = TestData.createAccount(jdbcTemplate, userId, "CACHE-1", BigDecimal.valueOf(100));
+    }
+
+    /**
+     * Polls one balance repeatedly with and without the cache and reports latency percentiles.
+     */
+    @Test
+    @DisplayName("checkBalance Latency With And Without Cache")
+    void checkBalance_ShouldReportLatencyWithAndWithoutCache() {
+        Latencies uncached = run(true);
+        Latencies cached = run(false);
+
+        log.info("checkBalance without cache: {}", uncached.summary());
+        log.info("checkBalance with cache:    {}", cached.summary());
+        log.info("Balance cache stats: {}", balanceCache.stats());
+        assertTrue(cached.percentileMicros(99) < uncached.percentileMicros(99), "Cache must lower p99 latency");
+    }
+
+    private Latencies run(boolean evictEveryCall) {
+        for (int i = 0; i < WARMUP; i++) {
+            if (evictEveryCall) {
+                balanceCache.evictAll();
+            }
+            accountService.checkBalance(accountId);
+        }
+        Latencies latencies = new Latencies(CALLS);
+        for (int i = 0; i < CALLS; i++) {
+            if (evictEveryCall) {
+                balanceCache.evictAll();
+            }
+            long start = System.nanoTime();
+            accountService.checkBalance(accountId);
+            latencies.record(System.nanoTime() - start);
+        }
+        return latencies;
+    }
+}
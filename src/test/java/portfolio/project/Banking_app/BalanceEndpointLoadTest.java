@@ -0,0 +1,145 @@
+package portfolio.project.Banking_app;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * HTTP load test of {@code GET /api/accounts/{id}/balance} with 10k concurrent connections.
+ * <p>
+ * Every connection is a closed-loop client that sends its next request as soon as the previous response arrives.
+ * The balance cache is disabled by the {@code load} profile, so every request blocks on a JDBC round trip.
+ * Subclasses run the same load in platform-thread and virtual-thread mode; compare the logged throughput and p99.
+ * The client and the server share one JVM and need two file descriptors per connection ({@code ulimit -n}); where
+ * fewer are available, lower the number of connections with {@code -Dload.connections=8000}.
+ */
+@Slf4j
+abstract class BalanceEndpointLoadTest {
+
+    private static final int CONNECTIONS = Integer.getInteger("load.connections", 10_000);
+    private static final int REQUESTS_PER_CONNECTION = 20;
+    private static final int ACCOUNTS = 1_000;
+    private static final String USERNAME = "load";
+    private static final String PASSWORD = "load";
+    private static final String AUTHORIZATION = "Basic "
+            + Base64.getEncoder().encodeToString((USERNAME + ":" + PASSWORD).getBytes(StandardCharsets.UTF_8));
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long[] accountIds;
+
+    /**
+     * Seeds the accounts whose balances are read.
+     */
+    @BeforeEach
+    void setUp() {
+        TestData.clear(jdbcTemplate);
+        long userId = TestData.createUser(jdbcTemplate, "load");
+        accountIds = new long[ACCOUNTS];
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accountIds[i] = TestData.createAccount(jdbcTemplate, userId, "LOAD-" + i, BigDecimal.TEN);
+        }
+    }
+
+    /**
+     * Runs the closed-loop load and reports throughput and latency percentiles.
+     */
+    @Test
+    @DisplayName("Balance Endpoint Under 10k Concurrent Connections")
+    void balanceEndpoint_ShouldServeConcurrentConnections() {
+        long[] samples = new long[CONNECTIONS * REQUESTS_PER_CONNECTION];
+        AtomicInteger recorded = new AtomicInteger();
+        AtomicInteger failures = new AtomicInteger();
+        ExecutorService clientExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMinutes(1))
+                .executor(clientExecutor)
+                .build();
+
+        long start = System.nanoTime();
+        CompletableFuture<?>[] connections = new CompletableFuture<?>[CONNECTIONS];
+        for (int c = 0; c < CONNECTIONS; c++) {
+            connections[c] = send(client, REQUESTS_PER_CONNECTION, samples, recorded, failures);
+        }
+        CompletableFuture.allOf(connections).join();
+        long elapsed = System.nanoTime() - start;
+        clientExecutor.shutdown();
+
+        Latencies latencies = new Latencies(recorded.get());
+        for (int i = 0; i < recorded.get(); i++) {
+            latencies.record(samples[i]);
+        }
+        log.info("{}: {} connections, {} requests/sec, {}, {} failed", getClass().getSimpleName(),
+                CONNECTIONS, Math.round(recorded.get() / (elapsed / 1e9)), latencies.summary(), failures.get());
+        assertEquals(0, failures.get(), "Every request should succeed");
+    }
+
+    /**
+     * Sends the remaining requests of one connection one after another.
+     */
+    private CompletableFuture<Void> send(HttpClient client, int remaining, long[] samples,
+                                         AtomicInteger recorded, AtomicInteger failures) {
+        if (remaining == 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        long accountId = accountIds[ThreadLocalRandom.current().nextInt(ACCOUNTS)];
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/accounts/" + accountId + "/balance"))
+                .timeout(Duration.ofMinutes(2))
+                .header("Authorization", AUTHORIZATION)
+                .build();
+        long sent = System.nanoTime();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .handle((response, error) -> {
+                    if (error != null || response.statusCode() != 200) {
+                        failures.incrementAndGet();
+                    } else {
+                        samples[recorded.getAndIncrement()] = System.nanoTime() - sent;
+                    }
+                    return null;
+                })
+                .thenCompose(ignored -> send(client, remaining - 1, samples, recorded, failures));
+    }
+
+    /**
+     * The HTTP Basic user of the load. Spring Boot's default user would have its password re-encoded with BCrypt on
+     * the first login, after which every request pays for a hash; this one is looked up with a plain password that
+     * is never upgraded, so the load measures the request threads and not the hashing.
+     */
+    @TestConfiguration(proxyBeanMethods = false)
+    static class LoadUser {
+
+        @Bean
+        UserDetailsService loadUserDetailsService() {
+            return username -> User.withUsername(USERNAME).password("{noop}" + PASSWORD).roles("USER").build();
+        }
+    }
+}
@@ -1,13 +1,40 @@
 package portfolio.project.Banking_app;
 
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
-import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+import portfolio.project.Banking_app.config.ConnectionPoolProperties;
 
-@SpringBootTest
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Starts the full application context on embedded PostgreSQL, with the connection pool sized from the cores as in
+ * the prod profile.
+ */
+@IntegrationTest
+@TestPropertySource(properties = "banking.connection-pool.size-from-cores=true")
 class BankingAppApplicationTests {
 
+	@Autowired
+	private DataSource dataSource;
+
+	/**
+	 * Test method to verify that the context starts and the pool is sized from the available cores.
+	 */
 	@Test
-	void contextLoads() {
+	@DisplayName("Context Loads With The Pool Sized From The Cores")
+	void contextLoads() throws Exception {
+		// Act
+		HikariDataSource hikari = dataSource.unwrap(HikariDataSource.class);
+
+		// Assert
+		int expected = new ConnectionPoolProperties().recommendedPoolSize(Runtime.getRuntime().availableProcessors());
+		assertEquals(expected, hikari.getMaximumPoolSize());
+		assertEquals(expected, hikari.getMinimumIdle());
 	}
 
 }
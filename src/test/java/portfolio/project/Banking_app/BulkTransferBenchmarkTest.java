@@ -0,0 +1,94 @@
+package portfolio.project.Banking_app;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import portfolio.project.Banking_app.dto.BulkTransferResult;
+import portfolio.project.Banking_app.service.BulkTransferService;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Measures the throughput of a payroll-sized bulk transfer upload: 50,000 rows from a few employer accounts to
+ * 10,000 employee accounts. The row count can be changed with {@code -Dbulk.rows=200000}.
+ */
+@Slf4j
+@Tag("perf")
+@IntegrationTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class BulkTransferBenchmarkTest {
+
+    private static final int ROWS = Integer.getInteger("bulk.rows", 50_000);
+    private static final int EMPLOYEES = 10_000;
+    private static final int EMPLOYERS = 10;
+
+    @Autowired
+    private BulkTransferService bulkTransferService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Seeds the employer and employee accounts in one statement each.
+     */
+    @BeforeAll
+    void seed() {
+        TestData.clear(jdbcTemplate);
+        long userId = TestData.createUser(jdbcTemplate, "bulk-bench");
+        jdbcTemplate.update("INSERT INTO accounts (id, account_number, pin, account_login_number, account_login_password, balance, user_id) "
+                + "SELECT nextval('accounts_seq'), 'EMPLOYER-' || n, 'x', 'login-employer-' || n, 'password', 1000000000, ? "
+                + "FROM generate_series(0, ?) AS n", userId, EMPLOYERS - 1);
+        jdbcTemplate.update("INSERT INTO accounts (id, account_number, pin, account_login_number, account_login_password, balance, user_id) "
+                + "SELECT nextval('accounts_seq'), 'EMPLOYEE-' || n, 'x', 'login-employee-' || n, 'password', 0, ? "
+                + "FROM generate_series(0, ?) AS n", userId, EMPLOYEES - 1);
+        jdbcTemplate.execute("ANALYZE accounts");
+    }
+
+    /**
+     * Uploads the file and reports rows per second.
+     */
+    @Test
+    @DisplayName("Bulk transfer throughput")
+    void process_PayrollFile() throws Exception {
+        // Arrange
+        StringBuilder upload = new StringBuilder(ROWS * 100);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < ROWS; i++) {
+            upload.append("{\"senderAccountNumber\":\"EMPLOYER-").append(random.nextInt(EMPLOYERS))
+                    .append("\",\"receiverAccountNumber\":\"EMPLOYEE-").append(i % EMPLOYEES)
+                    .append("\",\"amount\":").append(1000 + random.nextInt(9000)).append(".00}\n");
+        }
+        BigDecimal totalBefore = TestData.totalBalance(jdbcTemplate);
+
+        // Act
+        BulkTransferResult result = bulkTransferService.process(
+                new ByteArrayInputStream(upload.toString().getBytes(StandardCharsets.UTF_8)),
+                BulkTransferService.Format.NDJSON, OutputStream.nullOutputStream());
+
+        // Assert
+        log.info("bulk transfer, {} rows: {} rows/sec ({} ms)",
+                result.getRows(), Math.round(result.getRowsPerSecond()), result.getElapsed().toMillis());
+        assertEquals(ROWS, result.getSucceeded(), "Every row must be applied");
+        assertEquals(0, totalBefore.compareTo(TestData.totalBalance(jdbcTemplate)), "Money must be conserved");
+    }
+
+    /**
+     * Drops the accounts and everything written by the upload, so other tests start from small tables.
+     */
+    @AfterAll
+    void dropAccounts() {
+        TestData.clear(jdbcTemplate);
+    }
+}
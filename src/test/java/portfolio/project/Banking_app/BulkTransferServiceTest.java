@@ -0,0 +1,138 @@
+package portfolio.project.Banking_app;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import portfolio.project.Banking_app.config.TransferProperties;
+import portfolio.project.Banking_app.dto.BulkTransferResult;
+import portfolio.project.Banking_app.service.BulkTransferService;
+import portfolio.project.Banking_app.service.BulkTransferService.Format;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration test for {@link BulkTransferService}.
+ */
+@IntegrationTest
+class BulkTransferServiceTest {
+
+    @Autowired
+    private BulkTransferService bulkTransferService;
+
+    @Autowired
+    private TransferProperties transferProperties;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private int defaultChunkSize;
+
+    /**
+     * Seeds two accounts with 100 each.
+     */
+    @BeforeEach
+    void setUp() {
+        TestData.clear(jdbcTemplate);
+        long userId = TestData.createUser(jdbcTemplate, "bulk");
+        TestData.createAccount(jdbcTemplate, userId, "BULK-A", BigDecimal.valueOf(100));
+        TestData.createAccount(jdbcTemplate, userId, "BULK-B", BigDecimal.valueOf(100));
+        defaultChunkSize = transferProperties.getBulk().getChunkSize();
+    }
+
+    /**
+     * Restores the configured chunk size.
+     */
+    @AfterEach
+    void tearDown() {
+        transferProperties.getBulk().setChunkSize(defaultChunkSize);
+    }
+
+    /**
+     * Test method to verify that every row of a CSV upload gets its own result and failing rows are isolated.
+     */
+    @Test
+    @DisplayName("Failed Rows Are Isolated Within An Upload")
+    void process_FailingRows_ShouldNotAbortUpload() throws IOException {
+        // Arrange
+        String upload = """
+                sender_account_number,receiver_account_number,amount
+                BULK-A,BULK-B,60
+                BULK-A,BULK-B,60
+                BULK-A,BULK-X,1
+
+                BULK-B,BULK-A,10.50
+                BULK-A,BULK-B,-5
+                BULK-A,BULK-A,1
+                not a transfer
+                """;
+
+        // Act
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BulkTransferResult result = process(upload, Format.CSV, out);
+
+        // Assert
+        assertEquals(List.of(
+                "{\"row\":2,\"status\":\"SUCCESS\"}",
+                "{\"row\":3,\"status\":\"INSUFFICIENT_FUNDS\",\"error\":\"Sender doesn't have sufficient balance.\"}",
+                "{\"row\":4,\"status\":\"NOT_FOUND\",\"error\":\"Account not found with number: BULK-X\"}",
+                "{\"row\":6,\"status\":\"SUCCESS\"}",
+                "{\"row\":7,\"status\":\"REJECTED\",\"error\":\"Transfer amount must be positive.\"}",
+                "{\"row\":8,\"status\":\"REJECTED\",\"error\":\"Sender and receiver accounts must be different.\"}",
+                "{\"row\":9,\"status\":\"REJECTED\",\"error\":\"Expected 3 fields but found 1\"}"),
+                out.toString(StandardCharsets.UTF_8).lines().toList());
+        assertEquals(7, result.getRows());
+        assertEquals(2, result.getSucceeded());
+        assertEquals(0, new BigDecimal("50.50").compareTo(balanceOf("BULK-A")), "Sender balance after both transfers");
+        assertEquals(0, new BigDecimal("149.50").compareTo(balanceOf("BULK-B")), "Receiver balance after both transfers");
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transactions", Integer.class));
+    }
+
+    /**
+     * Test method to verify that rows are applied in file order across chunks, each seeing the funds left by the
+     * rows before it.
+     */
+    @Test
+    @DisplayName("Rows Are Applied In Order Across Chunks")
+    void process_SeveralChunks_ShouldApplyInOrder() throws IOException {
+        // Arrange
+        transferProperties.getBulk().setChunkSize(2);
+        String upload = """
+                {"senderAccountNumber":"BULK-A","receiverAccountNumber":"BULK-B","amount":100}
+                {"senderAccountNumber":"BULK-B","receiverAccountNumber":"BULK-A","amount":150}
+                {"senderAccountNumber":"BULK-A","receiverAccountNumber":"BULK-B","amount":150}
+                {"senderAccountNumber":"BULK-A","receiverAccountNumber":"BULK-B","amount":1}
+                {"senderAccountNumber":"BULK-B"
+                """;
+
+        // Act
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BulkTransferResult result = process(upload, Format.NDJSON, out);
+
+        // Assert
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(5, lines.size());
+        assertTrue(lines.get(3).contains("INSUFFICIENT_FUNDS"), lines.get(3));
+        assertTrue(lines.get(4).contains("REJECTED"), lines.get(4));
+        assertEquals(3, result.getSucceeded());
+        assertEquals(0, BigDecimal.ZERO.compareTo(balanceOf("BULK-A")));
+        assertEquals(0, BigDecimal.valueOf(200).compareTo(balanceOf("BULK-B")));
+    }
+
+    private BulkTransferResult process(String upload, Format format, ByteArrayOutputStream out) throws IOException {
+        return bulkTransferService.process(new ByteArrayInputStream(upload.getBytes(StandardCharsets.UTF_8)), format, out);
+    }
+
+    private BigDecimal balanceOf(String accountNumber) {
+        return jdbcTemplate.queryForObject("SELECT balance FROM accounts WHERE account_number = ?", BigDecimal.class, accountNumber);
+    }
+}
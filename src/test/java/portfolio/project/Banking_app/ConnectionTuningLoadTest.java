@@ -0,0 +1,207 @@
+package portfolio.project.Banking_app;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import portfolio.project.Banking_app.config.ConnectionPoolProperties;
+import portfolio.project.Banking_app.entity.OutboxEvent;
+import portfolio.project.Banking_app.repository.OutboxJdbcRepository;
+import portfolio.project.Banking_app.repository.OutboxJdbcRepository.EventRow;
+import portfolio.project.Banking_app.repository.TransferJdbcRepository;
+import portfolio.project.Banking_app.repository.TransferJdbcRepository.LockedAccount;
+import portfolio.project.Banking_app.repository.TransferJdbcRepository.TransferRow;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Load test of the transfer path with the default connection pool and driver settings against the tuned ones of
+ * the {@code prod} profile.
+ * <p>
+ * Every transfer runs the statements of a single transfer in its own transaction: both account rows are locked,
+ * both balances updated, and the transaction and its two outbox events inserted. The "defaults" pool is a plain HikariCP pool of 10 connections; the "tuned" pool is sized from the cores as
+ * {@link portfolio.project.Banking_app.config.ConnectionPoolConfiguration} does and gets the driver settings of
+ * {@code application-prod.properties} (batch rewriting, server-side prepared statements). Compare the logged
+ * throughput and latency percentiles.
+ */
+@Slf4j
+@Tag("perf")
+@IntegrationTest
+class ConnectionTuningLoadTest {
+
+    private static final int ACCOUNTS = 1_000;
+    private static final int THREADS = 16;
+    private static final int WARM_UP_TRANSFERS = 2_000;
+    private static final int TRANSFERS = 20_000;
+    private static final String DRIVER_PROPERTY_PREFIX = "spring.datasource.hikari.data-source-properties.";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long[] accountIds;
+
+    /**
+     * Seeds the accounts money is moved between.
+     */
+    @BeforeEach
+    void setUp() {
+        TestData.clear(jdbcTemplate);
+        long userId = TestData.createUser(jdbcTemplate, "pool-load");
+        accountIds = new long[ACCOUNTS];
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accountIds[i] = TestData.createAccount(jdbcTemplate, userId, "POOL-" + i, BigDecimal.valueOf(1_000));
+        }
+    }
+
+    /**
+     * Runs the same transfer load through both pools and reports throughput and latency percentiles.
+     */
+    @Test
+    @DisplayName("Transfer Throughput With Default vs Tuned Pool And Driver Settings")
+    void transfers_ShouldReportThroughputPerPoolConfiguration() throws Exception {
+        // Arrange
+        BigDecimal totalBefore = TestData.totalBalance(jdbcTemplate);
+        int tunedPoolSize = new ConnectionPoolProperties().recommendedPoolSize(Runtime.getRuntime().availableProcessors());
+
+        // Act
+        try (HikariDataSource defaults = EmbeddedPostgresConfiguration.pooledDataSource(
+                EmbeddedPostgresConfiguration.jdbcUrl("postgres"), 10)) {
+            run("defaults", defaults);
+        }
+        try (HikariDataSource tuned = tunedDataSource(tunedPoolSize)) {
+            run("tuned (" + tunedPoolSize + " connections)", tuned);
+        }
+
+        // Assert
+        assertEquals(0, totalBefore.compareTo(TestData.totalBalance(jdbcTemplate)), "Transfers must not create or destroy money");
+        assertEquals(2 * (WARM_UP_TRANSFERS + TRANSFERS),
+                jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transactions", Integer.class));
+    }
+
+    /**
+     * Warms the pool up, then runs the measured transfers from {@link #THREADS} threads and logs the results.
+     */
+    private void run(String name, HikariDataSource dataSource) throws Exception {
+        JdbcTemplate template = new JdbcTemplate(dataSource);
+        NamedParameterJdbcTemplate namedTemplate = new NamedParameterJdbcTemplate(template);
+        TransferPath path = new TransferPath(new TransactionTemplate(new DataSourceTransactionManager(dataSource)),
+                new TransferJdbcRepository(template, namedTemplate),
+                new OutboxJdbcRepository(template, namedTemplate));
+
+        transfer(path, WARM_UP_TRANSFERS, new long[WARM_UP_TRANSFERS]);
+        long[] samples = new long[TRANSFERS];
+        long start = System.nanoTime();
+        transfer(path, TRANSFERS, samples);
+        long elapsed = System.nanoTime() - start;
+
+        Latencies latencies = new Latencies(TRANSFERS);
+        for (long sample : samples) {
+            latencies.record(sample);
+        }
+        log.info("Transfer path, {}: {} transfers/sec, {}", name, Math.round(TRANSFERS / (elapsed / 1e9)), latencies.summary());
+    }
+
+    private void transfer(TransferPath path, int transfers, long[] samples) throws Exception {
+        AtomicInteger next = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                workers.add(executor.submit(() -> {
+                    for (int i = next.getAndIncrement(); i < transfers; i = next.getAndIncrement()) {
+                        ThreadLocalRandom random = ThreadLocalRandom.current();
+                        long senderId = accountIds[random.nextInt(ACCOUNTS)];
+                        long receiverId = accountIds[random.nextInt(ACCOUNTS)];
+                        while (receiverId == senderId) {
+                            receiverId = accountIds[random.nextInt(ACCOUNTS)];
+                        }
+                        long start = System.nanoTime();
+                        path.transfer(senderId, receiverId, BigDecimal.ONE);
+                        samples[i] = System.nanoTime() - start;
+                    }
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Returns a fixed-size pool with the PostgreSQL driver properties of the {@code prod} profile; the pool
+     * configuration is sealed once it starts, so it is built here rather than adjusted afterwards.
+     */
+    private static HikariDataSource tunedDataSource(int poolSize) throws IOException {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(EmbeddedPostgresConfiguration.jdbcUrl("postgres"));
+        config.setUsername("postgres");
+        config.setMaximumPoolSize(poolSize);
+        config.setMinimumIdle(poolSize);
+        config.setDataSourceProperties(prodDriverProperties());
+        return new HikariDataSource(config);
+    }
+
+    /**
+     * Returns the PostgreSQL driver properties of the {@code prod} profile.
+     */
+    private static Properties prodDriverProperties() throws IOException {
+        Properties profile = PropertiesLoaderUtils.loadProperties(new ClassPathResource("application-prod.properties"));
+        Properties driver = new Properties();
+        for (String name : profile.stringPropertyNames()) {
+            if (name.startsWith(DRIVER_PROPERTY_PREFIX)) {
+                driver.setProperty(name.substring(DRIVER_PROPERTY_PREFIX.length()), profile.getProperty(name));
+            }
+        }
+        return driver;
+    }
+
+    /**
+     * The statements of one transfer, run through the application's JDBC repositories on the pool under test.
+     */
+    private record TransferPath(TransactionTemplate transactionTemplate,
+                                TransferJdbcRepository transfers,
+                                OutboxJdbcRepository outbox) {
+
+        void transfer(long senderId, long receiverId, BigDecimal amount) {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<LockedAccount> accounts = transfers.lockByIds(List.of(Math.min(senderId, receiverId), Math.max(senderId, receiverId)));
+                for (LockedAccount account : accounts) {
+                    account.setBalance(account.getId() == senderId
+                            ? account.getBalance().subtract(amount)
+                            : account.getBalance().add(amount));
+                }
+                transfers.updateBalances(accounts);
+                LocalDateTime timestamp = LocalDateTime.now();
+                transfers.insertTransactions(List.of(new TransferRow(senderId, receiverId, amount, timestamp)));
+                String payload = "{\"amount\":" + amount + "}";
+                outbox.append(List.of(
+                        new EventRow(senderId, OutboxEvent.Type.TRANSFER_OUT, payload, timestamp),
+                        new EventRow(receiverId, OutboxEvent.Type.TRANSFER_IN, payload, timestamp)));
+            });
+        }
+    }
+}
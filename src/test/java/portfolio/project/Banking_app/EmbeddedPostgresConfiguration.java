@@ -0,0 +1,90 @@
+package portfolio.project.Banking_app;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+
+/**
+ * Test configuration that backs the application with an in-process PostgreSQL server,
+ * so integration tests exercise the same SQL dialect and locking behaviour as production.
+ * <p>
+ * The server is started once per JVM and shared by every test context. A context sets
+ * {@code embedded-postgres.database} to get a fresh database of its own instead of the shared one, for a schema it
+ * can change without affecting other contexts.
+ */
+@TestConfiguration(proxyBeanMethods = false)
+public class EmbeddedPostgresConfiguration {
+
+    @Bean(destroyMethod = "close")
+    public HikariDataSource dataSource(@Value("${embedded-postgres.database:postgres}") String database) {
+        return pooledDataSource("postgres".equals(database) ? jdbcUrl(database) : createDatabase(database), 80);
+    }
+
+    /**
+     * Returns the JDBC URL of a database on the shared embedded server.
+     *
+     * @param database The database name.
+     * @return The JDBC URL.
+     */
+    public static String jdbcUrl(String database) {
+        return Holder.POSTGRES.getJdbcUrl("postgres", database);
+    }
+
+    /**
+     * Creates a fresh database on the shared embedded server, for tests that need an isolated schema.
+     *
+     * @param database The database name.
+     * @return The JDBC URL of the new database.
+     */
+    public static String createDatabase(String database) {
+        try (var connection = Holder.POSTGRES.getPostgresDatabase().getConnection();
+             var statement = connection.createStatement()) {
+            statement.execute("DROP DATABASE IF EXISTS " + database);
+            statement.execute("CREATE DATABASE " + database);
+        } catch (java.sql.SQLException e) {
+            throw new IllegalStateException("Could not create database " + database, e);
+        }
+        return jdbcUrl(database);
+    }
+
+    static HikariDataSource pooledDataSource(String jdbcUrl, int maximumPoolSize) {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(jdbcUrl);
+        config.setUsername("postgres");
+        config.setMaximumPoolSize(maximumPoolSize);
+        // Cached test contexts keep their pools open; idle connections are closed so they fit the server together
+        config.setMinimumIdle(2);
+        config.setIdleTimeout(Duration.ofSeconds(10).toMillis());
+        return new HikariDataSource(config);
+    }
+
+    private static final class Holder {
+        private static final EmbeddedPostgres POSTGRES = start();
+
+        private static EmbeddedPostgres start() {
+            try {
+                EmbeddedPostgres postgres = EmbeddedPostgres.builder()
+                        .setServerConfig("max_connections", "300")
+                        .start();
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                    try {
+                        postgres.close();
+                    } catch (IOException ignored) {
+                        // the JVM is going down anyway
+                    }
+                }));
+                return postgres;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not start embedded PostgreSQL", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package portfolio.project.Banking_app;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import portfolio.project.Banking_app.config.EndOfDayProperties;
+import portfolio.project.Banking_app.dto.EndOfDayResult;
+import portfolio.project.Banking_app.service.EndOfDayService;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Measures the throughput of the end-of-day run over a large account table with a growing number of worker
+ * threads. The table size defaults to one million accounts and can be raised with {@code -Deod.accounts=10000000}.
+ */
+@Slf4j
+@Tag("perf")
+@IntegrationTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class EndOfDayBenchmarkTest {
+
+    private static final int ACCOUNTS = Integer.getInteger("eod.accounts", 1_000_000);
+
+    @Autowired
+    private EndOfDayService endOfDayService;
+
+    @Autowired
+    private EndOfDayProperties properties;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private int defaultThreads;
+    private LocalDate businessDate = LocalDate.of(2024, 1, 1);
+
+    /**
+     * Seeds the accounts once in one statement.
+     */
+    @BeforeAll
+    void seed() {
+        TestData.clear(jdbcTemplate);
+        long userId = TestData.createUser(jdbcTemplate, "eod-bench");
+        jdbcTemplate.update("INSERT INTO accounts (id, account_number, pin, account_login_number, account_login_password, balance, user_id) "
+                + "SELECT nextval('accounts_seq'), 'EOD-' || n, 'x', 'login-' || n, 'password', 36500, ? "
+                + "FROM generate_series(0, ?) AS n", userId, ACCOUNTS - 1);
+        jdbcTemplate.execute("ANALYZE accounts");
+        defaultThreads = properties.getThreads();
+    }
+
+    /**
+     * Restores the configured number of threads.
+     */
+    @AfterEach
+    void tearDown() {
+        properties.setThreads(defaultThreads);
+    }
+
+    /**
+     * Runs a full pass over all accounts and reports accounts per second. Each run closes a new day.
+     *
+     * @param threads The number of worker threads.
+     */
+    @ParameterizedTest(name = "{0} threads")
+    @ValueSource(ints = {1, 2, 4, 8})
+    @DisplayName("End-of-day run throughput")
+    void run_ShouldScaleWithThreads(int threads) {
+        properties.setThreads(threads);
+        businessDate = businessDate.plusDays(1);
+
+        EndOfDayResult result = endOfDayService.run(businessDate);
+
+        log.info("end-of-day run, {} accounts, {} threads: {} accounts/sec ({} ms)",
+                ACCOUNTS, threads, Math.round(result.getAccountsPerSecond()), result.getElapsed().toMillis());
+        assertEquals(ACCOUNTS, result.getAccounts(), "Every account must be processed once");
+    }
+
+    /**
+     * Drops the accounts written by the runs, so other tests start from small tables.
+     */
+    @AfterAll
+    void dropAccounts() {
+        TestData.clear(jdbcTemplate);
+    }
+}
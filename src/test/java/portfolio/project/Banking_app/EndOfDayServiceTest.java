@@ -0,0 +1,119 @@
+package portfolio.project.Banking_app;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import portfolio.project.Banking_app.config.EndOfDayProperties;
+import portfolio.project.Banking_app.dto.EndOfDayResult;
+import portfolio.project.Banking_app.service.EndOfDayService;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration test for {@link EndOfDayService}.
+ */
+@IntegrationTest
+class EndOfDayServiceTest {
+
+    private static final LocalDate BUSINESS_DATE = LocalDate.of(2024, 3, 31);
+
+    @Autowired
+    private EndOfDayService endOfDayService;
+
+    @Autowired
+    private EndOfDayProperties properties;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final long[] accountIds = new long[5];
+    private int defaultPartitions;
+    private int defaultChunkSize;
+    private BigDecimal defaultFee;
+
+    /**
+     * Seeds five accounts earning 1.00 interest a day each at 1%, and one small account paying a fee.
+     */
+    @BeforeEach
+    void setUp() {
+        TestData.clear(jdbcTemplate);
+        long userId = TestData.createUser(jdbcTemplate, "eod");
+        for (int i = 0; i < accountIds.length; i++) {
+            accountIds[i] = TestData.createAccount(jdbcTemplate, userId, "EOD-" + i, BigDecimal.valueOf(36_500));
+        }
+        defaultPartitions = properties.getPartitions();
+        defaultChunkSize = properties.getChunkSize();
+        defaultFee = properties.getDailyFee();
+        properties.setPartitions(2);
+        properties.setChunkSize(2);
+    }
+
+    /**
+     * Restores the configured run settings.
+     */
+    @AfterEach
+    void tearDown() {
+        properties.setPartitions(defaultPartitions);
+        properties.setChunkSize(defaultChunkSize);
+        properties.setDailyFee(defaultFee);
+    }
+
+    /**
+     * Test method to verify that a run books interest and fees once, and that running the day again changes nothing.
+     */
+    @Test
+    @DisplayName("A Day Is Booked Exactly Once")
+    void run_Twice_ShouldBookDayOnce() {
+        // Arrange
+        properties.setDailyFee(BigDecimal.valueOf(2));
+        long smallId = TestData.createAccount(jdbcTemplate, TestData.createUser(jdbcTemplate, "eod-small"), "EOD-SMALL", BigDecimal.valueOf(500));
+
+        // Act
+        EndOfDayResult first = endOfDayService.run(BUSINESS_DATE);
+        EndOfDayResult second = endOfDayService.run(BUSINESS_DATE);
+
+        // Assert
+        assertEquals(6, first.getAccounts());
+        assertEquals(0, second.getAccounts(), "A finished day must not be processed again");
+        for (long accountId : accountIds) {
+            assertEquals(0, BigDecimal.valueOf(36_501).compareTo(balanceOf(accountId)), "Interest of account " + accountId);
+        }
+        // 0.01 interest, 2 fee
+        assertEquals(0, new BigDecimal("498.01").compareTo(balanceOf(smallId)));
+    }
+
+    /**
+     * Test method to verify that a crashed run resumes after the last checkpoint of each partition.
+     */
+    @Test
+    @DisplayName("A Crashed Run Resumes After Its Checkpoints")
+    void run_AfterCrash_ShouldResumeFromCheckpoint() {
+        // Arrange: a one-partition run whose first chunk committed before the crash
+        properties.setPartitions(1);
+        jdbcTemplate.update("INSERT INTO eod_partitions (business_date, partition_no, from_id, to_id, last_id, status, processed) "
+                        + "VALUES (?, 0, ?, ?, ?, 'RUNNING', 1)",
+                BUSINESS_DATE, accountIds[0] - 1, accountIds[4], accountIds[0]);
+        jdbcTemplate.update("UPDATE accounts SET balance = balance + 1 WHERE id = ?", accountIds[0]);
+
+        // Act
+        EndOfDayResult result = endOfDayService.run(BUSINESS_DATE);
+
+        // Assert
+        assertEquals(4, result.getAccounts(), "Only the accounts after the checkpoint are processed");
+        for (long accountId : accountIds) {
+            assertEquals(0, BigDecimal.valueOf(36_501).compareTo(balanceOf(accountId)), "Interest of account " + accountId);
+        }
+        assertEquals(5, jdbcTemplate.queryForObject("SELECT processed FROM eod_partitions WHERE business_date = ?",
+                Long.class, BUSINESS_DATE));
+    }
+
+    private BigDecimal balanceOf(long accountId) {
+        return jdbcTemplate.queryForObject("SELECT balance FROM accounts WHERE id = ?", BigDecimal.class, accountId);
+    }
+}
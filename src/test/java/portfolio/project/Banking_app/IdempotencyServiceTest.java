@@ -0,0 +1,157 @@
+package portfolio.project.Banking_app;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import portfolio.project.Banking_app.dto.IdempotentResponse;
+import portfolio.project.Banking_app.exception.IdempotencyKeyReusedException;
+import portfolio.project.Banking_app.exception.InsufficientFundsException;
+import portfolio.project.Banking_app.service.AccountService;
+import portfolio.project.Banking_app.service.IdempotencyService;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration test for {@link IdempotencyService}.
+ */
+@IntegrationTest
+class IdempotencyServiceTest {
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long accountId;
+
+    /**
+     * Seeds an account with 100.
+     */
+    @BeforeEach
+    void setUp() {
+        TestData.clear(jdbcTemplate);
+        long userId = TestData.createUser(jdbcTemplate, "idempotency");
+        accountId = TestData.createAccount(jdbcTemplate, userId, "IDEM-1", BigDecimal.valueOf(100));
+    }
+
+    /**
+     * Test method to verify that a retried deposit is answered with the stored response and applied once.
+     */
+    @Test
+    @DisplayName("Retried Request Is Applied Once")
+    void execute_Retry_ShouldApplyOnce() {
+        // Arrange
+        String key = UUID.randomUUID().toString();
+
+        // Act
+        IdempotentResponse first = deposit(key, BigDecimal.TEN);
+        IdempotentResponse retry = deposit(key, BigDecimal.TEN);
+
+        // Assert
+        assertFalse(first.replayed());
+        assertTrue(retry.replayed());
+        assertEquals(first.status(), retry.status());
+        assertEquals(0, BigDecimal.valueOf(110).compareTo(balance()));
+        assertTrue(idempotencyService.findCompleted(key, "deposit:" + accountId + ":10").isPresent(),
+                "The completed key must be answered from memory");
+    }
+
+    /**
+     * Test method to verify that concurrent duplicates wait for the first request instead of applying again.
+     */
+    @Test
+    @DisplayName("Concurrent Duplicates Are Applied Once")
+    void execute_ConcurrentDuplicates_ShouldApplyOnce() throws Exception {
+        // Arrange
+        String key = UUID.randomUUID().toString();
+        int threads = 16;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<IdempotentResponse>> futures = new ArrayList<>();
+
+        // Act
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return deposit(key, BigDecimal.TEN);
+            }));
+        }
+        start.countDown();
+        int fresh = 0;
+        for (Future<IdempotentResponse> future : futures) {
+            fresh += future.get().replayed() ? 0 : 1;
+        }
+        executor.shutdown();
+
+        // Assert
+        assertEquals(1, fresh, "Exactly one request must run");
+        assertEquals(0, BigDecimal.valueOf(110).compareTo(balance()));
+    }
+
+    /**
+     * Test method to verify that a failed request stores nothing, so its retry runs again.
+     */
+    @Test
+    @DisplayName("Failed Request Is Not Stored")
+    void execute_Failure_ShouldNotBeStored() {
+        // Arrange
+        String key = UUID.randomUUID().toString();
+        assertThrows(InsufficientFundsException.class, () -> withdraw(key, BigDecimal.valueOf(150)));
+        accountService.deposit(accountId, BigDecimal.valueOf(100));
+
+        // Act
+        IdempotentResponse retry = withdraw(key, BigDecimal.valueOf(150));
+
+        // Assert
+        assertFalse(retry.replayed());
+        assertEquals(0, BigDecimal.valueOf(50).compareTo(balance()));
+    }
+
+    /**
+     * Test method to verify that a key cannot be reused for a different request.
+     */
+    @Test
+    @DisplayName("Key Reused For Different Request Is Rejected")
+    void execute_DifferentRequest_ShouldBeRejected() {
+        // Arrange
+        String key = UUID.randomUUID().toString();
+        deposit(key, BigDecimal.TEN);
+
+        // Act & Assert
+        assertThrows(IdempotencyKeyReusedException.class, () -> deposit(key, BigDecimal.ONE));
+        assertEquals(0, BigDecimal.valueOf(110).compareTo(balance()));
+    }
+
+    private IdempotentResponse deposit(String key, BigDecimal amount) {
+        return idempotencyService.execute(key, "deposit:" + accountId + ":" + amount, () -> {
+            accountService.deposit(accountId, amount);
+            return IdempotentResponse.of(204);
+        });
+    }
+
+    private IdempotentResponse withdraw(String key, BigDecimal amount) {
+        return idempotencyService.execute(key, "withdraw:" + accountId + ":" + amount, () -> {
+            accountService.withdraw(accountId, amount);
+            return IdempotentResponse.of(204);
+        });
+    }
+
+    private BigDecimal balance() {
+        return jdbcTemplate.queryForObject("SELECT balance FROM accounts WHERE id = ?", BigDecimal.class, accountId);
+    }
+}
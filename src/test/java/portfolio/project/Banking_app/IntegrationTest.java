@@ -0,0 +1,22 @@
+package portfolio.project.Banking_app;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a test that runs against the full application context backed by embedded PostgreSQL.
+ * All such tests share one cached context and therefore one schema.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@SpringBootTest
+@ActiveProfiles("it")
+@Import(EmbeddedPostgresConfiguration.class)
+public @interface IntegrationTest {
+}
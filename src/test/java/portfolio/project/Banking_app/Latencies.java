@@ -0,0 +1,37 @@
+package portfolio.project.Banking_app;
+
+import java.util.Arrays;
+
+/**
+ * Records per-operation latencies of a benchmark run and reports percentiles.
+ */
+final class Latencies {
+
+    private final long[] nanos;
+    private int count;
+
+    Latencies(int capacity) {
+        this.nanos = new long[capacity];
+    }
+
+    void record(long elapsedNanos) {
+        nanos[count++] = elapsedNanos;
+    }
+
+    /**
+     * Returns the latency at the given percentile in microseconds.
+     *
+     * @param percentile The percentile, between 0 and 100.
+     */
+    double percentileMicros(double percentile) {
+        long[] sorted = Arrays.copyOf(nanos, count);
+        Arrays.sort(sorted);
+        int index = (int) Math.min(count - 1, Math.ceil(percentile / 100 * count) - 1);
+        return sorted[Math.max(index, 0)] / 1_000.0;
+    }
+
+    String summary() {
+        return String.format("p50 %.1f us, p99 %.1f us, p99.9 %.1f us",
+                percentileMicros(50), percentileMicros(99), percentileMicros(99.9));
+    }
+}
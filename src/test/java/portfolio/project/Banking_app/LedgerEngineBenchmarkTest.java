@@ -0,0 +1,167 @@
+package portfolio.project.Banking_app;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import portfolio.project.Banking_app.config.EngineProperties;
+import portfolio.project.Banking_app.dto.TransferResult;
+import portfolio.project.Banking_app.engine.LedgerEngine;
+import portfolio.project.Banking_app.repository.EngineJdbcRepository;
+import portfolio.project.Banking_app.repository.TransferJdbcRepository;
+import portfolio.project.Banking_app.service.AccountNumberResolver;
+import portfolio.project.Banking_app.service.BalanceCache;
+import portfolio.project.Banking_app.service.BankingMetrics;
+import portfolio.project.Banking_app.service.OutboxService;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Measures the throughput of the in-memory ledger engine and the latency from submitting a transfer until it is
+ * acknowledged, with the journal forced to disk before every acknowledgement, and then the time the write-behind
+ * needs to bring the database up to date.
+ * <p>
+ * Two million transfers between 10,000 accounts are submitted from four threads; the count can be changed with
+ * {@code -Dengine.transfers=10000000}. Throughput depends on the disk's fsync latency and on the cores available
+ * to the writer, so compare runs on the same machine.
+ */
+@Slf4j
+@Tag("perf")
+@IntegrationTest
+class LedgerEngineBenchmarkTest {
+
+    private static final int TRANSFERS = Integer.getInteger("engine.transfers", 2_000_000);
+    private static final int ACCOUNTS = 10_000;
+    private static final int PRODUCERS = 4;
+
+    @Autowired
+    private EngineJdbcRepository engineRepository;
+
+    @Autowired
+    private TransferJdbcRepository transferJdbcRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private AccountNumberResolver accountNumberResolver;
+
+    @Autowired
+    private BalanceCache balanceCache;
+
+    @Autowired
+    private BankingMetrics metrics;
+
+    @Autowired
+    private OutboxService outbox;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Seeds the accounts in one statement and warms the account number resolver.
+     */
+    @BeforeEach
+    void setUp() {
+        TestData.clear(jdbcTemplate);
+        long userId = TestData.createUser(jdbcTemplate, "engine-bench");
+        jdbcTemplate.update("INSERT INTO accounts (id, account_number, pin, account_login_number, account_login_password, balance, user_id) "
+                + "SELECT nextval('accounts_seq'), 'ENGINE-' || n, 'x', 'login-engine-' || n, 'password', 1000000, ? "
+                + "FROM generate_series(0, ?) AS n", userId, ACCOUNTS - 1);
+        accountNumberResolver.evictAll();
+        accountNumberResolver.warm();
+    }
+
+    /**
+     * Submits the transfers, waits for all acknowledgements and then for the write-behind, and reports both.
+     */
+    @Test
+    @DisplayName("Ledger Engine Transfer Throughput And Acknowledgement Latency")
+    void submit_ShouldReportThroughputAndLatency(@TempDir Path directory) throws Exception {
+        // Arrange
+        EngineProperties properties = new EngineProperties();
+        properties.setEnabled(true);
+        properties.setDirectory(directory.toString());
+        LedgerEngine engine = new LedgerEngine(properties, engineRepository, transferJdbcRepository, transactionTemplate,
+                accountNumberResolver, balanceCache, metrics, outbox);
+        BigDecimal totalBefore = TestData.totalBalance(jdbcTemplate);
+        engine.start();
+        try {
+            long[] samples = new long[TRANSFERS];
+            CountDownLatch acknowledged = new CountDownLatch(TRANSFERS);
+
+            // Act
+            long start = System.nanoTime();
+            List<Thread> producers = new ArrayList<>();
+            for (int p = 0; p < PRODUCERS; p++) {
+                int producer = p;
+                Thread thread = new Thread(() -> submit(engine, producer, samples, acknowledged), "engine-producer-" + p);
+                thread.start();
+                producers.add(thread);
+            }
+            for (Thread producer : producers) {
+                producer.join();
+            }
+            assertTrue(acknowledged.await(5, TimeUnit.MINUTES), "Transfers were not acknowledged");
+            long elapsed = System.nanoTime() - start;
+            long writeBehindStart = System.nanoTime();
+            while (engine.writeBehindLag() > 0) {
+                Thread.sleep(10);
+            }
+            long writeBehindElapsed = System.nanoTime() - writeBehindStart;
+
+            // Assert
+            Latencies latencies = new Latencies(TRANSFERS);
+            for (long sample : samples) {
+                latencies.record(sample);
+            }
+            log.info("Ledger engine, {} transfers: {} transfers/sec, {}; write-behind caught up {} ms later",
+                    TRANSFERS, Math.round(TRANSFERS / (elapsed / 1e9)), latencies.summary(), writeBehindElapsed / 1_000_000);
+            assertEquals(0, totalBefore.compareTo(TestData.totalBalance(jdbcTemplate)), "Transfers must not create or destroy money");
+            assertEquals(TRANSFERS, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transactions", Integer.class));
+        } finally {
+            engine.stop();
+        }
+    }
+
+    /**
+     * Submits this producer's share of the transfers, retrying while the ring buffer is full.
+     */
+    private static void submit(LedgerEngine engine, int producer, long[] samples, CountDownLatch acknowledged) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = producer; i < TRANSFERS; i += PRODUCERS) {
+            int sender = random.nextInt(ACCOUNTS);
+            int receiver = (sender + 1 + random.nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+            int index = i;
+            while (true) {
+                long submitted = System.nanoTime();
+                CompletableFuture<TransferResult> future = engine.submit("ENGINE-" + sender, "ENGINE-" + receiver, BigDecimal.ONE);
+                if (future.isCompletedExceptionally()) {
+                    // The ring buffer is full
+                    Thread.onSpinWait();
+                    continue;
+                }
+                future.whenComplete((result, failure) -> {
+                    samples[index] = System.nanoTime() - submitted;
+                    acknowledged.countDown();
+                });
+                break;
+            }
+        }
+    }
+}
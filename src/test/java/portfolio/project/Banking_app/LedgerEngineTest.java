@@ -0,0 +1,345 @@
+package portfolio.project.Banking_app;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+import portfolio.project.Banking_app.config.EngineProperties;
+import portfolio.project.Banking_app.dto.TransferResult;
+import portfolio.project.Banking_app.engine.LedgerEngine;
+import portfolio.project.Banking_app.entity.OutboxEvent.Type;
+import portfolio.project.Banking_app.exception.InsufficientFundsException;
+import portfolio.project.Banking_app.exception.ResourceNotFoundException;
+import portfolio.project.Banking_app.exception.TransactionOperationException;
+import portfolio.project.Banking_app.repository.EngineJdbcRepository;
+import portfolio.project.Banking_app.repository.OutboxJdbcRepository;
+import portfolio.project.Banking_app.repository.TransferJdbcRepository;
+import portfolio.project.Banking_app.service.AccountNumberResolver;
+import portfolio.project.Banking_app.service.BalanceCache;
+import portfolio.project.Banking_app.service.BankingMetrics;
+import portfolio.project.Banking_app.service.OutboxService;
+import portfolio.project.Banking_app.service.OutboxService.Change;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Integration test for {@link LedgerEngine}. Each test runs its own engines on a temporary directory; the engine
+ * bean of the application context is not enabled.
+ */
+@IntegrationTest
+class LedgerEngineTest {
+
+    /**
+     * Size of one journal record, see the engine's journal.
+     */
+    private static final int RECORD_SIZE = 48;
+
+    @Autowired
+    private EngineJdbcRepository engineRepository;
+
+    @Autowired
+    private TransferJdbcRepository transferJdbcRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private AccountNumberResolver accountNumberResolver;
+
+    @Autowired
+    private BalanceCache balanceCache;
+
+    @Autowired
+    private BankingMetrics metrics;
+
+    @Autowired
+    private OutboxService outbox;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private OutboxJdbcRepository outboxRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private long userId;
+
+    /**
+     * Seeds two accounts with 100 each.
+     */
+    @BeforeEach
+    void setUp() {
+        TestData.clear(jdbcTemplate);
+        accountNumberResolver.evictAll();
+        userId = TestData.createUser(jdbcTemplate, "engine");
+        TestData.createAccount(jdbcTemplate, userId, "ENG-A", BigDecimal.valueOf(100));
+        TestData.createAccount(jdbcTemplate, userId, "ENG-B", BigDecimal.valueOf(100));
+    }
+
+    /**
+     * Test method to verify that transfers are applied in submission order, rejected ones leave no trace, and the
+     * accepted ones reach the database and survive a restart, across several journal segments.
+     */
+    @Test
+    @DisplayName("Transfers Are Acknowledged, Written Behind To The Database And Survive A Restart")
+    void submit_ShouldApplyTransfersWriteThemBehindAndSurviveRestart(@TempDir Path directory) throws Exception {
+        // Arrange
+        LedgerEngine engine = engine(directory, DataSize.ofKilobytes(4));
+        engine.start();
+        try {
+            // Act
+            List<CompletableFuture<TransferResult>> transfers = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                transfers.add(engine.submit("ENG-A", "ENG-B", new BigDecimal("0.25")));
+            }
+            CompletableFuture<TransferResult> overdraft = engine.submit("ENG-B", "ENG-A", BigDecimal.valueOf(1000));
+            CompletableFuture<TransferResult> unknown = engine.submit("ENG-A", "ENG-X", BigDecimal.ONE);
+            long lateId = TestData.createAccount(jdbcTemplate, userId, "ENG-C", BigDecimal.TEN);
+            engine.register(lateId, BigDecimal.TEN).get(10, TimeUnit.SECONDS);
+            engine.submit("ENG-C", "ENG-A", BigDecimal.valueOf(4)).get(10, TimeUnit.SECONDS);
+
+            // Assert
+            for (CompletableFuture<TransferResult> transfer : transfers) {
+                assertEquals(new BigDecimal("0.25"), transfer.get(10, TimeUnit.SECONDS).getAmount());
+            }
+            ExecutionException insufficient = assertThrows(ExecutionException.class, () -> overdraft.get(10, TimeUnit.SECONDS));
+            assertInstanceOf(InsufficientFundsException.class, insufficient.getCause());
+            ExecutionException notFound = assertThrows(ExecutionException.class, () -> unknown.get(10, TimeUnit.SECONDS));
+            assertInstanceOf(ResourceNotFoundException.class, notFound.getCause());
+            assertThrows(IllegalArgumentException.class, () -> engine.submit("ENG-A", "ENG-B", new BigDecimal("0.001")));
+            assertBalances(engine, "54.00", "150.00", "6.00");
+            assertEquals(new BigDecimal("6.00"), engine.balance(lateId).get(10, TimeUnit.SECONDS));
+
+            awaitWriteBehind(engine);
+            assertEquals(0, new BigDecimal("54").compareTo(balanceOf("ENG-A")));
+            assertEquals(0, new BigDecimal("150").compareTo(balanceOf("ENG-B")));
+            assertEquals(0, new BigDecimal("6").compareTo(balanceOf("ENG-C")));
+            assertEquals(201, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transactions", Integer.class));
+        } finally {
+            engine.stop();
+        }
+
+        LedgerEngine restarted = engine(directory, DataSize.ofKilobytes(4));
+        restarted.start();
+        try {
+            assertBalances(restarted, "54.00", "150.00", "6.00");
+        } finally {
+            restarted.stop();
+        }
+        assertEquals(1, files(directory, "journal-").size(), "Segments covered by the checkpoint must be deleted");
+    }
+
+    /**
+     * Test method to verify that deposits and withdrawals are checked against the balances the engine holds, written
+     * behind to the database with their outbox events, and replayed after a restart.
+     */
+    @Test
+    @DisplayName("Deposits And Withdrawals Are Journaled, Written Behind And Survive A Restart")
+    void depositAndWithdraw_ShouldApplyChangesWriteThemBehindAndSurviveRestart(@TempDir Path directory) throws Exception {
+        // Arrange
+        long accountId = jdbcTemplate.queryForObject("SELECT id FROM accounts WHERE account_number = 'ENG-A'", Long.class);
+        OutboxService recordingOutbox = spy(new OutboxService(outboxRepository, objectMapper));
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Change>> changes = ArgumentCaptor.forClass(List.class);
+        LedgerEngine engine = engine(directory, DataSize.ofMegabytes(1), recordingOutbox);
+        engine.start();
+        try {
+            // Act
+            BigDecimal deposited = engine.deposit(accountId, new BigDecimal("25.50")).get(10, TimeUnit.SECONDS);
+            BigDecimal withdrawn = engine.withdraw(accountId, BigDecimal.valueOf(100)).get(10, TimeUnit.SECONDS);
+            CompletableFuture<BigDecimal> overdraft = engine.withdraw(accountId, BigDecimal.valueOf(26));
+            CompletableFuture<BigDecimal> unknown = engine.deposit(-1, BigDecimal.ONE);
+
+            // Assert
+            assertEquals(new BigDecimal("125.50"), deposited);
+            assertEquals(new BigDecimal("25.50"), withdrawn);
+            ExecutionException insufficient = assertThrows(ExecutionException.class, () -> overdraft.get(10, TimeUnit.SECONDS));
+            assertInstanceOf(InsufficientFundsException.class, insufficient.getCause());
+            ExecutionException notFound = assertThrows(ExecutionException.class, () -> unknown.get(10, TimeUnit.SECONDS));
+            assertInstanceOf(ResourceNotFoundException.class, notFound.getCause());
+            assertThrows(IllegalArgumentException.class, () -> engine.deposit(accountId, new BigDecimal("0.001")));
+
+            awaitWriteBehind(engine);
+            assertEquals(0, new BigDecimal("25.50").compareTo(balanceOf("ENG-A")));
+            verify(recordingOutbox, atLeastOnce()).recordChanges(changes.capture());
+            assertEquals(List.of(Type.DEPOSIT, Type.WITHDRAWAL),
+                    changes.getAllValues().stream().flatMap(List::stream).map(Change::type).toList());
+            assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transactions", Integer.class));
+        } finally {
+            engine.stop();
+        }
+
+        LedgerEngine restarted = engine(directory, DataSize.ofMegabytes(1));
+        restarted.start();
+        try {
+            assertBalances(restarted, "25.50", "100.00");
+        } finally {
+            restarted.stop();
+        }
+    }
+
+    /**
+     * Test method to verify that an engine restarted from the journal a crash left behind continues it from the
+     * database checkpoint, ignores a half-written record at the end, and overwrites it with the next transfer.
+     */
+    @Test
+    @DisplayName("Recovery Continues The Journal From The Checkpoint And Discards A Torn Tail")
+    void start_AfterCrash_ShouldReplayJournalAndDiscardTornRecord(@TempDir Path directory, @TempDir Path crashed) throws Exception {
+        // Arrange
+        LedgerEngine engine = engine(directory, DataSize.ofMegabytes(1));
+        engine.start();
+        try {
+            for (int i = 1; i <= 10; i++) {
+                engine.submit("ENG-A", "ENG-B", BigDecimal.valueOf(i)).get(10, TimeUnit.SECONDS);
+            }
+            awaitWriteBehind(engine);
+            // The journal as a crash would leave it
+            for (Path file : files(directory, "")) {
+                Files.copy(file, crashed.resolve(file.getFileName()));
+            }
+        } finally {
+            engine.stop();
+        }
+        try (FileChannel channel = FileChannel.open(files(crashed, "journal-").get(0), StandardOpenOption.WRITE)) {
+            byte[] torn = new byte[RECORD_SIZE / 2];
+            Arrays.fill(torn, (byte) 0x5A);
+            channel.write(ByteBuffer.wrap(torn), 10L * RECORD_SIZE);
+        }
+
+        // Act
+        LedgerEngine recovered = engine(crashed, DataSize.ofMegabytes(1));
+        recovered.start();
+        try {
+            assertBalances(recovered, "45.00", "155.00");
+            recovered.submit("ENG-B", "ENG-A", BigDecimal.valueOf(5)).get(10, TimeUnit.SECONDS);
+            awaitWriteBehind(recovered);
+        } finally {
+            recovered.stop();
+        }
+
+        // Assert
+        LedgerEngine restarted = engine(crashed, DataSize.ofMegabytes(1));
+        restarted.start();
+        try {
+            assertBalances(restarted, "50.00", "150.00");
+        } finally {
+            restarted.stop();
+        }
+        assertEquals(0, new BigDecimal("50").compareTo(balanceOf("ENG-A")));
+        assertEquals(0, new BigDecimal("150").compareTo(balanceOf("ENG-B")));
+        assertEquals(11, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transactions", Integer.class));
+    }
+
+    /**
+     * Test method to verify that a restart loads the balances the database holds, including changes made while the
+     * engine was stopped, and that the write-behind never overdraws an account the database balance no longer covers.
+     */
+    @Test
+    @DisplayName("Restart Picks Up Database Changes And The Write-Behind Cannot Overdraw")
+    void start_AfterDatabaseChange_ShouldLoadDatabaseBalances(@TempDir Path directory) throws Exception {
+        // Arrange
+        LedgerEngine engine = engine(directory, DataSize.ofMegabytes(1));
+        engine.start();
+        try {
+            engine.submit("ENG-A", "ENG-B", BigDecimal.TEN).get(10, TimeUnit.SECONDS);
+            awaitWriteBehind(engine);
+            assertThrows(TransactionOperationException.class, () -> engine.requireDatabaseWrites("Withdrawals"));
+        } finally {
+            engine.stop();
+        }
+        // A withdrawal made while the engine was disabled
+        jdbcTemplate.update("UPDATE accounts SET balance = balance - 90 WHERE account_number = 'ENG-A'");
+
+        // Act
+        LedgerEngine restarted = engine(directory, DataSize.ofMegabytes(1));
+        restarted.start();
+        CompletableFuture<TransferResult> overdraft;
+        try {
+            overdraft = restarted.submit("ENG-A", "ENG-B", BigDecimal.TEN);
+            assertBalances(restarted, "0.00", "110.00");
+        } finally {
+            restarted.stop();
+        }
+        long accountId = jdbcTemplate.queryForObject("SELECT id FROM accounts WHERE account_number = 'ENG-A'", Long.class);
+        // The repository's exception translation turns the IllegalStateException into a DataAccessException
+        InvalidDataAccessApiUsageException overdrawn = assertThrows(InvalidDataAccessApiUsageException.class,
+                () -> transactionTemplate.executeWithoutResult(
+                        status -> engineRepository.addToBalances(Map.of(accountId, BigDecimal.ONE.negate()))));
+
+        // Assert
+        ExecutionException insufficient = assertThrows(ExecutionException.class, () -> overdraft.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(InsufficientFundsException.class, insufficient.getCause());
+        assertTrue(overdrawn.getMessage().contains(String.valueOf(accountId)), overdrawn.getMessage());
+        assertEquals(0, BigDecimal.ZERO.compareTo(balanceOf("ENG-A")));
+    }
+
+    private LedgerEngine engine(Path directory, DataSize segmentSize) {
+        return engine(directory, segmentSize, outbox);
+    }
+
+    private LedgerEngine engine(Path directory, DataSize segmentSize, OutboxService outbox) {
+        EngineProperties properties = new EngineProperties();
+        properties.setEnabled(true);
+        properties.setDirectory(directory.toString());
+        properties.setSegmentSize(segmentSize);
+        properties.setRingCapacity(1024);
+        return new LedgerEngine(properties, engineRepository, transferJdbcRepository, transactionTemplate,
+                accountNumberResolver, balanceCache, metrics, outbox);
+    }
+
+    /**
+     * Checks the balances of ENG-A, ENG-B and, if given, ENG-C as the engine holds them.
+     */
+    private static void assertBalances(LedgerEngine engine, String... expected) throws Exception {
+        String[] accountNumbers = {"ENG-A", "ENG-B", "ENG-C"};
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(new BigDecimal(expected[i]), engine.balance(accountNumbers[i]).get(10, TimeUnit.SECONDS),
+                    "Engine balance of " + accountNumbers[i]);
+        }
+    }
+
+    private static void awaitWriteBehind(LedgerEngine engine) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (engine.writeBehindLag() > 0) {
+            assertTrue(System.nanoTime() < deadline, "Write-behind did not catch up");
+            Thread.sleep(10);
+        }
+    }
+
+    private static List<Path> files(Path directory, String prefix) throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().startsWith(prefix)).sorted().toList();
+        }
+    }
+
+    private BigDecimal balanceOf(String accountNumber) {
+        return jdbcTemplate.queryForObject("SELECT balance FROM accounts WHERE account_number = ?", BigDecimal.class, accountNumber);
+    }
+}
@@ -0,0 +1,207 @@
+package portfolio.project.Banking_app;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import portfolio.project.Banking_app.entity.OutboxEvent.Type;
+import portfolio.project.Banking_app.exception.InsufficientFundsException;
+import portfolio.project.Banking_app.outbox.InMemoryOutboxSink;
+import portfolio.project.Banking_app.outbox.OutboxMessage;
+import portfolio.project.Banking_app.outbox.OutboxSink;
+import portfolio.project.Banking_app.service.AccountService;
+import portfolio.project.Banking_app.service.OutboxRelay;
+import portfolio.project.Banking_app.service.OutboxService;
+import portfolio.project.Banking_app.service.TransactionService;
+import portfolio.project.Banking_app.service.TransferBatchService;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration test for {@link OutboxRelay} and the outbox events of deposits, withdrawals and transfers,
+ * relayed to the in-memory sink of the {@code it} profile.
+ */
+@IntegrationTest
+class OutboxRelayTest {
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private TransferBatchService transferBatchService;
+
+    @Autowired
+    private OutboxSink outboxSink;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private InMemoryOutboxSink sink;
+    private long firstId;
+    private long secondId;
+
+    /**
+     * Seeds two accounts with 100 each and discards events left over by other tests.
+     */
+    @BeforeEach
+    void setUp() {
+        TestData.clear(jdbcTemplate);
+        sink = (InMemoryOutboxSink) outboxSink;
+        sink.drain();
+        long userId = TestData.createUser(jdbcTemplate, "outbox");
+        firstId = TestData.createAccount(jdbcTemplate, userId, "OUTBOX-A", BigDecimal.valueOf(100));
+        secondId = TestData.createAccount(jdbcTemplate, userId, "OUTBOX-B", BigDecimal.valueOf(100));
+    }
+
+    /**
+     * Test method to verify that every balance change is published, in order per account, and removed from the outbox.
+     */
+    @Test
+    @DisplayName("Balance Changes Are Published In Order Per Account")
+    void balanceChanges_ShouldBePublishedInOrder() throws Exception {
+        // Act
+        accountService.deposit(firstId, BigDecimal.TEN);
+        for (int i = 0; i < 3; i++) {
+            transactionService.makeTransaction("OUTBOX-A", "OUTBOX-B", BigDecimal.ONE);
+        }
+        transferBatchService.submit("OUTBOX-B", "OUTBOX-A", BigDecimal.valueOf(2)).get(10, TimeUnit.SECONDS);
+        accountService.withdraw(secondId, BigDecimal.valueOf(5));
+        List<OutboxMessage> messages = awaitMessages(10);
+
+        // Assert
+        assertEquals(List.of(Type.DEPOSIT, Type.TRANSFER_OUT, Type.TRANSFER_OUT, Type.TRANSFER_OUT, Type.TRANSFER_IN),
+                typesOf(messages, firstId));
+        assertEquals(List.of(Type.TRANSFER_IN, Type.TRANSFER_IN, Type.TRANSFER_IN, Type.TRANSFER_OUT, Type.WITHDRAWAL),
+                typesOf(messages, secondId));
+        String deposit = messages.stream().filter(message -> message.type() == Type.DEPOSIT).findFirst().orElseThrow().payload();
+        assertTrue(deposit.contains("\"accountId\":" + firstId) && deposit.contains("\"amount\":10"), deposit);
+        assertEquals(0, awaitEmptyOutbox(), "Published events must be deleted");
+    }
+
+    /**
+     * Test method to verify that a change that is rolled back writes no event.
+     */
+    @Test
+    @DisplayName("Rolled Back Change Publishes No Event")
+    void failedChange_ShouldPublishNoEvent() throws Exception {
+        // Arrange
+        assertThrows(InsufficientFundsException.class, () -> accountService.withdraw(firstId, BigDecimal.valueOf(500)));
+
+        // Act
+        accountService.deposit(firstId, BigDecimal.ONE);
+        List<OutboxMessage> messages = awaitMessages(1);
+
+        // Assert
+        assertEquals(List.of(Type.DEPOSIT), typesOf(messages, firstId));
+        assertNull(sink.poll(200, TimeUnit.MILLISECONDS), "No further event may be published");
+    }
+
+    /**
+     * Test method to verify that two changes of one account that hold no row lock, as credits to a striped account,
+     * are published in the order they commit: the second waits for the first to commit before it draws its id.
+     */
+    @Test
+    @DisplayName("Unlocked Changes Of An Account Are Published In Commit Order")
+    void unlockedChanges_ShouldBePublishedInCommitOrder() throws Exception {
+        // Arrange
+        CountDownLatch appended = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> first = executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+                outboxService.recordDeposit(secondId, BigDecimal.ONE);
+                appended.countDown();
+                await(release);
+            }));
+            assertTrue(appended.await(10, TimeUnit.SECONDS));
+
+            // Act
+            Future<?> second = executor.submit(() -> transactionTemplate.executeWithoutResult(status ->
+                    outboxService.recordDeposit(secondId, BigDecimal.valueOf(2))));
+            Thread.sleep(200);
+            boolean secondWaited = !second.isDone();
+            release.countDown();
+            first.get(10, TimeUnit.SECONDS);
+            second.get(10, TimeUnit.SECONDS);
+            List<OutboxMessage> messages = awaitMessages(2);
+
+            // Assert
+            assertTrue(secondWaited, "The second append must wait for the first change to commit");
+            assertEquals(List.of(Type.DEPOSIT, Type.DEPOSIT), typesOf(messages, secondId));
+            assertTrue(messages.get(0).payload().contains("\"amount\":1"), messages.get(0).payload());
+            assertTrue(messages.get(1).payload().contains("\"amount\":2"), messages.get(1).payload());
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Takes events of the seeded accounts from the sink until the expected number arrived, ignoring others.
+     */
+    private List<OutboxMessage> awaitMessages(int expected) throws InterruptedException {
+        Set<Long> accounts = Set.of(firstId, secondId);
+        List<OutboxMessage> messages = new ArrayList<>();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (messages.size() < expected && System.nanoTime() < deadline) {
+            OutboxMessage message = sink.poll(100, TimeUnit.MILLISECONDS);
+            if (message != null && accounts.contains(message.accountId())) {
+                messages.add(message);
+            }
+        }
+        assertEquals(expected, messages.size(), "Events published within 10 seconds");
+        return messages;
+    }
+
+    /**
+     * Returns the number of events left in the outbox once it is empty or 10 seconds passed; the relay deletes a
+     * batch when its transaction commits, after publishing it.
+     */
+    private int awaitEmptyOutbox() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        int left;
+        while ((left = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM outbox_events", Integer.class)) > 0
+                && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        return left;
+    }
+
+    private static List<Type> typesOf(List<OutboxMessage> messages, long accountId) {
+        List<OutboxMessage> ofAccount = messages.stream().filter(message -> message.accountId() == accountId).toList();
+        for (int i = 1; i < ofAccount.size(); i++) {
+            assertTrue(ofAccount.get(i - 1).id() < ofAccount.get(i).id(), "Events of an account must be in id order");
+        }
+        return ofAccount.stream().map(OutboxMessage::type).toList();
+    }
+}
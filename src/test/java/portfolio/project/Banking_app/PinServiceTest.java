@@ -0,0 +1,145 @@
+package portfolio.project.Banking_app;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import portfolio.project.Banking_app.config.PinProperties;
+import portfolio.project.Banking_app.exception.IncorrectPinException;
+import portfolio.project.Banking_app.exception.ResourceNotFoundException;
+import portfolio.project.Banking_app.repository.AccountRepository;
+import portfolio.project.Banking_app.service.PinService;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test class for {@link PinService}.
+ */
+class PinServiceTest {
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    private final ExecutorService ioExecutor = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("pin-io-"));
+
+    private PinService pinService;
+    private AutoCloseable mocks;
+
+    /**
+     * Set up method to create the service with a cheap work factor and an account with PIN 1234.
+     */
+    @BeforeEach
+    void setUp() {
+        mocks = MockitoAnnotations.openMocks(this);
+        PinProperties properties = new PinProperties();
+        properties.setThreads(2);
+        properties.setMinStrength(4);
+        properties.setMaxStrength(4);
+        properties.setTargetVerifyTime(Duration.ofSeconds(1));
+        pinService = new PinService(accountRepository, properties, ioExecutor);
+
+        when(accountRepository.findPinById(1L)).thenReturn(Optional.of(new BCryptPasswordEncoder(4).encode("1234")));
+        when(accountRepository.findPinById(2L)).thenReturn(Optional.empty());
+        when(accountRepository.updatePin(eq(1L), anyString())).thenReturn(1);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        mocks.close();
+        ioExecutor.shutdown();
+    }
+
+    /**
+     * Test method to verify the behavior of verifying a correct and an incorrect PIN.
+     */
+    @Test
+    @DisplayName("Verifying PIN")
+    void verify_ShouldCompareWithStoredHash() throws Exception {
+        // Act & Assert
+        assertTrue(pinService.verify(1L, "1234").get(), "Correct PIN should match");
+        assertFalse(pinService.verify(1L, "4321").get(), "Incorrect PIN should not match");
+    }
+
+    /**
+     * Test method to verify that verifying the PIN of a non-existing account is rejected.
+     */
+    @Test
+    @DisplayName("Verifying PIN Of Non-Existing Account Should Throw Exception")
+    void verify_NonExistingAccount_ShouldThrowException() {
+        assertThrows(ResourceNotFoundException.class, () -> pinService.verify(2L, "1234"));
+    }
+
+    /**
+     * Test method to verify that a changed PIN is stored as a hash and never in plain text.
+     */
+    @Test
+    @DisplayName("Changing PIN Stores A Hash")
+    void changePin_CorrectOldPin_ShouldStoreHash() throws Exception {
+        // Act
+        pinService.changePin(1L, "1234", "5678").get();
+
+        // Assert
+        verify(accountRepository).updatePin(eq(1L), argThat(hash -> hash.startsWith("$2") && new BCryptPasswordEncoder().matches("5678", hash)));
+    }
+
+    /**
+     * Test method to verify that changing the PIN with a wrong old PIN is rejected.
+     */
+    @Test
+    @DisplayName("Changing PIN With Incorrect Old PIN Should Throw Exception")
+    void changePin_IncorrectOldPin_ShouldThrowException() {
+        // Act
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> pinService.changePin(1L, "0000", "5678").get());
+
+        // Assert
+        assertInstanceOf(IncorrectPinException.class, exception.getCause());
+        verify(accountRepository, never()).updatePin(anyLong(), anyString());
+    }
+
+    /**
+     * Test method to verify that a PIN which is not a 4-digit number is rejected.
+     */
+    @Test
+    @DisplayName("Setting Malformed PIN Should Throw Exception")
+    void setPin_MalformedPin_ShouldThrowException() {
+        assertThrows(IllegalArgumentException.class, () -> pinService.setPin(1L, "12a4"));
+    }
+
+    /**
+     * Test method to verify that new PIN hashes are written off the hashing threads, which only run BCrypt.
+     */
+    @Test
+    @DisplayName("PIN Hashes Are Stored Off The Hashing Threads")
+    void setPin_ShouldStoreOnIoExecutor() throws Exception {
+        // Arrange
+        AtomicReference<String> storingThread = new AtomicReference<>();
+        when(accountRepository.updatePin(eq(1L), anyString())).thenAnswer(invocation -> {
+            storingThread.set(Thread.currentThread().getName());
+            return 1;
+        });
+
+        // Act
+        pinService.setPin(1L, "5678").get();
+        String setPinThread = storingThread.get();
+        pinService.changePin(1L, "1234", "4321").get();
+
+        // Assert
+        assertTrue(setPinThread.startsWith("pin-io-"), "Setting a PIN stored it on " + setPinThread);
+        assertTrue(storingThread.get().startsWith("pin-io-"), "Changing a PIN stored it on " + storingThread.get());
+    }
+}
@@ -0,0 +1,17 @@
+package portfolio.project.Banking_app;
+
+import org.junit.jupiter.api.Tag;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * {@link BalanceEndpointLoadTest} with requests served by Tomcat's platform-thread pool.
+ */
+@Tag("perf")
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT, properties = "spring.threads.virtual.enabled=false")
+@ActiveProfiles({"it", "load"})
+@Import({EmbeddedPostgresConfiguration.class, BalanceEndpointLoadTest.LoadUser.class})
+class PlatformThreadLoadTest extends BalanceEndpointLoadTest {
+}
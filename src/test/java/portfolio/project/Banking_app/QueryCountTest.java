@@ -0,0 +1,212 @@
+package portfolio.project.Banking_app;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import portfolio.project.Banking_app.config.QueryCountFilter;
+import portfolio.project.Banking_app.config.QueryCounter;
+import portfolio.project.Banking_app.controller.AccountController;
+import portfolio.project.Banking_app.entity.Account;
+import portfolio.project.Banking_app.service.AccountService;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Guards the number of SQL statements of every endpoint against N+1 regressions. Each budget is the number of
+ * statements the endpoint needs today; a change that adds a statement per row or per association fails here first.
+ * Statements are counted by the query guard, enabled for this test only, a JDBC batch counting once.
+ */
+@IntegrationTest
+@TestPropertySource(properties = "banking.query-guard.enabled=true")
+@AutoConfigureMockMvc
+@WithMockUser
+class QueryCountTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long firstId;
+    private long secondId;
+
+    /**
+     * Seeds two accounts with 100 each and a few transactions between them.
+     */
+    @BeforeEach
+    void setUp() {
+        TestData.clear(jdbcTemplate);
+        long userId = TestData.createUser(jdbcTemplate, "queries");
+        firstId = TestData.createAccount(jdbcTemplate, userId, "QUERY-A", BigDecimal.valueOf(100));
+        secondId = TestData.createAccount(jdbcTemplate, userId, "QUERY-B", BigDecimal.valueOf(100));
+        LocalDateTime timestamp = LocalDateTime.now().minusHours(1);
+        for (int i = 0; i < 30; i++) {
+            TestData.createTransaction(jdbcTemplate, i % 2 == 0 ? firstId : secondId, i % 2 == 0 ? secondId : firstId,
+                    BigDecimal.ONE, timestamp.plusSeconds(i));
+        }
+    }
+
+    /**
+     * Test method to verify the statement budget of a balance check on a cold cache.
+     */
+    @Test
+    @DisplayName("Balance Check Runs One Statement")
+    void checkBalance_ShouldRunOneStatement() throws Exception {
+        assertStatements(1, perform(get("/api/accounts/{id}/balance", firstId)));
+    }
+
+    /**
+     * Test method to verify the statement budget of a deposit: the balance update and the outbox append with its lock.
+     */
+    @Test
+    @DisplayName("Deposit Runs Three Statements")
+    void deposit_ShouldRunThreeStatements() throws Exception {
+        assertStatements(3, perform(put("/api/accounts/{id}/deposit", firstId).param("amount", "10").with(csrf())));
+    }
+
+    /**
+     * Test method to verify the statement budget of a deposit with an idempotency key, which claims and completes it.
+     */
+    @Test
+    @DisplayName("Idempotent Deposit Runs Five Statements")
+    void idempotentDeposit_ShouldRunFiveStatements() throws Exception {
+        assertStatements(5, perform(put("/api/accounts/{id}/deposit", firstId).param("amount", "10")
+                .header(AccountController.IDEMPOTENCY_KEY, UUID.randomUUID().toString()).with(csrf())));
+    }
+
+    /**
+     * Test method to verify the statement budget of a withdrawal, including the PIN lookup.
+     */
+    @Test
+    @DisplayName("Withdrawal Runs Four Statements")
+    void withdraw_ShouldRunFourStatements() throws Exception {
+        assertStatements(4, performAsync(put("/api/accounts/{id}/withdraw", firstId)
+                .param("pin", TestData.PIN).param("amount", "10").with(csrf())));
+    }
+
+    /**
+     * Test method to verify the statement budgets of the PIN endpoints.
+     */
+    @Test
+    @DisplayName("PIN Endpoints Run One Statement Per Read Or Write")
+    void pinEndpoints_ShouldRunOneStatementPerAccess() throws Exception {
+        assertStatements(1, performAsync(put("/api/accounts/{id}/check-pin", firstId).param("pin", TestData.PIN).with(csrf())));
+        assertStatements(2, performAsync(put("/api/accounts/{id}/update-pin", firstId)
+                .param("oldPin", TestData.PIN).param("newPin", "4321").with(csrf())));
+        assertStatements(1, performAsync(put("/api/accounts/{id}/create-pin", secondId).param("newPin", "4321").with(csrf())));
+    }
+
+    /**
+     * Test method to verify the statement budget of turning striping on.
+     */
+    @Test
+    @DisplayName("Enabling Striping Runs One Statement")
+    void setStriped_ShouldRunOneStatement() throws Exception {
+        assertStatements(1, perform(put("/api/accounts/{id}/striped", firstId).param("enabled", "true").with(csrf())));
+    }
+
+    /**
+     * Test method to verify that a history page costs the same few statements however many rows it holds.
+     */
+    @Test
+    @DisplayName("Transaction History Runs Three Statements")
+    void transactionHistory_ShouldRunThreeStatements() throws Exception {
+        assertStatements(3, perform(get("/api/accounts/{id}/transactions", firstId).param("size", "20")));
+    }
+
+    /**
+     * Test method to verify that a search page costs the same few statements however many rows it holds:
+     * resolving the account number and the name, and the search itself.
+     */
+    @Test
+    @DisplayName("Transaction Search Runs Three Statements")
+    void transactionSearch_ShouldRunThreeStatements() throws Exception {
+        assertStatements(3, perform(get("/api/accounts/transactions/search")
+                .param("accountNumber", "QUERY-A").param("counterpartyName", "User").param("size", "20")));
+    }
+
+    /**
+     * Test method to verify that a statement export costs the same few statements however many rows it holds.
+     */
+    @Test
+    @DisplayName("Statement Export Runs Three Statements")
+    void exportStatement_ShouldRunThreeStatements() throws Exception {
+        LocalDate today = LocalDate.now();
+        assertStatements(3, performAsync(get("/api/accounts/{id}/statement", firstId)
+                .param("from", today.minusDays(1).toString()).param("to", today.plusDays(1).toString())));
+    }
+
+    /**
+     * Test method to verify that a bulk upload costs a fixed number of statements per chunk, not per row.
+     */
+    @Test
+    @DisplayName("Bulk Transfer Runs Six Statements Per Chunk")
+    void bulkTransfer_ShouldRunSixStatementsPerChunk() throws Exception {
+        StringBuilder upload = new StringBuilder();
+        for (int i = 0; i < 40; i++) {
+            upload.append(i % 2 == 0 ? "QUERY-A,QUERY-B,1\n" : "QUERY-B,QUERY-A,1\n");
+        }
+        assertStatements(6, performAsync(post("/api/transfers/bulk")
+                .contentType(MediaType.parseMediaType("text/csv")).content(upload.toString()).with(csrf())));
+    }
+
+    /**
+     * Test method to verify that listing accounts fetches their users in the same statement.
+     */
+    @Test
+    @DisplayName("Listing Accounts Fetches Users In The Same Statement")
+    void getAllAccounts_ShouldFetchUsersInOneStatement() {
+        try (QueryCounter.Scope scope = QueryCounter.open()) {
+            // Act
+            List<Account> accounts = accountService.getAllAccounts();
+            accounts.forEach(account -> account.getUser().getUsername());
+
+            // Assert
+            assertEquals(2, accounts.size());
+            assertEquals(1, scope.count(), "Accounts and users must be loaded with one statement");
+        }
+    }
+
+    private MvcResult perform(RequestBuilder request) throws Exception {
+        MvcResult result = mockMvc.perform(request).andReturn();
+        assertTrue(result.getResponse().getStatus() < 300, "Status " + result.getResponse().getStatus());
+        return result;
+    }
+
+    private MvcResult performAsync(RequestBuilder request) throws Exception {
+        MvcResult result = mockMvc.perform(request).andReturn();
+        mockMvc.perform(asyncDispatch(result)).andExpect(status().is2xxSuccessful());
+        return result;
+    }
+
+    private static void assertStatements(int budget, MvcResult result) {
+        QueryCounter.Scope scope = (QueryCounter.Scope) result.getRequest().getAttribute(QueryCountFilter.SCOPE_ATTRIBUTE);
+        assertNotNull(scope, "The query guard must count the request");
+        assertTrue(scope.count() <= budget, "Ran " + scope.count() + " SQL statements, budget " + budget);
+    }
+}
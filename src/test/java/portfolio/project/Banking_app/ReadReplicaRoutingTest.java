@@ -0,0 +1,213 @@
+package portfolio.project.Banking_app;
+
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.support.TransactionTemplate;
+import portfolio.project.Banking_app.config.ReadYourWrites;
+import portfolio.project.Banking_app.config.ReadYourWritesFilter;
+import portfolio.project.Banking_app.config.ReplicaRoutingDataSource;
+import portfolio.project.Banking_app.service.AccountService;
+import portfolio.project.Banking_app.service.BalanceCache;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Integration test for the routing of read-only transactions to a read replica.
+ * <p>
+ * The replica is a local stand-in on the embedded server: schema {@code standin} of the test's own database holds
+ * copies of the users and accounts tables, which the test "replicates" by copying the rows, and functions
+ * shadowing {@code pg_is_in_recovery()}, {@code pg_last_wal_replay_lsn()} and
+ * {@code pg_last_xact_replay_timestamp()} that report the replay position and time the test sets. The replica pool
+ * connects with search path {@code standin, pg_catalog}, so it sees only the copies and the shadowing functions.
+ * The scheduled lag check is effectively off; the test runs the checks itself.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc
+@WithMockUser
+@TestPropertySource(properties = {
+        "embedded-postgres.database=" + ReadReplicaRoutingTest.DATABASE,
+        "banking.read-replicas.enabled=true",
+        "banking.read-replicas.max-lag=1s",
+        "banking.read-replicas.lag-check-interval=1h"})
+class ReadReplicaRoutingTest {
+
+    static final String DATABASE = "replica_routing";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private BalanceCache balanceCache;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long accountId;
+
+    /**
+     * Configures the stand-in; a list is bound from one property source only, so all its properties are set here.
+     */
+    @DynamicPropertySource
+    static void replica(DynamicPropertyRegistry registry) {
+        registry.add("banking.read-replicas.replicas[0].name", () -> "standin");
+        registry.add("banking.read-replicas.replicas[0].maximum-pool-size", () -> 4);
+        registry.add("banking.read-replicas.replicas[0].url",
+                () -> EmbeddedPostgresConfiguration.jdbcUrl(DATABASE) + "&currentSchema=standin,pg_catalog");
+    }
+
+    /**
+     * Seeds an account with 100, replicates it to the stand-in and marks the stand-in as caught up.
+     */
+    @BeforeEach
+    void setUp() {
+        TestData.clear(jdbcTemplate);
+        balanceCache.evictAll();
+        long userId = TestData.createUser(jdbcTemplate, "replica");
+        accountId = TestData.createAccount(jdbcTemplate, userId, "REPLICA-A", BigDecimal.valueOf(100));
+
+        jdbcTemplate.execute("CREATE SCHEMA IF NOT EXISTS standin");
+        jdbcTemplate.execute("DROP TABLE IF EXISTS standin.accounts, standin.users, standin.replay_state");
+        jdbcTemplate.execute("CREATE TABLE standin.users (LIKE public.users)");
+        jdbcTemplate.execute("CREATE TABLE standin.accounts (LIKE public.accounts)");
+        jdbcTemplate.execute("CREATE TABLE standin.replay_state (replayed_lsn pg_lsn, replayed_at timestamptz)");
+        jdbcTemplate.execute("INSERT INTO standin.replay_state VALUES (NULL, NULL)");
+        jdbcTemplate.execute("CREATE OR REPLACE FUNCTION standin.pg_is_in_recovery() RETURNS boolean "
+                + "LANGUAGE sql AS 'SELECT true'");
+        jdbcTemplate.execute("CREATE OR REPLACE FUNCTION standin.pg_last_wal_replay_lsn() RETURNS pg_lsn "
+                + "LANGUAGE sql AS 'SELECT replayed_lsn FROM standin.replay_state'");
+        jdbcTemplate.execute("CREATE OR REPLACE FUNCTION standin.pg_last_xact_replay_timestamp() RETURNS timestamptz "
+                + "LANGUAGE sql AS 'SELECT replayed_at FROM standin.replay_state'");
+        replicate();
+    }
+
+    /**
+     * Test method to verify that read-only transactions read from the replica, and transactions that may write
+     * from the primary, while the replica is within the allowed lag.
+     */
+    @Test
+    @DisplayName("Read-Only Transactions Are Served By A Replica Within The Allowed Lag")
+    void readOnlyTransaction_ShouldReadFromReplica() throws Exception {
+        // Arrange: a change on the primary the replica has not replayed yet
+        jdbcTemplate.update("UPDATE accounts SET balance = 250 WHERE id = ?", accountId);
+
+        // Act
+        BigDecimal fromReadOnly = accountService.getAccountById(accountId).getBalance();
+        BigDecimal fromReadWrite = transactionTemplate.execute(status -> accountService.getAccountById(accountId).getBalance());
+        MvcResult balance = mockMvc.perform(get("/api/accounts/{id}/balance", accountId))
+                .andExpect(status().isOk()).andReturn();
+
+        // Assert
+        assertEquals(List.of("standin"), routing().getMonitor().available());
+        assertEquals(0, BigDecimal.valueOf(100).compareTo(fromReadOnly), "A read-only transaction must use the replica");
+        assertEquals(0, BigDecimal.valueOf(250).compareTo(fromReadWrite), "A read-write transaction must use the primary");
+        assertEquals(0, BigDecimal.valueOf(250).compareTo(new BigDecimal(balance.getResponse().getContentAsString())),
+                "Cached balances must be loaded from the primary");
+        assertNull(balance.getResponse().getCookie(ReadYourWritesFilter.COOKIE), "A read must not pin the client to the primary");
+    }
+
+    /**
+     * Test method to verify that a client that wrote reads its writes from the primary, within its request and in
+     * later requests sending the cookie, while other clients still read from the replica.
+     */
+    @Test
+    @DisplayName("A Client Reads Its Own Writes From The Primary Until The Replica Caught Up")
+    void afterWrite_ShouldReadOwnWritesFromPrimary() throws Exception {
+        // Act
+        MvcResult deposit = mockMvc.perform(put("/api/accounts/{id}/deposit", accountId).param("amount", "50").with(csrf()))
+                .andExpect(status().isNoContent()).andReturn();
+        Cookie cookie = deposit.getResponse().getCookie(ReadYourWritesFilter.COOKIE);
+
+        // Assert
+        assertNotNull(cookie, "A write must pin the client to the primary");
+        long primaryUntil = Long.parseLong(cookie.getValue());
+        assertTrue(primaryUntil > System.currentTimeMillis());
+        try (ReadYourWrites.Session ignored = ReadYourWrites.open(primaryUntil, until -> {
+        })) {
+            assertEquals(0, BigDecimal.valueOf(150).compareTo(accountService.getAccountById(accountId).getBalance()),
+                    "The writing client must read from the primary");
+        }
+        assertEquals(0, BigDecimal.valueOf(100).compareTo(accountService.getAccountById(accountId).getBalance()),
+                "Other clients must read from the replica");
+
+        try (ReadYourWrites.Session session = ReadYourWrites.open(0, until -> {
+        })) {
+            accountService.deposit(accountId, BigDecimal.TEN);
+            assertTrue(session.primaryUntil() > System.currentTimeMillis());
+            assertEquals(0, BigDecimal.valueOf(160).compareTo(accountService.getAccountById(accountId).getBalance()),
+                    "A read after a write in the same request must use the primary");
+        }
+    }
+
+    /**
+     * Test method to verify that reads go to the primary while the replica lags more than allowed, and back to the
+     * replica once it has caught up.
+     */
+    @Test
+    @DisplayName("Reads Fall Back To The Primary While The Replica Lags Too Far")
+    void replicaLagging_ShouldFallBackToPrimary() {
+        // Arrange
+        jdbcTemplate.update("UPDATE accounts SET balance = 250 WHERE id = ?", accountId);
+        jdbcTemplate.execute("UPDATE standin.replay_state SET replayed_lsn = '0/0', replayed_at = now() - interval '5 seconds'");
+
+        // Act
+        routing().getMonitor().check();
+        BigDecimal whileLagging = accountService.getAccountById(accountId).getBalance();
+        jdbcTemplate.execute("UPDATE standin.replay_state SET replayed_lsn = 'FFFFFFFF/FFFFFFFF'");
+        routing().getMonitor().check();
+        BigDecimal afterCatchingUp = accountService.getAccountById(accountId).getBalance();
+
+        // Assert
+        assertEquals(0, BigDecimal.valueOf(250).compareTo(whileLagging), "A lagging replica must not serve reads");
+        assertEquals(0, BigDecimal.valueOf(100).compareTo(afterCatchingUp), "A replica must serve reads again once caught up");
+        assertEquals(Duration.ZERO, routing().getMonitor().lag("standin"));
+    }
+
+    /**
+     * Copies the primary's users and accounts to the stand-in, marks it as caught up and checks the lag.
+     */
+    private void replicate() {
+        jdbcTemplate.execute("DELETE FROM standin.accounts");
+        jdbcTemplate.execute("DELETE FROM standin.users");
+        jdbcTemplate.execute("INSERT INTO standin.users SELECT * FROM public.users");
+        jdbcTemplate.execute("INSERT INTO standin.accounts SELECT * FROM public.accounts");
+        jdbcTemplate.execute("UPDATE standin.replay_state SET replayed_lsn = 'FFFFFFFF/FFFFFFFF', replayed_at = now()");
+        routing().getMonitor().check();
+    }
+
+    private ReplicaRoutingDataSource routing() {
+        try {
+            return dataSource.unwrap(ReplicaRoutingDataSource.class);
+        } catch (Exception e) {
+            throw new IllegalStateException("The DataSource is not routed", e);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package portfolio.project.Banking_app;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import portfolio.project.Banking_app.service.StatementService;
+
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Memory test for {@link StatementService}: exports a 10M-row statement from the database.
+ * <p>
+ * The rows are seeded in embedded PostgreSQL, in a database of their own, and read back through the real
+ * repository cursors. The perf profile runs this class in its own JVM with {@code -Xmx128m}, which the application
+ * context shares with the export. Buffering the statement would need well over a gigabyte of heap for the row
+ * objects alone, so finishing the export proves that memory stays constant.
+ */
+@Slf4j
+@Tag("perf")
+@Tag("small-heap")
+@IntegrationTest
+@TestPropertySource(properties = "embedded-postgres.database=statement_export")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class StatementExportMemoryTest {
+
+    private static final int ROWS_PER_DIRECTION = 5_000_000;
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @Autowired
+    private StatementService statementService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long accountId;
+
+    /**
+     * Seeds 10M transactions between two accounts, one second apart, alternating between sent and received.
+     */
+    @BeforeAll
+    void seed() {
+        TestData.clear(jdbcTemplate);
+        long userId = TestData.createUser(jdbcTemplate, "statement");
+        accountId = TestData.createAccount(jdbcTemplate, userId, "ACC-1", BigDecimal.ZERO);
+        long otherId = TestData.createAccount(jdbcTemplate, userId, "ACC-2", BigDecimal.ZERO);
+        TestData.createPartitions(jdbcTemplate, START, START.plusSeconds(2L * ROWS_PER_DIRECTION));
+        jdbcTemplate.update("INSERT INTO transactions (id, amount, timestamp, sender_id, receiver_id) "
+                        + "SELECT n, (n % 10000) / 100.0, ? + n * interval '1 second', "
+                        + "CASE WHEN n % 2 = 0 THEN ? ELSE ? END, CASE WHEN n % 2 = 0 THEN ? ELSE ? END "
+                        + "FROM generate_series(1, ?) AS n",
+                Timestamp.valueOf(START), accountId, otherId, otherId, accountId, 2 * ROWS_PER_DIRECTION);
+        jdbcTemplate.execute("ANALYZE transactions");
+    }
+
+    /**
+     * Test method to verify that a 10M-row NDJSON export read from the database completes within a small fixed heap.
+     */
+    @Test
+    @DisplayName("Exporting 10M Rows Runs In Constant Memory")
+    void exportStatement_TenMillionRows_ShouldStreamInConstantMemory() throws Exception {
+        // Arrange
+        CountingOutputStream out = new CountingOutputStream();
+
+        // Act
+        long start = System.nanoTime();
+        long written = statementService.exportStatement(accountId, START.toLocalDate(), LocalDate.of(2024, 6, 1),
+                StatementService.Format.NDJSON, out);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        // Assert
+        log.info("Statement export: {} rows, {} MiB in {} ms with max heap {} MiB",
+                written, out.bytes >> 20, elapsedMillis, Runtime.getRuntime().maxMemory() >> 20);
+        assertEquals(2L * ROWS_PER_DIRECTION, written);
+        assertEquals(2L * ROWS_PER_DIRECTION, out.lines, "Every row must be written as one line");
+        assertTrue(Runtime.getRuntime().maxMemory() <= 128L << 20, "Test must run with a small fixed heap");
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        private long bytes;
+        private long lines;
+
+        @Override
+        public void write(int b) {
+            bytes++;
+            if (b == '\n') {
+                lines++;
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            bytes += len;
+            for (int i = off; i < off + len; i++) {
+                if (b[i] == '\n') {
+                    lines++;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package portfolio.project.Banking_app;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import portfolio.project.Banking_app.exception.InsufficientFundsException;
+import portfolio.project.Banking_app.service.AccountService;
+import portfolio.project.Banking_app.service.StripedBalanceService;
+import portfolio.project.Banking_app.service.TransactionService;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration test for {@link StripedBalanceService} and the deposit, withdrawal and transfer paths using it.
+ */
+@IntegrationTest
+class StripedBalanceServiceTest {
+
+    @Autowired
+    private StripedBalanceService stripedBalanceService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long hotId;
+    private long senderId;
+
+    /**
+     * Seeds a striped account with 100 and a regular sender with 500.
+     */
+    @BeforeEach
+    void setUp() {
+        TestData.clear(jdbcTemplate);
+        long userId = TestData.createUser(jdbcTemplate, "striped");
+        hotId = TestData.createAccount(jdbcTemplate, userId, "HOT-1", BigDecimal.valueOf(100));
+        senderId = TestData.createAccount(jdbcTemplate, userId, "SENDER-1", BigDecimal.valueOf(500));
+        stripedBalanceService.setStriped(hotId, true);
+    }
+
+    /**
+     * Test method to verify that credits to a striped account go to its stripes and are part of its balance.
+     */
+    @Test
+    @DisplayName("Credits To A Striped Account Go To Its Stripes")
+    void credits_StripedAccount_ShouldGoToStripes() {
+        // Act
+        BigDecimal afterDeposit = accountService.deposit(hotId, BigDecimal.valueOf(50));
+        transactionService.makeTransaction("SENDER-1", "HOT-1", BigDecimal.valueOf(25));
+
+        // Assert
+        assertEquals(0, BigDecimal.valueOf(150).compareTo(afterDeposit), "Balance returned by the deposit");
+        assertEquals(0, BigDecimal.valueOf(100).compareTo(columnOf(hotId)), "Balance column must be untouched");
+        assertEquals(0, BigDecimal.valueOf(75).compareTo(stripesOf(hotId)), "Credits must be in the stripes");
+        assertEquals(0, BigDecimal.valueOf(175).compareTo(accountService.checkBalance(hotId)));
+        assertEquals(0, BigDecimal.valueOf(475).compareTo(columnOf(senderId)));
+    }
+
+    /**
+     * Test method to verify that withdrawals may use the stripes, leaving the balance column negative, but not more.
+     */
+    @Test
+    @DisplayName("Withdrawals From A Striped Account Borrow From Its Stripes")
+    void withdraw_StripedAccount_ShouldCountStripes() {
+        // Arrange
+        accountService.deposit(hotId, BigDecimal.valueOf(50));
+
+        // Act
+        BigDecimal balance = accountService.withdraw(hotId, BigDecimal.valueOf(130));
+
+        // Assert
+        assertEquals(0, BigDecimal.valueOf(20).compareTo(balance));
+        assertEquals(0, BigDecimal.valueOf(-30).compareTo(columnOf(hotId)), "The column borrows from the stripes");
+        assertThrows(InsufficientFundsException.class, () -> accountService.withdraw(hotId, BigDecimal.valueOf(21)));
+    }
+
+    /**
+     * Test method to verify that folding moves the stripes into the balance column without changing the balance.
+     */
+    @Test
+    @DisplayName("Folding Moves Stripes Into The Balance Column")
+    void foldAll_ShouldMoveStripesIntoColumn() {
+        // Arrange
+        accountService.deposit(hotId, BigDecimal.valueOf(50));
+        BigDecimal totalBefore = TestData.totalBalance(jdbcTemplate);
+
+        // Act
+        stripedBalanceService.foldAll();
+
+        // Assert
+        assertEquals(0, BigDecimal.valueOf(150).compareTo(columnOf(hotId)));
+        assertEquals(0, BigDecimal.ZERO.compareTo(stripesOf(hotId)));
+        assertEquals(0, totalBefore.compareTo(TestData.totalBalance(jdbcTemplate)), "Folding must not change the total");
+    }
+
+    /**
+     * Test method to verify that turning striping off folds the stripes right away and credits the column again.
+     */
+    @Test
+    @DisplayName("Turning Striping Off Folds And Credits The Column")
+    void setStriped_Off_ShouldFoldAndCreditColumn() {
+        // Arrange
+        accountService.deposit(hotId, BigDecimal.valueOf(50));
+
+        // Act
+        stripedBalanceService.setStriped(hotId, false);
+        accountService.deposit(hotId, BigDecimal.valueOf(10));
+
+        // Assert
+        assertFalse(stripedBalanceService.isStriped(hotId));
+        assertEquals(0, BigDecimal.valueOf(160).compareTo(columnOf(hotId)));
+        assertEquals(0, BigDecimal.ZERO.compareTo(stripesOf(hotId)));
+    }
+
+    private BigDecimal columnOf(long accountId) {
+        return jdbcTemplate.queryForObject("SELECT balance FROM accounts WHERE id = ?", BigDecimal.class, accountId);
+    }
+
+    private BigDecimal stripesOf(long accountId) {
+        return jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(balance), 0) FROM account_balance_stripes WHERE account_id = ?", BigDecimal.class, accountId);
+    }
+}
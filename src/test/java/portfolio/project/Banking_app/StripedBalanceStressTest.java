@@ -0,0 +1,121 @@
+package portfolio.project.Banking_app;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import portfolio.project.Banking_app.config.StripingProperties;
+import portfolio.project.Banking_app.service.AccountService;
+import portfolio.project.Banking_app.service.StripedBalanceService;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Multi-threaded stress test of deposits into one hot account, unstriped and with a growing number of stripes.
+ * <p>
+ * Without striping every deposit waits for the row lock of the account; with striping they spread over the stripes.
+ * Deposits per second are logged for each setting, and the balance must account for every deposit.
+ */
+@Slf4j
+@Tag("perf")
+@IntegrationTest
+class StripedBalanceStressTest {
+
+    private static final int THREADS = 32;
+    private static final int DEPOSITS_PER_THREAD = 250;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private StripedBalanceService stripedBalanceService;
+
+    @Autowired
+    private StripingProperties stripingProperties;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long accountId;
+    private int defaultStripes;
+
+    /**
+     * Seeds the hot account before each run.
+     */
+    @BeforeEach
+    void setUp() {
+        TestData.clear(jdbcTemplate);
+        long userId = TestData.createUser(jdbcTemplate, "hot");
+        accountId = TestData.createAccount(jdbcTemplate, userId, "HOT-0001", BigDecimal.ZERO);
+        defaultStripes = stripingProperties.getStripes();
+    }
+
+    /**
+     * Restores the configured number of stripes.
+     */
+    @AfterEach
+    void tearDown() {
+        stripingProperties.setStripes(defaultStripes);
+    }
+
+    /**
+     * Runs concurrent deposits into the hot account and verifies that none is lost.
+     *
+     * @param stripes The number of stripes, 0 for an unstriped account.
+     */
+    @ParameterizedTest(name = "{0} stripes")
+    @ValueSource(ints = {0, 1, 4, 16, 64})
+    @DisplayName("Concurrent deposits into a hot account are all counted")
+    void concurrentDeposits_ShouldAllBeCounted(int stripes) throws Exception {
+        if (stripes > 0) {
+            stripingProperties.setStripes(stripes);
+            stripedBalanceService.setStriped(accountId, true);
+        }
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < DEPOSITS_PER_THREAD; i++) {
+                    accountService.deposit(accountId, BigDecimal.ONE);
+                }
+                return null;
+            }));
+        }
+
+        long startNanos = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsedNanos = System.nanoTime() - startNanos;
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        int deposits = THREADS * DEPOSITS_PER_THREAD;
+        log.info("deposit into one account, {} threads, {} stripes: {} deposits/sec",
+                THREADS, stripes, Math.round(deposits / (elapsedNanos / 1e9)));
+
+        BigDecimal expected = BigDecimal.valueOf(deposits);
+        assertEquals(0, expected.compareTo(TestData.totalBalance(jdbcTemplate)), "Every deposit must be counted");
+        stripedBalanceService.foldAll();
+        assertEquals(0, expected.compareTo(jdbcTemplate.queryForObject(
+                "SELECT balance FROM accounts WHERE id = ?", BigDecimal.class, accountId)), "Folding must keep every deposit");
+    }
+}
@@ -0,0 +1,108 @@
+package portfolio.project.Banking_app;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import portfolio.project.Banking_app.repository.TransactionPartitionJdbcRepository;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.text.SimpleDateFormat;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+
+/**
+ * Seeds test rows with plain JDBC, bypassing bean validation of the entities.
+ */
+final class TestData {
+
+    /**
+     * The PIN of every seeded account.
+     */
+    static final String PIN = "1234";
+
+    private static final String PIN_HASH = new BCryptPasswordEncoder(4).encode(PIN);
+
+    /**
+     * The birthdate column holds the serialized {@code DateFormat} of the user entity and is not null in the schema
+     * generated from the entities.
+     */
+    private static final byte[] BIRTHDATE = serialize(new SimpleDateFormat("yyyy-MM-dd"));
+
+    private TestData() {
+    }
+
+    /**
+     * Removes all accounts, users, transactions, end-of-day and ledger engine checkpoints, idempotency keys, outbox
+     * events and the catalog of archived transaction partitions.
+     */
+    static void clear(JdbcTemplate jdbcTemplate) {
+        jdbcTemplate.execute("DELETE FROM eod_partitions");
+        jdbcTemplate.execute("DELETE FROM engine_checkpoints");
+        jdbcTemplate.execute("DELETE FROM idempotency_keys");
+        jdbcTemplate.execute("DELETE FROM outbox_events");
+        jdbcTemplate.execute("DELETE FROM transaction_archives");
+        jdbcTemplate.execute("DELETE FROM transactions");
+        jdbcTemplate.execute("DELETE FROM accounts");
+        jdbcTemplate.execute("DELETE FROM users");
+    }
+
+    static long createUser(JdbcTemplate jdbcTemplate, String username) {
+        return createUser(jdbcTemplate, username, "User " + username);
+    }
+
+    static long createUser(JdbcTemplate jdbcTemplate, String username, String fullName) {
+        return jdbcTemplate.queryForObject(
+                "INSERT INTO users (id, username, password, full_name, email, birthdate) "
+                        + "VALUES (nextval('users_seq'), ?, 'secret', ?, ?, ?) RETURNING id",
+                Long.class, username, fullName, username + "@example.com", BIRTHDATE);
+    }
+
+    static long createAccount(JdbcTemplate jdbcTemplate, long userId, String accountNumber, BigDecimal balance) {
+        return jdbcTemplate.queryForObject(
+                "INSERT INTO accounts (id, account_number, pin, account_login_number, account_login_password, balance, user_id) "
+                        + "VALUES (nextval('accounts_seq'), ?, ?, ?, 'password', ?, ?) RETURNING id",
+                Long.class, accountNumber, PIN_HASH, "login-" + accountNumber, balance, userId);
+    }
+
+    static long createTransaction(JdbcTemplate jdbcTemplate, long senderId, long receiverId, BigDecimal amount,
+                                  LocalDateTime timestamp) {
+        return jdbcTemplate.queryForObject(
+                "INSERT INTO transactions (id, amount, timestamp, sender_id, receiver_id) "
+                        + "VALUES (nextval('transactions_seq'), ?, ?, ?, ?) RETURNING id",
+                Long.class, amount, Timestamp.valueOf(timestamp), senderId, receiverId);
+    }
+
+    /**
+     * Creates the monthly partitions of the transactions table from the month of {@code from} through the month of
+     * {@code to}, unless they exist; the migrations only create the partitions around the current month.
+     */
+    static void createPartitions(JdbcTemplate jdbcTemplate, LocalDateTime from, LocalDateTime to) {
+        for (YearMonth month = YearMonth.from(from); !month.isAfter(YearMonth.from(to)); month = month.plusMonths(1)) {
+            LocalDateTime start = month.atDay(1).atStartOfDay();
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + TransactionPartitionJdbcRepository.partitionName(start)
+                    + " PARTITION OF transactions FOR VALUES FROM ('" + start + "') TO ('" + start.plusMonths(1) + "')");
+        }
+    }
+
+    /**
+     * Returns the sum of all balances, including the stripes of striped accounts.
+     */
+    static BigDecimal totalBalance(JdbcTemplate jdbcTemplate) {
+        return jdbcTemplate.queryForObject("SELECT (SELECT COALESCE(SUM(balance), 0) FROM accounts) "
+                + "+ (SELECT COALESCE(SUM(balance), 0) FROM account_balance_stripes)", BigDecimal.class);
+    }
+
+    private static byte[] serialize(Object value) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+}
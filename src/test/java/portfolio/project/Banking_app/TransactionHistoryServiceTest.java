@@ -0,0 +1,94 @@
+package portfolio.project.Banking_app;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import portfolio.project.Banking_app.dto.TransactionHistoryDTO;
+import portfolio.project.Banking_app.dto.TransactionHistoryPage;
+import portfolio.project.Banking_app.exception.ResourceNotFoundException;
+import portfolio.project.Banking_app.service.TransactionHistoryService;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration test for {@link TransactionHistoryService}.
+ */
+@IntegrationTest
+class TransactionHistoryServiceTest {
+
+    @Autowired
+    private TransactionHistoryService transactionHistoryService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long accountId;
+    private final List<Long> expectedIds = new ArrayList<>();
+
+    /**
+     * Seeds 25 transactions in both directions, several of them sharing a timestamp.
+     */
+    @BeforeEach
+    void setUp() {
+        TestData.clear(jdbcTemplate);
+        expectedIds.clear();
+        long userId = TestData.createUser(jdbcTemplate, "history");
+        accountId = TestData.createAccount(jdbcTemplate, userId, "HIST-A", BigDecimal.ZERO);
+        long otherId = TestData.createAccount(jdbcTemplate, userId, "HIST-B", BigDecimal.ZERO);
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 12, 0);
+        TestData.createPartitions(jdbcTemplate, start, start);
+        for (int i = 0; i < 25; i++) {
+            boolean sent = i % 2 == 0;
+            expectedIds.add(TestData.createTransaction(jdbcTemplate, sent ? accountId : otherId, sent ? otherId : accountId,
+                    BigDecimal.valueOf(i + 1), start.plusMinutes(i / 3)));
+        }
+    }
+
+    /**
+     * Test method to verify that paging with the returned cursor visits every transaction exactly once, newest first.
+     */
+    @Test
+    @DisplayName("Paging Through History Returns Every Transaction Once, Newest First")
+    void getHistory_PagingWithCursor_ShouldReturnAllTransactionsInOrder() {
+        // Act
+        List<TransactionHistoryDTO> collected = new ArrayList<>();
+        List<Integer> pageSizes = new ArrayList<>();
+        TransactionHistoryPage page = transactionHistoryService.getHistory(accountId, null, null, 10);
+        while (true) {
+            collected.addAll(page.getTransactions());
+            pageSizes.add(page.getTransactions().size());
+            if (page.getNextBeforeId() == null) {
+                break;
+            }
+            page = transactionHistoryService.getHistory(accountId, page.getNextBeforeTimestamp(), page.getNextBeforeId(), 10);
+        }
+
+        // Assert
+        assertEquals(List.of(10, 10, 5), pageSizes);
+        List<Long> sortedIds = collected.stream()
+                .sorted(Comparator.comparing(TransactionHistoryDTO::getTimestamp).thenComparing(TransactionHistoryDTO::getId).reversed())
+                .map(TransactionHistoryDTO::getId)
+                .toList();
+        assertEquals(sortedIds, collected.stream().map(TransactionHistoryDTO::getId).toList(), "History must be newest first");
+        assertEquals(expectedIds.stream().sorted().toList(), collected.stream().map(TransactionHistoryDTO::getId).sorted().toList());
+        assertTrue(collected.stream().allMatch(t -> t.getDirection().equals(
+                t.getSenderAccountNumber().equals("HIST-A") ? "SENT" : "RECEIVED")));
+    }
+
+    /**
+     * Test method to verify that the history of a non-existing account is rejected.
+     */
+    @Test
+    @DisplayName("History Of Non-Existing Account Should Throw Exception")
+    void getHistory_NonExistingAccount_ShouldThrowException() {
+        assertThrows(ResourceNotFoundException.class, () -> transactionHistoryService.getHistory(-1L, null, null, 10));
+    }
+}
@@ -0,0 +1,159 @@
+package portfolio.project.Banking_app;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.JpaProperties;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.support.SimpleJpaRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.support.TransactionTemplate;
+import portfolio.project.Banking_app.entity.Account;
+import portfolio.project.Banking_app.entity.Transaction;
+import portfolio.project.Banking_app.repository.TransactionRepository;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Measures the insert rate of {@link Transaction} entities saved through {@link JpaRepository#saveAll}.
+ * <p>
+ * The "before" run maps the ids as IDENTITY columns (see {@code orm/transaction-identity-ids.xml}), which makes
+ * Hibernate execute every insert on its own to read the generated id back. The "after" run uses the pooled sequence
+ * ids of the entity mapping, which let Hibernate group the inserts into JDBC batches.
+ */
+@Slf4j
+@Tag("perf")
+@IntegrationTest
+class TransactionInsertBenchmarkTest {
+
+    private static final int ROWS = 100_000;
+    private static final int ROWS_PER_TRANSACTION = 1_000;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JpaProperties jpaProperties;
+
+    @Autowired
+    private HibernateProperties hibernateProperties;
+
+    private long senderId;
+    private long receiverId;
+
+    /**
+     * Seeds the two accounts every inserted transaction refers to.
+     */
+    @BeforeEach
+    void setUp() {
+        TestData.clear(jdbcTemplate);
+        long userId = TestData.createUser(jdbcTemplate, "insert-bench");
+        senderId = TestData.createAccount(jdbcTemplate, userId, "BENCH-S", BigDecimal.ZERO);
+        receiverId = TestData.createAccount(jdbcTemplate, userId, "BENCH-R", BigDecimal.ZERO);
+    }
+
+    /**
+     * Saves 100k transactions with IDENTITY ids and then with sequence ids, and reports both rates.
+     */
+    @Test
+    @DisplayName("Insert Rate Of 100k Transactions, IDENTITY vs Sequence Ids")
+    void saveAll_ShouldBeFasterWithSequenceIds() {
+        LocalContainerEntityManagerFactoryBean identityFactory = identityEntityManagerFactory();
+        long identity;
+        try {
+            EntityManagerFactory factory = identityFactory.getObject();
+            assertTrue(factory.unwrap(SessionFactoryImplementor.class).getMappingMetamodel()
+                            .getEntityDescriptor(Transaction.class).getGenerator().generatedOnExecution(),
+                    "The before run must map the transaction ids as IDENTITY columns");
+            EntityManager identityEntityManager = SharedEntityManagerCreator.createSharedEntityManager(factory);
+            identity = time(new TransactionTemplate(new JpaTransactionManager(factory)), identityEntityManager,
+                    new SimpleJpaRepository<>(Transaction.class, identityEntityManager));
+        } finally {
+            identityFactory.destroy();
+        }
+        assertEquals(ROWS, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transactions", Integer.class));
+        jdbcTemplate.execute("DELETE FROM transactions");
+
+        long sequence = time(transactionTemplate, entityManager, transactionRepository);
+
+        log.info("Transaction saveAll: IDENTITY ids {} rows/sec, sequence ids {} rows/sec",
+                Math.round(ROWS / (identity / 1e9)), Math.round(ROWS / (sequence / 1e9)));
+        assertEquals(ROWS, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transactions", Integer.class));
+        assertTrue(sequence < identity, "Batched inserts with sequence ids must be faster than IDENTITY inserts");
+    }
+
+    /**
+     * Saves {@link #ROWS} transactions in chunks, one database transaction per chunk, and returns the elapsed
+     * nanoseconds.
+     */
+    private long time(TransactionTemplate transactions, EntityManager entityManager,
+                      JpaRepository<Transaction, Long> repository) {
+        long start = System.nanoTime();
+        for (int done = 0; done < ROWS; done += ROWS_PER_TRANSACTION) {
+            transactions.executeWithoutResult(status -> {
+                Account sender = entityManager.getReference(Account.class, senderId);
+                Account receiver = entityManager.getReference(Account.class, receiverId);
+                List<Transaction> chunk = new ArrayList<>(ROWS_PER_TRANSACTION);
+                for (int i = 0; i < ROWS_PER_TRANSACTION; i++) {
+                    chunk.add(Transaction.builder()
+                            .sender(sender)
+                            .receiver(receiver)
+                            .amount(BigDecimal.ONE)
+                            .timestamp(LocalDateTime.now())
+                            .build());
+                }
+                repository.saveAll(chunk);
+            });
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Builds an entity manager factory with the settings of the application's, on the same database, with the
+     * transaction ids mapped as IDENTITY columns.
+     */
+    private LocalContainerEntityManagerFactoryBean identityEntityManagerFactory() {
+        LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+        factory.setDataSource(dataSource);
+        factory.setPackagesToScan(Transaction.class.getPackageName());
+        factory.setMappingResources("orm/transaction-identity-ids.xml");
+        factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factory.setJpaPropertyMap(hibernateProperties.determineHibernateProperties(jpaProperties.getProperties(),
+                new HibernateSettings()));
+        factory.setPersistenceUnitName("identity-ids");
+        factory.afterPropertiesSet();
+        return factory;
+    }
+}
@@ -0,0 +1,147 @@
+package portfolio.project.Banking_app;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.FileSystemUtils;
+import portfolio.project.Banking_app.dto.TransactionHistoryDTO;
+import portfolio.project.Banking_app.dto.TransactionHistoryPage;
+import portfolio.project.Banking_app.repository.TransactionPartitionJdbcRepository;
+import portfolio.project.Banking_app.repository.TransactionPartitionJdbcRepository.Partition;
+import portfolio.project.Banking_app.service.TransactionHistoryService;
+import portfolio.project.Banking_app.service.TransactionPartitionService;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration test for the partitioning migration ({@code V12__partition_transactions.sql}) on a transactions table
+ * that already holds rows, and for the archive of the legacy partition it leaves behind.
+ * <p>
+ * The test runs on its own database, migrated up to the version before the partitioning at startup and migrated
+ * on by its only test method.
+ */
+@IntegrationTest
+@TestPropertySource(properties = {
+        "embedded-postgres.database=" + TransactionPartitionMigrationTest.DATABASE,
+        "spring.flyway.target=11",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "banking.transaction-partitions.premake-months=1",
+        "banking.transaction-partitions.retention-months=24",
+        "banking.transaction-partitions.archive-directory=" + TransactionPartitionMigrationTest.ARCHIVE_DIRECTORY})
+class TransactionPartitionMigrationTest {
+
+    static final String DATABASE = "transaction_partition_migration";
+    static final String ARCHIVE_DIRECTORY = "target/transaction-partition-migration-test";
+
+    @Autowired
+    private TransactionPartitionService partitionService;
+
+    @Autowired
+    private TransactionPartitionJdbcRepository partitionRepository;
+
+    @Autowired
+    private TransactionHistoryService transactionHistoryService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private Flyway flyway;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        FileSystemUtils.deleteRecursively(Path.of(ARCHIVE_DIRECTORY));
+    }
+
+    /**
+     * Test method to verify that the rows of the unpartitioned table become the legacy partition, bounded below by
+     * MINVALUE, and that once the legacy partition is past the retention it is archived from its oldest row and its
+     * history stays readable next to the transactions of the monthly partitions.
+     */
+    @Test
+    @DisplayName("Legacy Rows Are Attached By The Migration And Archived Later")
+    void migrate_ShouldAttachLegacyRowsAndArchiveThemLater() {
+        // Arrange: 40 transactions over two old months, in a table whose legacy bound was set 27 months ago, as if
+        // the first step of the migration had run back then
+        long userId = TestData.createUser(jdbcTemplate, "legacy");
+        long accountId = TestData.createAccount(jdbcTemplate, userId, "LEG-A", BigDecimal.ZERO);
+        long otherId = TestData.createAccount(jdbcTemplate, userId, "LEG-B", BigDecimal.ZERO);
+        LocalDateTime oldest = YearMonth.now().minusMonths(30).atDay(3).atTime(9, 30);
+        LocalDateTime bound = YearMonth.now().minusMonths(27).atDay(1).atStartOfDay();
+        List<Long> legacyIds = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            boolean sent = i % 2 == 0;
+            legacyIds.add(TestData.createTransaction(jdbcTemplate, sent ? accountId : otherId,
+                    sent ? otherId : accountId, BigDecimal.valueOf(i + 1), oldest.plusDays(2L * i)));
+        }
+        jdbcTemplate.execute("ALTER TABLE transactions ADD CONSTRAINT transactions_legacy_bound CHECK "
+                + "(timestamp IS NOT NULL AND timestamp < '" + bound.toString().replace('T', ' ') + "') NOT VALID");
+
+        // Act
+        migrate();
+        List<Partition> migrated = transactionTemplate.execute(status -> partitionRepository.findPartitions());
+        partitionService.ensurePartitions();
+        long recentId = TestData.createTransaction(jdbcTemplate, accountId, otherId, BigDecimal.TEN,
+                LocalDateTime.now());
+        int archived = partitionService.archiveColdPartitions();
+        List<Long> history = new ArrayList<>();
+        TransactionHistoryPage page = transactionHistoryService.getHistory(accountId, null, null, 15);
+        while (true) {
+            page.getTransactions().stream().map(TransactionHistoryDTO::getId).forEach(history::add);
+            if (page.getNextBeforeId() == null) {
+                break;
+            }
+            page = transactionHistoryService.getHistory(accountId, page.getNextBeforeTimestamp(),
+                    page.getNextBeforeId(), 15);
+        }
+
+        // Assert
+        assertEquals(1, migrated.size(), "The migration must attach the legacy table as the only partition");
+        assertEquals("transactions_legacy", migrated.get(0).name());
+        assertNull(migrated.get(0).from(), "The legacy partition must be bounded below by MINVALUE");
+        assertEquals(bound, migrated.get(0).to());
+
+        assertEquals(4, archived, "The legacy partition and the three monthly partitions after it must be archived");
+        List<String> partitions = jdbcTemplate.queryForList("SELECT c.relname FROM pg_inherits i "
+                + "JOIN pg_class c ON c.oid = i.inhrelid WHERE i.inhparent = 'transactions'::regclass", String.class);
+        assertFalse(partitions.contains("transactions_legacy"), "The legacy partition must be detached");
+        assertEquals(oldest, jdbcTemplate.queryForObject("SELECT range_start FROM transaction_archives "
+                + "WHERE partition_name = 'transactions_legacy'", LocalDateTime.class),
+                "The archive of the legacy partition must start at its oldest row");
+        assertEquals(40L, jdbcTemplate.queryForObject("SELECT row_count FROM transaction_archives "
+                + "WHERE partition_name = 'transactions_legacy'", Long.class));
+
+        List<Long> expected = new ArrayList<>(legacyIds);
+        expected.add(recentId);
+        expected.sort((a, b) -> Long.compare(b, a));
+        assertEquals(expected, history,
+                "The history must hold the recent transaction, then every archived legacy transaction");
+    }
+
+    /**
+     * Runs the partitioning migration through Flyway, configured as at startup but for the target.
+     */
+    private void migrate() {
+        Flyway.configure()
+                .configuration(flyway.getConfiguration())
+                .target("12")
+                .load()
+                .migrate();
+    }
+}
@@ -0,0 +1,194 @@
+package portfolio.project.Banking_app;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.FileSystemUtils;
+import portfolio.project.Banking_app.dto.TransactionHistoryDTO;
+import portfolio.project.Banking_app.dto.TransactionHistoryPage;
+import portfolio.project.Banking_app.repository.TransactionPartitionJdbcRepository;
+import portfolio.project.Banking_app.service.TransactionHistoryService;
+import portfolio.project.Banking_app.service.TransactionPartitionService;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration test for {@link TransactionPartitionService} and the history of archived partitions.
+ * <p>
+ * The test runs on its own database, so the partitions it archives and detaches are its own, and writes
+ * archives of about a kilobyte per part, so an archive spans several part files.
+ */
+@IntegrationTest
+@TestPropertySource(properties = {
+        "embedded-postgres.database=" + TransactionPartitionServiceTest.DATABASE,
+        "banking.transaction-partitions.premake-months=2",
+        "banking.transaction-partitions.retention-months=24",
+        "banking.transaction-partitions.archive-part-size=1KB",
+        "banking.transaction-partitions.archive-directory=" + TransactionPartitionServiceTest.ARCHIVE_DIRECTORY})
+class TransactionPartitionServiceTest {
+
+    static final String DATABASE = "transaction_partitions";
+    static final String ARCHIVE_DIRECTORY = "target/transaction-partitions-test";
+
+
+    @Autowired
+    private TransactionPartitionService partitionService;
+
+    @Autowired
+    private TransactionHistoryService transactionHistoryService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Removes all rows, archives and archived partitions, which are kept as standalone tables.
+     */
+    @BeforeEach
+    void setUp() throws IOException {
+        // Detached partitions keep their foreign keys to the accounts
+        for (String table : jdbcTemplate.queryForList("SELECT relname FROM pg_class "
+                + "WHERE relname LIKE 'transactions\\_p%' AND relkind = 'r' AND NOT relispartition", String.class)) {
+            jdbcTemplate.execute("DROP TABLE " + table);
+        }
+        TestData.clear(jdbcTemplate);
+        FileSystemUtils.deleteRecursively(Path.of(ARCHIVE_DIRECTORY));
+    }
+
+    /**
+     * Test method to verify that the partitions of the coming months are created, and transactions of the current
+     * month are written to its partition.
+     */
+    @Test
+    @DisplayName("Partitions Are Created Through The Premake Months")
+    void ensurePartitions_ShouldCreateFuturePartitions() {
+        // Arrange
+        long userId = TestData.createUser(jdbcTemplate, "partition");
+        long accountId = TestData.createAccount(jdbcTemplate, userId, "PART-A", BigDecimal.ZERO);
+        long otherId = TestData.createAccount(jdbcTemplate, userId, "PART-B", BigDecimal.ZERO);
+
+        // Act
+        partitionService.ensurePartitions();
+        int createdAgain = partitionService.ensurePartitions();
+        TestData.createTransaction(jdbcTemplate, accountId, otherId, BigDecimal.TEN, LocalDateTime.now());
+
+        // Assert
+        List<String> partitions = partitions();
+        for (int i = 0; i <= 2; i++) {
+            assertTrue(partitions.contains(partitionName(YearMonth.now().plusMonths(i))),
+                    "Missing partition " + i + " months ahead: " + partitions);
+        }
+        assertEquals(0, createdAgain, "Existing partitions must not be created again");
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT count(*) FROM " + partitionName(YearMonth.now()),
+                Integer.class));
+    }
+
+    /**
+     * Test method to verify that partitions past the retention are archived and detached, and that paging through
+     * a history continues from the database into the archives without losing, repeating or reordering a
+     * transaction.
+     */
+    @Test
+    @DisplayName("Cold Partitions Are Archived And Their History Stays Readable")
+    void archiveColdPartitions_ShouldMoveHistoryToArchives() {
+        // Arrange: 300 transactions over two cold months, pairs sharing a timestamp, and 5 recent ones
+        YearMonth cold = YearMonth.now().minusMonths(30);
+        transactionTemplate.executeWithoutResult(status -> {
+            partitionService.createPartition(cold);
+            partitionService.createPartition(cold.plusMonths(1));
+        });
+        long userId = TestData.createUser(jdbcTemplate, "archive");
+        long accountId = TestData.createAccount(jdbcTemplate, userId, "ARCH-A", BigDecimal.ZERO);
+        long[] others = {
+                TestData.createAccount(jdbcTemplate, userId, "ARCH-B", BigDecimal.ZERO),
+                TestData.createAccount(jdbcTemplate, userId, "ARCH-C", BigDecimal.ZERO)};
+        List<TransactionHistoryDTO> expected = new ArrayList<>();
+        LocalDateTime start = cold.atDay(1).atStartOfDay();
+        for (int i = 0; i < 305; i++) {
+            boolean sent = i % 3 != 0;
+            int other = i % 2;
+            LocalDateTime timestamp = i < 300
+                    ? start.plusHours(8L * (i / 2)).plusNanos(1_000L * (i / 2))
+                    : YearMonth.now().atDay(1).atStartOfDay().plusMinutes(i - 300);
+            BigDecimal amount = BigDecimal.valueOf(100 * i + 25, 2);
+            long id = TestData.createTransaction(jdbcTemplate, sent ? accountId : others[other],
+                    sent ? others[other] : accountId, amount, timestamp);
+            String otherNumber = other == 0 ? "ARCH-B" : "ARCH-C";
+            expected.add(new TransactionHistoryDTO(id, amount, timestamp, sent ? "ARCH-A" : otherNumber,
+                    sent ? otherNumber : "ARCH-A", sent ? "SENT" : "RECEIVED"));
+        }
+        expected.sort(Comparator.comparing(TransactionHistoryDTO::getTimestamp)
+                .thenComparing(TransactionHistoryDTO::getId).reversed());
+
+        // Act
+        int archived = partitionService.archiveColdPartitions();
+        List<TransactionHistoryDTO> collected = new ArrayList<>();
+        TransactionHistoryPage page = transactionHistoryService.getHistory(accountId, null, null, 7);
+        while (true) {
+            collected.addAll(page.getTransactions());
+            if (page.getNextBeforeId() == null) {
+                break;
+            }
+            page = transactionHistoryService.getHistory(accountId, page.getNextBeforeTimestamp(), page.getNextBeforeId(), 7);
+        }
+        List<TransactionHistoryDTO> counterparty = transactionHistoryService.getHistory(others[1], null, null, 100)
+                .getTransactions();
+
+        // Assert
+        assertEquals(2, archived);
+        List<String> partitions = partitions();
+        assertFalse(partitions.contains(partitionName(cold)), "An archived partition must be detached");
+        assertFalse(partitions.contains(partitionName(cold.plusMonths(1))), "An archived partition must be detached");
+        assertEquals(300L, jdbcTemplate.queryForObject("SELECT sum(row_count) FROM transaction_archives", Long.class));
+        assertEquals(0L, jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM transactions WHERE timestamp < ?", Long.class, start.plusMonths(2)));
+        assertTrue(jdbcTemplate.queryForObject("SELECT min(parts) FROM transaction_archives", Integer.class) > 1,
+                "Each archive must span several parts at this part size");
+        assertTrue(Files.exists(Path.of(ARCHIVE_DIRECTORY, partitionName(cold) + ".dict")));
+        assertEquals(300L, jdbcTemplate.queryForObject("SELECT (SELECT count(*) FROM " + partitionName(cold) + ") + "
+                        + "(SELECT count(*) FROM " + partitionName(cold.plusMonths(1)) + ")", Long.class),
+                "Archived partitions must be kept as standalone tables unless drop-archived is set");
+
+        assertEquals(expected.size(), collected.size());
+        for (int i = 0; i < expected.size(); i++) {
+            TransactionHistoryDTO want = expected.get(i);
+            TransactionHistoryDTO got = collected.get(i);
+            assertEquals(want.getId(), got.getId(), "Entry " + i);
+            assertEquals(want.getTimestamp(), got.getTimestamp(), "Entry " + i);
+            assertEquals(0, want.getAmount().compareTo(got.getAmount()), "Entry " + i);
+            assertEquals(want.getSenderAccountNumber(), got.getSenderAccountNumber(), "Entry " + i);
+            assertEquals(want.getReceiverAccountNumber(), got.getReceiverAccountNumber(), "Entry " + i);
+            assertEquals(want.getDirection(), got.getDirection(), "Entry " + i);
+        }
+        assertEquals(expected.stream()
+                        .filter(t -> t.getSenderAccountNumber().equals("ARCH-C") || t.getReceiverAccountNumber().equals("ARCH-C"))
+                        .limit(100).map(TransactionHistoryDTO::getId).toList(),
+                counterparty.stream().map(TransactionHistoryDTO::getId).toList(),
+                "The counterparty's history must hold the same transactions from its side");
+    }
+
+    private List<String> partitions() {
+        return jdbcTemplate.queryForList("SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid "
+                + "WHERE i.inhparent = 'transactions'::regclass", String.class);
+    }
+
+    private static String partitionName(YearMonth month) {
+        return TransactionPartitionJdbcRepository.partitionName(month.atDay(1).atStartOfDay());
+    }
+}
@@ -0,0 +1,165 @@
+package portfolio.project.Banking_app;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import portfolio.project.Banking_app.dto.TransactionSearchCriteria;
+import portfolio.project.Banking_app.service.TransactionSearchService;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Measures transaction search latency on a large transactions table, per search shape, against the naive query a
+ * JPA join from transactions to accounts to users would produce.
+ * <p>
+ * The table is seeded with 50 million transactions between 100k accounts over one year; the size can be lowered
+ * with {@code -Dsearch.rows=5000000}. The indexes of the migrations are dropped for the load and built again from
+ * their definitions after it, so they match production.
+ */
+@Slf4j
+@Tag("perf")
+@IntegrationTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class TransactionSearchBenchmarkTest {
+
+    private static final int ROWS = Integer.getInteger("search.rows", 50_000_000);
+    private static final int ROWS_PER_STATEMENT = 1_000_000;
+    private static final int ACCOUNTS = 100_000;
+    private static final int SEARCHES = 200;
+    private static final int NAIVE_SEARCHES = 3;
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @Autowired
+    private TransactionSearchService transactionSearchService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Seeds the accounts and transactions without indexes on transactions, then builds them again and updates
+     * statistics.
+     */
+    @BeforeAll
+    void seed() {
+        TestData.clear(jdbcTemplate);
+        jdbcTemplate.update("INSERT INTO users (id, username, password, full_name, email) "
+                + "SELECT nextval('users_seq'), 'search-' || n, 'secret', 'Holder ' || lpad(n::text, 6, '0'), 'search-' || n || '@example.com' "
+                + "FROM generate_series(0, ?) AS n", ACCOUNTS - 1);
+        jdbcTemplate.update("INSERT INTO accounts (id, account_number, pin, account_login_number, account_login_password, balance, user_id) "
+                + "SELECT nextval('accounts_seq'), 'SEARCH-' || substr(u.username, 8), 'x', 'login-' || u.username, 'password', 0, u.id "
+                + "FROM users u");
+
+        TestData.createPartitions(jdbcTemplate, START, START.plusDays(365));
+        Map<String, String> indexes = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT indexname, indexdef FROM pg_indexes WHERE tablename = 'transactions' "
+                + "AND indexname LIKE 'idx\\_%'", (RowCallbackHandler) rs -> indexes.put(rs.getString(1), rs.getString(2)));
+        indexes.keySet().forEach(index -> jdbcTemplate.execute("DROP INDEX " + index));
+        for (int done = 0; done < ROWS; done += ROWS_PER_STATEMENT) {
+            jdbcTemplate.update("WITH a AS (SELECT array_agg(id) AS ids FROM accounts) "
+                    + "INSERT INTO transactions (id, amount, timestamp, sender_id, receiver_id) "
+                    + "SELECT nextval('transactions_seq'), round((random() * 1000)::numeric, 2), "
+                    + "?::timestamp + random() * interval '365 days', "
+                    + "a.ids[1 + floor(random() * ?)::int], a.ids[1 + floor(random() * ?)::int] "
+                    + "FROM a, generate_series(1, ?)",
+                    Timestamp.valueOf(START), ACCOUNTS, ACCOUNTS, Math.min(ROWS_PER_STATEMENT, ROWS - done));
+        }
+        indexes.values().forEach(jdbcTemplate::execute);
+        jdbcTemplate.execute("VACUUM ANALYZE transactions");
+        jdbcTemplate.execute("ANALYZE accounts");
+        jdbcTemplate.execute("ANALYZE users");
+    }
+
+    /**
+     * Drops the seeded rows, so other tests start from small tables.
+     */
+    @AfterAll
+    void dropTransactions() {
+        jdbcTemplate.execute("TRUNCATE transactions, accounts, users CASCADE");
+    }
+
+    /**
+     * Runs each search shape with random parameters and reports latency percentiles, then the naive join.
+     */
+    @Test
+    @DisplayName("Search Latency Per Filter Combination On A Large Transactions Table")
+    void search_ShouldReportLatencyPerShape() {
+        measure("account number", () -> TransactionSearchCriteria.builder()
+                .accountNumber(randomAccountNumber()).build());
+        measure("account number + counterparty name", () -> TransactionSearchCriteria.builder()
+                .accountNumber(randomAccountNumber()).counterpartyName(randomNamePrefix(100)).build());
+        measure("counterparty name", () -> TransactionSearchCriteria.builder()
+                .counterpartyName(randomNamePrefix(10)).build());
+        measure("exact amount", () -> {
+            BigDecimal amount = randomAmount();
+            return TransactionSearchCriteria.builder().minAmount(amount).maxAmount(amount).build();
+        });
+        measure("one day + amount range", () -> {
+            LocalDateTime from = START.plusDays(ThreadLocalRandom.current().nextInt(364));
+            BigDecimal minAmount = randomAmount();
+            return TransactionSearchCriteria.builder().from(from).to(from.plusDays(1))
+                    .minAmount(minAmount).maxAmount(minAmount.add(BigDecimal.TEN)).build();
+        });
+
+        Latencies naive = new Latencies(NAIVE_SEARCHES);
+        for (int i = 0; i < NAIVE_SEARCHES; i++) {
+            String accountNumber = randomAccountNumber();
+            String name = "%" + randomNamePrefix(10).toLowerCase() + "%";
+            long start = System.nanoTime();
+            jdbcTemplate.queryForList("SELECT t.id, t.amount, t.timestamp, sa.account_number, su.full_name, ra.account_number, ru.full_name "
+                            + "FROM transactions t "
+                            + "JOIN accounts sa ON sa.id = t.sender_id JOIN users su ON su.id = sa.user_id "
+                            + "JOIN accounts ra ON ra.id = t.receiver_id JOIN users ru ON ru.id = ra.user_id "
+                            + "WHERE (sa.account_number = ? OR ra.account_number = ?) "
+                            + "AND (lower(su.full_name) LIKE ? OR lower(ru.full_name) LIKE ?) "
+                            + "ORDER BY t.timestamp DESC, t.id DESC LIMIT 20",
+                    accountNumber, accountNumber, name, name);
+            naive.record(System.nanoTime() - start);
+        }
+        log.info("Transaction search, {} rows, naive join (account number + name): {}", ROWS, naive.summary());
+    }
+
+    private void measure(String shape, Supplier<TransactionSearchCriteria> criteria) {
+        Latencies latencies = new Latencies(SEARCHES);
+        long found = 0;
+        for (int i = 0; i < SEARCHES; i++) {
+            TransactionSearchCriteria search = criteria.get();
+            long start = System.nanoTime();
+            found += transactionSearchService.search(search).getTransactions().size();
+            latencies.record(System.nanoTime() - start);
+        }
+        log.info("Transaction search, {} rows, {}: {}, {} results per page",
+                ROWS, shape, latencies.summary(), Math.round(10.0 * found / SEARCHES) / 10.0);
+        assertTrue(found > 0, "Searches by " + shape + " should find transactions");
+    }
+
+    private static String randomAccountNumber() {
+        return "SEARCH-" + ThreadLocalRandom.current().nextInt(ACCOUNTS);
+    }
+
+    /**
+     * Returns a prefix matching the names of the given number of account holders, a power of ten.
+     */
+    private static String randomNamePrefix(int holders) {
+        int digits = 6 - Integer.toString(holders).length() + 1;
+        return "Holder " + String.format("%0" + digits + "d", ThreadLocalRandom.current().nextInt(ACCOUNTS / holders));
+    }
+
+    private static BigDecimal randomAmount() {
+        return BigDecimal.valueOf(ThreadLocalRandom.current().nextInt(100_000), 2);
+    }
+}
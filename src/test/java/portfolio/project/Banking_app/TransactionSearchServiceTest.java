@@ -0,0 +1,256 @@
+package portfolio.project.Banking_app;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import portfolio.project.Banking_app.config.TransactionSearchProperties;
+import portfolio.project.Banking_app.dto.TransactionSearchCriteria;
+import portfolio.project.Banking_app.dto.TransactionSearchPage;
+import portfolio.project.Banking_app.dto.TransactionSearchResultDTO;
+import portfolio.project.Banking_app.exception.ResourceNotFoundException;
+import portfolio.project.Banking_app.repository.TransactionSearchJdbcRepository;
+import portfolio.project.Banking_app.repository.TransactionSearchJdbcRepository.SearchQuery;
+import portfolio.project.Banking_app.service.AccountNumberResolver;
+import portfolio.project.Banking_app.service.TransactionSearchService;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration test for {@link TransactionSearchService}.
+ */
+@IntegrationTest
+class TransactionSearchServiceTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    @Autowired
+    private TransactionSearchService transactionSearchService;
+
+    @Autowired
+    private TransactionSearchJdbcRepository searchRepository;
+
+    @Autowired
+    private AccountNumberResolver accountNumberResolver;
+
+    @Autowired
+    private TransactionSearchProperties properties;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long aliceId;
+    private long bobId;
+    private long aliciaId;
+    private final List<Seeded> seeded = new ArrayList<>();
+
+    /**
+     * Seeds 30 transactions between the accounts of Alice Archer, Bob Baker and Alicia Cole, several of them sharing
+     * a timestamp or an amount. The accounts get new ids every time, so the cached account numbers are evicted.
+     */
+    @BeforeEach
+    void setUp() {
+        TestData.clear(jdbcTemplate);
+        accountNumberResolver.evictAll();
+        seeded.clear();
+        TestData.createPartitions(jdbcTemplate, START, START);
+        aliceId = TestData.createAccount(jdbcTemplate, TestData.createUser(jdbcTemplate, "alice", "Alice Archer"), "SRCH-A", BigDecimal.ZERO);
+        bobId = TestData.createAccount(jdbcTemplate, TestData.createUser(jdbcTemplate, "bob", "Bob Baker"), "SRCH-B", BigDecimal.ZERO);
+        aliciaId = TestData.createAccount(jdbcTemplate, TestData.createUser(jdbcTemplate, "alicia", "Alicia Cole"), "SRCH-C", BigDecimal.ZERO);
+        long[][] pairs = {{aliceId, bobId}, {bobId, aliciaId}, {aliciaId, aliceId}};
+        for (int i = 0; i < 30; i++) {
+            long[] pair = pairs[i % 3];
+            BigDecimal amount = BigDecimal.valueOf(i % 5 + 1);
+            LocalDateTime timestamp = START.plusMinutes(i / 2);
+            long id = TestData.createTransaction(jdbcTemplate, pair[0], pair[1], amount, timestamp);
+            seeded.add(new Seeded(id, pair[0], pair[1], amount, timestamp));
+        }
+    }
+
+    /**
+     * Test method to verify that paging through the transactions of an account visits each of them once, newest first.
+     */
+    @Test
+    @DisplayName("Searching By Account Number Pages Through Its Sent And Received Transactions")
+    void search_ByAccountNumber_ShouldReturnAllTransactionsOfAccountInOrder() {
+        // Act
+        List<Long> found = searchAll(TransactionSearchCriteria.builder().accountNumber("SRCH-A").size(4).build());
+
+        // Assert
+        assertEquals(expected(t -> t.senderId() == aliceId || t.receiverId() == aliceId), found);
+    }
+
+    /**
+     * Test method to verify that a counterparty name narrows the transactions of an account to those with the holder.
+     */
+    @Test
+    @DisplayName("Searching By Account Number And Counterparty Name Returns Only Transactions With That Holder")
+    void search_ByAccountNumberAndCounterpartyName_ShouldReturnTransactionsWithCounterparty() {
+        // Act
+        List<Long> found = searchAll(TransactionSearchCriteria.builder().accountNumber("SRCH-A").counterpartyName("bob").size(3).build());
+
+        // Assert
+        assertEquals(expected(t -> t.senderId() == aliceId && t.receiverId() == bobId
+                || t.senderId() == bobId && t.receiverId() == aliceId), found);
+    }
+
+    /**
+     * Test method to verify that a name alone finds the transactions of every matching holder, once each.
+     */
+    @Test
+    @DisplayName("Searching By Name Prefix Returns Transactions Of All Matching Holders Once")
+    void search_ByNamePrefix_ShouldReturnTransactionsOfMatchingHoldersOnce() {
+        // Act
+        List<Long> found = searchAll(TransactionSearchCriteria.builder().counterpartyName("ALI").size(7).build());
+
+        // Assert
+        assertEquals(expected(t -> t.senderId() == aliceId || t.senderId() == aliciaId
+                || t.receiverId() == aliceId || t.receiverId() == aliciaId), found);
+        assertEquals(seeded.size(), found.size(), "Transactions between Alice and Alicia must be returned once");
+    }
+
+    /**
+     * Test method to verify searching by an exact amount and by a date range combined with an amount range.
+     */
+    @Test
+    @DisplayName("Searching By Exact Amount Or By Date And Amount Range Returns The Matching Transactions")
+    void search_ByAmountAndDates_ShouldReturnMatchingTransactions() {
+        // Act
+        List<Long> byAmount = searchAll(TransactionSearchCriteria.builder()
+                .minAmount(BigDecimal.valueOf(3)).maxAmount(new BigDecimal("3.00")).size(4).build());
+        List<Long> byDates = searchAll(TransactionSearchCriteria.builder()
+                .from(START.plusMinutes(3)).to(START.plusMinutes(6))
+                .minAmount(BigDecimal.valueOf(2)).maxAmount(BigDecimal.valueOf(4)).size(2).build());
+
+        // Assert
+        assertEquals(expected(t -> t.amount().intValue() == 3), byAmount);
+        assertEquals(expected(t -> !t.timestamp().isBefore(START.plusMinutes(3)) && t.timestamp().isBefore(START.plusMinutes(6))
+                && t.amount().intValue() >= 2 && t.amount().intValue() <= 4), byDates);
+    }
+
+    /**
+     * Test method to verify that the results carry the account numbers and holder names of both sides.
+     */
+    @Test
+    @DisplayName("Search Results Carry Account Numbers And Holder Names")
+    void search_ShouldProjectAccountNumbersAndNames() {
+        // Act
+        TransactionSearchResultDTO newest = transactionSearchService.search(TransactionSearchCriteria.builder()
+                .accountNumber("SRCH-B").counterpartyName("Alicia C").size(1).build()).getTransactions().get(0);
+
+        // Assert
+        assertEquals("SRCH-B", newest.getSenderAccountNumber());
+        assertEquals("Bob Baker", newest.getSenderName());
+        assertEquals("SRCH-C", newest.getReceiverAccountNumber());
+        assertEquals("Alicia Cole", newest.getReceiverName());
+    }
+
+    /**
+     * Test method to verify that filter combinations no index serves are rejected.
+     */
+    @Test
+    @DisplayName("Searches Without An Indexed Filter Are Rejected")
+    void search_WithoutIndexedFilter_ShouldBeRejected() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> transactionSearchService.search(TransactionSearchCriteria.builder()
+                .minAmount(BigDecimal.ONE).maxAmount(BigDecimal.TEN).build()), "An amount range alone must be rejected");
+        assertThrows(IllegalArgumentException.class, () -> transactionSearchService.search(TransactionSearchCriteria.builder()
+                .from(START).build()), "An open date range must be rejected");
+        assertThrows(IllegalArgumentException.class, () -> transactionSearchService.search(TransactionSearchCriteria.builder()
+                .from(START).to(START.plus(properties.getMaxDateRange()).plusDays(1)).build()), "A long date range must be rejected");
+        assertThrows(IllegalArgumentException.class, () -> transactionSearchService.search(TransactionSearchCriteria.builder()
+                .counterpartyName("al").build()), "A short name must be rejected");
+        assertThrows(ResourceNotFoundException.class, () -> transactionSearchService.search(TransactionSearchCriteria.builder()
+                .accountNumber("UNKNOWN").build()));
+    }
+
+    /**
+     * Test method to verify that a name matching more accounts than allowed is rejected.
+     */
+    @Test
+    @DisplayName("Searching By A Name Matching Too Many Accounts Is Rejected")
+    void search_ByBroadName_ShouldBeRejected() {
+        int maxNameMatches = properties.getMaxNameMatches();
+        properties.setMaxNameMatches(1);
+        try {
+            // Act & Assert
+            assertThrows(IllegalArgumentException.class, () -> transactionSearchService.search(TransactionSearchCriteria.builder()
+                    .counterpartyName("Ali").build()));
+            assertEquals(1, transactionSearchService.search(TransactionSearchCriteria.builder()
+                    .counterpartyName("Alicia").size(1).build()).getTransactions().size());
+        } finally {
+            properties.setMaxNameMatches(maxNameMatches);
+        }
+    }
+
+    /**
+     * Test method to verify that every query shape the search accepts can be served without scanning the
+     * transactions table: with sequential scans disabled, the planner only falls back to one if no index fits.
+     */
+    @Test
+    @DisplayName("Every Accepted Search Shape Is Served By An Index")
+    void explain_AcceptedSearches_ShouldNotScanTransactions() {
+        // Arrange
+        List<SearchQuery> queries = List.of(
+                new SearchQuery(List.of(aliceId), null, null, null, null, null, null, null, 20),
+                new SearchQuery(List.of(aliceId), List.of(bobId), BigDecimal.ONE, BigDecimal.TEN, null, null, START, 5L, 20),
+                new SearchQuery(List.of(aliceId, aliciaId), null, null, null, START, START.plusDays(1), null, null, 20),
+                new SearchQuery(null, null, BigDecimal.ONE, BigDecimal.ONE, null, null, START, 5L, 20),
+                new SearchQuery(null, null, BigDecimal.ONE, BigDecimal.TEN, START, START.plusDays(31), null, null, 20));
+
+        for (SearchQuery query : queries) {
+            // Act
+            List<String> plan = transactionTemplate.execute(status -> {
+                jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+                return searchRepository.explain(query);
+            });
+
+            // Assert
+            assertTrue(plan.stream().noneMatch(line -> line.contains("Seq Scan on transactions")),
+                    "Search " + query + " scans the transactions table:\n" + String.join("\n", plan));
+        }
+    }
+
+    /**
+     * Collects every page of a search and returns the transaction ids in the order they were returned.
+     */
+    private List<Long> searchAll(TransactionSearchCriteria criteria) {
+        List<Long> ids = new ArrayList<>();
+        TransactionSearchPage page = transactionSearchService.search(criteria);
+        while (true) {
+            page.getTransactions().forEach(transaction -> ids.add(transaction.getId()));
+            if (page.getNextBeforeId() == null) {
+                return ids;
+            }
+            criteria.setBeforeTimestamp(page.getNextBeforeTimestamp());
+            criteria.setBeforeId(page.getNextBeforeId());
+            page = transactionSearchService.search(criteria);
+        }
+    }
+
+    /**
+     * Returns the ids of the seeded transactions matching the filter, newest first.
+     */
+    private List<Long> expected(Predicate<Seeded> filter) {
+        return seeded.stream()
+                .filter(filter)
+                .sorted(Comparator.comparing(Seeded::timestamp).thenComparing(Seeded::id).reversed())
+                .map(Seeded::id)
+                .toList();
+    }
+
+    private record Seeded(long id, long senderId, long receiverId, BigDecimal amount, LocalDateTime timestamp) {
+    }
+}
@@ -0,0 +1,200 @@
+package portfolio.project.Banking_app;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import portfolio.project.Banking_app.config.BalanceCacheProperties;
+import portfolio.project.Banking_app.config.BankingMetricsProperties;
+import portfolio.project.Banking_app.config.TransferProperties;
+import portfolio.project.Banking_app.engine.LedgerEngine;
+import portfolio.project.Banking_app.entity.Account;
+import portfolio.project.Banking_app.exception.InsufficientFundsException;
+import portfolio.project.Banking_app.repository.AccountRepository;
+import portfolio.project.Banking_app.repository.TransactionRepository;
+import portfolio.project.Banking_app.service.AccountNumberResolver;
+import portfolio.project.Banking_app.service.BalanceCache;
+import portfolio.project.Banking_app.service.BankingMetrics;
+import portfolio.project.Banking_app.service.OutboxService;
+import portfolio.project.Banking_app.service.StripedBalanceService;
+import portfolio.project.Banking_app.service.TransactionService;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class for the instrumentation of {@link TransactionService}: the split of a transfer's time into waiting for
+ * its row locks and executing, and the sampling of the success log.
+ */
+class TransactionServiceTest {
+
+    private static final long LOCK_WAIT_MILLIS = 100;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private AccountNumberResolver accountNumberResolver;
+
+    @Mock
+    private StripedBalanceService stripedBalances;
+
+    @Mock
+    private OutboxService outbox;
+
+    @Mock
+    private LedgerEngine ledgerEngine;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private BankingMetrics metrics;
+    private TransactionService transactionService;
+    private Account sender;
+    private AutoCloseable mocks;
+
+    /**
+     * Set up method to create the service on mocked repositories, with two accounts whose row locks take
+     * {@value #LOCK_WAIT_MILLIS} ms to be granted.
+     */
+    @BeforeEach
+    void setUp() {
+        mocks = MockitoAnnotations.openMocks(this);
+        BankingMetricsProperties metricsProperties = new BankingMetricsProperties();
+        metricsProperties.setTransferLogSampleRate(0.5);
+        metrics = spy(new BankingMetrics(meterRegistry, metricsProperties));
+        transactionService = new TransactionService(transactionRepository, accountRepository,
+                new TransactionTemplate(transactionManager), new TransferProperties(),
+                new BalanceCache(new BalanceCacheProperties(), new SimpleMeterRegistry()), metrics,
+                accountNumberResolver, stripedBalances, outbox, ledgerEngine);
+
+        sender = account(1L, "SENDER", BigDecimal.valueOf(100));
+        Account receiver = account(2L, "RECEIVER", BigDecimal.ZERO);
+        when(accountNumberResolver.resolve("SENDER")).thenReturn(Optional.of(1L));
+        when(accountNumberResolver.resolve("RECEIVER")).thenReturn(Optional.of(2L));
+        when(accountRepository.findAllByIdInForUpdate(anyCollection())).thenAnswer(invocation -> {
+            Thread.sleep(LOCK_WAIT_MILLIS);
+            return List.of(sender, receiver);
+        });
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        mocks.close();
+    }
+
+    /**
+     * Test method to verify that the time spent waiting for the row locks is recorded as lock wait, not as
+     * execution.
+     */
+    @Test
+    @DisplayName("Lock Wait And Execution Are Timed Separately")
+    void makeTransaction_ShouldSplitLockWaitFromExecution() {
+        // Act
+        transactionService.makeTransaction("SENDER", "RECEIVER", BigDecimal.TEN);
+
+        // Assert
+        Timer lockWait = meterRegistry.get("banking.transfer.phase").tag("phase", "lock_wait").timer();
+        Timer execution = meterRegistry.get("banking.transfer.phase").tag("phase", "execution").timer();
+        assertEquals(1, lockWait.count());
+        assertEquals(1, execution.count());
+        assertTrue(lockWait.totalTime(TimeUnit.MILLISECONDS) >= LOCK_WAIT_MILLIS,
+                "The lock wait must cover the locking query, got " + lockWait.totalTime(TimeUnit.MILLISECONDS) + " ms");
+        assertTrue(execution.totalTime(TimeUnit.MILLISECONDS) < LOCK_WAIT_MILLIS,
+                "The execution must start once the locks are granted, got "
+                        + execution.totalTime(TimeUnit.MILLISECONDS) + " ms");
+        assertEquals(0, BigDecimal.valueOf(90).compareTo(sender.getBalance()));
+    }
+
+    /**
+     * Test method to verify that a transfer failing its funds check records its lock wait but no execution, and
+     * is counted by outcome.
+     */
+    @Test
+    @DisplayName("Rejected Transfer Records Lock Wait Only")
+    void makeTransaction_InsufficientFunds_ShouldRecordLockWaitOnly() {
+        // Act
+        assertThrows(InsufficientFundsException.class,
+                () -> transactionService.makeTransaction("SENDER", "RECEIVER", BigDecimal.valueOf(1000)));
+
+        // Assert
+        assertEquals(1, meterRegistry.get("banking.transfer.phase").tag("phase", "lock_wait").timer().count());
+        assertEquals(0, meterRegistry.get("banking.transfer.phase").tag("phase", "execution").timer().count());
+        assertEquals(1, meterRegistry.get("banking.operation")
+                .tags("operation", "transfer", "outcome", "insufficient_funds").timer().count());
+    }
+
+    /**
+     * Test method to verify that only successful transfers are offered to the log sampler.
+     */
+    @Test
+    @DisplayName("Only Successful Transfers Are Sampled For The Log")
+    void makeTransaction_ShouldSampleLogOfSuccessfulTransfersOnly() {
+        // Act
+        transactionService.makeTransaction("SENDER", "RECEIVER", BigDecimal.TEN);
+        assertThrows(InsufficientFundsException.class,
+                () -> transactionService.makeTransaction("SENDER", "RECEIVER", BigDecimal.valueOf(1000)));
+
+        // Assert
+        verify(metrics, times(1)).sampleTransferLog();
+    }
+
+    /**
+     * Test method to verify that the log sample rate logs no transfer at 0, every transfer at 1, and about the
+     * given fraction in between.
+     */
+    @Test
+    @DisplayName("Transfer Log Is Sampled At The Configured Rate")
+    void sampleTransferLog_ShouldFollowSampleRate() {
+        // Act
+        int never = sampled(0.0, 10_000);
+        int always = sampled(1.0, 10_000);
+        int tenth = sampled(0.1, 100_000);
+
+        // Assert
+        assertEquals(0, never);
+        assertEquals(10_000, always);
+        assertTrue(tenth > 9_000 && tenth < 11_000, "Expected about 10000 sampled transfers, got " + tenth);
+    }
+
+    private static int sampled(double rate, int transfers) {
+        BankingMetricsProperties properties = new BankingMetricsProperties();
+        properties.setTransferLogSampleRate(rate);
+        BankingMetrics sampler = new BankingMetrics(new SimpleMeterRegistry(), properties);
+        int sampled = 0;
+        for (int i = 0; i < transfers; i++) {
+            if (sampler.sampleTransferLog()) {
+                sampled++;
+            }
+        }
+        return sampled;
+    }
+
+    private static Account account(long id, String accountNumber, BigDecimal balance) {
+        Account account = new Account();
+        account.setId(id);
+        account.setAccountNumber(accountNumber);
+        account.setBalance(balance);
+        return account;
+    }
+}
@@ -0,0 +1,113 @@
+package portfolio.project.Banking_app;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import portfolio.project.Banking_app.dto.TransferResult;
+import portfolio.project.Banking_app.exception.InsufficientFundsException;
+import portfolio.project.Banking_app.exception.ResourceNotFoundException;
+import portfolio.project.Banking_app.service.TransferBatchService;
+
+import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Integration test for {@link TransferBatchService}.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc
+class TransferBatchServiceTest {
+
+    @Autowired
+    private TransferBatchService transferBatchService;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Seeds two accounts with 100 each.
+     */
+    @BeforeEach
+    void setUp() {
+        TestData.clear(jdbcTemplate);
+        long userId = TestData.createUser(jdbcTemplate, "batch");
+        TestData.createAccount(jdbcTemplate, userId, "BATCH-A", BigDecimal.valueOf(100));
+        TestData.createAccount(jdbcTemplate, userId, "BATCH-B", BigDecimal.valueOf(100));
+    }
+
+    /**
+     * Test method to verify that a failing transfer does not abort the other transfers of its batch.
+     */
+    @Test
+    @DisplayName("Failed Transfers Are Isolated Within A Batch")
+    void submit_FailingTransfers_ShouldNotAbortBatch() throws Exception {
+        // Act
+        CompletableFuture<TransferResult> first = transferBatchService.submit("BATCH-A", "BATCH-B", BigDecimal.valueOf(60));
+        CompletableFuture<TransferResult> overdraft = transferBatchService.submit("BATCH-A", "BATCH-B", BigDecimal.valueOf(60));
+        CompletableFuture<TransferResult> unknown = transferBatchService.submit("BATCH-A", "BATCH-X", BigDecimal.valueOf(1));
+        CompletableFuture<TransferResult> back = transferBatchService.submit("BATCH-B", "BATCH-A", BigDecimal.valueOf(10));
+
+        // Assert
+        assertEquals(BigDecimal.valueOf(60), first.get(10, TimeUnit.SECONDS).getAmount());
+        assertEquals(BigDecimal.valueOf(10), back.get(10, TimeUnit.SECONDS).getAmount());
+        ExecutionException insufficient = assertThrows(ExecutionException.class, () -> overdraft.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(InsufficientFundsException.class, insufficient.getCause());
+        ExecutionException notFound = assertThrows(ExecutionException.class, () -> unknown.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(ResourceNotFoundException.class, notFound.getCause());
+
+        assertEquals(0, BigDecimal.valueOf(50).compareTo(balanceOf("BATCH-A")), "Sender balance after both transfers");
+        assertEquals(0, BigDecimal.valueOf(150).compareTo(balanceOf("BATCH-B")), "Receiver balance after both transfers");
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transactions", Integer.class));
+    }
+
+    /**
+     * Test method to verify that the transfer endpoint queues transfers in the batcher while batching is enabled.
+     */
+    @Test
+    @WithMockUser
+    @DisplayName("Transfer Endpoint Goes Through The Batcher")
+    void transfer_BatchingEnabled_ShouldSubmitToBatcher() throws Exception {
+        // Arrange
+        double batched = batchedTransfers();
+
+        // Act
+        MvcResult result = mockMvc.perform(post("/api/transfers")
+                        .param("sender", "BATCH-A").param("receiver", "BATCH-B").param("amount", "25").with(csrf()))
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+
+        // Assert
+        assertEquals(batched + 1, batchedTransfers(), "The transfer must be recorded as a batch transfer");
+        assertEquals(0, BigDecimal.valueOf(75).compareTo(balanceOf("BATCH-A")));
+        assertEquals(0, BigDecimal.valueOf(125).compareTo(balanceOf("BATCH-B")));
+    }
+
+    private double batchedTransfers() {
+        return meterRegistry.get("banking.operation").tags("operation", "batch_transfer", "outcome", "success").timer().count();
+    }
+
+    private BigDecimal balanceOf(String accountNumber) {
+        return jdbcTemplate.queryForObject("SELECT balance FROM accounts WHERE account_number = ?", BigDecimal.class, accountNumber);
+    }
+}
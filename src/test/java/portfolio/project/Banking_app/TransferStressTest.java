@@ -0,0 +1,120 @@
+package portfolio.project.Banking_app;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import portfolio.project.Banking_app.exception.InsufficientFundsException;
+import portfolio.project.Banking_app.service.TransactionService;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Multi-threaded stress test for {@link TransactionService#makeTransaction}.
+ * <p>
+ * A small set of accounts is hammered with random transfers in both directions, which would either lose
+ * updates or deadlock without ordered row locking. The total balance must be unchanged afterwards.
+ */
+@Slf4j
+@Tag("perf")
+@IntegrationTest
+class TransferStressTest {
+
+    private static final int ACCOUNTS = 16;
+    private static final int TRANSFERS_PER_RUN = 4_000;
+    private static final BigDecimal INITIAL_BALANCE = BigDecimal.valueOf(1_000);
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Seeds a fresh set of accounts before each run.
+     */
+    @BeforeEach
+    void setUp() {
+        TestData.clear(jdbcTemplate);
+        long userId = TestData.createUser(jdbcTemplate, "stress");
+        for (int i = 0; i < ACCOUNTS; i++) {
+            TestData.createAccount(jdbcTemplate, userId, accountNumber(i), INITIAL_BALANCE);
+        }
+    }
+
+    /**
+     * Runs concurrent random transfers and verifies that money is neither created nor lost.
+     */
+    @ParameterizedTest(name = "{0} threads")
+    @ValueSource(ints = {1, 8, 64})
+    @DisplayName("Concurrent transfers keep the total balance constant")
+    void concurrentTransfers_ShouldPreserveTotalBalance(int threads) throws Exception {
+        BigDecimal totalBefore = TestData.totalBalance(jdbcTemplate);
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        int perThread = TRANSFERS_PER_RUN / threads;
+
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < perThread; i++) {
+                    int from = random.nextInt(ACCOUNTS);
+                    int to = (from + 1 + random.nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+                    try {
+                        transactionService.makeTransaction(accountNumber(from), accountNumber(to),
+                                BigDecimal.valueOf(random.nextInt(1, 50)));
+                        completed.incrementAndGet();
+                    } catch (InsufficientFundsException e) {
+                        rejected.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+
+        long startNanos = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsedNanos = System.nanoTime() - startNanos;
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        double perSecond = (completed.get() + rejected.get()) / (elapsedNanos / 1e9);
+        log.info("makeTransaction, {} threads: {} transfers/sec ({} completed, {} rejected)",
+                threads, Math.round(perSecond), completed.get(), rejected.get());
+
+        assertEquals(0, totalBefore.compareTo(TestData.totalBalance(jdbcTemplate)),
+                "Total balance must not change");
+        assertEquals(completed.get(),
+                jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transactions", Integer.class),
+                "Every completed transfer must be recorded exactly once");
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM accounts WHERE balance < 0", Integer.class),
+                "No account may be overdrawn");
+    }
+
+    private static String accountNumber(int index) {
+        return String.format("STRESS-%04d", index);
+    }
+}
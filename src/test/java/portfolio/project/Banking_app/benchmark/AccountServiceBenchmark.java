@@ -0,0 +1,51 @@
+package portfolio.project.Banking_app.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import portfolio.project.Banking_app.service.AccountService;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the single-account operations of {@link AccountService}, through the Spring proxies and
+ * transactions, against embedded PostgreSQL. See {@link BankingApplicationState} for the hot and cold scenarios.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class AccountServiceBenchmark {
+
+    private AccountService accountService;
+
+    @Setup
+    public void setUp(BankingApplicationState application) {
+        accountService = application.bean(AccountService.class);
+    }
+
+    @Benchmark
+    public BigDecimal deposit(BankingApplicationState application) {
+        return accountService.deposit(application.accountId(application.randomAccount()), BigDecimal.ONE);
+    }
+
+    @Benchmark
+    public BigDecimal withdraw(BankingApplicationState application) {
+        return accountService.withdraw(application.accountId(application.randomAccount()), BigDecimal.ONE);
+    }
+
+    @Benchmark
+    public BigDecimal checkBalance(BankingApplicationState application) {
+        return accountService.checkBalance(application.accountId(application.randomAccount()));
+    }
+}
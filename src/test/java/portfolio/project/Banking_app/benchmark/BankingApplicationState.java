@@ -0,0 +1,103 @@
+package portfolio.project.Banking_app.benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import portfolio.project.Banking_app.BankingAppApplication;
+import portfolio.project.Banking_app.EmbeddedPostgresConfiguration;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Application context shared by all benchmark threads of a fork: the full service layer on top of embedded
+ * PostgreSQL, seeded with {@value #HOT_ACCOUNTS} hot and {@value #COLD_ACCOUNTS} cold accounts.
+ * <p>
+ * With {@code accounts=hot} every operation picks one of the few hot accounts, so multi-threaded runs contend on
+ * the same rows and the balance cache always hits. With {@code accounts=cold} operations are spread over all
+ * accounts, far more than the balance cache holds, so reads mostly miss the cache and writes rarely collide.
+ */
+@State(Scope.Benchmark)
+public class BankingApplicationState {
+
+    static final int HOT_ACCOUNTS = 4;
+    static final int COLD_ACCOUNTS = 200_000;
+
+    @Param({"hot", "cold"})
+    private String accounts;
+
+    private ConfigurableApplicationContext context;
+    private long[] accountIds;
+    private String[] accountNumbers;
+
+    /**
+     * Starts the application and seeds the accounts, once per fork.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(BankingAppApplication.class, EmbeddedPostgresConfiguration.class)
+                .web(WebApplicationType.NONE)
+                .profiles("it")
+                .properties("banking.transfer.batch.enabled=false",
+                        "banking.balance-cache.maximum-size=10000",
+                        "logging.level.portfolio.project.Banking_app=WARN")
+                .run();
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.update("INSERT INTO users (id, username, password, full_name, email) "
+                + "VALUES (nextval('users_seq'), 'bench', 'secret', 'Benchmark User', 'bench@example.com')");
+        // Large balances, so withdrawals and transfers never run out of funds during a run
+        jdbcTemplate.update("INSERT INTO accounts (id, account_number, pin, account_login_number, account_login_password, balance, user_id) "
+                + "SELECT nextval('accounts_seq'), 'BENCH-' || n, 'x', 'login-' || n, 'password', 1000000000000, "
+                + "(SELECT id FROM users WHERE username = 'bench') FROM generate_series(0, ?) AS n", COLD_ACCOUNTS - 1);
+        jdbcTemplate.execute("ANALYZE accounts");
+        List<Long> ids = jdbcTemplate.queryForList("SELECT id FROM accounts ORDER BY id", Long.class);
+        accountIds = ids.stream().mapToLong(Long::longValue).toArray();
+        accountNumbers = jdbcTemplate.queryForList("SELECT account_number FROM accounts ORDER BY id", String.class)
+                .toArray(String[]::new);
+    }
+
+    /**
+     * Stops the application.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * Returns a bean of the running application.
+     */
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    /**
+     * Returns a random account index from the pool selected by the {@code accounts} parameter.
+     */
+    public int randomAccount() {
+        return ThreadLocalRandom.current().nextInt("hot".equals(accounts) ? HOT_ACCOUNTS : COLD_ACCOUNTS);
+    }
+
+    /**
+     * Returns a random account index from the pool other than the given one.
+     */
+    public int otherRandomAccount(int account) {
+        int pool = "hot".equals(accounts) ? HOT_ACCOUNTS : COLD_ACCOUNTS;
+        return (account + 1 + ThreadLocalRandom.current().nextInt(pool - 1)) % pool;
+    }
+
+    public long accountId(int account) {
+        return accountIds[account];
+    }
+
+    public String accountNumber(int account) {
+        return accountNumbers[account];
+    }
+}
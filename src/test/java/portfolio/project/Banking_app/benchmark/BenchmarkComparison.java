@@ -0,0 +1,76 @@
+package portfolio.project.Banking_app.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares a JMH JSON result file with a baseline and exits with status 1 when any benchmark regressed by more
+ * than the threshold. Benchmarks are matched by name, parameters and thread count. For throughput results a lower
+ * score is a regression, for time-per-operation results a higher one.
+ * <p>
+ * Arguments: the current result file, the threshold in percent and the baseline result file. Without a baseline
+ * the comparison is skipped.
+ */
+public final class BenchmarkComparison {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private BenchmarkComparison() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3 || args[2].isBlank()) {
+            System.out.println("No baseline given (-Djmh.baseline), skipping the comparison.");
+            return;
+        }
+        Map<String, JsonNode> current = read(new File(args[0]));
+        double threshold = Double.parseDouble(args[1]) / 100;
+        Map<String, JsonNode> baseline = read(new File(args[2]));
+
+        List<String> regressions = new ArrayList<>();
+        for (Map.Entry<String, JsonNode> entry : baseline.entrySet()) {
+            JsonNode now = current.get(entry.getKey());
+            if (now == null) {
+                System.out.printf("%-90s missing from the current run%n", entry.getKey());
+                continue;
+            }
+            double before = entry.getValue().path("primaryMetric").path("score").asDouble();
+            double after = now.path("primaryMetric").path("score").asDouble();
+            boolean higherIsBetter = "thrpt".equals(now.path("mode").asText());
+            double change = (after - before) / before;
+            boolean regressed = higherIsBetter ? change < -threshold : change > threshold;
+            System.out.printf("%-90s %14.2f -> %14.2f %s (%+.1f%%)%s%n", entry.getKey(), before, after,
+                    now.path("primaryMetric").path("scoreUnit").asText(), change * 100, regressed ? "  REGRESSION" : "");
+            if (regressed) {
+                regressions.add(entry.getKey());
+            }
+        }
+
+        if (!regressions.isEmpty()) {
+            System.out.printf("%d benchmark(s) regressed by more than %s%%%n", regressions.size(), args[1]);
+            System.exit(1);
+        }
+        System.out.println("No benchmark regressed by more than " + args[1] + "%");
+    }
+
+    /**
+     * Reads a JMH JSON result file, keyed by benchmark name, parameters and thread count.
+     */
+    private static Map<String, JsonNode> read(File file) throws IOException {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (JsonNode result : MAPPER.readTree(file)) {
+            Map<String, String> params = new TreeMap<>();
+            result.path("params").fields().forEachRemaining(param -> params.put(param.getKey(), param.getValue().asText()));
+            results.put(result.path("benchmark").asText() + params + " threads=" + result.path("threads").asInt(), result);
+        }
+        return results;
+    }
+}
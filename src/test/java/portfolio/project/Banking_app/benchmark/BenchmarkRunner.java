@@ -0,0 +1,49 @@
+package portfolio.project.Banking_app.benchmark;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatFactory;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs the benchmarks once per thread count and writes all results to a single JMH JSON file.
+ * Started by the {@code jmh} Maven profile.
+ * <p>
+ * Arguments: the result file, a comma separated list of thread counts (default {@code 1,8}) and
+ * a regular expression selecting the benchmarks (default: all of them).
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        String resultFile = args.length > 0 ? args[0] : "target/jmh-result.json";
+        String threadCounts = args.length > 1 && !args[1].isBlank() ? args[1] : "1,8";
+        String include = args.length > 2 && !args[2].isBlank() ? args[2] : BenchmarkRunner.class.getPackageName() + ".*";
+
+        List<RunResult> results = new ArrayList<>();
+        for (String threads : threadCounts.split(",")) {
+            Options options = new OptionsBuilder()
+                    .include(include)
+                    .threads(Integer.parseInt(threads.trim()))
+                    .shouldFailOnError(true)
+                    .build();
+            results.addAll(new Runner(options).run());
+        }
+
+        try (PrintStream out = new PrintStream(resultFile, StandardCharsets.UTF_8)) {
+            ResultFormatFactory.getInstance(ResultFormatType.JSON, out).writeOut(results);
+        }
+        System.out.printf("Wrote %d benchmark results to %s%n", results.size(), resultFile);
+    }
+}
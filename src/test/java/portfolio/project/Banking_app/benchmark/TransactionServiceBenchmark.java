@@ -0,0 +1,44 @@
+package portfolio.project.Banking_app.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import portfolio.project.Banking_app.service.TransactionService;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link TransactionService#makeTransaction} between two random accounts of the selected pool.
+ * With hot accounts and several threads most transfers wait for the row locks of another one, which is the
+ * contended case; lock conflicts are retried inside the service and count as one operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class TransactionServiceBenchmark {
+
+    private TransactionService transactionService;
+
+    @Setup
+    public void setUp(BankingApplicationState application) {
+        transactionService = application.bean(TransactionService.class);
+    }
+
+    @Benchmark
+    public void makeTransaction(BankingApplicationState application) {
+        int sender = application.randomAccount();
+        int receiver = application.otherRandomAccount(sender);
+        transactionService.makeTransaction(application.accountNumber(sender), application.accountNumber(receiver), BigDecimal.ONE);
+    }
+}